@@ -94,6 +94,8 @@ public interface Buf {
 
 	void get(BufRange range, byte[] dest, int offset);
 
+	void get(BufRange range, Buf dest);
+
 	byte next();
 
 	void back(int count);
@@ -394,6 +394,26 @@ public class MultiBuf extends OutputStream implements Buf, Constants {
 		assert invariant(false);
 	}
 
+	@Override
+	public void get(BufRange range, Buf dest) {
+		assert invariant(false);
+
+		if (range.start + range.length > _size()) {
+			throw new IllegalArgumentException("offset + length > buffer size!");
+		}
+
+		if (range.length > 0) {
+			try {
+				// the segments are appended directly, without copying them into a temporary array
+				writeTo(TO_CHANNEL, range.start, range.length, null, new BufAppender(dest), null, 0);
+			} catch (IOException e) {
+				throw U.rte(e);
+			}
+		}
+
+		assert invariant(false);
+	}
+
 	private int writeToHelper(BufRange range) {
 		assert invariant(false);
 		return readAll(HELPER, 0, range.start, range.length);
@@ -757,6 +777,7 @@ public class MultiBuf extends OutputStream implements Buf, Constants {
 		shrinkN = 0;
 		bufN = 0;
 		_position = 0;
+		_checkpoint = 0;
 
 		sizeChanged();
 
@@ -947,7 +968,8 @@ public class MultiBuf extends OutputStream implements Buf, Constants {
 		_size = _size();
 		_limit = _size();
 
-		if (bufN == 1) {
+		// the single buffer's bytes can be accessed directly only if nothing was deleted from its start
+		if (bufN == 1 && shrinkN == 0) {
 			singleBytes.setBuf(bufs[0]);
 			_bytes = singleBytes;
 		} else {
@@ -1416,4 +1438,30 @@ public class MultiBuf extends OutputStream implements Buf, Constants {
 		}
 	}
 
+	private static class BufAppender implements WritableByteChannel {
+
+		private final Buf dest;
+
+		private BufAppender(Buf dest) {
+			this.dest = dest;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			int count = src.remaining();
+			dest.append(src);
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
 }
@@ -174,6 +174,11 @@ public class SynchronizedBuf extends OutputStream implements Buf {
 		buf.get(range, dest, offset);
 	}
 
+	@Override
+	public synchronized void get(BufRange range, Buf dest) {
+		buf.get(range, dest);
+	}
+
 	@Override
 	public synchronized byte next() {
 		return buf.next();
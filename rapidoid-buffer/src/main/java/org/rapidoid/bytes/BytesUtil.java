@@ -3,7 +3,6 @@ package org.rapidoid.bytes;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.commons.Err;
 import org.rapidoid.data.BufRange;
 import org.rapidoid.data.BufRanges;
 import org.rapidoid.util.Constants;
@@ -280,7 +279,21 @@ public class BytesUtil extends RapidoidThing implements Constants {
 	}
 
 	private static int findNoCase(Bytes bytes, int start, int limit, byte[] match, int offset, int length) {
-		throw Err.notReady();
+		if (limit - start < length) {
+			return -1;
+		}
+
+		int pos = start;
+		int last = limit - length;
+
+		while ((pos = scanNoCase(bytes, pos, last, match[offset])) >= 0) {
+			if (matchNoCase(bytes, pos, match, offset, length)) {
+				return pos;
+			}
+			pos++;
+		}
+
+		return -1;
 	}
 
 	private static int findSensitive(Bytes bytes, int start, int limit, byte[] match, int offset, int length) {
@@ -70,6 +70,21 @@ public class BufTest extends BufferTestCommons implements Constants {
 		eq(buf, "FooBarBazingaXYZW");
 	}
 
+	@Test
+	public void shouldScanAfterDeletingFromSingleBuffer() {
+		Buf buf = new BufGroup(10).newBuf();
+
+		buf.append("first line\nsecond line\n");
+		buf.deleteBefore(11);
+
+		BufRange line = new BufRange();
+		buf.position(0);
+		buf.scanLn(line);
+
+		eq(line.str(buf), "second line");
+		eq(buf.bytes().get(0), (byte) 's');
+	}
+
 	@Test
 	public void shouldShrinkOnLeft() {
 		BufGroup bufs = new BufGroup(2);
@@ -421,6 +436,40 @@ public class BufTest extends BufferTestCommons implements Constants {
 		}
 	}
 
+	@Test
+	public void testCopyRangeToBuf() {
+		BufGroup bufs = new BufGroup(2);
+
+		Buf src = bufs.newBuf();
+		src.append("0123456789abcdefghij");
+		src.deleteBefore(3);
+
+		Buf dest = bufs.newBuf();
+		dest.append("x");
+
+		src.get(new BufRange(2, 11), dest);
+		src.get(new BufRange(0, 0), dest);
+		src.get(new BufRange(16, 1), dest);
+
+		eq(dest.asText(), "x56789abcdefj");
+		eq(src.asText(), "3456789abcdefghij");
+	}
+
+	@Test
+	public void shouldResetCheckpointOnClear() {
+		Buf buf = new BufGroup(2).newBuf();
+
+		buf.append("abcdefgh");
+		buf.checkpoint(5);
+		buf.clear();
+
+		eq(buf.checkpoint(), 0);
+
+		// e.g. the connection was closed while processing its input
+		buf.deleteBefore(buf.checkpoint());
+		eq(buf.size(), 0);
+	}
+
 	private void checkMatch(Buf buf, int start, int limit, String match, int... positions) {
 		for (int pos : positions) {
 			int p = BytesUtil.find(buf.bytes(), start, limit, match.getBytes(), true);
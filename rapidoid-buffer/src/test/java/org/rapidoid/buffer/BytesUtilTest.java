@@ -81,6 +81,16 @@ public class BytesUtilTest extends BufferTestCommons {
 		isFalse(isValid("\ng"));
 	}
 
+	@Test
+	public void testFindNoCase() {
+		Buf buf = buf("gzip, ChunKed");
+		byte[] chunked = "chunked".getBytes();
+
+		eq(BytesUtil.find(buf.bytes(), 0, buf.size(), chunked, false), 6);
+		eq(BytesUtil.find(buf.bytes(), 0, buf.size(), chunked, true), -1);
+		eq(BytesUtil.find(buf.bytes(), 0, buf.size() - 1, chunked, false), -1);
+	}
+
 	private boolean isValid(String uri) {
 		Buf buf = buf(uri);
 		BufRange uriRange = BufRange.fromTo(0, buf.size());
@@ -20,11 +20,15 @@ package org.rapidoid.activity;
  * #L%
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.data.JSON;
+import org.rapidoid.io.DelegatingOutputStream;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 @Authors("Nikolche Mihajlovski")
 @Since("5.2.0")
@@ -55,6 +59,12 @@ public class RapidoidThreadLocals extends RapidoidThing {
 
 	public Object renderContext;
 
+	private final DelegatingOutputStream jsonOutput = new DelegatingOutputStream();
+
+	private JsonGenerator jsonGenerator;
+
+	private boolean jsonGeneratorInUse;
+
 	public ByteArrayOutputStream jsonRenderingStream() {
 		jsonRenderingStream.reset();
 		return jsonRenderingStream;
@@ -70,4 +80,31 @@ public class RapidoidThreadLocals extends RapidoidThing {
 		return templateRenderingStream;
 	}
 
+	/**
+	 * Returns the (reusable) JSON generator of the current thread, bound to the specified output stream,
+	 * or <code>null</code> if it is already in use (e.g. in nested serialization).
+	 */
+	public JsonGenerator acquireJsonGenerator(OutputStream out) {
+		if (jsonGeneratorInUse) return null;
+
+		jsonOutput.target(out);
+
+		if (jsonGenerator == null) {
+			jsonGenerator = JSON.newGenerator(jsonOutput);
+		}
+
+		jsonGeneratorInUse = true;
+		return jsonGenerator;
+	}
+
+	public void releaseJsonGenerator(boolean reusable) {
+		jsonOutput.target(null);
+		jsonGeneratorInUse = false;
+
+		if (!reusable) {
+			// the generator's state is unknown after a failure
+			jsonGenerator = null;
+		}
+	}
+
 }
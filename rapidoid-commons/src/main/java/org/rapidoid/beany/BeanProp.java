@@ -4,6 +4,8 @@ import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.cls.Cls;
+import org.rapidoid.cls.Invokers;
+import org.rapidoid.cls.MethodInvoker;
 import org.rapidoid.cls.TypeKind;
 import org.rapidoid.commons.Err;
 import org.rapidoid.u.U;
@@ -40,6 +42,8 @@ import java.util.Map;
 @Since("2.0.0")
 public class BeanProp extends RapidoidThing implements Prop {
 
+	private static final Object[] NO_ARGS = {};
+
 	private final String name;
 
 	private Field field;
@@ -48,6 +52,10 @@ public class BeanProp extends RapidoidThing implements Prop {
 
 	private Method setter;
 
+	private volatile MethodInvoker getterInvoker;
+
+	private volatile MethodInvoker setterInvoker;
+
 	private Class<?> declaringType;
 
 	private Class<?> type;
@@ -121,10 +129,12 @@ public class BeanProp extends RapidoidThing implements Prop {
 
 	public void setGetter(Method getter) {
 		this.getter = getter;
+		this.getterInvoker = null;
 	}
 
 	public void setSetter(Method setter) {
 		this.setter = setter;
+		this.setterInvoker = null;
 	}
 
 	public Method getGetter() {
@@ -164,7 +174,7 @@ public class BeanProp extends RapidoidThing implements Prop {
 
 		try {
 			if (getter != null) {
-				return (T) getter.invoke(target);
+				return (T) getterInvoker().invoke(target, NO_ARGS);
 			} else {
 				return (T) field.get(target);
 			}
@@ -330,8 +340,7 @@ public class BeanProp extends RapidoidThing implements Prop {
 				field.setAccessible(true);
 				field.set(target, Cls.convert(value, field.getType()));
 			} else if (setter != null) {
-				setter.setAccessible(true);
-				setter.invoke(target, Cls.convert(value, setter.getParameterTypes()[0]));
+				setterInvoker().invoke(target, new Object[]{Cls.convert(value, setter.getParameterTypes()[0])});
 			} else if (getter != null) {
 				throw Err.notExpected();
 			}
@@ -340,6 +349,26 @@ public class BeanProp extends RapidoidThing implements Prop {
 		}
 	}
 
+	private MethodInvoker getterInvoker() {
+		MethodInvoker invoker = getterInvoker;
+
+		if (invoker == null) {
+			invoker = getterInvoker = Invokers.of(getter);
+		}
+
+		return invoker;
+	}
+
+	private MethodInvoker setterInvoker() {
+		MethodInvoker invoker = setterInvoker;
+
+		if (invoker == null) {
+			invoker = setterInvoker = Invokers.of(setter);
+		}
+
+		return invoker;
+	}
+
 	@Override
 	public Class<?> getType() {
 		return type;
@@ -372,7 +401,7 @@ public class BeanProp extends RapidoidThing implements Prop {
 	public Object getFast(Object target) {
 		try {
 			if (getter != null) {
-				return getter.invoke(target);
+				return getterInvoker().invoke(target, NO_ARGS);
 			} else {
 				return field.get(target);
 			}
@@ -0,0 +1,263 @@
+package org.rapidoid.cls;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javassist.*;
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+import org.rapidoid.u.U;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates (with Javassist) classes that invoke the target methods directly, instead of using reflection.
+ * Falls back to reflection if the method is not accessible from the generated class.
+ * <p>
+ * The generated classes are defined in the package of the target class. On Java 9+ they are defined through
+ * <code>MethodHandles.Lookup#defineClass</code>, which also works on Java 16+, where Javassist can't define them.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class Invokers extends RapidoidThing {
+
+	private static final AtomicInteger ID_GEN = new AtomicInteger();
+
+	private static final AtomicBoolean GENERATION_FAILED = new AtomicBoolean();
+
+	// Java 9+
+	private static final Method PRIVATE_LOOKUP_IN = lookupMethod(MethodHandles.class, "privateLookupIn", Class.class, MethodHandles.Lookup.class);
+
+	// Java 9+
+	private static final Method LOOKUP_DEFINE_CLASS = lookupMethod(MethodHandles.Lookup.class, "defineClass", byte[].class);
+
+	/**
+	 * The invokers are attached to the declaring class, so they don't keep the (web app) class loaders alive.
+	 */
+	private static final ClassValue<ConcurrentMap<Method, MethodInvoker>> INVOKERS = new ClassValue<ConcurrentMap<Method, MethodInvoker>>() {
+		@Override
+		protected ConcurrentMap<Method, MethodInvoker> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<Method, MethodInvoker>();
+		}
+	};
+
+	public static MethodInvoker of(Method method) {
+		ConcurrentMap<Method, MethodInvoker> invokers = INVOKERS.get(method.getDeclaringClass());
+		MethodInvoker invoker = invokers.get(method);
+
+		if (invoker == null) {
+			invoker = create(method);
+			MethodInvoker existing = invokers.putIfAbsent(method, invoker);
+
+			if (existing != null) {
+				invoker = existing;
+			}
+		}
+
+		return invoker;
+	}
+
+	public static MethodInvoker reflective(Method method) {
+		return new ReflectiveInvoker(method);
+	}
+
+	private static MethodInvoker create(Method method) {
+		if (canGenerate(method)) {
+			try {
+				return generate(method);
+			} catch (Throwable e) {
+				generationFailed("method invoker", method, e);
+			}
+		}
+
+		return reflective(method);
+	}
+
+	/**
+	 * Whether the generated classes can be defined in this JVM, otherwise reflection is used.
+	 */
+	public static boolean isGenerationSupported() {
+		return !GENERATION_FAILED.get();
+	}
+
+	/**
+	 * Reports the fallback to reflection, which is logged as a warning only the first time, to avoid flooding the log.
+	 */
+	public static void generationFailed(String kind, Object target, Throwable error) {
+		if (GENERATION_FAILED.compareAndSet(false, true)) {
+			Log.warn("Couldn't generate the bytecode, falling back to reflection (slower)", "kind", kind, "target", target, "error", error);
+		} else {
+			Log.debug("Couldn't generate " + kind + ", falling back to reflection", "target", target, "error", error);
+		}
+	}
+
+	private static boolean canGenerate(Method method) {
+		if (!java.lang.reflect.Modifier.isPublic(method.getModifiers()) || method.isSynthetic() || method.isBridge()) {
+			return false;
+		}
+
+		for (Class<?> cls = method.getDeclaringClass(); cls != null; cls = cls.getEnclosingClass()) {
+			if (!java.lang.reflect.Modifier.isPublic(cls.getModifiers())) {
+				return false;
+			}
+		}
+
+		for (Class<?> type : method.getParameterTypes()) {
+			if (!isPublicType(type)) {
+				return false;
+			}
+		}
+
+		ClassLoader loader = method.getDeclaringClass().getClassLoader();
+
+		// the generated class must be able to see both the target class and the invoker interface
+		return loader != null && isVisible(MethodInvoker.class, loader);
+	}
+
+	private static boolean isPublicType(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		for (Class<?> cls = type; cls != null; cls = cls.getEnclosingClass()) {
+			if (!java.lang.reflect.Modifier.isPublic(cls.getModifiers())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> cls, ClassLoader loader) {
+		try {
+			return Class.forName(cls.getName(), false, loader) == cls;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static MethodInvoker generate(Method method) throws Exception {
+		Class<?> target = method.getDeclaringClass();
+		ClassLoader loader = target.getClassLoader();
+
+		ClassPool cp = new ClassPool(true);
+		cp.appendClassPath(new LoaderClassPath(loader));
+
+		String name = target.getName() + "$$Invoker" + ID_GEN.incrementAndGet() + "$" + method.getName();
+		CtClass cls = cp.makeClass(name);
+
+		cls.addInterface(cp.get(MethodInvoker.class.getName()));
+		cls.addConstructor(CtNewConstructor.defaultConstructor(cls));
+		cls.addMethod(CtNewMethod.make(invokerSource(method), cls));
+
+		return (MethodInvoker) defineClass(cls, target).newInstance();
+	}
+
+	/**
+	 * Defines the generated class in the class loader of the neighbor class. The generated class must be in the same
+	 * package as the neighbor class.
+	 */
+	public static Class<?> defineClass(CtClass cls, Class<?> neighbor) throws Exception {
+		try {
+			if (PRIVATE_LOOKUP_IN != null && LOOKUP_DEFINE_CLASS != null) {
+				Object lookup = PRIVATE_LOOKUP_IN.invoke(null, neighbor, MethodHandles.lookup());
+				return (Class<?>) LOOKUP_DEFINE_CLASS.invoke(lookup, (Object) cls.toBytecode());
+
+			} else {
+				return cls.toClass(neighbor.getClassLoader(), neighbor.getProtectionDomain());
+			}
+
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause : U.rte(cause);
+
+		} finally {
+			cls.detach();
+		}
+	}
+
+	private static Method lookupMethod(Class<?> cls, String name, Class<?>... paramTypes) {
+		try {
+			return cls.getMethod(name, paramTypes);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	static String invokerSource(Method method) {
+		StringBuilder call = new StringBuilder();
+
+		if (java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
+			call.append(typeName(method.getDeclaringClass()));
+		} else {
+			call.append("((").append(typeName(method.getDeclaringClass())).append(") $1)");
+		}
+
+		call.append(".").append(method.getName()).append("(");
+
+		Class<?>[] paramTypes = method.getParameterTypes();
+		for (int i = 0; i < paramTypes.length; i++) {
+			if (i > 0) call.append(", ");
+			call.append(arg(paramTypes[i], "$2[" + i + "]"));
+		}
+
+		call.append(")");
+
+		String body = method.getReturnType() == void.class
+			? call + "; return null;"
+			: "return ($w) " + call + ";";
+
+		return "public Object invoke(Object target, Object[] args) throws Exception { " + body + " }";
+	}
+
+	private static String arg(Class<?> type, String expr) {
+		if (type.isPrimitive()) {
+			Class<?> wrapper = wrapperOf(type);
+			return "((" + wrapper.getName() + ") " + expr + ")." + type.getName() + "Value()";
+		} else {
+			return "(" + typeName(type) + ") " + expr;
+		}
+	}
+
+	private static Class<?> wrapperOf(Class<?> type) {
+		if (type == boolean.class) return Boolean.class;
+		if (type == byte.class) return Byte.class;
+		if (type == char.class) return Character.class;
+		if (type == short.class) return Short.class;
+		if (type == int.class) return Integer.class;
+		if (type == long.class) return Long.class;
+		if (type == float.class) return Float.class;
+		if (type == double.class) return Double.class;
+		throw U.rte("Not a primitive type: %s", type);
+	}
+
+	private static String typeName(Class<?> type) {
+		return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+	}
+
+}
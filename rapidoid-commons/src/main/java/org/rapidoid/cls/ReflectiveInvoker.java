@@ -0,0 +1,64 @@
+package org.rapidoid.cls;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ReflectiveInvoker extends RapidoidThing implements MethodInvoker {
+
+	private final Method method;
+
+	public ReflectiveInvoker(Method method) {
+		this.method = method;
+		method.setAccessible(true);
+	}
+
+	@Override
+	public Object invoke(Object target, Object[] args) throws Exception {
+		try {
+			return method.invoke(target, args);
+
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ReflectiveInvoker{" + method + '}';
+	}
+
+}
@@ -2,6 +2,7 @@ package org.rapidoid.collection;
 
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
 
 import java.util.Collection;
 import java.util.Map;
@@ -33,40 +34,71 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @SuppressWarnings("NullableProblems")
 public class ChangeTrackingMap<K, V> extends AbstractMapDecorator<K, V> {
 
+	/**
+	 * Beyond this number of changed keys, the map is considered entirely changed, to bound the tracking overhead.
+	 */
+	public static final int MAX_TRACKED_KEYS = 1000;
+
 	private final AtomicBoolean dirtyFlag;
 
+	// null if the changed keys are not tracked
+	private final Set<K> changedKeys;
+
+	// the changes for which the changed keys are unknown (e.g. made through the views)
+	private final AtomicBoolean untrackedChanges = new AtomicBoolean();
+
 	private transient volatile Set<Entry<K, V>> entrySet;
 	private transient volatile Set<K> keySet;
 	private transient volatile Collection<V> values;
 
 	public ChangeTrackingMap(Map<K, V> target, AtomicBoolean dirtyFlag) {
+		this(target, dirtyFlag, false);
+	}
+
+	public ChangeTrackingMap(Map<K, V> target, AtomicBoolean dirtyFlag, boolean trackKeys) {
 		super(target);
 		this.dirtyFlag = dirtyFlag;
+		this.changedKeys = trackKeys ? Coll.<K>concurrentSet() : null;
 	}
 
 	@Override
 	public V put(K k, V v) {
 		V old = decorated.put(k, v);
-		changedIf(old != v);
+		changedIf(k, old != v);
 		return old;
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public V remove(Object o) {
+		// the decorated map might not return the removed value (e.g. if it wasn't deserialized)
+		boolean existed = decorated.containsKey(o);
+
 		V removed = decorated.remove(o);
-		changedIf(removed != null);
+		changedIf((K) o, existed || removed != null);
 		return removed;
 	}
 
 	@Override
 	public void putAll(Map<? extends K, ? extends V> map) {
 		decorated.putAll(map);
-		changedIf(!map.isEmpty());
+
+		if (!map.isEmpty()) {
+			for (K key : map.keySet()) {
+				track(key);
+			}
+
+			dirtyFlag.set(true);
+		}
 	}
 
 	@Override
 	public void clear() {
 		if (!decorated.isEmpty()) {
+			for (K key : decorated.keySet()) {
+				track(key);
+			}
+
 			decorated.clear();
 			dirtyFlag.set(true);
 		}
@@ -75,7 +107,7 @@ public class ChangeTrackingMap<K, V> extends AbstractMapDecorator<K, V> {
 	@Override
 	public Set<Entry<K, V>> entrySet() {
 		if (entrySet == null) {
-			entrySet = new ChangeTrackingSet<Entry<K, V>>(super.entrySet(), dirtyFlag);
+			entrySet = new ChangeTrackingSet<Entry<K, V>>(new ChangeTrackingSet<Entry<K, V>>(super.entrySet(), untrackedChanges), dirtyFlag);
 		}
 
 		return entrySet;
@@ -84,7 +116,7 @@ public class ChangeTrackingMap<K, V> extends AbstractMapDecorator<K, V> {
 	@Override
 	public Set<K> keySet() {
 		if (keySet == null) {
-			keySet = new ChangeTrackingSet<K>(super.keySet(), dirtyFlag);
+			keySet = new ChangeTrackingSet<K>(new ChangeTrackingSet<K>(super.keySet(), untrackedChanges), dirtyFlag);
 		}
 
 		return keySet;
@@ -93,16 +125,56 @@ public class ChangeTrackingMap<K, V> extends AbstractMapDecorator<K, V> {
 	@Override
 	public Collection<V> values() {
 		if (values == null) {
-			values = new ChangeTrackingCollection<V>(super.values(), dirtyFlag);
+			values = new ChangeTrackingCollection<V>(new ChangeTrackingCollection<V>(super.values(), untrackedChanges), dirtyFlag);
 		}
 
 		return values;
 	}
 
-	private void changedIf(boolean changed) {
+	private void changedIf(K key, boolean changed) {
 		if (changed) {
+			track(key);
 			dirtyFlag.set(true);
 		}
 	}
 
+	private void track(K key) {
+		if (untrackedChanges.get()) return; // already considered entirely changed
+
+		if (changedKeys == null || key == null || changedKeys.size() >= MAX_TRACKED_KEYS) {
+			untrackedChanges.set(true);
+		} else {
+			changedKeys.add(key);
+		}
+	}
+
+	/**
+	 * Returns the keys that were changed through the map (not through its views) and stops tracking them. The other
+	 * changes (e.g. if the keys are not tracked, or too many were changed) are reported by
+	 * {@link #drainUntrackedChanges()}.
+	 */
+	public Set<K> drainChangedKeys() {
+		Set<K> keys = U.set();
+
+		if (changedKeys == null) {
+			return keys;
+		}
+
+		for (K key : changedKeys) {
+			// remove before returning, so a concurrent change will be tracked again
+			if (changedKeys.remove(key)) {
+				keys.add(key);
+			}
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns whether the map was changed with unknown changed keys (e.g. through its views), and stops tracking them.
+	 */
+	public boolean drainUntrackedChanges() {
+		return untrackedChanges.getAndSet(false);
+	}
+
 }
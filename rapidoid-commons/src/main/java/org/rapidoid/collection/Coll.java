@@ -353,4 +353,8 @@ public class Coll extends RapidoidThing {
 		return new ChangeTrackingMap<K, V>(map, dirtyFlag);
 	}
 
+	public static <K, V> ChangeTrackingMap<K, V> trackChanges(Map<K, V> map, AtomicBoolean dirtyFlag, boolean trackKeys) {
+		return new ChangeTrackingMap<K, V>(map, dirtyFlag, trackKeys);
+	}
+
 }
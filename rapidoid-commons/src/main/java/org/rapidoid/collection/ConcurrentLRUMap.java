@@ -0,0 +1,203 @@
+package org.rapidoid.collection;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded map with LRU eviction, partitioned into segments (each with its own lock and access order), so the
+ * concurrent readers and writers don't contend on a single lock. Each segment evicts its least recently used entry
+ * when it exceeds its share of the capacity, so the eviction order is LRU within each segment.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ConcurrentLRUMap<K, V> extends RapidoidThing {
+
+	private static final int MAX_SEGMENTS = 16;
+
+	private static final int MIN_SEGMENT_CAPACITY = 64;
+
+	private final Segment<K, V>[] segments;
+
+	private final int capacity;
+
+	@SuppressWarnings("unchecked")
+	public ConcurrentLRUMap(int capacity) {
+		U.must(capacity > 0, "The capacity must be positive!");
+		this.capacity = capacity;
+
+		// the small maps have fewer segments, so the eviction order is closer to LRU
+		int n = 1;
+		while (n < MAX_SEGMENTS && capacity / (n * 2) >= MIN_SEGMENT_CAPACITY) {
+			n *= 2;
+		}
+
+		this.segments = new Segment[n];
+
+		for (int i = 0; i < n; i++) {
+			segments[i] = new Segment<K, V>(this, capacity / n + (i < capacity % n ? 1 : 0));
+		}
+	}
+
+	private Segment<K, V> segment(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (segments.length - 1)];
+	}
+
+	public V get(K key) {
+		Segment<K, V> segment = segment(key);
+
+		synchronized (segment) {
+			return segment.get(key);
+		}
+	}
+
+	public V put(K key, V value) {
+		Segment<K, V> segment = segment(key);
+
+		synchronized (segment) {
+			return segment.put(key, value);
+		}
+	}
+
+	/**
+	 * Returns the existing value, if the key is already mapped, or stores the specified value and returns null.
+	 */
+	public V putIfAbsent(K key, V value) {
+		Segment<K, V> segment = segment(key);
+
+		synchronized (segment) {
+			V existing = segment.get(key);
+
+			if (existing == null) {
+				segment.put(key, value);
+			}
+
+			return existing;
+		}
+	}
+
+	public V remove(K key) {
+		Segment<K, V> segment = segment(key);
+
+		synchronized (segment) {
+			return segment.remove(key);
+		}
+	}
+
+	/**
+	 * Removes the entry only if the key is still mapped to the specified value (compared by identity).
+	 */
+	public boolean remove(K key, V value) {
+		Segment<K, V> segment = segment(key);
+
+		synchronized (segment) {
+			if (segment.get(key) == value) {
+				segment.remove(key);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * A snapshot of the entries, e.g. for invalidation of the entries that match some criteria.
+	 */
+	public List<Map.Entry<K, V>> entries() {
+		List<Map.Entry<K, V>> entries = U.list();
+
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				for (Map.Entry<K, V> e : segment.entrySet()) {
+					entries.add(new AbstractMap.SimpleImmutableEntry<K, V>(e.getKey(), e.getValue()));
+				}
+			}
+		}
+
+		return entries;
+	}
+
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Invoked (while holding the segment's lock) when the least recently used entry was evicted to make room.
+	 */
+	protected void evicted(K key, V value) {
+		// do nothing by default
+	}
+
+	@SuppressWarnings("serial")
+	private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+		private final ConcurrentLRUMap<K, V> owner;
+
+		private final int capacity;
+
+		Segment(ConcurrentLRUMap<K, V> owner, int capacity) {
+			super(16, 0.75f, true);
+			this.owner = owner;
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			if (size() > capacity) {
+				owner.evicted(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+
+			return false;
+		}
+	}
+
+}
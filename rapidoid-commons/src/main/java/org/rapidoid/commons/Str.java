@@ -41,13 +41,6 @@ public class Str extends RapidoidThing {
 
 	private static final Pattern CAMEL_SPLITTER_PATTERN = Pattern.compile(CAMEL_REGEX);
 
-	private static final String[][] XML_ESCAPE = {
-		{"&", "&amp;"},
-		{"\"", "&quot;"},
-		{"<", "&lt;"},
-		{">", "&gt;"},
-	};
-
 	private static final String[][] JAVA_ESCAPE = {
 		{"\n", "\\\\n"},
 		{"\r", "\\\\r"},
@@ -202,7 +195,43 @@ public class Str extends RapidoidThing {
 	}
 
 	public static String xmlEscape(String s) {
-		return Str.replace(s, XML_ESCAPE);
+		StringBuilder sb = null;
+		int len = s.length();
+
+		// a single pass, without copying the strings that don't need escaping
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			String repl;
+
+			switch (c) {
+				case '&':
+					repl = "&amp;";
+					break;
+				case '"':
+					repl = "&quot;";
+					break;
+				case '<':
+					repl = "&lt;";
+					break;
+				case '>':
+					repl = "&gt;";
+					break;
+				default:
+					if (sb != null) {
+						sb.append(c);
+					}
+					continue;
+			}
+
+			if (sb == null) {
+				sb = new StringBuilder(len + 16);
+				sb.append(s, 0, i);
+			}
+
+			sb.append(repl);
+		}
+
+		return sb != null ? sb.toString() : s;
 	}
 
 	public static String javaEscape(String s) {
@@ -0,0 +1,169 @@
+package org.rapidoid.concurrent;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Config;
+import org.rapidoid.u.U;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrently processed requests, adapting the limit to the measured latency (gradient-based).
+ * While the latency is close to the long-term average, the limit grows; when it increases, the limit is reduced.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ConcurrencyLimiter extends RapidoidThing {
+
+	private static final int LONG_RTT_WINDOW = 600;
+
+	private final String name;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double tolerance;
+
+	private final double smoothing;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private volatile double limit;
+
+	private double longRtt;
+
+	public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+		U.must(minLimit > 0 && minLimit <= maxLimit, "Invalid concurrency limits: [%s, %s]!", minLimit, maxLimit);
+
+		this.name = name;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+		this.smoothing = smoothing;
+		this.limit = clamp(initialLimit);
+	}
+
+	/**
+	 * Returns <code>null</code> if the concurrency limiting is not enabled in the config.
+	 */
+	public static ConcurrencyLimiter configured(String name, Config cfg) {
+		if (!cfg.entry("enabled").or(false)) return null;
+
+		int initial = cfg.entry("initial").or(100);
+		int min = cfg.entry("min").or(10);
+		int max = cfg.entry("max").or(1000);
+		double tolerance = cfg.entry("tolerance").or(1.5);
+		double smoothing = cfg.entry("smoothing").or(0.2);
+
+		return new ConcurrencyLimiter(name, initial, min, max, tolerance, smoothing);
+	}
+
+	/**
+	 * Returns <code>null</code> if the limit was reached, so the request should be rejected.
+	 */
+	public ConcurrencyPermit acquire() {
+		return acquire(System.nanoTime());
+	}
+
+	ConcurrencyPermit acquire(long startedAt) {
+		int current = inFlight.incrementAndGet();
+
+		if (current > limit) {
+			inFlight.decrementAndGet();
+			rejected.incrementAndGet();
+			return null;
+		}
+
+		return new ConcurrencyPermit(this, startedAt, current);
+	}
+
+	void onRelease(long rtt, int inFlightOnStart, boolean dropped) {
+		inFlight.decrementAndGet();
+
+		if (rtt <= 0) return;
+
+		synchronized (this) {
+			double currentLimit = limit;
+
+			if (dropped) {
+				limit = clamp(currentLimit * 0.9);
+				return;
+			}
+
+			if (longRtt == 0) {
+				longRtt = rtt;
+			} else {
+				longRtt = longRtt * (LONG_RTT_WINDOW - 1) / LONG_RTT_WINDOW + (double) rtt / LONG_RTT_WINDOW;
+			}
+
+			// the latency went down significantly, so the long-term average should recover faster
+			if (longRtt / rtt > 2) {
+				longRtt = longRtt * 0.95;
+			}
+
+			// don't grow the limit if the requests don't actually use it
+			if (inFlightOnStart < currentLimit / 2) return;
+
+			double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+			double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+
+			limit = clamp(currentLimit * (1 - smoothing) + newLimit * smoothing);
+		}
+	}
+
+	private double clamp(double value) {
+		return Math.max(minLimit, Math.min(maxLimit, value));
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public int limit() {
+		return (int) limit;
+	}
+
+	public int inFlight() {
+		return inFlight.get();
+	}
+
+	public long rejected() {
+		return rejected.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrencyLimiter{" +
+			"name='" + name + '\'' +
+			", limit=" + limit() +
+			", inFlight=" + inFlight +
+			", rejected=" + rejected +
+			'}';
+	}
+
+}
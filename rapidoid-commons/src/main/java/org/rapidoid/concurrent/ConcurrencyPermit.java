@@ -0,0 +1,83 @@
+package org.rapidoid.concurrent;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ConcurrencyPermit extends RapidoidThing {
+
+	private final ConcurrencyLimiter limiter;
+
+	private final long startedAt;
+
+	private final int inFlightOnStart;
+
+	private final AtomicBoolean released = new AtomicBoolean();
+
+	ConcurrencyPermit(ConcurrencyLimiter limiter, long startedAt, int inFlightOnStart) {
+		this.limiter = limiter;
+		this.startedAt = startedAt;
+		this.inFlightOnStart = inFlightOnStart;
+	}
+
+	/**
+	 * Releases the permit after successful processing, using the latency to adapt the limit. Safe to call more than once.
+	 */
+	public void release() {
+		release(System.nanoTime());
+	}
+
+	void release(long releasedAt) {
+		if (released.compareAndSet(false, true)) {
+			limiter.onRelease(releasedAt - startedAt, inFlightOnStart, false);
+		}
+	}
+
+	/**
+	 * Releases the permit after failed processing (e.g. timeout), reducing the limit. Safe to call more than once.
+	 */
+	public void drop() {
+		if (released.compareAndSet(false, true)) {
+			limiter.onRelease(System.nanoTime() - startedAt, inFlightOnStart, true);
+		}
+	}
+
+	/**
+	 * Releases the permit without adapting the limit, e.g. when the connection was closed before the processing was
+	 * finished. Safe to call more than once.
+	 */
+	public void abandon() {
+		if (released.compareAndSet(false, true)) {
+			limiter.onRelease(0, inFlightOnStart, false);
+		}
+	}
+
+	public boolean isReleased() {
+		return released.get();
+	}
+
+}
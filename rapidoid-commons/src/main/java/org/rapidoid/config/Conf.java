@@ -51,6 +51,7 @@ public class Conf extends RapidoidThing {
 	public static final Config OAUTH = section("oauth");
 	public static final Config JDBC = section("jdbc");
 	public static final Config HIBERNATE = section("hibernate");
+	public static final Config JPA = section("jpa");
 	public static final Config C3P0 = section("c3p0");
 	public static final Config APP = section("app");
 	public static final Config HTTP = section("http");
@@ -59,6 +60,7 @@ public class Conf extends RapidoidThing {
 	public static final Config TOKEN = section("token");
 	public static final Config PROXY = section("proxy");
 	public static final Config SQL = section("sql");
+	public static final Config TEMPLATES = section("templates");
 
 	static void applyConfig(Config config) {
 
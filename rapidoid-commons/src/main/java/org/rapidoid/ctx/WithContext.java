@@ -4,6 +4,7 @@ import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.job.Jobs;
+import org.rapidoid.job.PredefinedContextJobWrapper;
 
 import java.util.Map;
 import java.util.Set;
@@ -102,4 +103,8 @@ public class WithContext extends RapidoidThing {
 		Jobs.executeInContext(this, action);
 	}
 
+	public void runInline(Runnable action) {
+		new PredefinedContextJobWrapper(this, action).run();
+	}
+
 }
@@ -1,6 +1,7 @@
 package org.rapidoid.data;
 
 import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
@@ -9,12 +10,14 @@ import com.fasterxml.jackson.databind.deser.DeserializerCache;
 import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
 import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import org.rapidoid.RapidoidThing;
+import org.rapidoid.activity.RapidoidThreadLocals;
 import org.rapidoid.cls.Cls;
 import org.rapidoid.commons.Env;
 import org.rapidoid.log.Log;
 import org.rapidoid.u.U;
 import org.rapidoid.util.Msc;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
 
@@ -125,6 +128,47 @@ public class JSON extends RapidoidThing {
 		}
 	}
 
+	/**
+	 * Serializes the value using the reusable JSON generator of the current thread. Doesn't close the output stream.
+	 */
+	public static void stringifyPooled(Object value, OutputStream out) {
+		RapidoidThreadLocals locals = Msc.locals();
+		JsonGenerator generator = locals.acquireJsonGenerator(out);
+
+		if (generator == null) {
+			stringify(value, out);
+			return;
+		}
+
+		boolean success = false;
+
+		try {
+			MAPPER.writeValue(generator, value);
+			generator.flush();
+			success = true;
+
+		} catch (Exception e) {
+			throw U.rte(e);
+
+		} finally {
+			locals.releaseJsonGenerator(success);
+		}
+	}
+
+	public static JsonGenerator newGenerator(OutputStream out) {
+		try {
+			JsonGenerator generator = MAPPER.getFactory().createGenerator(out);
+
+			generator.setRootValueSeparator(null);
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+			return generator;
+
+		} catch (IOException e) {
+			throw U.rte(e);
+		}
+	}
+
 	public static String prettify(Object value) {
 		try {
 			return PRETTY_MAPPER.writeValueAsString(value);
@@ -0,0 +1,64 @@
+package org.rapidoid.datamodel;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.util.List;
+
+/**
+ * Data items that can be paged by keyset ("seek" method) instead of offset, so the cost of fetching a page doesn't
+ * grow with its position. The ordering is specified by property name, with a "-" prefix for descending order.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public interface KeysetDataItems extends DataItems {
+
+	/**
+	 * Whether the items can be efficiently paged by keyset, when ordered by the specified property.
+	 */
+	boolean isSeekable(String orderBy);
+
+	/**
+	 * The page of items ordered by the specified property, that come after the item with the specified key (or the
+	 * first page, if the key is <code>null</code>).<br>
+	 * To page backwards, seek after the first item of the current page in the reversed ordering.
+	 */
+	List<?> pageAfter(String orderBy, List<?> key, int length);
+
+	/**
+	 * Whether the key (e.g. received from a client) matches the ordering, so it can be used to seek after it.
+	 */
+	boolean isValidKey(String orderBy, List<?> key);
+
+	/**
+	 * The page of items ordered by the specified property, at the specified offset (e.g. when there is no key to seek
+	 * after). The previous items should be skipped by the data source, not fetched.
+	 */
+	List<?> pageAt(String orderBy, int start, int length);
+
+	/**
+	 * The key of the item for the specified ordering, to seek after (or before) it.
+	 */
+	List<?> keyOf(Object item, String orderBy);
+
+}
@@ -6,6 +6,7 @@ import org.rapidoid.annotation.Since;
 import org.rapidoid.cls.Cls;
 import org.rapidoid.collection.Coll;
 import org.rapidoid.timeseries.TimeSeries;
+import org.rapidoid.job.JobQueue;
 import org.rapidoid.job.Jobs;
 import org.rapidoid.log.Log;
 import org.rapidoid.u.U;
@@ -15,7 +16,9 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 /*
@@ -62,6 +65,8 @@ public class Metrics extends RapidoidThing implements Runnable {
 
 	private static final Once once = new Once();
 
+	private static final List<Runnable> UPDATERS = new CopyOnWriteArrayList<Runnable>();
+
 	public static void bootstrap() {
 		if (!once.go()) return;
 
@@ -96,6 +101,21 @@ public class Metrics extends RapidoidThing implements Runnable {
 		return METRICS.put(uri, metric);
 	}
 
+	public static TimeSeries unregister(String uri) {
+		return METRICS.remove(uri);
+	}
+
+	/**
+	 * Registers a task that will be executed on every metrics update, e.g. to put new values in custom metrics.
+	 */
+	public static void updater(Runnable updater) {
+		UPDATERS.add(updater);
+	}
+
+	public static void removeUpdater(Runnable updater) {
+		UPDATERS.remove(updater);
+	}
+
 	@Override
 	public void run() {
 		Runtime rt = Runtime.getRuntime();
@@ -123,6 +143,14 @@ public class Metrics extends RapidoidThing implements Runnable {
 		}
 
 		NUM_THREADS.put(U.time(), threads.getThreadCount());
+
+		for (JobQueue queue : JobQueue.all()) {
+			queue.updateMetrics();
+		}
+
+		for (Runnable updater : UPDATERS) {
+			updater.run();
+		}
 	}
 
 	public static Map<String, TimeSeries> all() {
@@ -0,0 +1,68 @@
+package org.rapidoid.io;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that writes to a target which can be changed, so the stream (and anything bound to it) can be reused.
+ * Closing this stream doesn't close the target.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class DelegatingOutputStream extends OutputStream {
+
+	private OutputStream target;
+
+	public DelegatingOutputStream target(OutputStream target) {
+		this.target = target;
+		return this;
+	}
+
+	public OutputStream target() {
+		return target;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		target.write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		target.write(b, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		target.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		// the target is not owned by this stream
+	}
+
+}
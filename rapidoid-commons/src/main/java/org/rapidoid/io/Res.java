@@ -13,6 +13,7 @@ import java.io.File;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -296,7 +297,14 @@ public class Res extends RapidoidThing {
 			Log.info("Resource has changed, reloading...", "name", name);
 		}
 
-		for (Runnable listener : changeListeners.values()) {
+		List<Runnable> listeners;
+
+		synchronized (changeListeners) {
+			// a snapshot, so the listeners can be removed while notifying
+			listeners = U.list(changeListeners.values());
+		}
+
+		for (Runnable listener : listeners) {
 			try {
 				listener.run();
 			} catch (Throwable e) {
@@ -0,0 +1,267 @@
+package org.rapidoid.job;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.Coll;
+import org.rapidoid.config.Config;
+import org.rapidoid.insight.Metrics;
+import org.rapidoid.timeseries.TimeSeries;
+import org.rapidoid.u.U;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded admission to the job executor, with priority and max. waiting time for the queued jobs.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JobQueue extends RapidoidThing {
+
+	/**
+	 * The queue of the zones that don't have a configured queue.
+	 */
+	public static final String DEFAULT_QUEUE = "main";
+
+	// the zones without a configured queue are mapped to the default queue
+	private static final ConcurrentMap<String, JobQueue> QUEUES = Coll.concurrentMap();
+
+	private final String name;
+
+	private final Executor executor;
+
+	private final int capacity;
+
+	private final long maxWait;
+
+	private final int priority;
+
+	private final AtomicInteger depth = new AtomicInteger();
+
+	private final AtomicLong shed = new AtomicLong();
+
+	private final AtomicLong expired = new AtomicLong();
+
+	private final TimeSeries depthMetric;
+
+	private final TimeSeries shedMetric;
+
+	private final TimeSeries expiredMetric;
+
+	/**
+	 * @param executor the executor of the queued jobs, or <code>null</code> for the default {@link Jobs#executor()}
+	 * @param capacity max. number of jobs waiting for execution
+	 * @param maxWait  max. time (in ms) a job can wait to start, or 0 for unlimited
+	 * @param priority the jobs from queues with higher priority are executed first
+	 */
+	public JobQueue(String name, Executor executor, int capacity, long maxWait, int priority) {
+		this.name = name;
+		this.executor = executor;
+		this.capacity = capacity;
+		this.maxWait = maxWait;
+		this.priority = priority;
+
+		this.depthMetric = new TimeSeries().title("Queued jobs (" + name + ")");
+		this.shedMetric = new TimeSeries().title("Rejected jobs (" + name + ")");
+		this.expiredMetric = new TimeSeries().title("Expired jobs (" + name + ")");
+	}
+
+	private static JobQueue configured(String name) {
+		Config cfg = Jobs.JOBS.sub("queues", name);
+
+		int capacity = cfg.entry("capacity").or(100000);
+		long maxWait = cfg.entry("maxWait").or(0L);
+		int priority = cfg.entry("priority").or(PriorityJobExecutor.DEFAULT_PRIORITY);
+
+		JobQueue queue = new JobQueue(name, null, capacity, maxWait, priority);
+		registerMetrics(queue);
+
+		return queue;
+	}
+
+	private static void registerMetrics(JobQueue queue) {
+		Metrics.register("jobs/" + queue.name + "/queued", queue.depthMetric);
+		Metrics.register("jobs/" + queue.name + "/rejected", queue.shedMetric);
+		Metrics.register("jobs/" + queue.name + "/expired", queue.expiredMetric);
+	}
+
+	/**
+	 * Registers a custom queue (e.g. with a dedicated executor), so it is available by name and its metrics are updated.
+	 */
+	public static JobQueue register(JobQueue queue) {
+		synchronized (QUEUES) {
+			QUEUES.put(queue.name, queue);
+			registerMetrics(queue);
+			return queue;
+		}
+	}
+
+	/**
+	 * Removes a custom queue (if still registered) and its metrics, e.g. when its executor is shut down.
+	 */
+	public static void unregister(JobQueue queue) {
+		synchronized (QUEUES) {
+			if (QUEUES.get(queue.name) == queue) {
+				QUEUES.remove(queue.name);
+
+				Metrics.unregister("jobs/" + queue.name + "/queued");
+				Metrics.unregister("jobs/" + queue.name + "/rejected");
+				Metrics.unregister("jobs/" + queue.name + "/expired");
+			}
+		}
+	}
+
+	/**
+	 * Returns the registered or configured queue with the specified name, or else the default queue.
+	 */
+	public static JobQueue of(String name) {
+		JobQueue queue = QUEUES.get(name);
+		return queue != null ? queue : lookup(name);
+	}
+
+	private static JobQueue lookup(String name) {
+		synchronized (QUEUES) {
+			JobQueue queue = QUEUES.get(name);
+			if (queue != null) return queue;
+
+			if (name.equals(DEFAULT_QUEUE) || Jobs.JOBS.sub("queues").has(name)) {
+				queue = configured(name);
+			} else {
+				queue = of(DEFAULT_QUEUE);
+			}
+
+			QUEUES.put(name, queue);
+			return queue;
+		}
+	}
+
+	public static List<JobQueue> all() {
+		// the same queue can be mapped to multiple names
+		return U.list(new LinkedHashSet<JobQueue>(QUEUES.values()));
+	}
+
+	/**
+	 * Returns <code>false</code> if the job was rejected, because the queue is full.
+	 * If the job waits too long in the queue, <code>onExpired</code> is executed instead of it.
+	 */
+	public boolean execute(Runnable job, Runnable onExpired) {
+		return enqueue(new QueuedJob(this, job, onExpired, priority, true));
+	}
+
+	/**
+	 * Executes a continuation of an already admitted job, with the priority of this queue. The continuation doesn't
+	 * expire (the job already waited to start), but it is still bounded by the capacity of the queue.
+	 * Returns <code>false</code> if the continuation was rejected, because the queue is full.
+	 */
+	public boolean resume(Runnable job) {
+		return enqueue(new QueuedJob(this, job, null, priority, false));
+	}
+
+	private boolean enqueue(QueuedJob job) {
+		if (depth.incrementAndGet() > capacity) {
+			depth.decrementAndGet();
+			shed.incrementAndGet();
+			return false;
+		}
+
+		try {
+			executor().execute(job);
+			return true;
+
+		} catch (RejectedExecutionException e) {
+			depth.decrementAndGet();
+			shed.incrementAndGet();
+			return false;
+		}
+	}
+
+	boolean dequeued(QueuedJob job) {
+		depth.decrementAndGet();
+
+		if (job.expiring() && maxWait > 0 && U.time() - job.enqueuedAt() > maxWait) {
+			expired.incrementAndGet();
+			return false;
+		}
+
+		return true;
+	}
+
+	private Executor executor() {
+		return executor != null ? executor : Jobs.executor();
+	}
+
+	public void updateMetrics() {
+		long now = U.time();
+		depthMetric.put(now, depth.get());
+		shedMetric.put(now, shed.get());
+		expiredMetric.put(now, expired.get());
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public long maxWait() {
+		return maxWait;
+	}
+
+	public int priority() {
+		return priority;
+	}
+
+	public int depth() {
+		return depth.get();
+	}
+
+	public long shed() {
+		return shed.get();
+	}
+
+	public long expired() {
+		return expired.get();
+	}
+
+	@Override
+	public String toString() {
+		return "JobQueue{" +
+			"name='" + name + '\'' +
+			", capacity=" + capacity +
+			", maxWait=" + maxWait +
+			", priority=" + priority +
+			", depth=" + depth +
+			", shed=" + shed +
+			", expired=" + expired +
+			'}';
+	}
+
+}
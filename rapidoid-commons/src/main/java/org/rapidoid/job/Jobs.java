@@ -67,8 +67,7 @@ public class Jobs extends RapidoidInitializer {
 
 	public static synchronized Executor executor() {
 		if (EXECUTOR == null) {
-			int threads = JOBS.sub("executor").entry("threads").or(64);
-			EXECUTOR = Executors.newFixedThreadPool(threads, new RapidoidThreadFactory("executor", true));
+			EXECUTOR = createExecutor(JOBS.sub("executor"));
 
 			if (init.go()) init();
 		}
@@ -76,6 +75,27 @@ public class Jobs extends RapidoidInitializer {
 		return EXECUTOR;
 	}
 
+	private static ExecutorService createExecutor(Config cfg) {
+		String type = cfg.entry("type").or("fixed");
+
+		if (type.equals("virtual")) {
+			if (VirtualThreads.isSupported()) {
+				int maxThreads = cfg.entry("virtualThreads").or(10000);
+				Log.info("Executing jobs on virtual threads", "max", maxThreads);
+				return VirtualThreads.newPriorityExecutor("executor", maxThreads);
+
+			} else {
+				Log.warn("Virtual threads are not supported by the JVM, falling back to a fixed thread pool!");
+			}
+
+		} else {
+			U.must(type.equals("fixed"), "Unknown type of job executor: '%s'!", type);
+		}
+
+		int threads = cfg.entry("threads").or(64);
+		return new PriorityJobExecutor(threads, new RapidoidThreadFactory("executor", true));
+	}
+
 	private static void init() {
 		Runtime.getRuntime().addShutdownHook(new Thread() {
 			public void run() {
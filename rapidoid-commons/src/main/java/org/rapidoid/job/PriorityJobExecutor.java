@@ -0,0 +1,53 @@
+package org.rapidoid.job;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed thread pool that executes the queued jobs ordered by priority (and FIFO for the same priority).
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class PriorityJobExecutor extends ThreadPoolExecutor {
+
+	public static final int DEFAULT_PRIORITY = 0;
+
+	public PriorityJobExecutor(int threads, ThreadFactory threadFactory) {
+		super(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), threadFactory);
+	}
+
+	@Override
+	public void execute(Runnable job) {
+		if (!(job instanceof QueuedJob)) {
+			job = new QueuedJob(null, job, null, DEFAULT_PRIORITY);
+		}
+
+		super.execute(job);
+	}
+
+}
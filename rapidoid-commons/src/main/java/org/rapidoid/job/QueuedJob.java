@@ -0,0 +1,96 @@
+package org.rapidoid.job;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class QueuedJob extends RapidoidThing implements Runnable, Comparable<QueuedJob> {
+
+	private static final AtomicLong SEQ = new AtomicLong();
+
+	private final JobQueue queue;
+
+	private final Runnable job;
+
+	private final Runnable onExpired;
+
+	private final int priority;
+
+	private final boolean expiring;
+
+	private final long seq = SEQ.incrementAndGet();
+
+	private final long enqueuedAt = U.time();
+
+	public QueuedJob(JobQueue queue, Runnable job, Runnable onExpired, int priority) {
+		this(queue, job, onExpired, priority, true);
+	}
+
+	public QueuedJob(JobQueue queue, Runnable job, Runnable onExpired, int priority, boolean expiring) {
+		this.queue = queue;
+		this.job = job;
+		this.onExpired = onExpired;
+		this.priority = priority;
+		this.expiring = expiring;
+	}
+
+	@Override
+	public void run() {
+		if (queue != null && !queue.dequeued(this)) {
+			if (onExpired != null) {
+				onExpired.run();
+			}
+			return;
+		}
+
+		job.run();
+	}
+
+	public int priority() {
+		return priority;
+	}
+
+	public boolean expiring() {
+		return expiring;
+	}
+
+	public long enqueuedAt() {
+		return enqueuedAt;
+	}
+
+	@Override
+	public int compareTo(QueuedJob other) {
+		// higher priority first, then FIFO
+		if (priority != other.priority) {
+			return priority > other.priority ? -1 : 1;
+		}
+
+		return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+	}
+
+}
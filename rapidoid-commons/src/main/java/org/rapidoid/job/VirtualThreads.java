@@ -0,0 +1,101 @@
+package org.rapidoid.job;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+import org.rapidoid.u.U;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class VirtualThreads extends RapidoidThing {
+
+	private static final boolean SUPPORTED = detect();
+
+	private VirtualThreads() {
+	}
+
+	public static boolean isSupported() {
+		return SUPPORTED;
+	}
+
+	/**
+	 * An unbounded executor, which starts a new virtual thread for each job. Please note that the jobs are not
+	 * prioritized and don't wait in a queue, so the {@link JobQueue} limits don't apply to it.
+	 */
+	public static ExecutorService newExecutor(String name) {
+		try {
+			// JDK 21+ API, accessed reflectively to stay compatible with the older JDKs
+			Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newExecutor.invoke(null, factory(name));
+
+		} catch (Exception e) {
+			throw U.rte("Virtual threads are not supported by the JVM!", e);
+		}
+	}
+
+	/**
+	 * An executor that runs the jobs on (up to the specified number of) virtual threads, taking them from a priority
+	 * queue, so the jobs are admitted, prioritized and expired by the {@link JobQueue}s just like on platform threads.
+	 */
+	public static PriorityJobExecutor newPriorityExecutor(String name, int maxThreads) {
+		try {
+			return new PriorityJobExecutor(maxThreads, factory(name));
+
+		} catch (Exception e) {
+			throw U.rte("Virtual threads are not supported by the JVM!", e);
+		}
+	}
+
+	private static ThreadFactory factory(String name) throws Exception {
+		Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+		Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+		builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name, 1L);
+
+		return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+	}
+
+	private static boolean detect() {
+		try {
+			// on JDK 19/20 the API exists, but fails without --enable-preview
+			factory("probe").newThread(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+
+			return true;
+
+		} catch (Throwable e) {
+			Log.debug("Virtual threads are not supported", "error", e);
+			return false;
+		}
+	}
+
+}
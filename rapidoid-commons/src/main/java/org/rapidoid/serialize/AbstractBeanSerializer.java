@@ -0,0 +1,124 @@
+package org.rapidoid.serialize;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Writes a versioned header (format version, number of fields, a 16-bit ID of each field and length of the fields),
+ * followed by the fields in schema order. Fields appended to a newer version of the bean are skipped by older readers,
+ * and fields missing from older data keep their default values. The field IDs are derived from the field names and
+ * types, so the data is rejected if the fields were renamed, re-typed, removed or reordered, instead of being read into
+ * the wrong fields.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public abstract class AbstractBeanSerializer<T> extends RapidoidThing implements BeanSerializer<T> {
+
+	public static final byte FORMAT_VERSION = 2;
+
+	/**
+	 * The format without field IDs, which is still readable.
+	 */
+	static final byte FORMAT_VERSION_1 = 1;
+
+	private final int fieldCount;
+
+	private final short[] fieldIds;
+
+	protected AbstractBeanSerializer(List<Field> fields) {
+		this.fieldCount = fields.size();
+		this.fieldIds = new short[fieldCount];
+
+		for (int i = 0; i < fieldCount; i++) {
+			fieldIds[i] = fieldId(fields.get(i));
+		}
+	}
+
+	static short fieldId(Field field) {
+		int h = field.getName().hashCode() * 31 + field.getType().getName().hashCode();
+		return (short) (h ^ (h >>> 16));
+	}
+
+	@Override
+	public void serialize(ByteBuffer buf, T bean) {
+		buf.put(FORMAT_VERSION);
+		Ser.writeUnsignedVarInt(buf, fieldCount);
+
+		for (short id : fieldIds) {
+			buf.putShort(id);
+		}
+
+		int lenPos = buf.position();
+		buf.putInt(0); // will be back-patched
+
+		writeFields(buf, bean);
+
+		buf.putInt(lenPos, buf.position() - lenPos - 4);
+	}
+
+	@Override
+	public T deserialize(ByteBuffer buf) {
+		byte version = buf.get();
+		U.must(version == FORMAT_VERSION || version == FORMAT_VERSION_1, "Unsupported bean serialization format: %s", version);
+
+		int count = Ser.readUnsignedVarInt(buf);
+
+		if (version == FORMAT_VERSION) {
+			for (int i = 0; i < count; i++) {
+				short id = buf.getShort();
+
+				if (i < fieldCount && id != fieldIds[i]) {
+					throw U.rte("Incompatible bean schema, the field #%s doesn't match! Only new fields can be appended.", i + 1);
+				}
+			}
+		}
+
+		int len = buf.getInt();
+		int end = buf.position() + len;
+
+		T bean = newBean();
+		readFields(buf, bean, Math.min(count, fieldCount));
+
+		// skip the fields written by a newer version of the bean
+		buf.position(end);
+
+		return bean;
+	}
+
+	public int fieldCount() {
+		return fieldCount;
+	}
+
+	protected abstract T newBean();
+
+	protected abstract void writeFields(ByteBuffer buf, T bean);
+
+	protected abstract void readFields(ByteBuffer buf, T bean, int count);
+
+}
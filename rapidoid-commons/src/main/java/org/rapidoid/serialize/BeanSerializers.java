@@ -0,0 +1,260 @@
+package org.rapidoid.serialize;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javassist.*;
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.cls.Invokers;
+import org.rapidoid.collection.Coll;
+import org.rapidoid.commons.Str;
+import org.rapidoid.lambda.Mapper;
+import org.rapidoid.u.U;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schema-aware serializers for beans: the non-static, non-transient fields are written in declaration order
+ * (superclass fields first), without any per-field type information. New fields can only be appended at the end, the
+ * other schema changes are detected and the old data is rejected.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class BeanSerializers extends RapidoidThing {
+
+	private static final String SER = Ser.class.getName();
+
+	private static final AtomicInteger ID_GEN = new AtomicInteger();
+
+	private static final Map<Class<?>, BeanSerializer<?>> SERIALIZERS = Coll.autoExpandingMap(new Mapper<Class<?>, BeanSerializer<?>>() {
+		@Override
+		public BeanSerializer<?> map(Class<?> type) throws Exception {
+			return create(type);
+		}
+	});
+
+	@SuppressWarnings("unchecked")
+	public static <T> BeanSerializer<T> of(Class<T> type) {
+		return (BeanSerializer<T>) SERIALIZERS.get(type);
+	}
+
+	public static <T> BeanSerializer<T> reflective(Class<T> type) {
+		return new ReflectiveBeanSerializer<T>(type, schema(type));
+	}
+
+	public static List<Field> schema(Class<?> type) {
+		List<Field> fields = U.list();
+
+		if (type.getSuperclass() != null && type.getSuperclass() != Object.class) {
+			fields.addAll(schema(type.getSuperclass()));
+		}
+
+		for (Field field : type.getDeclaredFields()) {
+			int mod = field.getModifiers();
+
+			if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !field.isSynthetic()) {
+				fields.add(field);
+			}
+		}
+
+		return fields;
+	}
+
+	private static <T> BeanSerializer<T> create(Class<T> type) {
+		List<Field> fields = schema(type);
+
+		if (canGenerate(type, fields)) {
+			try {
+				return generate(type, fields);
+			} catch (Throwable e) {
+				Invokers.generationFailed("bean serializer", type, e);
+			}
+		}
+
+		return new ReflectiveBeanSerializer<T>(type, fields);
+	}
+
+	private static boolean canGenerate(Class<?> type, List<Field> fields) {
+		if (Modifier.isAbstract(type.getModifiers()) || !isPublicType(type)) {
+			return false;
+		}
+
+		try {
+			if (!Modifier.isPublic(type.getConstructor().getModifiers())) {
+				return false;
+			}
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+
+		for (Field field : fields) {
+			if (!isPublicType(field.getType()) || getter(field) == null || setter(field) == null) {
+				return false;
+			}
+		}
+
+		ClassLoader loader = type.getClassLoader();
+
+		// the generated class must be able to see both the bean class and the serializer base class
+		return loader != null && isVisible(AbstractBeanSerializer.class, loader);
+	}
+
+	private static boolean isPublicType(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		for (Class<?> cls = type; cls != null; cls = cls.getEnclosingClass()) {
+			if (!Modifier.isPublic(cls.getModifiers())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> cls, ClassLoader loader) {
+		try {
+			return Class.forName(cls.getName(), false, loader) == cls;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static String typeName(Class<?> type) {
+		return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+	}
+
+	private static String getter(Field field) {
+		if (isAccessibleField(field)) {
+			return field.getName();
+		}
+
+		String cap = Str.capitalized(field.getName());
+		String getter = field.getType() == boolean.class ? "is" + cap : "get" + cap;
+
+		Method method = publicMethod(field.getDeclaringClass(), getter);
+		return method != null && method.getReturnType() == field.getType() ? getter + "()" : null;
+	}
+
+	private static String setter(Field field) {
+		if (isAccessibleField(field)) {
+			return field.getName() + " = ";
+		}
+
+		String setter = "set" + Str.capitalized(field.getName());
+
+		Method method = publicMethod(field.getDeclaringClass(), setter, field.getType());
+		return method != null ? setter + "(" : null;
+	}
+
+	private static boolean isAccessibleField(Field field) {
+		int mod = field.getModifiers();
+		return Modifier.isPublic(mod) && !Modifier.isFinal(mod);
+	}
+
+	private static Method publicMethod(Class<?> type, String name, Class<?>... paramTypes) {
+		try {
+			Method method = type.getMethod(name, paramTypes);
+			return Modifier.isStatic(method.getModifiers()) ? null : method;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> BeanSerializer<T> generate(Class<T> type, List<Field> fields) throws Exception {
+		ClassLoader loader = type.getClassLoader();
+
+		ClassPool cp = new ClassPool(true);
+		cp.appendClassPath(new LoaderClassPath(loader));
+
+		String name = type.getName() + "$$BeanSerializer" + ID_GEN.incrementAndGet();
+		CtClass cls = cp.makeClass(name);
+
+		cls.setSuperclass(cp.get(AbstractBeanSerializer.class.getName()));
+		cls.addConstructor(CtNewConstructor.make("public " + cls.getSimpleName() + "(java.util.List fields) { super(fields); }", cls));
+
+		for (String method : serializerSource(type, fields)) {
+			cls.addMethod(CtNewMethod.make(method, cls));
+		}
+
+		Class<?> serializerClass = Invokers.defineClass(cls, type);
+
+		return (BeanSerializer<T>) serializerClass.getConstructor(List.class).newInstance(fields);
+	}
+
+	static List<String> serializerSource(Class<?> type, List<Field> fields) {
+		String bean = typeName(type);
+		String cast = bean + " b = (" + bean + ") $2; ";
+
+		StringBuilder write = new StringBuilder();
+		StringBuilder read = new StringBuilder();
+
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			String setter = setter(field);
+
+			write.append(writeExpr(field.getType(), "b." + getter(field))).append("; ");
+			read.append("if ($3 > ").append(i).append(") b.").append(setter)
+				.append(readExpr(field.getType())).append(setter.endsWith("(") ? ");" : ";").append(" ");
+		}
+
+		return U.list(
+			"protected Object newBean() { return new " + bean + "(); }",
+			"protected void writeFields(java.nio.ByteBuffer buf, Object bean) { " + cast + write + "}",
+			"protected void readFields(java.nio.ByteBuffer buf, Object bean, int count) { " + cast + read + "}"
+		);
+	}
+
+	private static String writeExpr(Class<?> type, String value) {
+		if (type == boolean.class) return SER + ".writeBoolean($1, " + value + ")";
+		if (type == byte.class) return "$1.put(" + value + ")";
+		if (type == short.class) return SER + ".writeVarInt($1, " + value + ")";
+		if (type == char.class) return SER + ".writeUnsignedVarInt($1, " + value + ")";
+		if (type == int.class) return SER + ".writeVarInt($1, " + value + ")";
+		if (type == long.class) return SER + ".writeVarLong($1, " + value + ")";
+		if (type == float.class) return "$1.putFloat(" + value + ")";
+		if (type == double.class) return "$1.putDouble(" + value + ")";
+		if (type == String.class) return SER + ".writeString($1, " + value + ")";
+		return SER + ".writeValue($1, " + value + ")";
+	}
+
+	private static String readExpr(Class<?> type) {
+		if (type == boolean.class) return SER + ".readBoolean($1)";
+		if (type == byte.class) return "$1.get()";
+		if (type == short.class) return "(short) " + SER + ".readVarInt($1)";
+		if (type == char.class) return "(char) " + SER + ".readUnsignedVarInt($1)";
+		if (type == int.class) return SER + ".readVarInt($1)";
+		if (type == long.class) return SER + ".readVarLong($1)";
+		if (type == float.class) return "$1.getFloat()";
+		if (type == double.class) return "$1.getDouble()";
+		if (type == String.class) return SER + ".readString($1)";
+		return "(" + typeName(type) + ") " + SER + ".readValue($1)";
+	}
+
+}
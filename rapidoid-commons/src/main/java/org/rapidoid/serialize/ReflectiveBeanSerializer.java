@@ -0,0 +1,126 @@
+package org.rapidoid.serialize;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.cls.Cls;
+import org.rapidoid.u.U;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ReflectiveBeanSerializer<T> extends AbstractBeanSerializer<T> {
+
+	private final Class<T> type;
+
+	private final Field[] fields;
+
+	public ReflectiveBeanSerializer(Class<T> type, List<Field> fields) {
+		super(fields);
+		this.type = type;
+		this.fields = fields.toArray(new Field[fields.size()]);
+
+		for (Field field : this.fields) {
+			field.setAccessible(true);
+		}
+	}
+
+	@Override
+	protected T newBean() {
+		return Cls.newInstance(type);
+	}
+
+	@Override
+	protected void writeFields(ByteBuffer buf, T bean) {
+		try {
+			for (Field field : fields) {
+				write(buf, field.getType(), field.get(bean));
+			}
+		} catch (IllegalAccessException e) {
+			throw U.rte(e);
+		}
+	}
+
+	@Override
+	protected void readFields(ByteBuffer buf, T bean, int count) {
+		try {
+			for (int i = 0; i < count; i++) {
+				Field field = fields[i];
+				field.set(bean, read(buf, field.getType()));
+			}
+		} catch (IllegalAccessException e) {
+			throw U.rte(e);
+		}
+	}
+
+	private static void write(ByteBuffer buf, Class<?> type, Object value) {
+		if (type == boolean.class) {
+			Ser.writeBoolean(buf, (Boolean) value);
+		} else if (type == byte.class) {
+			buf.put((Byte) value);
+		} else if (type == short.class) {
+			Ser.writeVarInt(buf, (Short) value);
+		} else if (type == char.class) {
+			Ser.writeUnsignedVarInt(buf, (Character) value);
+		} else if (type == int.class) {
+			Ser.writeVarInt(buf, (Integer) value);
+		} else if (type == long.class) {
+			Ser.writeVarLong(buf, (Long) value);
+		} else if (type == float.class) {
+			buf.putFloat((Float) value);
+		} else if (type == double.class) {
+			buf.putDouble((Double) value);
+		} else if (type == String.class) {
+			Ser.writeString(buf, (String) value);
+		} else {
+			Ser.writeValue(buf, value);
+		}
+	}
+
+	private static Object read(ByteBuffer buf, Class<?> type) {
+		if (type == boolean.class) {
+			return Ser.readBoolean(buf);
+		} else if (type == byte.class) {
+			return buf.get();
+		} else if (type == short.class) {
+			return (short) Ser.readVarInt(buf);
+		} else if (type == char.class) {
+			return (char) Ser.readUnsignedVarInt(buf);
+		} else if (type == int.class) {
+			return Ser.readVarInt(buf);
+		} else if (type == long.class) {
+			return Ser.readVarLong(buf);
+		} else if (type == float.class) {
+			return buf.getFloat();
+		} else if (type == double.class) {
+			return buf.getDouble();
+		} else if (type == String.class) {
+			return Ser.readString(buf);
+		} else {
+			return Ser.readValue(buf);
+		}
+	}
+
+}
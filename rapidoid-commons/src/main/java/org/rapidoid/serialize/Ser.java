@@ -4,9 +4,11 @@ import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.cls.TypeKind;
+import org.rapidoid.u.U;
 import org.rapidoid.util.Msc;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /*
  * #%L
@@ -32,6 +34,12 @@ import java.nio.ByteBuffer;
 @Since("5.1.0")
 public class Ser extends RapidoidThing {
 
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final TypeSpecificSerializer SERIALIZER = new TypeSpecificSerializer();
+
+	private static final TypeSpecificDeserializer DESERIALIZER = new TypeSpecificDeserializer();
+
 	protected static void writeNum(ByteBuffer buf, int len) {
 		if (len < 255) {
 			buf.put(Msc.sbyte(len));
@@ -71,6 +79,191 @@ public class Ser extends RapidoidThing {
 		return b != 0;
 	}
 
+	public static void writeBoolean(ByteBuffer buf, boolean value) {
+		buf.put(bool2byte(value));
+	}
+
+	public static boolean readBoolean(ByteBuffer buf) {
+		return byte2bool(buf.get());
+	}
+
+	/* VARINTS */
+
+	public static void writeUnsignedVarInt(ByteBuffer buf, int value) {
+		while ((value & ~0x7F) != 0) {
+			buf.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buf.put((byte) value);
+	}
+
+	public static int readUnsignedVarInt(ByteBuffer buf) {
+		int value = 0;
+
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = buf.get();
+			value |= (b & 0x7F) << shift;
+
+			if (b >= 0) {
+				return value;
+			}
+		}
+
+		throw U.rte("Malformed varint!");
+	}
+
+	public static void writeUnsignedVarLong(ByteBuffer buf, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buf.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buf.put((byte) value);
+	}
+
+	public static long readUnsignedVarLong(ByteBuffer buf) {
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buf.get();
+			value |= (long) (b & 0x7F) << shift;
+
+			if (b >= 0) {
+				return value;
+			}
+		}
+
+		throw U.rte("Malformed varlong!");
+	}
+
+	/**
+	 * Writes the value as ZigZag-encoded varint, so small negative numbers are compact, too.
+	 */
+	public static void writeVarInt(ByteBuffer buf, int value) {
+		writeUnsignedVarInt(buf, (value << 1) ^ (value >> 31));
+	}
+
+	public static int readVarInt(ByteBuffer buf) {
+		int n = readUnsignedVarInt(buf);
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	public static void writeVarLong(ByteBuffer buf, long value) {
+		writeUnsignedVarLong(buf, (value << 1) ^ (value >> 63));
+	}
+
+	public static long readVarLong(ByteBuffer buf) {
+		long n = readUnsignedVarLong(buf);
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	/* STRINGS */
+
+	/**
+	 * Writes the string as length-prefixed UTF-8 (or a zero length for <code>null</code>), encoding the characters
+	 * directly into the buffer.
+	 */
+	public static void writeString(ByteBuffer buf, String value) {
+		if (value == null) {
+			writeUnsignedVarInt(buf, 0);
+			return;
+		}
+
+		writeUnsignedVarInt(buf, utf8Length(value) + 1);
+		writeUTF8(buf, value);
+	}
+
+	public static String readString(ByteBuffer buf) {
+		int len = readUnsignedVarInt(buf);
+		return len > 0 ? readUTF8(buf, len - 1) : null;
+	}
+
+	public static int utf8Length(String value) {
+		int len = value.length();
+		int bytes = len;
+
+		for (int i = 0; i < len; i++) {
+			char c = value.charAt(i);
+
+			if (c >= 0x80) {
+				if (c < 0x800) {
+					bytes++;
+
+				} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+					bytes += 2; // 4 bytes for 2 chars
+					i++;
+
+				} else if (Character.isSurrogate(c)) {
+					// unpaired surrogate, encoded as '?'
+
+				} else {
+					bytes += 2;
+				}
+			}
+		}
+
+		return bytes;
+	}
+
+	public static void writeUTF8(ByteBuffer buf, String value) {
+		int len = value.length();
+
+		for (int i = 0; i < len; i++) {
+			char c = value.charAt(i);
+
+			if (c < 0x80) {
+				buf.put((byte) c);
+
+			} else if (c < 0x800) {
+				buf.put((byte) (0xC0 | (c >> 6)));
+				buf.put((byte) (0x80 | (c & 0x3F)));
+
+			} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, value.charAt(++i));
+				buf.put((byte) (0xF0 | (cp >> 18)));
+				buf.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+				buf.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+				buf.put((byte) (0x80 | (cp & 0x3F)));
+
+			} else if (Character.isSurrogate(c)) {
+				buf.put((byte) '?');
+
+			} else {
+				buf.put((byte) (0xE0 | (c >> 12)));
+				buf.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buf.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	public static String readUTF8(ByteBuffer buf, int len) {
+		if (buf.hasArray()) {
+			int pos = buf.position();
+			String s = new String(buf.array(), buf.arrayOffset() + pos, len, UTF_8);
+			buf.position(pos + len);
+			return s;
+
+		} else {
+			byte[] bytes = new byte[len];
+			buf.get(bytes);
+			return new String(bytes, UTF_8);
+		}
+	}
+
+	/* OTHER VALUES */
+
+	/**
+	 * Writes any value supported by {@link Serialize}, prefixed with its kind.
+	 */
+	public static void writeValue(ByteBuffer buf, Object value) {
+		SERIALIZER.serialize(buf, value);
+	}
+
+	public static Object readValue(ByteBuffer buf) {
+		return DESERIALIZER.deserialize(buf);
+	}
+
 	protected static TypeKind kind(int kindCode) {
 		return TypeKind.values()[kindCode];
 	}
@@ -57,4 +57,15 @@ public class Serialize extends RapidoidThing {
 		return deserialize(ByteBuffer.wrap(bytes));
 	}
 
+	@SuppressWarnings("unchecked")
+	public static <T> int serializeBean(ByteBuffer buf, T bean) {
+		int pos = buf.position();
+		BeanSerializers.of((Class<T>) bean.getClass()).serialize(buf, bean);
+		return buf.position() - pos;
+	}
+
+	public static <T> T deserializeBean(ByteBuffer buf, Class<T> type) {
+		return BeanSerializers.of(type).deserialize(buf);
+	}
+
 }
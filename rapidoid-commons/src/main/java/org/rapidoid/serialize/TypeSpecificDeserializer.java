@@ -91,7 +91,7 @@ public class TypeSpecificDeserializer extends AbstractTypeSpecificFactory<ByteBu
 
 	@Override
 	public String string(ByteBuffer buf) {
-		return new String(Ser.readBytes(buf));
+		return Ser.readUTF8(buf, Ser.readNum(buf));
 	}
 
 	@Override
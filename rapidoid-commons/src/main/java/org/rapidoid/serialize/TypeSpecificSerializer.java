@@ -120,7 +120,8 @@ public class TypeSpecificSerializer extends AbstractTypeSpecificVisitor<ByteBuff
 
 	@Override
 	public Void process(ByteBuffer buf, String value) {
-		Ser.writeBytes(buf, value.getBytes());
+		Ser.writeNum(buf, Ser.utf8Length(value));
+		Ser.writeUTF8(buf, value);
 		return null;
 	}
 
@@ -3,11 +3,12 @@ package org.rapidoid.sql;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.beany.Beany;
-import org.rapidoid.beany.Prop;
-import org.rapidoid.cls.Cls;
+import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.Promise;
+import org.rapidoid.lambda.Operation;
 import org.rapidoid.u.U;
 
+import java.io.OutputStream;
 import java.sql.*;
 import java.util.List;
 import java.util.Map;
@@ -102,6 +103,14 @@ public class JDBC extends RapidoidThing {
 		defaultApi().execute(sql, args);
 	}
 
+	public static JdbcBatch batch(String sql) {
+		return defaultApi().batch(sql);
+	}
+
+	public static int executeBatch(String sql, Iterable<Object[]> argsList) {
+		return defaultApi().executeBatch(sql, argsList);
+	}
+
 	public static void tryToExecute(String sql, Object... args) {
 		defaultApi().tryToExecute(sql, args);
 	}
@@ -110,6 +119,54 @@ public class JDBC extends RapidoidThing {
 		return defaultApi().query(sql, args);
 	}
 
+	public static <T> JdbcCursor<T> cursor(Class<T> resultType, String sql, Object... args) {
+		return defaultApi().cursor(resultType, sql, args);
+	}
+
+	public static JdbcCursor<Map<String, Object>> cursor(String sql, Object... args) {
+		return defaultApi().cursor(sql, args);
+	}
+
+	public static <T> void each(Class<T> resultType, Operation<T> rowHandler, String sql, Object... args) {
+		defaultApi().each(resultType, rowHandler, sql, args);
+	}
+
+	public static void each(Operation<Map<String, Object>> rowHandler, String sql, Object... args) {
+		defaultApi().each(rowHandler, sql, args);
+	}
+
+	public static void queryToJSON(OutputStream out, String sql, Object... args) {
+		defaultApi().queryToJSON(out, sql, args);
+	}
+
+	public static void queryToCSV(OutputStream out, String sql, Object... args) {
+		defaultApi().queryToCSV(out, sql, args);
+	}
+
+	public static <T> Promise<List<T>> queryAsync(Class<T> resultType, Callback<List<T>> callback, String sql, Object... args) {
+		return defaultApi().queryAsync(resultType, callback, sql, args);
+	}
+
+	public static <T> Promise<List<T>> queryAsync(Class<T> resultType, String sql, Object... args) {
+		return defaultApi().queryAsync(resultType, sql, args);
+	}
+
+	public static Promise<List<Map<String, Object>>> queryAsync(Callback<List<Map<String, Object>>> callback, String sql, Object... args) {
+		return defaultApi().queryAsync(callback, sql, args);
+	}
+
+	public static Promise<List<Map<String, Object>>> queryAsync(String sql, Object... args) {
+		return defaultApi().queryAsync(sql, args);
+	}
+
+	public static Promise<Void> executeAsync(Callback<Void> callback, String sql, Object... args) {
+		return defaultApi().executeAsync(callback, sql, args);
+	}
+
+	public static Promise<Void> executeAsync(String sql, Object... args) {
+		return defaultApi().executeAsync(sql, args);
+	}
+
 	public static Connection getConnection() {
 		return defaultApi().getConnection();
 	}
@@ -140,37 +197,18 @@ public class JDBC extends RapidoidThing {
 	public static <T> List<T> rows(Class<T> resultType, ResultSet rs) throws SQLException {
 		List<T> rows = U.list();
 
-		ResultSetMetaData meta = rs.getMetaData();
-		int columnsN = meta.getColumnCount();
-		Prop[] props = new Prop[columnsN];
-
-		for (int i = 0; i < props.length; i++) {
-			String name = meta.getColumnLabel(i + 1);
-			props[i] = Beany.property(resultType, name, true);
-		}
+		// the columns are resolved only once, instead of once per row
+		RowMapper<T> mapper = RowMappers.of(resultType, rs.getMetaData());
 
 		while (rs.next()) {
-			T row = Cls.newInstance(resultType);
-
-			for (int i = 0; i < columnsN; i++) {
-				Object value = rs.getObject(i + 1); // 1-indexed
-				props[i].set(row, value);
-			}
-
-			rows.add(row);
+			rows.add(mapper.map(rs));
 		}
 
 		return rows;
 	}
 
 	public static List<Map<String, Object>> rows(ResultSet rs) throws SQLException {
-		List<Map<String, Object>> rows = U.list();
-
-		while (rs.next()) {
-			rows.add(row(rs));
-		}
-
-		return rows;
+		return U.cast(rows(Map.class, rs));
 	}
 
 	public static Map<String, Object> row(ResultSet rs) throws SQLException {
@@ -61,6 +61,30 @@ public class JDBCConfig extends RapidoidThing {
 		return PASSWORD.getOrNull();
 	}
 
+	public static int fetchSize() {
+		return JDBC.entry("fetchSize").or(1000);
+	}
+
+	public static int batchSize() {
+		return JDBC.entry("batchSize").or(1000);
+	}
+
+	public static boolean rewriteBatchedInserts() {
+		return JDBC.entry("rewriteBatchedInserts").or(false);
+	}
+
+	public static Config pool() {
+		return JDBC.sub("pool");
+	}
+
+	public static boolean builtInPool() {
+		return "rapidoid".equalsIgnoreCase(pool().entry("type").or("c3p0"));
+	}
+
+	public static Config async() {
+		return JDBC.sub("async");
+	}
+
 	public static String inferDriverFromUrl(String url) {
 		if (url.startsWith("jdbc:mysql:")) {
 			return "com.mysql.jdbc.Driver";
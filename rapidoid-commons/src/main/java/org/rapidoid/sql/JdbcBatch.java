@@ -0,0 +1,371 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+import org.rapidoid.u.U;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Executes a SQL statement for many rows of arguments, sending the rows to the database in batches, in a single
+ * transaction on a single connection.<br>
+ * If the multi-row insert rewriting is enabled, a simple <code>INSERT ... VALUES (...)</code> statement is rewritten
+ * to insert many rows at once with <code>INSERT ... VALUES (...), (...), ...</code>.<br>
+ * The changes are committed by {@link #execute()}, while closing the batch before that rolls them back.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JdbcBatch extends RapidoidThing implements Closeable {
+
+	/**
+	 * The rewritten statements are limited to a number of parameters that is accepted by most of the databases.
+	 */
+	static final int MAX_REWRITTEN_PARAMS = 2000;
+
+	private final Connection conn;
+
+	private final boolean restoreAutoCommit;
+
+	private final StatementCache statements;
+
+	private final String sql;
+
+	private final int batchSize;
+
+	private final InsertRewrite rewrite;
+
+	private final List<Object[]> pending = U.list();
+
+	private int total;
+
+	private boolean closed;
+
+	JdbcBatch(Connection conn, String sql, int batchSize, boolean rewriteInserts) throws SQLException {
+		U.must(batchSize > 0, "The batch size must be positive!");
+
+		this.conn = conn;
+		this.sql = sql;
+		this.rewrite = rewriteInserts ? InsertRewrite.of(sql) : null;
+		this.batchSize = rewrite != null ? Math.min(batchSize, rewrite.maxRows()) : batchSize;
+		this.statements = new StatementCache(conn, 3);
+
+		this.restoreAutoCommit = conn.getAutoCommit();
+
+		if (restoreAutoCommit) {
+			conn.setAutoCommit(false);
+		}
+	}
+
+	public synchronized JdbcBatch add(Object... args) {
+		U.must(!closed, "The batch is already closed!");
+
+		pending.add(args);
+
+		if (pending.size() >= batchSize) {
+			flush();
+		}
+
+		return this;
+	}
+
+	/**
+	 * Sends the pending rows to the database, without committing the transaction.
+	 */
+	public synchronized JdbcBatch flush() {
+		U.must(!closed, "The batch is already closed!");
+
+		if (pending.isEmpty()) {
+			return this;
+		}
+
+		try {
+			if (rewrite != null) {
+				total += executeRewritten();
+			} else {
+				total += executeBatch();
+			}
+
+			pending.clear();
+
+		} catch (SQLException e) {
+			close();
+			throw U.rte("Error occurred while executing the batch!", e);
+
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+
+		return this;
+	}
+
+	/**
+	 * Sends the pending rows to the database, commits the transaction and closes the batch.
+	 *
+	 * @return the total number of the updated rows, as reported by the database
+	 */
+	public synchronized int execute() {
+		flush();
+
+		try {
+			conn.commit();
+		} catch (SQLException e) {
+			close();
+			throw U.rte("Error occurred while committing the batch!", e);
+		}
+
+		finish();
+
+		return total;
+	}
+
+	private int executeBatch() throws SQLException {
+		PreparedStatement stmt = statements.prepare(sql);
+
+		for (Object[] args : pending) {
+			JDBC.bind(stmt, args);
+			stmt.addBatch();
+		}
+
+		return updated(stmt.executeBatch());
+	}
+
+	private int executeRewritten() throws SQLException {
+		PreparedStatement stmt = statements.prepare(rewrite.sql(pending.size()));
+
+		int index = 1;
+		for (Object[] args : pending) {
+			U.must(args.length == rewrite.paramsPerRow(), "Expected %s arguments per row, but found %s!", rewrite.paramsPerRow(), args.length);
+
+			for (Object arg : args) {
+				stmt.setObject(index++, arg);
+			}
+		}
+
+		return stmt.executeUpdate();
+	}
+
+	private static int updated(int[] counts) {
+		int sum = 0;
+
+		for (int count : counts) {
+			if (count > 0) {
+				sum += count;
+			} else if (count == Statement.SUCCESS_NO_INFO) {
+				sum++;
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Rolls back the changes that weren't committed yet and releases the connection.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			try {
+				conn.rollback();
+			} catch (SQLException e) {
+				Log.error("Error occurred while rolling back the batch!", e);
+			}
+
+			finish();
+		}
+	}
+
+	private void finish() {
+		closed = true;
+		pending.clear();
+		statements.clear();
+
+		try {
+			if (restoreAutoCommit) {
+				conn.setAutoCommit(true);
+			}
+
+		} catch (SQLException e) {
+			Log.error("Error occurred while restoring the auto-commit mode!", e);
+
+		} finally {
+			try {
+				conn.close();
+			} catch (SQLException e) {
+				Log.error("Error occurred while closing the connection!", e);
+			}
+		}
+	}
+
+	public synchronized int total() {
+		return total;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Rewrites a simple <code>INSERT ... VALUES (...)</code> statement to insert many rows at once.
+	 */
+	static class InsertRewrite {
+
+		private final String prefix;
+
+		private final String values;
+
+		private final int paramsPerRow;
+
+		private String fullSql;
+
+		private int fullRows;
+
+		private InsertRewrite(String prefix, String values, int paramsPerRow) {
+			this.prefix = prefix;
+			this.values = values;
+			this.paramsPerRow = paramsPerRow;
+		}
+
+		/**
+		 * Returns <code>null</code> if the statement cannot be safely rewritten.
+		 */
+		static InsertRewrite of(String sql) {
+			String s = sql.trim();
+
+			if (s.endsWith(";")) {
+				s = s.substring(0, s.length() - 1).trim();
+			}
+
+			if (!s.regionMatches(true, 0, "insert", 0, 6) || !s.endsWith(")")) {
+				return null;
+			}
+
+			int valuesPos = findValuesKeyword(s);
+			if (valuesPos < 0) {
+				return null;
+			}
+
+			int open = s.indexOf('(', valuesPos + 6);
+			if (open < 0 || !s.substring(valuesPos + 6, open).trim().isEmpty()) {
+				return null;
+			}
+
+			// the values must be a single group of parentheses, ending the statement
+			int params = 0;
+			int depth = 0;
+			char quote = 0;
+
+			for (int i = open; i < s.length(); i++) {
+				char c = s.charAt(i);
+
+				if (quote != 0) {
+					if (c == quote) quote = 0;
+
+				} else if (c == '\'' || c == '"') {
+					quote = c;
+
+				} else if (c == '?') {
+					params++;
+
+				} else if (c == '(') {
+					depth++;
+
+				} else if (c == ')') {
+					depth--;
+
+					if (depth == 0 && i < s.length() - 1) {
+						return null;
+					}
+				}
+			}
+
+			if (depth != 0 || quote != 0 || params == 0) {
+				return null;
+			}
+
+			return new InsertRewrite(s.substring(0, open), s.substring(open), params);
+		}
+
+		private static int findValuesKeyword(String s) {
+			char quote = 0;
+
+			for (int i = 0; i + 6 <= s.length(); i++) {
+				char c = s.charAt(i);
+
+				if (quote != 0) {
+					if (c == quote) quote = 0;
+
+				} else if (c == '\'' || c == '"') {
+					quote = c;
+
+				} else if (s.regionMatches(true, i, "values", 0, 6)
+					&& (i == 0 || !Character.isJavaIdentifierPart(s.charAt(i - 1)))
+					&& (i + 6 == s.length() || !Character.isJavaIdentifierPart(s.charAt(i + 6)))) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		int paramsPerRow() {
+			return paramsPerRow;
+		}
+
+		int maxRows() {
+			return Math.max(1, MAX_REWRITTEN_PARAMS / paramsPerRow);
+		}
+
+		String sql(int rows) {
+			// the full batches are the most common case
+			if (rows == fullRows) {
+				return fullSql;
+			}
+
+			StringBuilder sb = new StringBuilder(prefix.length() + rows * (values.length() + 2));
+			sb.append(prefix).append(values);
+
+			for (int i = 1; i < rows; i++) {
+				sb.append(", ").append(values);
+			}
+
+			String rewritten = sb.toString();
+
+			if (rows > fullRows) {
+				fullSql = rewritten;
+				fullRows = rows;
+			}
+
+			return rewritten;
+		}
+
+	}
+
+}
@@ -1,14 +1,27 @@
 package org.rapidoid.sql;
 
 import org.rapidoid.RapidoidThing;
+import org.rapidoid.activity.RapidoidThreadFactory;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.Callbacks;
+import org.rapidoid.concurrent.Promise;
+import org.rapidoid.concurrent.Promises;
+import org.rapidoid.job.ContextPreservingJobWrapper;
+import org.rapidoid.job.JobQueue;
+import org.rapidoid.job.Jobs;
+import org.rapidoid.job.PriorityJobExecutor;
+import org.rapidoid.lambda.Operation;
 import org.rapidoid.log.Log;
 import org.rapidoid.u.U;
 
+import java.io.OutputStream;
 import java.sql.*;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
  * #%L
@@ -34,6 +47,10 @@ import java.util.Map;
 @Since("3.0.0")
 public class JdbcClient extends RapidoidThing {
 
+	private static final AtomicInteger ASYNC_ID_GEN = new AtomicInteger();
+
+	private static final long ASYNC_KEEP_ALIVE_SEC = 60;
+
 	private boolean initialized;
 
 	private String username;
@@ -43,6 +60,24 @@ public class JdbcClient extends RapidoidThing {
 
 	private volatile ConnectionPool pool = new NoConnectionPool();
 
+	private volatile int fetchSize = JDBCConfig.fetchSize();
+
+	private volatile int batchSize = JDBCConfig.batchSize();
+
+	private volatile boolean rewriteBatchedInserts = JDBCConfig.rewriteBatchedInserts();
+
+	private volatile int asyncThreads = JDBCConfig.async().entry("threads").or(0);
+
+	private volatile int asyncCapacity = JDBCConfig.async().entry("capacity").or(10000);
+
+	private volatile long asyncMaxWait = JDBCConfig.async().entry("maxWait").or(30000L);
+
+	private String asyncName;
+
+	private JobQueue asyncQueue;
+
+	private ThreadPoolExecutor asyncExecutor;
+
 	public synchronized JdbcClient username(String username) {
 		this.username = username;
 		this.initialized = false;
@@ -62,8 +97,15 @@ public class JdbcClient extends RapidoidThing {
 	}
 
 	public synchronized JdbcClient pool(ConnectionPool connectionPool) {
+		ConnectionPool previous = this.pool;
+
+		if (previous != connectionPool && previous instanceof RapidoidConnectionPool) {
+			((RapidoidConnectionPool) previous).shutdown();
+		}
+
 		this.pool = connectionPool;
 		this.initialized = false;
+		resetAsync();
 		return this;
 	}
 
@@ -73,6 +115,61 @@ public class JdbcClient extends RapidoidThing {
 		return this;
 	}
 
+	/**
+	 * The number of rows fetched from the database at once by the streaming queries ({@link #cursor}, {@link #each},
+	 * {@link #queryToJSON}, {@link #queryToCSV}).
+	 */
+	public JdbcClient fetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
+	}
+
+	/**
+	 * The number of rows sent to the database at once by the batches ({@link #batch}, {@link #executeBatch}).
+	 */
+	public JdbcClient batchSize(int batchSize) {
+		U.must(batchSize > 0, "The batch size must be positive!");
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Whether the batches should rewrite a simple <code>INSERT ... VALUES (...)</code> statement to insert many rows
+	 * with a single statement.
+	 */
+	public JdbcClient rewriteBatchedInserts(boolean rewriteBatchedInserts) {
+		this.rewriteBatchedInserts = rewriteBatchedInserts;
+		return this;
+	}
+
+	/**
+	 * The number of the threads that execute the asynchronous operations ({@link #queryAsync}, {@link #executeAsync}),
+	 * or 0 to use the max size of the connection pool.
+	 */
+	public JdbcClient asyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+		resetAsync();
+		return this;
+	}
+
+	/**
+	 * The max number of the asynchronous operations waiting for a thread, the others are rejected.
+	 */
+	public JdbcClient asyncCapacity(int asyncCapacity) {
+		this.asyncCapacity = asyncCapacity;
+		resetAsync();
+		return this;
+	}
+
+	/**
+	 * The max time (in ms) an asynchronous operation can wait for a thread, or 0 for unlimited.
+	 */
+	public JdbcClient asyncMaxWait(long asyncMaxWait) {
+		this.asyncMaxWait = asyncMaxWait;
+		resetAsync();
+		return this;
+	}
+
 	public JdbcClient mysql(String host, int port, String databaseName) {
 		return driver("com.mysql.jdbc.Driver").url(U.frmt("jdbc:mysql://%s:%s/%s", host, port, databaseName));
 	}
@@ -157,6 +254,20 @@ public class JdbcClient extends RapidoidThing {
 		}
 	}
 
+	/**
+	 * Reuses the prepared statements of the pooled connections, if the pool supports it.
+	 */
+	private static PreparedStatement prepare(Connection conn, String sql, Object[] args) throws SQLException {
+		PreparedStatement stmt = RapidoidConnectionPool.prepareCached(conn, sql);
+
+		if (stmt == null) {
+			return JDBC.prepare(conn, sql, args);
+		}
+
+		JDBC.bind(stmt, args);
+		return stmt;
+	}
+
 	public void execute(String sql, Object... args) {
 		ensureIsInitialized();
 
@@ -164,7 +275,7 @@ public class JdbcClient extends RapidoidThing {
 		PreparedStatement stmt = null;
 
 		try {
-			stmt = JDBC.prepare(conn, sql, args);
+			stmt = prepare(conn, sql, args);
 			stmt.execute();
 
 		} catch (SQLException e) {
@@ -176,6 +287,49 @@ public class JdbcClient extends RapidoidThing {
 		}
 	}
 
+	/**
+	 * Starts a batch that executes the statement for many rows of arguments in a single transaction. The rows are sent
+	 * to the database in batches of {@link #batchSize()} rows, and the changes are committed by
+	 * {@link JdbcBatch#execute()}.
+	 */
+	public JdbcBatch batch(String sql) {
+		ensureIsInitialized();
+
+		Connection conn = provideConnection();
+
+		try {
+			return new JdbcBatch(conn, sql, batchSize, rewriteBatchedInserts);
+
+		} catch (SQLException e) {
+			close(conn);
+			throw U.rte(e);
+
+		} catch (RuntimeException e) {
+			close(conn);
+			throw e;
+		}
+	}
+
+	/**
+	 * Executes the statement for all the rows of arguments in a single transaction.
+	 *
+	 * @return the total number of the updated rows, as reported by the database
+	 */
+	public int executeBatch(String sql, Iterable<Object[]> argsList) {
+		JdbcBatch batch = batch(sql);
+
+		try {
+			for (Object[] args : argsList) {
+				batch.add(args);
+			}
+
+			return batch.execute();
+
+		} finally {
+			batch.close();
+		}
+	}
+
 	public void tryToExecute(String sql, Object... args) {
 		try {
 			execute(sql, args);
@@ -194,7 +348,7 @@ public class JdbcClient extends RapidoidThing {
 		ResultSet rs = null;
 
 		try {
-			stmt = JDBC.prepare(conn, sql, args);
+			stmt = prepare(conn, sql, args);
 			rs = stmt.executeQuery();
 
 			if (resultType.equals(Map.class)) {
@@ -217,6 +371,305 @@ public class JdbcClient extends RapidoidThing {
 		return U.cast(query(Map.class, sql, args));
 	}
 
+	/**
+	 * Executes the query and returns a forward-only cursor over the results, which fetches the rows in chunks of
+	 * {@link #fetchSize()} rows, so the results don't have to fit in memory.
+	 */
+	public <T> JdbcCursor<T> cursor(Class<T> resultType, String sql, Object... args) {
+		ensureIsInitialized();
+
+		Connection conn = provideConnection();
+		boolean restoreAutoCommit = false;
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+		boolean success = false;
+
+		try {
+			// some databases (e.g. PostgreSQL) fetch the rows in chunks only inside a transaction
+			if (conn.getAutoCommit()) {
+				conn.setAutoCommit(false);
+				restoreAutoCommit = true;
+			}
+
+			stmt = JDBC.prepare(conn, sql, args);
+			stmt.setFetchSize(fetchSize);
+			rs = stmt.executeQuery();
+
+			JdbcCursor<T> cursor = new JdbcCursor<T>(conn, restoreAutoCommit, stmt, rs, RowMappers.of(resultType, rs.getMetaData()));
+			success = true;
+
+			return cursor;
+
+		} catch (SQLException e) {
+			throw U.rte(e);
+
+		} finally {
+			if (!success) {
+				closeStreaming(conn, restoreAutoCommit, stmt, rs);
+			}
+		}
+	}
+
+	public JdbcCursor<Map<String, Object>> cursor(String sql, Object... args) {
+		return U.cast(cursor(Map.class, sql, args));
+	}
+
+	/**
+	 * Executes the query and passes the results to the row handler one by one, without keeping them in memory.
+	 */
+	public <T> void each(Class<T> resultType, Operation<T> rowHandler, String sql, Object... args) {
+		JdbcCursor<T> cursor = cursor(resultType, sql, args);
+
+		try {
+			for (T row : cursor) {
+				rowHandler.execute(row);
+			}
+
+		} catch (RuntimeException e) {
+			throw e;
+
+		} catch (Exception e) {
+			throw U.rte(e);
+
+		} finally {
+			cursor.close();
+		}
+	}
+
+	public void each(Operation<Map<String, Object>> rowHandler, String sql, Object... args) {
+		each(U.<Class<Map<String, Object>>>cast(Map.class), rowHandler, sql, args);
+	}
+
+	/**
+	 * Executes the query and writes the results to the output as JSON array, one row at a time.
+	 */
+	public void queryToJSON(OutputStream out, String sql, Object... args) {
+		cursor(sql, args).writeJSON(out);
+	}
+
+	/**
+	 * Executes the query and writes the results to the output as CSV, one row at a time.
+	 */
+	public void queryToCSV(OutputStream out, String sql, Object... args) {
+		cursor(sql, args).writeCSV(out);
+	}
+
+	/**
+	 * Executes the query on a dedicated DB thread, without blocking the caller. The results (or the error) are passed
+	 * to the returned promise and to the callback, which is executed on the DB thread, in the context of the caller
+	 * (so e.g. an asynchronous HTTP request can be completed from the callback).<br>
+	 * The number of the DB threads matches the max size of the connection pool, and when they are all busy, the
+	 * operations are queued. If the queue is full, or an operation waits too long, the operation fails with
+	 * {@link RejectedExecutionException} or {@link TimeoutException}.
+	 */
+	public <T> Promise<List<T>> queryAsync(final Class<T> resultType, Callback<List<T>> callback,
+	                                       final String sql, final Object... args) {
+		return async(new Callable<List<T>>() {
+			@Override
+			public List<T> call() throws Exception {
+				return query(resultType, sql, args);
+			}
+		}, callback);
+	}
+
+	public <T> Promise<List<T>> queryAsync(Class<T> resultType, String sql, Object... args) {
+		return queryAsync(resultType, null, sql, args);
+	}
+
+	public Promise<List<Map<String, Object>>> queryAsync(Callback<List<Map<String, Object>>> callback,
+	                                                     final String sql, final Object... args) {
+		return async(new Callable<List<Map<String, Object>>>() {
+			@Override
+			public List<Map<String, Object>> call() throws Exception {
+				return query(sql, args);
+			}
+		}, callback);
+	}
+
+	public Promise<List<Map<String, Object>>> queryAsync(String sql, Object... args) {
+		return queryAsync((Callback<List<Map<String, Object>>>) null, sql, args);
+	}
+
+	/**
+	 * Executes the statement on a dedicated DB thread, without blocking the caller (see {@link #queryAsync}).
+	 */
+	public Promise<Void> executeAsync(Callback<Void> callback, final String sql, final Object... args) {
+		return async(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				execute(sql, args);
+				return null;
+			}
+		}, callback);
+	}
+
+	public Promise<Void> executeAsync(String sql, Object... args) {
+		return executeAsync(null, sql, args);
+	}
+
+	private <T> Promise<T> async(Callable<T> operation, Callback<T> callback) {
+		Promise<T> promise = Promises.create();
+		JobQueue queue = asyncQueue();
+
+		final AsyncOperation<T> op = new AsyncOperation<T>(operation, callback, promise, queue);
+
+		// the operation and the callback are executed in the context of the caller (e.g. the HTTP request)
+		final ContextPreservingJobWrapper job = Jobs.wrap(op);
+
+		Runnable onExpired = new Runnable() {
+			@Override
+			public void run() {
+				op.outcome = AsyncOperation.EXPIRED;
+				job.run();
+			}
+		};
+
+		if (!queue.execute(job, onExpired)) {
+			op.outcome = AsyncOperation.REJECTED;
+			Jobs.executor().execute(job);
+		}
+
+		return promise;
+	}
+
+	private static <T> void done(Promise<T> promise, Callback<T> callback, T result, Throwable error) {
+		Callbacks.done(promise, result, error);
+		Callbacks.done(callback, result, error);
+	}
+
+	/**
+	 * The queue of the asynchronous operations, executed by a dedicated pool of DB threads.
+	 */
+	public synchronized JobQueue asyncQueue() {
+		if (asyncQueue == null) {
+			if (asyncName == null) {
+				int id = ASYNC_ID_GEN.incrementAndGet();
+				asyncName = id == 1 ? "jdbc" : "jdbc" + id;
+			}
+
+			int threads = asyncThreads > 0 ? asyncThreads : maxPoolSize();
+
+			asyncExecutor = new ThreadPoolExecutor(threads, threads, ASYNC_KEEP_ALIVE_SEC, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new RapidoidThreadFactory(asyncName, true));
+
+			// the idle threads are released, so they aren't kept by the clients that are not used anymore
+			asyncExecutor.allowCoreThreadTimeOut(true);
+
+			asyncQueue = JobQueue.register(new JobQueue(asyncName, asyncExecutor, asyncCapacity, asyncMaxWait,
+				PriorityJobExecutor.DEFAULT_PRIORITY));
+		}
+
+		return asyncQueue;
+	}
+
+	private synchronized void resetAsync() {
+		if (asyncExecutor != null) {
+			// the already queued operations will still be executed
+			asyncExecutor.shutdown();
+		}
+
+		if (asyncQueue != null) {
+			JobQueue.unregister(asyncQueue);
+		}
+
+		asyncExecutor = null;
+		asyncQueue = null;
+	}
+
+	/**
+	 * Shuts down the threads of the asynchronous operations (after executing the already queued ones) and the built-in
+	 * connection pool.
+	 */
+	public synchronized void close() {
+		resetAsync();
+
+		if (pool instanceof RapidoidConnectionPool) {
+			((RapidoidConnectionPool) pool).shutdown();
+		}
+	}
+
+	private int maxPoolSize() {
+		ConnectionPool pool = this.pool;
+
+		if (pool instanceof RapidoidConnectionPool) {
+			return ((RapidoidConnectionPool) pool).maxSize();
+
+		} else if (pool instanceof C3P0ConnectionPool) {
+			return ((C3P0ConnectionPool) pool).pool().getMaxPoolSize();
+
+		} else {
+			return JDBCConfig.pool().entry("maxSize").or(32);
+		}
+	}
+
+	private static class AsyncOperation<T> implements Runnable {
+
+		static final int EXECUTED = 0;
+		static final int EXPIRED = 1;
+		static final int REJECTED = 2;
+
+		private final Callable<T> operation;
+		private final Callback<T> callback;
+		private final Promise<T> promise;
+		private final JobQueue queue;
+
+		volatile int outcome = EXECUTED;
+
+		AsyncOperation(Callable<T> operation, Callback<T> callback, Promise<T> promise, JobQueue queue) {
+			this.operation = operation;
+			this.callback = callback;
+			this.promise = promise;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			switch (outcome) {
+				case EXPIRED:
+					String expired = U.frmt("The asynchronous JDBC operation waited for more than %s ms!", queue.maxWait());
+					done(promise, callback, null, new TimeoutException(expired));
+					return;
+
+				case REJECTED:
+					String rejected = U.frmt("Too many pending asynchronous JDBC operations (%s)!", queue.capacity());
+					done(promise, callback, null, new RejectedExecutionException(rejected));
+					return;
+			}
+
+			T result;
+
+			try {
+				result = operation.call();
+			} catch (Throwable e) {
+				done(promise, callback, null, e);
+				return;
+			}
+
+			done(promise, callback, result, null);
+		}
+	}
+
+	static void closeStreaming(Connection conn, boolean restoreAutoCommit, PreparedStatement stmt, ResultSet rs) {
+		try {
+			close(rs);
+			close(stmt);
+
+		} finally {
+			try {
+				if (restoreAutoCommit) {
+					conn.commit();
+					conn.setAutoCommit(true);
+				}
+
+			} catch (SQLException e) {
+				Log.error("Error occurred while finishing the streaming query!", e);
+
+			} finally {
+				close(conn);
+			}
+		}
+	}
+
 	private Connection provideConnection() {
 		try {
 			Connection conn;
@@ -271,10 +724,31 @@ public class JdbcClient extends RapidoidThing {
 		return pool;
 	}
 
+	public int fetchSize() {
+		return fetchSize;
+	}
+
+	public int batchSize() {
+		return batchSize;
+	}
+
+	public boolean rewriteBatchedInserts() {
+		return rewriteBatchedInserts;
+	}
+
+	/**
+	 * Uses a C3P0 connection pool, or the built-in connection pool ({@link RapidoidConnectionPool}) if
+	 * <code>jdbc.pool.type</code> is <code>rapidoid</code>.
+	 */
 	public JdbcClient pooled() {
 		ensureIsInitialized();
 
-		this.pool = new C3P0ConnectionPool(this);
+		if (JDBCConfig.builtInPool()) {
+			new RapidoidConnectionPool(this);
+		} else {
+			new C3P0ConnectionPool(this);
+		}
+
 		return this;
 	}
 
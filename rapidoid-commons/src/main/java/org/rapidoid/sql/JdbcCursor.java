@@ -0,0 +1,225 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.data.JSON;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Constants;
+import org.rapidoid.util.StreamUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Forward-only iteration over the results of a query, mapping only one row at a time. The cursor holds a database
+ * connection until it is exhausted or closed, so it should be closed (e.g. with <i>try-with-resources</i>) when the
+ * iteration might be interrupted.<br>
+ * The remaining rows can also be written straight to an output (e.g. <code>resp.out()</code> of a HTTP response) as
+ * JSON or CSV, without mapping them to objects. As the query is executed when the cursor is opened, the query errors
+ * are reported before anything is written.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JdbcCursor<T> extends RapidoidThing implements Iterator<T>, Iterable<T>, Closeable {
+
+	private final Connection conn;
+
+	private final boolean restoreAutoCommit;
+
+	private final PreparedStatement stmt;
+
+	private final ResultSet rs;
+
+	private final RowMapper<T> mapper;
+
+	private boolean fetched;
+
+	private boolean hasRow;
+
+	private boolean closed;
+
+	JdbcCursor(Connection conn, boolean restoreAutoCommit, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper) {
+		this.conn = conn;
+		this.restoreAutoCommit = restoreAutoCommit;
+		this.stmt = stmt;
+		this.rs = rs;
+		this.mapper = mapper;
+	}
+
+	@Override
+	public synchronized boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+
+		if (!fetched) {
+			try {
+				hasRow = rs.next();
+			} catch (SQLException e) {
+				close();
+				throw U.rte(e);
+			}
+
+			fetched = true;
+
+			if (!hasRow) {
+				close();
+			}
+		}
+
+		return hasRow;
+	}
+
+	@Override
+	public synchronized T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		fetched = false;
+
+		try {
+			return mapper.map(rs);
+		} catch (SQLException e) {
+			close();
+			throw U.rte(e);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("The JDBC cursor is read-only!");
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	/**
+	 * Writes the remaining rows as JSON array of objects, one object per row, and closes the cursor.
+	 */
+	public synchronized void writeJSON(OutputStream out) {
+		try {
+			String[] labels = RowMappers.columnLabels(rs.getMetaData());
+			JsonGenerator generator = JSON.newGenerator(out);
+
+			generator.writeStartArray();
+
+			while (hasNext()) {
+				fetched = false;
+				generator.writeStartObject();
+
+				for (int i = 0; i < labels.length; i++) {
+					generator.writeFieldName(labels[i]);
+					generator.writeObject(rs.getObject(i + 1));
+				}
+
+				generator.writeEndObject();
+			}
+
+			generator.writeEndArray();
+			generator.close(); // flushes the generator, but doesn't close the output
+
+		} catch (SQLException | IOException e) {
+			throw U.rte("Error occurred while writing the rows as JSON!", e);
+
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Writes the column labels and the remaining rows as CSV (RFC 4180), and closes the cursor.
+	 */
+	public synchronized void writeCSV(OutputStream out) {
+		try {
+			String[] labels = RowMappers.columnLabels(rs.getMetaData());
+
+			for (int i = 0; i < labels.length; i++) {
+				writeCSVValue(out, i, labels[i]);
+			}
+
+			out.write(Constants.CR_LF);
+
+			while (hasNext()) {
+				fetched = false;
+
+				for (int i = 0; i < labels.length; i++) {
+					writeCSVValue(out, i, rs.getObject(i + 1));
+				}
+
+				out.write(Constants.CR_LF);
+			}
+
+		} catch (SQLException | IOException e) {
+			throw U.rte("Error occurred while writing the rows as CSV!", e);
+
+		} finally {
+			close();
+		}
+	}
+
+	private static void writeCSVValue(OutputStream out, int index, Object value) throws IOException {
+		if (index > 0) {
+			out.write(',');
+		}
+
+		if (value == null) {
+			return;
+		}
+
+		String s = value.toString();
+
+		if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\r') >= 0 || s.indexOf('\n') >= 0) {
+			out.write('"');
+			StreamUtils.writeUTF8(out, s.replace("\"", "\"\""));
+			out.write('"');
+
+		} else {
+			StreamUtils.writeUTF8(out, s);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			JdbcClient.closeStreaming(conn, restoreAutoCommit, stmt, rs);
+		}
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+}
@@ -0,0 +1,1065 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * The callable statement created through a {@link PooledConnection}.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+final class PooledCallableStatement extends PooledPreparedStatement implements CallableStatement {
+
+	private final CallableStatement stmt;
+
+	PooledCallableStatement(PooledConnection conn, CallableStatement stmt, boolean cached) {
+		super(conn, stmt, cached);
+		this.stmt = stmt;
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+		try {
+			stmt.registerOutParameter(parameterIndex, sqlType);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+		try {
+			stmt.registerOutParameter(parameterIndex, sqlType, scale);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean wasNull() throws SQLException {
+		try {
+			return stmt.wasNull();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getString(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getString(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getBoolean(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public byte getByte(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getByte(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public short getShort(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getShort(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getInt(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getInt(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public long getLong(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getLong(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public float getFloat(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getFloat(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public double getDouble(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getDouble(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+		try {
+			return stmt.getBigDecimal(parameterIndex, scale);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public byte[] getBytes(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getBytes(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Date getDate(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getDate(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Time getTime(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getTime(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Timestamp getTimestamp(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getTimestamp(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Object getObject(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getObject(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getBigDecimal(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
+		try {
+			return stmt.getObject(parameterIndex, map);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Ref getRef(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getRef(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Blob getBlob(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getBlob(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Clob getClob(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getClob(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Array getArray(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getArray(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+		try {
+			return stmt.getDate(parameterIndex, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+		try {
+			return stmt.getTime(parameterIndex, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+		try {
+			return stmt.getTimestamp(parameterIndex, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		try {
+			stmt.registerOutParameter(parameterIndex, sqlType, typeName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+		try {
+			stmt.registerOutParameter(parameterName, sqlType);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+		try {
+			stmt.registerOutParameter(parameterName, sqlType, scale);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+		try {
+			stmt.registerOutParameter(parameterName, sqlType, typeName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.net.URL getURL(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getURL(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setURL(String parameterName, java.net.URL val) throws SQLException {
+		try {
+			stmt.setURL(parameterName, val);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNull(String parameterName, int sqlType) throws SQLException {
+		try {
+			stmt.setNull(parameterName, sqlType);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBoolean(String parameterName, boolean x) throws SQLException {
+		try {
+			stmt.setBoolean(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setByte(String parameterName, byte x) throws SQLException {
+		try {
+			stmt.setByte(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setShort(String parameterName, short x) throws SQLException {
+		try {
+			stmt.setShort(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setInt(String parameterName, int x) throws SQLException {
+		try {
+			stmt.setInt(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setLong(String parameterName, long x) throws SQLException {
+		try {
+			stmt.setLong(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setFloat(String parameterName, float x) throws SQLException {
+		try {
+			stmt.setFloat(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setDouble(String parameterName, double x) throws SQLException {
+		try {
+			stmt.setDouble(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
+		try {
+			stmt.setBigDecimal(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setString(String parameterName, String x) throws SQLException {
+		try {
+			stmt.setString(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBytes(String parameterName, byte[] x) throws SQLException {
+		try {
+			stmt.setBytes(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setDate(String parameterName, java.sql.Date x) throws SQLException {
+		try {
+			stmt.setDate(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTime(String parameterName, java.sql.Time x) throws SQLException {
+		try {
+			stmt.setTime(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTimestamp(String parameterName, java.sql.Timestamp x) throws SQLException {
+		try {
+			stmt.setTimestamp(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException {
+		try {
+			stmt.setAsciiStream(parameterName, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException {
+		try {
+			stmt.setBinaryStream(parameterName, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x, int targetSqlType, int scale) throws SQLException {
+		try {
+			stmt.setObject(parameterName, x, targetSqlType, scale);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
+		try {
+			stmt.setObject(parameterName, x, targetSqlType);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setObject(String parameterName, Object x) throws SQLException {
+		try {
+			stmt.setObject(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException {
+		try {
+			stmt.setCharacterStream(parameterName, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setDate(String parameterName, java.sql.Date x, Calendar cal) throws SQLException {
+		try {
+			stmt.setDate(parameterName, x, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTime(String parameterName, java.sql.Time x, Calendar cal) throws SQLException {
+		try {
+			stmt.setTime(parameterName, x, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTimestamp(String parameterName, java.sql.Timestamp x, Calendar cal) throws SQLException {
+		try {
+			stmt.setTimestamp(parameterName, x, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
+		try {
+			stmt.setNull(parameterName, sqlType, typeName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getString(String parameterName) throws SQLException {
+		try {
+			return stmt.getString(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(String parameterName) throws SQLException {
+		try {
+			return stmt.getBoolean(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public byte getByte(String parameterName) throws SQLException {
+		try {
+			return stmt.getByte(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public short getShort(String parameterName) throws SQLException {
+		try {
+			return stmt.getShort(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getInt(String parameterName) throws SQLException {
+		try {
+			return stmt.getInt(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public long getLong(String parameterName) throws SQLException {
+		try {
+			return stmt.getLong(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public float getFloat(String parameterName) throws SQLException {
+		try {
+			return stmt.getFloat(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public double getDouble(String parameterName) throws SQLException {
+		try {
+			return stmt.getDouble(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public byte[] getBytes(String parameterName) throws SQLException {
+		try {
+			return stmt.getBytes(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Date getDate(String parameterName) throws SQLException {
+		try {
+			return stmt.getDate(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Time getTime(String parameterName) throws SQLException {
+		try {
+			return stmt.getTime(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Timestamp getTimestamp(String parameterName) throws SQLException {
+		try {
+			return stmt.getTimestamp(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Object getObject(String parameterName) throws SQLException {
+		try {
+			return stmt.getObject(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+		try {
+			return stmt.getBigDecimal(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
+		try {
+			return stmt.getObject(parameterName, map);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Ref getRef(String parameterName) throws SQLException {
+		try {
+			return stmt.getRef(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Blob getBlob(String parameterName) throws SQLException {
+		try {
+			return stmt.getBlob(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Clob getClob(String parameterName) throws SQLException {
+		try {
+			return stmt.getClob(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Array getArray(String parameterName) throws SQLException {
+		try {
+			return stmt.getArray(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Date getDate(String parameterName, Calendar cal) throws SQLException {
+		try {
+			return stmt.getDate(parameterName, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Time getTime(String parameterName, Calendar cal) throws SQLException {
+		try {
+			return stmt.getTime(parameterName, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.sql.Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+		try {
+			return stmt.getTimestamp(parameterName, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public java.net.URL getURL(String parameterName) throws SQLException {
+		try {
+			return stmt.getURL(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public RowId getRowId(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getRowId(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public RowId getRowId(String parameterName) throws SQLException {
+		try {
+			return stmt.getRowId(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setRowId(String parameterName, RowId x) throws SQLException {
+		try {
+			stmt.setRowId(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNString(String parameterName, String value) throws SQLException {
+		try {
+			stmt.setNString(parameterName, value);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(String parameterName, Reader value, long length) throws SQLException {
+		try {
+			stmt.setNCharacterStream(parameterName, value, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNClob(String parameterName, NClob value) throws SQLException {
+		try {
+			stmt.setNClob(parameterName, value);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClob(String parameterName, Reader reader, long length) throws SQLException {
+		try {
+			stmt.setClob(parameterName, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBlob(String parameterName, InputStream inputStream, long length) throws SQLException {
+		try {
+			stmt.setBlob(parameterName, inputStream, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
+		try {
+			stmt.setNClob(parameterName, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public NClob getNClob(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getNClob(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public NClob getNClob(String parameterName) throws SQLException {
+		try {
+			return stmt.getNClob(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setSQLXML(String parameterName, SQLXML xmlObject) throws SQLException {
+		try {
+			stmt.setSQLXML(parameterName, xmlObject);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getSQLXML(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public SQLXML getSQLXML(String parameterName) throws SQLException {
+		try {
+			return stmt.getSQLXML(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getNString(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getNString(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getNString(String parameterName) throws SQLException {
+		try {
+			return stmt.getNString(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getNCharacterStream(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Reader getNCharacterStream(String parameterName) throws SQLException {
+		try {
+			return stmt.getNCharacterStream(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(int parameterIndex) throws SQLException {
+		try {
+			return stmt.getCharacterStream(parameterIndex);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream(String parameterName) throws SQLException {
+		try {
+			return stmt.getCharacterStream(parameterName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBlob(String parameterName, Blob x) throws SQLException {
+		try {
+			stmt.setBlob(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClob(String parameterName, Clob x) throws SQLException {
+		try {
+			stmt.setClob(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException {
+		try {
+			stmt.setAsciiStream(parameterName, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException {
+		try {
+			stmt.setBinaryStream(parameterName, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
+		try {
+			stmt.setCharacterStream(parameterName, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(String parameterName, InputStream x) throws SQLException {
+		try {
+			stmt.setAsciiStream(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(String parameterName, InputStream x) throws SQLException {
+		try {
+			stmt.setBinaryStream(parameterName, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(String parameterName, Reader reader) throws SQLException {
+		try {
+			stmt.setCharacterStream(parameterName, reader);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(String parameterName, Reader value) throws SQLException {
+		try {
+			stmt.setNCharacterStream(parameterName, value);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClob(String parameterName, Reader reader) throws SQLException {
+		try {
+			stmt.setClob(parameterName, reader);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBlob(String parameterName, InputStream inputStream) throws SQLException {
+		try {
+			stmt.setBlob(parameterName, inputStream);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNClob(String parameterName, Reader reader) throws SQLException {
+		try {
+			stmt.setNClob(parameterName, reader);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+		try {
+			return stmt.getObject(parameterIndex, type);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+		try {
+			return stmt.getObject(parameterName, type);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+}
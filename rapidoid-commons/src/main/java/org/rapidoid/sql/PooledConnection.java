@@ -0,0 +1,803 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.cls.Proxies;
+import org.rapidoid.log.Log;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * The connection borrowed from {@link RapidoidConnectionPool}, which returns the physical connection to the pool when
+ * closed, after closing the statements that were left open and restoring the connection settings. The statements are
+ * also wrapped, so the physical connection can't escape through them, and their fatal errors evict the connection.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+final class PooledConnection extends RapidoidThing implements Connection {
+
+	private static final int MAX_TRACKED_STATEMENTS = 64;
+
+	private final RapidoidConnectionPool pool;
+
+	private final RapidoidConnectionPool.Entry entry;
+
+	private final Connection conn;
+
+	private final List<Statement> statements = new ArrayList<Statement>(4);
+
+	private boolean closed;
+
+	private boolean autoCommit;
+
+	private boolean dirty;
+
+	private boolean readOnlyChanged;
+
+	private boolean isolationChanged;
+
+	private boolean catalogChanged;
+
+	PooledConnection(RapidoidConnectionPool pool, RapidoidConnectionPool.Entry entry) {
+		this.pool = pool;
+		this.entry = entry;
+		this.conn = entry.conn;
+		this.autoCommit = pool.autoCommit();
+	}
+
+	void checkOpen() throws SQLException {
+		if (closed) {
+			throw new SQLException("The connection is closed!", "08003");
+		}
+	}
+
+	boolean closed() {
+		return closed;
+	}
+
+	<T extends SQLException> T fatal(T e) {
+		if (RapidoidConnectionPool.isFatal(e)) {
+			entry.evict = true;
+		}
+
+		return e;
+	}
+
+	private <T extends Statement> T track(T stmt) throws SQLException {
+		if (statements.size() >= MAX_TRACKED_STATEMENTS) {
+			// forget the statements that were closed indirectly (e.g. with closeOnCompletion)
+			for (int i = statements.size() - 1; i >= 0; i--) {
+				if (statements.get(i).isClosed()) {
+					statements.remove(i);
+				}
+			}
+		}
+
+		statements.add(stmt);
+		return stmt;
+	}
+
+	void untrack(Statement stmt) {
+		statements.remove(stmt);
+	}
+
+	/**
+	 * Prepares the statement from the cache of the physical connection, it is returned to the cache when closed.
+	 */
+	PreparedStatement prepareCached(String sql) throws SQLException {
+		int cacheSize = pool.statementCacheSize();
+		if (cacheSize <= 0) return null;
+
+		checkOpen();
+		dirty = true;
+
+		if (entry.statements == null) {
+			entry.statements = new StatementCache(conn, cacheSize);
+		}
+
+		try {
+			return new PooledPreparedStatement(this, entry.statements.prepare(sql), true);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+
+		try {
+			reset();
+
+		} catch (SQLException e) {
+			Log.warn("Couldn't reset a JDBC connection, closing it!", "pool", pool.name(), "error", e.getMessage());
+			entry.evict = true;
+		}
+
+		pool.release(entry);
+	}
+
+	private void reset() throws SQLException {
+		for (Statement stmt : statements) {
+			stmt.close();
+		}
+
+		statements.clear();
+
+		if (!autoCommit && dirty) {
+			conn.rollback();
+		}
+
+		if (autoCommit != pool.autoCommit()) {
+			conn.setAutoCommit(pool.autoCommit());
+		}
+
+		if (readOnlyChanged) {
+			conn.setReadOnly(false);
+		}
+
+		if (isolationChanged) {
+			conn.setTransactionIsolation(entry.isolation);
+		}
+
+		if (catalogChanged) {
+			conn.setCatalog(entry.catalog);
+
+			// the cached statements might refer to the other catalog
+			if (entry.statements != null) {
+				entry.statements.clear();
+			}
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public void abort(Executor executor) {
+		entry.evict = true;
+		close();
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException {
+		if (closed) return false;
+
+		try {
+			return conn.isValid(timeout);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.setAutoCommit(autoCommit);
+			this.autoCommit = autoCommit;
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		checkOpen();
+
+		try {
+			conn.commit();
+			dirty = false;
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		checkOpen();
+
+		try {
+			conn.rollback();
+			dirty = false;
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		checkOpen();
+		readOnlyChanged = true;
+
+		try {
+			conn.setReadOnly(readOnly);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException {
+		checkOpen();
+		isolationChanged = true;
+
+		try {
+			conn.setTransactionIsolation(level);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCatalog(String catalog) throws SQLException {
+		checkOpen();
+		catalogChanged = true;
+
+		try {
+			conn.setCatalog(catalog);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return conn.setSavepoint();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return conn.setSavepoint(name);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledStatement(this, track(conn.createStatement()), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledPreparedStatement(this, track(conn.prepareStatement(sql)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledCallableStatement(this, track(conn.prepareCall(sql)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledStatement(this, track(conn.createStatement(resultSetType, resultSetConcurrency)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledPreparedStatement(this, track(conn.prepareStatement(sql, resultSetType, resultSetConcurrency)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledCallableStatement(this, track(conn.prepareCall(sql, resultSetType, resultSetConcurrency)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledStatement(this, track(conn.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledPreparedStatement(this, track(conn.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledCallableStatement(this, track(conn.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledPreparedStatement(this, track(conn.prepareStatement(sql, autoGeneratedKeys)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledPreparedStatement(this, track(conn.prepareStatement(sql, columnIndexes)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+		checkOpen();
+		dirty = true;
+
+		try {
+			return new PooledPreparedStatement(this, track(conn.prepareStatement(sql, columnNames)), false);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	/**
+	 * The metadata is rarely used, so it is simply proxied, to return the borrowed connection instead of the physical.
+	 */
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException {
+		checkOpen();
+
+		final DatabaseMetaData metadata;
+
+		try {
+			metadata = conn.getMetaData();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+
+		return Proxies.createProxy(new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+					case "getConnection":
+						checkOpen();
+						return PooledConnection.this;
+
+					case "equals":
+						return proxy == args[0];
+
+					case "hashCode":
+						return System.identityHashCode(proxy);
+
+					default:
+						try {
+							return method.invoke(metadata, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+				}
+			}
+		}, DatabaseMetaData.class);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		checkOpen();
+		return iface.isInstance(this) ? iface.cast(this) : conn.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		checkOpen();
+		return iface.isInstance(this) || conn.isWrapperFor(iface);
+	}
+
+	@Override
+	public String nativeSQL(String sql) throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.nativeSQL(sql);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getAutoCommit();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.isReadOnly();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getCatalog() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getCatalog();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getTransactionIsolation();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getWarnings();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		checkOpen();
+
+		try {
+			conn.clearWarnings();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getTypeMap();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.setTypeMap(map);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setHoldability(int holdability) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.setHoldability(holdability);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getHoldability();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.rollback(savepoint);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.releaseSavepoint(savepoint);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Clob createClob() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.createClob();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.createBlob();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.createNClob();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.createSQLXML();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) throws SQLClientInfoException {
+		if (closed) {
+			throw new SQLClientInfoException("The connection is closed!", "08003", 0, null);
+		}
+
+		try {
+			conn.setClientInfo(name, value);
+		} catch (SQLClientInfoException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) throws SQLClientInfoException {
+		if (closed) {
+			throw new SQLClientInfoException("The connection is closed!", "08003", 0, null);
+		}
+
+		try {
+			conn.setClientInfo(properties);
+		} catch (SQLClientInfoException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getClientInfo(String name) throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getClientInfo(name);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Properties getClientInfo() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getClientInfo();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.createArrayOf(typeName, elements);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.createStruct(typeName, attributes);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setSchema(String schema) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.setSchema(schema);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String getSchema() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getSchema();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+		checkOpen();
+
+		try {
+			conn.setNetworkTimeout(executor, milliseconds);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException {
+		checkOpen();
+
+		try {
+			return conn.getNetworkTimeout();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Pooled(" + conn + ")";
+	}
+
+}
@@ -0,0 +1,542 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * The prepared statement created through a {@link PooledConnection}.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class PooledPreparedStatement extends PooledStatement implements PreparedStatement {
+
+	private final PreparedStatement stmt;
+
+	PooledPreparedStatement(PooledConnection conn, PreparedStatement stmt, boolean cached) {
+		super(conn, stmt, cached);
+		this.stmt = stmt;
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		try {
+			return stmt.executeQuery();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		try {
+			return stmt.executeUpdate();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		try {
+			stmt.setNull(parameterIndex, sqlType);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		try {
+			stmt.setBoolean(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		try {
+			stmt.setByte(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		try {
+			stmt.setShort(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		try {
+			stmt.setInt(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		try {
+			stmt.setLong(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		try {
+			stmt.setFloat(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		try {
+			stmt.setDouble(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		try {
+			stmt.setBigDecimal(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		try {
+			stmt.setString(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		try {
+			stmt.setBytes(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setDate(int parameterIndex, java.sql.Date x) throws SQLException {
+		try {
+			stmt.setDate(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTime(int parameterIndex, java.sql.Time x) throws SQLException {
+		try {
+			stmt.setTime(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, java.sql.Timestamp x) throws SQLException {
+		try {
+			stmt.setTimestamp(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		try {
+			stmt.setAsciiStream(parameterIndex, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		try {
+			stmt.setUnicodeStream(parameterIndex, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		try {
+			stmt.setBinaryStream(parameterIndex, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		try {
+			stmt.clearParameters();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		try {
+			stmt.setObject(parameterIndex, x, targetSqlType);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		try {
+			stmt.setObject(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		try {
+			return stmt.execute();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		try {
+			stmt.addBatch();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+		try {
+			stmt.setCharacterStream(parameterIndex, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) throws SQLException {
+		try {
+			stmt.setRef(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) throws SQLException {
+		try {
+			stmt.setBlob(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) throws SQLException {
+		try {
+			stmt.setClob(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) throws SQLException {
+		try {
+			stmt.setArray(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		try {
+			return stmt.getMetaData();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setDate(int parameterIndex, java.sql.Date x, Calendar cal) throws SQLException {
+		try {
+			stmt.setDate(parameterIndex, x, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
+		try {
+			stmt.setTime(parameterIndex, x, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
+		try {
+			stmt.setTimestamp(parameterIndex, x, cal);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		try {
+			stmt.setNull(parameterIndex, sqlType, typeName);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setURL(int parameterIndex, java.net.URL x) throws SQLException {
+		try {
+			stmt.setURL(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		try {
+			return stmt.getParameterMetaData();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) throws SQLException {
+		try {
+			stmt.setRowId(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) throws SQLException {
+		try {
+			stmt.setNString(parameterIndex, value);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+		try {
+			stmt.setNCharacterStream(parameterIndex, value, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob value) throws SQLException {
+		try {
+			stmt.setNClob(parameterIndex, value);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		try {
+			stmt.setClob(parameterIndex, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+		try {
+			stmt.setBlob(parameterIndex, inputStream, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		try {
+			stmt.setNClob(parameterIndex, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+		try {
+			stmt.setSQLXML(parameterIndex, xmlObject);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		try {
+			stmt.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		try {
+			stmt.setAsciiStream(parameterIndex, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		try {
+			stmt.setBinaryStream(parameterIndex, x, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+		try {
+			stmt.setCharacterStream(parameterIndex, reader, length);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+		try {
+			stmt.setAsciiStream(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+		try {
+			stmt.setBinaryStream(parameterIndex, x);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+		try {
+			stmt.setCharacterStream(parameterIndex, reader);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+		try {
+			stmt.setNCharacterStream(parameterIndex, value);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader) throws SQLException {
+		try {
+			stmt.setClob(parameterIndex, reader);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+		try {
+			stmt.setBlob(parameterIndex, inputStream);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+		try {
+			stmt.setNClob(parameterIndex, reader);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+}
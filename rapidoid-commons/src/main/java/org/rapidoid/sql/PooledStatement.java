@@ -0,0 +1,440 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+import java.sql.*;
+
+/**
+ * The statement created through a {@link PooledConnection}.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class PooledStatement extends RapidoidThing implements Statement {
+
+	private final PooledConnection conn;
+
+	private final Statement stmt;
+
+	/**
+	 * The cached statements stay open in the cache of the physical connection when closed.
+	 */
+	private final boolean cached;
+
+	PooledStatement(PooledConnection conn, Statement stmt, boolean cached) {
+		this.conn = conn;
+		this.stmt = stmt;
+		this.cached = cached;
+	}
+
+	<T extends SQLException> T fatal(T e) {
+		return conn.fatal(e);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		conn.checkOpen();
+		return conn;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (cached) return;
+
+		conn.untrack(stmt);
+		stmt.close();
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return cached ? conn.closed() : stmt.isClosed();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return iface.isInstance(this) ? iface.cast(this) : stmt.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || stmt.isWrapperFor(iface);
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		try {
+			return stmt.executeQuery(sql);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		try {
+			return stmt.executeUpdate(sql);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		try {
+			return stmt.getMaxFieldSize();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		try {
+			stmt.setMaxFieldSize(max);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		try {
+			return stmt.getMaxRows();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		try {
+			stmt.setMaxRows(max);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		try {
+			stmt.setEscapeProcessing(enable);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		try {
+			return stmt.getQueryTimeout();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		try {
+			stmt.setQueryTimeout(seconds);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		try {
+			stmt.cancel();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		try {
+			return stmt.getWarnings();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		try {
+			stmt.clearWarnings();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		try {
+			stmt.setCursorName(name);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		try {
+			return stmt.execute(sql);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		try {
+			return stmt.getResultSet();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		try {
+			return stmt.getUpdateCount();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		try {
+			return stmt.getMoreResults();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		try {
+			stmt.setFetchDirection(direction);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		try {
+			return stmt.getFetchDirection();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		try {
+			stmt.setFetchSize(rows);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		try {
+			return stmt.getFetchSize();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		try {
+			return stmt.getResultSetConcurrency();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		try {
+			return stmt.getResultSetType();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		try {
+			stmt.addBatch(sql);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		try {
+			stmt.clearBatch();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		try {
+			return stmt.executeBatch();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException {
+		try {
+			return stmt.getMoreResults(current);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		try {
+			return stmt.getGeneratedKeys();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return stmt.executeUpdate(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return stmt.executeUpdate(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		try {
+			return stmt.executeUpdate(sql, columnNames);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return stmt.execute(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return stmt.execute(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		try {
+			return stmt.execute(sql, columnNames);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		try {
+			return stmt.getResultSetHoldability();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		try {
+			stmt.setPoolable(poolable);
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		try {
+			return stmt.isPoolable();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		try {
+			stmt.closeOnCompletion();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		try {
+			return stmt.isCloseOnCompletion();
+		} catch (SQLException e) {
+			throw fatal(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Pooled(" + stmt + ")";
+	}
+
+}
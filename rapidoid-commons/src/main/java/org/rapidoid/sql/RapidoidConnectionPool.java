@@ -0,0 +1,760 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Config;
+import org.rapidoid.insight.Metrics;
+import org.rapidoid.job.Jobs;
+import org.rapidoid.log.Log;
+import org.rapidoid.timeseries.TimeSeries;
+import org.rapidoid.u.U;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lightweight JDBC connection pool, optimized for a fixed number of long-living worker threads.<br>
+ * The connections are borrowed without locking: each thread first tries the connections it has recently released,
+ * then the shared list of all the connections, and only if the pool is exhausted it waits for a connection to be
+ * handed off by another thread.<br>
+ * The connections are validated only if they were idle for longer than the validation interval. The connections are
+ * retired after their max lifetime and the idle connections above the minimum are closed after the idle timeout.
+ * The connections that are held for longer than the leak detection threshold are reported as possible leaks.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class RapidoidConnectionPool extends RapidoidThing implements ConnectionPool {
+
+	static final int FREE = 0;
+	static final int IN_USE = 1;
+	static final int REMOVED = -1;
+
+	private static final int MAX_RECENT_PER_THREAD = 16;
+
+	private static final long MAX_HANDOFF_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private static final long HANDOFF_OFFER_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private static final AtomicInteger ID_GEN = new AtomicInteger();
+
+	private final String name;
+
+	private final String url;
+	private final String username;
+	private final String password;
+
+	private final CopyOnWriteArrayList<Entry> entries = new CopyOnWriteArrayList<Entry>();
+
+	private final ThreadLocal<List<Entry>> recent = new ThreadLocal<List<Entry>>() {
+		@Override
+		protected List<Entry> initialValue() {
+			return new ArrayList<Entry>(MAX_RECENT_PER_THREAD);
+		}
+	};
+
+	private final SynchronousQueue<Entry> handoff = new SynchronousQueue<Entry>(true);
+
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger waiting = new AtomicInteger();
+
+	private final AtomicLong borrowed = new AtomicLong();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong closed = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong leaks = new AtomicLong();
+
+	private final TimeSeries activeMetric;
+	private final TimeSeries idleMetric;
+	private final TimeSeries waitingMetric;
+
+	private final Runnable metricsUpdater = new Runnable() {
+		@Override
+		public void run() {
+			updateMetrics();
+		}
+	};
+
+	private final Random random = new Random();
+
+	private volatile int maxSize;
+	private volatile int minIdle;
+	private volatile long connectionTimeout;
+	private volatile long validationInterval;
+	private volatile int validationTimeout;
+	private volatile long idleTimeout;
+	private volatile long maxLifetime;
+	private volatile long leakDetectionThreshold;
+	private volatile boolean autoCommit;
+	private volatile int statementCacheSize;
+
+	private volatile boolean shutdown;
+
+	private final ScheduledFuture<?> housekeeping;
+
+	public RapidoidConnectionPool(String jdbcUrl, String driverClass, String username, String password) {
+		this(newName(), jdbcUrl, driverClass, username, password);
+	}
+
+	public RapidoidConnectionPool(String name, String jdbcUrl, String driverClass, String username, String password) {
+		U.must(U.notEmpty(jdbcUrl), "The database connection URL must be specified!");
+
+		this.name = name;
+		this.url = jdbcUrl;
+		this.username = username;
+		this.password = password;
+
+		if (driverClass != null) {
+			try {
+				Class.forName(driverClass);
+			} catch (ClassNotFoundException e) {
+				throw U.rte("Cannot find JDBC driver class: " + driverClass);
+			}
+		}
+
+		Config cfg = JDBCConfig.pool();
+
+		this.maxSize = cfg.entry("maxSize").or(32);
+		this.minIdle = cfg.entry("minIdle").or(2);
+		this.connectionTimeout = cfg.entry("connectionTimeout").or(30000L);
+		this.validationInterval = cfg.entry("validationInterval").or(1000L);
+		this.validationTimeout = cfg.entry("validationTimeout").or(5);
+		this.idleTimeout = cfg.entry("idleTimeout").or(600000L);
+		this.maxLifetime = cfg.entry("maxLifetime").or(1800000L);
+		this.leakDetectionThreshold = cfg.entry("leakDetectionThreshold").or(0L);
+		this.autoCommit = cfg.entry("autoCommit").or(true);
+		this.statementCacheSize = cfg.entry("statementCacheSize").or(64);
+
+		long housekeepingPeriod = cfg.entry("housekeepingPeriod").or(1000L);
+
+		this.activeMetric = new TimeSeries().title("Active JDBC connections (" + name + ")");
+		this.idleMetric = new TimeSeries().title("Idle JDBC connections (" + name + ")");
+		this.waitingMetric = new TimeSeries().title("Threads waiting for JDBC connection (" + name + ")");
+
+		Metrics.register("jdbc/" + name + "/active", activeMetric);
+		Metrics.register("jdbc/" + name + "/idle", idleMetric);
+		Metrics.register("jdbc/" + name + "/waiting", waitingMetric);
+		Metrics.updater(metricsUpdater);
+
+		this.housekeeping = Jobs.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				housekeep();
+			}
+		}, 0, housekeepingPeriod, TimeUnit.MILLISECONDS);
+
+		Log.info("Initialized JDBC connection pool", "!name", name, "!url", url, "!maxSize", maxSize, "!minIdle", minIdle);
+	}
+
+	public RapidoidConnectionPool(JdbcClient jdbc) {
+		this(jdbc.url(), jdbc.driver(), jdbc.username(), jdbc.password());
+		jdbc.pool(this);
+	}
+
+	private static String newName() {
+		int id = ID_GEN.incrementAndGet();
+		return id == 1 ? "pool" : "pool" + id;
+	}
+
+	@Override
+	public Connection getConnection(String jdbcUrl) throws SQLException {
+		U.must(U.eq(jdbcUrl, url), "The JDBC URLs don't match: '%s' and '%s'!", jdbcUrl, url);
+		return getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String jdbcUrl, String username, String password) throws SQLException {
+		U.must(U.eq(jdbcUrl, url), "The JDBC URLs don't match: '%s' and '%s'!", jdbcUrl, url);
+		U.must(U.eq(username, this.username), "The JDBC usernames don't match: '%s' and '%s'!", username, this.username);
+		return getConnection();
+	}
+
+	public Connection getConnection() throws SQLException {
+		Entry entry = borrow();
+
+		entry.borrowedAt = U.time();
+		entry.borrowedBy = leakDetectionThreshold > 0 ? new Exception("The connection was borrowed here") : null;
+		entry.leakReported = false;
+		borrowed.incrementAndGet();
+
+		return new PooledConnection(this, entry);
+	}
+
+	@Override
+	public void releaseConnection(Connection connection) throws SQLException {
+		connection.close();
+	}
+
+	private Entry borrow() throws SQLException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeout);
+
+		while (true) {
+			if (shutdown) {
+				throw new SQLException("The connection pool '" + name + "' is shut down!");
+			}
+
+			Entry entry = takeRecent();
+
+			if (entry == null) {
+				entry = takeShared();
+			}
+
+			if (entry == null) {
+				entry = create(IN_USE);
+				if (entry != null) return entry;
+
+				entry = await(deadline);
+			}
+
+			if (isUsable(entry)) {
+				return entry;
+			}
+
+			retire(entry);
+		}
+	}
+
+	private Entry takeRecent() {
+		List<Entry> list = recent.get();
+
+		for (int i = list.size() - 1; i >= 0; i--) {
+			Entry entry = list.remove(i);
+
+			if (entry.state.compareAndSet(FREE, IN_USE)) {
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	private Entry takeShared() {
+		for (Entry entry : entries) {
+			if (entry.state.compareAndSet(FREE, IN_USE)) {
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	private Entry await(long deadline) throws SQLException {
+		waiting.incrementAndGet();
+
+		try {
+			while (true) {
+				Entry entry = takeShared();
+				if (entry != null) return entry;
+
+				entry = create(IN_USE);
+				if (entry != null) return entry;
+
+				long remaining = deadline - System.nanoTime();
+
+				if (remaining <= 0 || shutdown) {
+					timeouts.incrementAndGet();
+					throw new SQLTimeoutException(U.frmt("Couldn't get a connection from the pool '%s' in %s ms!", name, connectionTimeout));
+				}
+
+				entry = handoff.poll(Math.min(remaining, MAX_HANDOFF_WAIT_NANOS), TimeUnit.NANOSECONDS);
+
+				if (entry != null && entry.state.compareAndSet(FREE, IN_USE)) {
+					return entry;
+				}
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection!", e);
+
+		} finally {
+			waiting.decrementAndGet();
+		}
+	}
+
+	private Entry create(int initialState) throws SQLException {
+		while (true) {
+			int n = size.get();
+			if (n >= maxSize) return null;
+			if (size.compareAndSet(n, n + 1)) break;
+		}
+
+		try {
+			Connection conn = username != null
+				? DriverManager.getConnection(url, username, U.safe(password))
+				: DriverManager.getConnection(url);
+
+			// a bit of variance (up to 2.5% of the max lifetime), so the connections don't expire all at once
+			Entry entry = new Entry(conn, random.nextDouble() * 0.025, initialState);
+
+			conn.setAutoCommit(autoCommit);
+			entry.isolation = conn.getTransactionIsolation();
+			entry.catalog = conn.getCatalog();
+
+			entries.add(entry);
+			created.incrementAndGet();
+
+			if (shutdown) {
+				entry.state.set(REMOVED);
+				remove(entry);
+				throw new SQLException("The connection pool '" + name + "' is shut down!");
+			}
+
+			return entry;
+
+		} catch (SQLException e) {
+			size.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		long lifetime = maxLifetime;
+		return lifetime > 0 && now - entry.createdAt >= lifetime * (1 - entry.lifetimeVariance);
+	}
+
+	private boolean isUsable(Entry entry) {
+		long now = U.time();
+
+		if (entry.evict || isExpired(entry, now)) {
+			return false;
+		}
+
+		if (now - entry.lastUsedAt <= validationInterval) {
+			return true;
+		}
+
+		try {
+			return entry.conn.isValid(validationTimeout);
+
+		} catch (SQLException e) {
+			Log.warn("Couldn't validate JDBC connection!", "pool", name, "error", e.getMessage());
+			return false;
+		}
+	}
+
+	void release(Entry entry) {
+		long now = U.time();
+
+		if (shutdown || entry.evict || isExpired(entry, now)) {
+			retire(entry);
+			return;
+		}
+
+		entry.lastUsedAt = now;
+		entry.borrowedBy = null;
+		entry.state.set(FREE);
+
+		if (handOff(entry, HANDOFF_OFFER_NANOS)) {
+			return;
+		}
+
+		List<Entry> list = recent.get();
+
+		if (list.size() >= MAX_RECENT_PER_THREAD) {
+			list.remove(0);
+		}
+
+		list.add(entry);
+	}
+
+	/**
+	 * Offers the free connection to a waiting thread, waiting at most the specified time for the waiter to take it. If
+	 * not handed off, the connection simply stays free in the shared list, where the waiting threads also look for it.
+	 */
+	private boolean handOff(Entry entry, long timeoutNanos) {
+		if (waiting.get() == 0) return false;
+
+		try {
+			return timeoutNanos > 0 ? handoff.offer(entry, timeoutNanos, TimeUnit.NANOSECONDS) : handoff.offer(entry);
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void retire(Entry entry) {
+		entry.state.set(REMOVED);
+		remove(entry);
+	}
+
+	private void remove(Entry entry) {
+		if (entries.remove(entry)) {
+			size.decrementAndGet();
+			closed.incrementAndGet();
+		}
+
+		if (entry.statements != null) {
+			entry.statements.clear();
+		}
+
+		try {
+			entry.conn.close();
+		} catch (SQLException e) {
+			Log.warn("Error occurred while closing a JDBC connection!", "pool", name, "error", e.getMessage());
+		}
+	}
+
+	void housekeep() {
+		if (shutdown) return;
+
+		try {
+			long now = U.time();
+			int idle = idle();
+
+			for (Entry entry : entries) {
+				int state = entry.state.get();
+
+				if (state == FREE) {
+					boolean expired = entry.evict || isExpired(entry, now);
+					boolean idleTooLong = idleTimeout > 0 && now - entry.lastUsedAt > idleTimeout && idle > minIdle;
+
+					if ((expired || idleTooLong) && entry.state.compareAndSet(FREE, REMOVED)) {
+						remove(entry);
+						idle--;
+					}
+
+				} else if (state == IN_USE) {
+					long held = now - entry.borrowedAt;
+
+					if (leakDetectionThreshold > 0 && held > leakDetectionThreshold && !entry.leakReported) {
+						entry.leakReported = true;
+						leaks.incrementAndGet();
+						reportLeak(entry, held);
+					}
+				}
+			}
+
+			while (idle < minIdle && !shutdown) {
+				Entry entry = create(IN_USE);
+				if (entry == null) break;
+
+				entry.state.set(FREE);
+				handOff(entry, 0);
+				idle++;
+			}
+
+		} catch (Exception e) {
+			Log.error("Error occurred in the housekeeping of the JDBC connection pool: " + name, e);
+		}
+	}
+
+	private void reportLeak(Entry entry, long held) {
+		Log.warn("Possible JDBC connection leak, the connection wasn't returned to the pool!", "pool", name, "held (ms)", held);
+
+		Throwable borrowedBy = entry.borrowedBy;
+		if (borrowedBy != null) {
+			Log.warn("The possibly leaked JDBC connection was borrowed here:", borrowedBy);
+		}
+	}
+
+	/**
+	 * Closes the idle connections and stops the housekeeping. The active connections are closed when released.
+	 */
+	public void shutdown() {
+		if (shutdown) return;
+		shutdown = true;
+
+		housekeeping.cancel(false);
+
+		unregisterMetric("active", activeMetric);
+		unregisterMetric("idle", idleMetric);
+		unregisterMetric("waiting", waitingMetric);
+		Metrics.removeUpdater(metricsUpdater);
+
+		for (Entry entry : entries) {
+			if (entry.state.compareAndSet(FREE, REMOVED)) {
+				remove(entry);
+			}
+		}
+
+		Log.info("Shut down JDBC connection pool", "!name", name);
+	}
+
+	private void unregisterMetric(String metric, TimeSeries series) {
+		String uri = "jdbc/" + name + "/" + metric;
+
+		// another pool with the same name might have replaced it
+		if (Metrics.get(uri) == series) {
+			Metrics.unregister(uri);
+		}
+	}
+
+	public void updateMetrics() {
+		long now = U.time();
+		int idle = idle();
+
+		activeMetric.put(now, size.get() - idle);
+		idleMetric.put(now, idle);
+		waitingMetric.put(now, waiting.get());
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public String url() {
+		return url;
+	}
+
+	/**
+	 * The number of the open connections (active and idle).
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	public int idle() {
+		int idle = 0;
+
+		for (Entry entry : entries) {
+			if (entry.state.get() == FREE) idle++;
+		}
+
+		return idle;
+	}
+
+	public int active() {
+		int active = 0;
+
+		for (Entry entry : entries) {
+			if (entry.state.get() == IN_USE) active++;
+		}
+
+		return active;
+	}
+
+	public int waiting() {
+		return waiting.get();
+	}
+
+	public long borrowed() {
+		return borrowed.get();
+	}
+
+	public long created() {
+		return created.get();
+	}
+
+	public long closed() {
+		return closed.get();
+	}
+
+	public long timeouts() {
+		return timeouts.get();
+	}
+
+	public long leaks() {
+		return leaks.get();
+	}
+
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	public int maxSize() {
+		return maxSize;
+	}
+
+	public RapidoidConnectionPool maxSize(int maxSize) {
+		U.must(maxSize > 0, "The max pool size must be positive!");
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	public int minIdle() {
+		return minIdle;
+	}
+
+	public RapidoidConnectionPool minIdle(int minIdle) {
+		this.minIdle = minIdle;
+		return this;
+	}
+
+	public long connectionTimeout() {
+		return connectionTimeout;
+	}
+
+	/**
+	 * How long (in ms) to wait for a connection when the pool is exhausted, before giving up with SQLTimeoutException.
+	 */
+	public RapidoidConnectionPool connectionTimeout(long connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+		return this;
+	}
+
+	public long validationInterval() {
+		return validationInterval;
+	}
+
+	/**
+	 * The connections that were idle for longer than this (in ms) are validated before they are borrowed.
+	 */
+	public RapidoidConnectionPool validationInterval(long validationInterval) {
+		this.validationInterval = validationInterval;
+		return this;
+	}
+
+	public int validationTimeout() {
+		return validationTimeout;
+	}
+
+	/**
+	 * The timeout of the connection validation, in seconds.
+	 */
+	public RapidoidConnectionPool validationTimeout(int validationTimeout) {
+		this.validationTimeout = validationTimeout;
+		return this;
+	}
+
+	public long idleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * The idle connections above the minimum are closed after being idle for this long (in ms), 0 means never.
+	 */
+	public RapidoidConnectionPool idleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+		return this;
+	}
+
+	public long maxLifetime() {
+		return maxLifetime;
+	}
+
+	/**
+	 * The connections are retired after this time (in ms), 0 means never.
+	 */
+	public RapidoidConnectionPool maxLifetime(long maxLifetime) {
+		this.maxLifetime = maxLifetime;
+		return this;
+	}
+
+	public long leakDetectionThreshold() {
+		return leakDetectionThreshold;
+	}
+
+	/**
+	 * The connections held for longer than this (in ms) are reported as possible leaks, 0 means disabled.
+	 */
+	public RapidoidConnectionPool leakDetectionThreshold(long leakDetectionThreshold) {
+		this.leakDetectionThreshold = leakDetectionThreshold;
+		return this;
+	}
+
+	public boolean autoCommit() {
+		return autoCommit;
+	}
+
+	/**
+	 * The auto-commit mode of the new connections, which is also restored when a connection is returned to the pool.
+	 */
+	public RapidoidConnectionPool autoCommit(boolean autoCommit) {
+		this.autoCommit = autoCommit;
+		return this;
+	}
+
+	public int statementCacheSize() {
+		return statementCacheSize;
+	}
+
+	/**
+	 * The max number of prepared statements that are cached per connection for the queries of {@link JdbcClient}, 0
+	 * means disabled.
+	 */
+	public RapidoidConnectionPool statementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return U.frmt("RapidoidConnectionPool{name=%s, size=%s, idle=%s, waiting=%s, borrowed=%s, created=%s, closed=%s, timeouts=%s, leaks=%s}",
+			name, size(), idle(), waiting(), borrowed(), created(), closed(), timeouts(), leaks());
+	}
+
+	static boolean isFatal(SQLException e) {
+		String state = e.getSQLState();
+
+		// connection exceptions (08xxx) and admin/crash shutdown (57P0x)
+		return state != null && (state.startsWith("08") || state.startsWith("57P0"));
+	}
+
+	/**
+	 * Prepares the statement from the cache of the physical connection, if the connection was borrowed from a
+	 * {@link RapidoidConnectionPool} with enabled statement cache. Closing the returned statement returns it to the
+	 * cache, so it must be closed before the same SQL is prepared again through the connection.
+	 *
+	 * @return the cached statement, or <code>null</code> if the statement cache is not available
+	 */
+	static PreparedStatement prepareCached(Connection conn, String sql) throws SQLException {
+		return conn instanceof PooledConnection ? ((PooledConnection) conn).prepareCached(sql) : null;
+	}
+
+	static final class Entry {
+
+		final Connection conn;
+
+		final long createdAt = U.time();
+
+		final double lifetimeVariance;
+
+		final AtomicInteger state;
+
+		volatile long lastUsedAt = createdAt;
+
+		volatile long borrowedAt;
+
+		volatile Throwable borrowedBy;
+
+		volatile boolean leakReported;
+
+		volatile boolean evict;
+
+		int isolation;
+
+		String catalog;
+
+		/**
+		 * The prepared statements that outlive the borrowed connections, used only by the current borrower.
+		 */
+		StatementCache statements;
+
+		Entry(Connection conn, double lifetimeVariance, int state) {
+			this.conn = conn;
+			this.lifetimeVariance = lifetimeVariance;
+			this.state = new AtomicInteger(state);
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.beany.Beany;
+import org.rapidoid.beany.Prop;
+import org.rapidoid.cls.Cls;
+import org.rapidoid.u.U;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class RowMappers extends RapidoidThing {
+
+	private static final int MAX_CACHED_MAPPERS = 1000;
+
+	private static final ConcurrentMap<MapperKey, RowMapper<?>> BEAN_MAPPERS = new ConcurrentHashMap<MapperKey, RowMapper<?>>();
+
+	public static String[] columnLabels(ResultSetMetaData meta) throws SQLException {
+		String[] labels = new String[meta.getColumnCount()];
+
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = meta.getColumnLabel(i + 1); // 1-indexed
+		}
+
+		return labels;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> RowMapper<T> of(Class<T> resultType, ResultSetMetaData meta) throws SQLException {
+		String[] labels = columnLabels(meta);
+
+		if (resultType.equals(Map.class)) {
+			return (RowMapper<T>) new MapRowMapper(labels);
+		}
+
+		MapperKey key = new MapperKey(resultType, labels);
+		RowMapper<T> mapper = (RowMapper<T>) BEAN_MAPPERS.get(key);
+
+		if (mapper == null) {
+			mapper = new BeanRowMapper<T>(resultType, labels);
+
+			if (BEAN_MAPPERS.size() < MAX_CACHED_MAPPERS) {
+				BEAN_MAPPERS.putIfAbsent(key, mapper);
+			}
+		}
+
+		return mapper;
+	}
+
+	public static void reset() {
+		BEAN_MAPPERS.clear();
+	}
+
+	private static class MapRowMapper extends RapidoidThing implements RowMapper<Map<String, Object>> {
+
+		private final String[] labels;
+
+		MapRowMapper(String[] labels) {
+			this.labels = labels;
+		}
+
+		@Override
+		public Map<String, Object> map(ResultSet rs) throws SQLException {
+			Map<String, Object> row = U.map();
+
+			for (int i = 0; i < labels.length; i++) {
+				row.put(labels[i], rs.getObject(i + 1));
+			}
+
+			return row;
+		}
+
+	}
+
+	private static class BeanRowMapper<T> extends RapidoidThing implements RowMapper<T> {
+
+		private final Class<T> type;
+
+		private final Prop[] props;
+
+		BeanRowMapper(Class<T> type, String[] labels) {
+			this.type = type;
+			this.props = new Prop[labels.length];
+
+			for (int i = 0; i < labels.length; i++) {
+				props[i] = Beany.property(type, labels[i], true);
+			}
+		}
+
+		@Override
+		public T map(ResultSet rs) throws SQLException {
+			T row = Cls.newInstance(type);
+
+			for (int i = 0; i < props.length; i++) {
+				props[i].set(row, rs.getObject(i + 1));
+			}
+
+			return row;
+		}
+
+	}
+
+	private static class MapperKey extends RapidoidThing {
+
+		private final Class<?> type;
+
+		private final String[] labels;
+
+		private final int hash;
+
+		MapperKey(Class<?> type, String[] labels) {
+			this.type = type;
+			this.labels = labels;
+			this.hash = 31 * type.hashCode() + Arrays.hashCode(labels);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			MapperKey that = (MapperKey) o;
+			return type.equals(that.type) && Arrays.equals(labels, that.labels);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the prepared statements of a single connection, with LRU eviction. The evicted statements are closed.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class StatementCache extends RapidoidThing {
+
+	private final Connection conn;
+
+	private final Map<String, PreparedStatement> statements;
+
+	public StatementCache(Connection conn, final int capacity) {
+		this.conn = conn;
+
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > capacity) {
+					close(eldest.getValue());
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	public synchronized PreparedStatement prepare(String sql) throws SQLException {
+		PreparedStatement stmt = statements.get(sql);
+
+		if (stmt != null && !stmt.isClosed()) {
+			stmt.clearParameters();
+			return stmt;
+		}
+
+		stmt = conn.prepareStatement(sql);
+		statements.put(sql, stmt);
+
+		return stmt;
+	}
+
+	public synchronized int size() {
+		return statements.size();
+	}
+
+	public synchronized void clear() {
+		for (PreparedStatement stmt : statements.values()) {
+			close(stmt);
+		}
+
+		statements.clear();
+	}
+
+	private static void close(PreparedStatement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			Log.warn("Error occurred while closing a cached statement!", "error", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.rapidoid.cls;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares the invocation of a POJO controller method: before (Cls.invoke), reflective and generated invoker.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class InvokersPerfTest {
+
+	private static final int COUNT = 10000000;
+
+	public static void main(String[] args) {
+		final InvokersTestController controller = new InvokersTestController();
+		final Method method = Cls.getMethod(InvokersTestController.class, "add", int.class, long.class, String.class);
+
+		final MethodInvoker reflective = Invokers.reflective(method);
+		final MethodInvoker generated = Invokers.of(method);
+
+		U.must(!(generated instanceof ReflectiveInvoker));
+
+		for (int i = 0; i < 5; i++) {
+			Msc.benchmark("Cls.invoke", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					Cls.invoke(method, controller, 1, 2L, "x");
+				}
+			});
+
+			Msc.benchmark("reflective invoker", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					invoke(reflective, controller);
+				}
+			});
+
+			Msc.benchmark("generated invoker", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					invoke(generated, controller);
+				}
+			});
+		}
+	}
+
+	private static void invoke(MethodInvoker invoker, Object target) {
+		try {
+			invoker.invoke(target, new Object[]{1, 2L, "x"});
+		} catch (Exception e) {
+			throw U.rte(e);
+		}
+	}
+
+}
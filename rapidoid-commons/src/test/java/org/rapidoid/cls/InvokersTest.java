@@ -0,0 +1,85 @@
+package org.rapidoid.cls;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.test.AbstractCommonsTest;
+
+import java.lang.reflect.Method;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class InvokersTest extends AbstractCommonsTest {
+
+	@Test
+	public void testGeneratedInvokers() throws Exception {
+		Method add = Cls.getMethod(InvokersTestController.class, "add", int.class, long.class, String.class);
+		MethodInvoker invoker = Invokers.of(add);
+
+		// the invoker is generated, unless the JVM doesn't allow it
+		if (Invokers.isGenerationSupported()) {
+			isFalse(invoker instanceof ReflectiveInvoker);
+			isTrue(invoker.getClass().getName().startsWith(InvokersTestController.class.getName() + "$$Invoker"));
+		}
+		eq(invoker.invoke(new InvokersTestController(), new Object[]{1, 2L, "x"}), "3x");
+
+		Method nothing = Cls.getMethod(InvokersTestController.class, "nothing", String[].class);
+		isNull(Invokers.of(nothing).invoke(new InvokersTestController(), new Object[]{new String[]{"a"}}));
+
+		Method twice = Cls.getMethod(InvokersTestController.class, "twice", double.class);
+		eq(Invokers.of(twice).invoke(null, new Object[]{1.5}), 3.0);
+
+		// the invokers are cached per method
+		isTrue(Invokers.of(add) == invoker);
+	}
+
+	@Test
+	public void testExceptionPropagation() throws Exception {
+		Method fail = Cls.getMethod(InvokersTestController.class, "fail");
+
+		for (MethodInvoker invoker : new MethodInvoker[]{Invokers.of(fail), Invokers.reflective(fail)}) {
+			try {
+				invoker.invoke(new InvokersTestController(), new Object[0]);
+				fail("Expected exception!");
+			} catch (IllegalStateException e) {
+				eq(e.getMessage(), "failed");
+			}
+		}
+	}
+
+	@Test
+	public void testFallbackToReflection() throws Exception {
+		Method secret = Cls.getMethod(NonPublicController.class, "secret");
+		MethodInvoker invoker = Invokers.of(secret);
+
+		isTrue(invoker instanceof ReflectiveInvoker);
+		eq(invoker.invoke(new NonPublicController(), new Object[0]), "secret");
+	}
+
+	static class NonPublicController {
+		public String secret() {
+			return "secret";
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.rapidoid.collection;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.test.AbstractCommonsTest;
+import org.rapidoid.u.U;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ChangeTrackingMapTest extends AbstractCommonsTest {
+
+	@Test
+	public void testTrackingChangedKeys() {
+		AtomicBoolean dirty = new AtomicBoolean();
+		ChangeTrackingMap<String, Object> map = Coll.trackChanges(U.<String, Object>map("a", 1), dirty, true);
+
+		map.put("a", 1); // the same value
+		isFalse(dirty.get());
+
+		map.put("b", 2);
+		map.remove("a");
+
+		isTrue(dirty.get());
+		eq(map.drainChangedKeys(), U.set("a", "b"));
+		isFalse(map.drainUntrackedChanges());
+
+		map.put(null, 3);
+		isTrue(map.drainUntrackedChanges());
+		isTrue(map.drainChangedKeys().isEmpty());
+	}
+
+	@Test
+	public void testKeysAreNotTrackedByDefault() {
+		Map<String, Object> target = U.map();
+		ChangeTrackingMap<String, Object> map = Coll.trackChanges(target, new AtomicBoolean());
+
+		map.put("x", 1);
+
+		isTrue(map.drainChangedKeys().isEmpty());
+		isTrue(map.drainUntrackedChanges());
+	}
+
+	@Test
+	public void testTrackingIsBounded() {
+		ChangeTrackingMap<Integer, Object> map = Coll.trackChanges(U.<Integer, Object>map(), new AtomicBoolean(), true);
+
+		for (int i = 0; i < ChangeTrackingMap.MAX_TRACKED_KEYS * 3; i++) {
+			map.put(i, i);
+		}
+
+		isTrue(map.drainChangedKeys().size() <= ChangeTrackingMap.MAX_TRACKED_KEYS);
+		isTrue(map.drainUntrackedChanges());
+	}
+
+}
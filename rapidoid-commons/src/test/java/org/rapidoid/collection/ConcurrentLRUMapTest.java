@@ -0,0 +1,97 @@
+package org.rapidoid.collection;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.test.AbstractCommonsTest;
+import org.rapidoid.u.U;
+
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ConcurrentLRUMapTest extends AbstractCommonsTest {
+
+	@Test
+	public void testLRUEviction() {
+		ConcurrentLRUMap<String, Integer> map = new ConcurrentLRUMap<String, Integer>(3);
+
+		map.put("a", 1);
+		map.put("b", 2);
+		map.put("c", 3);
+
+		eq(map.get("a").intValue(), 1);
+		map.put("d", 4);
+
+		eq(map.size(), 3);
+		isNull(map.get("b"));
+		eq(map.get("a").intValue(), 1);
+
+		isFalse(map.remove("a", 100));
+		isTrue(map.remove("a", map.get("a")));
+		isNull(map.get("a"));
+	}
+
+	@Test
+	public void testSegmentedCapacity() {
+		ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<Integer, Integer>(10000);
+
+		for (int i = 0; i < 100000; i++) {
+			map.put(i, i);
+		}
+
+		isTrue(map.size() <= 10000);
+		isTrue(map.size() > 9000);
+
+		// the most recent entries are kept
+		eq(map.get(99999).intValue(), 99999);
+		isNull(map.get(0));
+
+		eq(map.entries().size(), map.size());
+
+		map.clear();
+		eq(map.size(), 0);
+	}
+
+	@Test
+	public void testPutIfAbsentAndEvictionCallback() {
+		final List<String> evicted = U.list();
+
+		ConcurrentLRUMap<String, Integer> map = new ConcurrentLRUMap<String, Integer>(2) {
+			@Override
+			protected void evicted(String key, Integer value) {
+				evicted.add(key + "=" + value);
+			}
+		};
+
+		isNull(map.putIfAbsent("a", 1));
+		eq(map.putIfAbsent("a", 2).intValue(), 1);
+
+		map.put("b", 2);
+		map.put("c", 3);
+
+		eq(evicted, U.list("a=1"));
+		eq(map.size(), 2);
+	}
+
+}
@@ -113,4 +113,14 @@ public class StrTest extends AbstractCommonsTest {
 		eq(Str.wildcardsToRegex("a", "b", "c"), "(?:\\Qa\\E|\\Qb\\E|\\Qc\\E)");
 	}
 
+	@Test
+	public void testXmlEscape() {
+		String s = "abc def";
+		isTrue(Str.xmlEscape(s) == s);
+
+		eq(Str.xmlEscape(""), "");
+		eq(Str.xmlEscape("<a href=\"x?a=1&b=2\">'ш'</a>"), "&lt;a href=&quot;x?a=1&amp;b=2&quot;&gt;'ш'&lt;/a&gt;");
+		eq(Str.xmlEscape("&amp;&&"), "&amp;amp;&amp;&amp;");
+	}
+
 }
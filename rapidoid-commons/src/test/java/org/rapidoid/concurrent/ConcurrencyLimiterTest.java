@@ -0,0 +1,117 @@
+package org.rapidoid.concurrent;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.test.AbstractCommonsTest;
+import org.rapidoid.u.U;
+
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ConcurrencyLimiterTest extends AbstractCommonsTest {
+
+	@Test
+	public void testRejectingOverTheLimit() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 3, 1, 10, 1.5, 0.2);
+
+		List<ConcurrencyPermit> permits = U.list();
+
+		for (int i = 0; i < 3; i++) {
+			ConcurrencyPermit permit = limiter.acquire();
+			notNull(permit);
+			permits.add(permit);
+		}
+
+		isNull(limiter.acquire());
+		eq(limiter.inFlight(), 3);
+		eq(limiter.rejected(), 1);
+
+		for (ConcurrencyPermit permit : permits) {
+			permit.release();
+			permit.release(); // no effect
+		}
+
+		eq(limiter.inFlight(), 0);
+		notNull(limiter.acquire());
+	}
+
+	@Test
+	public void testAbandonedPermitsDontAdaptTheLimit() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 10, 5, 100, 1.5, 0.2);
+
+		for (int i = 0; i < 100; i++) {
+			ConcurrencyPermit permit = limiter.acquire();
+			permit.abandon();
+			permit.release(); // no effect
+		}
+
+		eq(limiter.inFlight(), 0);
+		eq(limiter.limit(), 10);
+	}
+
+	@Test
+	public void testAdaptingTheLimit() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 10, 5, 100, 1.5, 0.2);
+
+		// fully utilized, with stable latency - the limit should grow
+		for (int i = 0; i < 20; i++) {
+			saturate(limiter, 1);
+		}
+
+		int grown = limiter.limit();
+		isTrue(grown > 10);
+
+		// the latency increased significantly - the limit should go down
+		for (int i = 0; i < 20; i++) {
+			saturate(limiter, 20);
+		}
+
+		isTrue(limiter.limit() < grown);
+
+		// failures reduce the limit down to the minimum
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire().drop();
+		}
+
+		eq(limiter.limit(), 5);
+	}
+
+	private static void saturate(ConcurrencyLimiter limiter, long latencyMs) {
+		List<ConcurrencyPermit> permits = U.list();
+		ConcurrencyPermit permit;
+
+		while ((permit = limiter.acquire(0)) != null) {
+			permits.add(permit);
+		}
+
+		// simulate the measured latency, to avoid depending on the timing of the test machine
+		long rtt = latencyMs * 1000000;
+
+		for (ConcurrencyPermit p : permits) {
+			p.release(rtt);
+		}
+	}
+
+}
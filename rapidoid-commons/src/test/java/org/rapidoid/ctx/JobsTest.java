@@ -1,12 +1,16 @@
 package org.rapidoid.ctx;
 
 import org.junit.Test;
+import org.rapidoid.activity.RapidoidThread;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.job.Jobs;
+import org.rapidoid.job.VirtualThreads;
 import org.rapidoid.test.AbstractCommonsTest;
 import org.rapidoid.u.U;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -75,6 +79,50 @@ public class JobsTest extends AbstractCommonsTest {
 		eq(counter.get(), total);
 	}
 
+	@Test(timeout = 30000)
+	public void testContextPreservationOnVirtualThreads() throws InterruptedException {
+		if (!VirtualThreads.isSupported()) {
+			return; // requires JDK 21+
+		}
+
+		int total = 10000;
+		final AtomicInteger counter = new AtomicInteger();
+		final CountDownLatch latch = new CountDownLatch(total);
+
+		ExecutorService executor = VirtualThreads.newExecutor("virtual-test");
+
+		for (int i = 0; i < total; i++) {
+			Ctxs.open("test-job");
+
+			final UserInfo user = new UserInfo(rndStr(50), U.set("role1"));
+			Ctxs.required().setUser(user);
+
+			executor.execute(Jobs.wrap(new Runnable() {
+				@Override
+				public void run() {
+					ensureProperContext(user);
+
+					// the virtual thread is unmounted while sleeping
+					U.sleep(10);
+
+					ensureProperContext(user);
+					isFalse(Thread.currentThread() instanceof RapidoidThread);
+
+					counter.incrementAndGet();
+					latch.countDown();
+				}
+			}));
+
+			Ctxs.close();
+		}
+
+		latch.await();
+		executor.shutdown();
+
+		eq(counter.get(), total);
+		isFalse(Ctxs.hasContext());
+	}
+
 	private void ensureProperContext(UserInfo user) {
 		eq(Ctxs.required().user(), user);
 	}
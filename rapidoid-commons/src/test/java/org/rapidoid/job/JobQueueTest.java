@@ -0,0 +1,226 @@
+package org.rapidoid.job;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.activity.RapidoidThreadFactory;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.Coll;
+import org.rapidoid.test.AbstractCommonsTest;
+import org.rapidoid.u.U;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JobQueueTest extends AbstractCommonsTest {
+
+	@Test(timeout = 10000)
+	public void testLoadShedding() throws Exception {
+		PriorityJobExecutor executor = singleThreadExecutor();
+		CountDownLatch blocker = block(executor);
+
+		JobQueue queue = new JobQueue("test", executor, 3, 0, 0);
+		AtomicInteger executed = new AtomicInteger();
+
+		for (int i = 0; i < 5; i++) {
+			boolean accepted = queue.execute(counting(executed), null);
+			eq(accepted, i < 3);
+		}
+
+		eq(queue.depth(), 3);
+		eq(queue.shed(), 2);
+
+		blocker.countDown();
+		shutdown(executor);
+
+		eq(executed.get(), 3);
+		eq(queue.depth(), 0);
+		eq(queue.expired(), 0);
+	}
+
+	@Test(timeout = 10000)
+	public void testMaxWaitingTime() throws Exception {
+		PriorityJobExecutor executor = singleThreadExecutor();
+		CountDownLatch blocker = block(executor);
+
+		JobQueue queue = new JobQueue("test", executor, 100, 50, 0);
+		AtomicInteger executed = new AtomicInteger();
+		AtomicInteger expired = new AtomicInteger();
+
+		isTrue(queue.execute(counting(executed), counting(expired)));
+
+		U.sleep(200);
+		blocker.countDown();
+
+		isTrue(queue.execute(counting(executed), counting(expired)));
+		shutdown(executor);
+
+		eq(executed.get(), 1);
+		eq(expired.get(), 1);
+		eq(queue.expired(), 1);
+		eq(queue.depth(), 0);
+	}
+
+	@Test
+	public void testUnconfiguredZonesShareTheDefaultQueue() {
+		JobQueue main = JobQueue.of(JobQueue.DEFAULT_QUEUE);
+
+		isTrue(JobQueue.of("unknown-zone") == main);
+		isTrue(JobQueue.of("another-zone") == main);
+
+		JobQueue admin = JobQueue.of("admin");
+		isTrue(admin != main);
+		eq(admin.capacity(), 1000);
+
+		List<JobQueue> all = JobQueue.all();
+		eq(U.set(all).size(), all.size());
+	}
+
+	@Test(timeout = 10000)
+	public void testResumingIsBoundedButDoesntExpire() throws Exception {
+		PriorityJobExecutor executor = singleThreadExecutor();
+		CountDownLatch blocker = block(executor);
+
+		JobQueue queue = new JobQueue("test", executor, 2, 50, 0);
+		AtomicInteger executed = new AtomicInteger();
+
+		isTrue(queue.resume(counting(executed)));
+		isTrue(queue.resume(counting(executed)));
+		isFalse(queue.resume(counting(executed)));
+		isFalse(queue.execute(counting(executed), null));
+
+		eq(queue.depth(), 2);
+		eq(queue.shed(), 2);
+
+		U.sleep(200);
+		blocker.countDown();
+		shutdown(executor);
+
+		// the continuations were executed, although they waited longer than maxWait
+		eq(executed.get(), 2);
+		eq(queue.expired(), 0);
+		eq(queue.depth(), 0);
+	}
+
+	@Test(timeout = 10000)
+	public void testPriorities() throws Exception {
+		PriorityJobExecutor executor = singleThreadExecutor();
+		CountDownLatch blocker = block(executor);
+
+		JobQueue main = new JobQueue("main", executor, 100, 0, 0);
+		JobQueue admin = new JobQueue("admin", executor, 100, 0, 10);
+
+		final List<String> order = Coll.synchronizedList();
+
+		for (int i = 0; i < 3; i++) {
+			main.execute(appending(order, "main" + i), null);
+			admin.execute(appending(order, "admin" + i), null);
+		}
+
+		blocker.countDown();
+		shutdown(executor);
+
+		eq(order, U.list("admin0", "admin1", "admin2", "main0", "main1", "main2"));
+	}
+
+	@Test(timeout = 10000)
+	public void testPrioritiesOnVirtualThreads() throws Exception {
+		if (!VirtualThreads.isSupported()) {
+			return; // requires JDK 21+
+		}
+
+		PriorityJobExecutor executor = VirtualThreads.newPriorityExecutor("test-virtual", 1);
+		CountDownLatch blocker = block(executor);
+
+		JobQueue main = new JobQueue("main", executor, 2, 0, 0);
+		JobQueue admin = new JobQueue("admin", executor, 100, 0, 10);
+
+		final List<String> order = Coll.synchronizedList();
+
+		for (int i = 0; i < 3; i++) {
+			eq(main.execute(appending(order, "main" + i), null), i < 2);
+			admin.execute(appending(order, "admin" + i), null);
+		}
+
+		blocker.countDown();
+		shutdown(executor);
+
+		eq(order, U.list("admin0", "admin1", "admin2", "main0", "main1"));
+	}
+
+	private static PriorityJobExecutor singleThreadExecutor() {
+		return new PriorityJobExecutor(1, new RapidoidThreadFactory("test-queue", true));
+	}
+
+	private static CountDownLatch block(PriorityJobExecutor executor) {
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+					throw U.rte(e);
+				}
+			}
+		});
+
+		try {
+			started.await();
+		} catch (InterruptedException e) {
+			throw U.rte(e);
+		}
+
+		return blocker;
+	}
+
+	private static void shutdown(PriorityJobExecutor executor) throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	private static Runnable counting(final AtomicInteger counter) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				counter.incrementAndGet();
+			}
+		};
+	}
+
+	private static Runnable appending(final List<String> list, final String item) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				list.add(item);
+			}
+		};
+	}
+
+}
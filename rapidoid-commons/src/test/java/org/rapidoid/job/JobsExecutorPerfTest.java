@@ -0,0 +1,79 @@
+package org.rapidoid.job;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.activity.RapidoidThreadFactory;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Simulates handlers that block on a slow backend (e.g. JDBC) for 50 ms.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JobsExecutorPerfTest {
+
+	private static final int JOBS = 20000;
+
+	private static final int BACKEND_LATENCY_MS = 50;
+
+	public static void main(String[] args) throws InterruptedException {
+
+		for (int i = 0; i < 3; i++) {
+			run("fixed(64)", Executors.newFixedThreadPool(64, new RapidoidThreadFactory("executor", true)));
+			run("fixed(256)", Executors.newFixedThreadPool(256, new RapidoidThreadFactory("executor", true)));
+
+			if (VirtualThreads.isSupported()) {
+				run("virtual", VirtualThreads.newExecutor("executor"));
+			} else {
+				U.print("Virtual threads are not supported by this JVM!");
+			}
+		}
+	}
+
+	private static void run(String name, ExecutorService executor) throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(JOBS);
+
+		long start = U.time();
+
+		for (int i = 0; i < JOBS; i++) {
+			executor.execute(Jobs.wrap(new Runnable() {
+				@Override
+				public void run() {
+					U.sleep(BACKEND_LATENCY_MS);
+					latch.countDown();
+				}
+			}));
+		}
+
+		latch.await();
+		Msc.benchmarkComplete(name, JOBS, start);
+
+		executor.shutdown();
+	}
+
+}
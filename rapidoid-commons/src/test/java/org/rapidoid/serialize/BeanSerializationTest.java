@@ -0,0 +1,252 @@
+package org.rapidoid.serialize;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.cls.Invokers;
+import org.rapidoid.test.AbstractCommonsTest;
+import org.rapidoid.u.U;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class BeanSerializationTest extends AbstractCommonsTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testGeneratedSerializer() {
+		BeanSerializer<Person> serializer = BeanSerializers.of(Person.class);
+
+		// the serializer is generated, unless the JVM doesn't allow it
+		if (Invokers.isGenerationSupported()) {
+			isFalse(serializer instanceof ReflectiveBeanSerializer);
+		}
+
+		Person person = person();
+		Person person2 = roundtrip(serializer, person);
+
+		eq(person2.toString(), person.toString());
+
+		// the generated and the reflective serializers must produce the same output
+		eq(bytes(serializer, person), bytes(BeanSerializers.reflective(Person.class), person));
+	}
+
+	@Test
+	public void testReflectiveSerializer() {
+		BeanSerializer<Hidden> serializer = BeanSerializers.of(Hidden.class);
+		isTrue(serializer instanceof ReflectiveBeanSerializer);
+
+		Hidden hidden = new Hidden();
+		hidden.x = -12345;
+		hidden.s = "abc";
+
+		Hidden hidden2 = roundtrip(serializer, hidden);
+
+		eq(hidden2.x, -12345);
+		eq(hidden2.s, "abc");
+
+		Person person = person();
+		eq(roundtrip(BeanSerializers.reflective(Person.class), person).toString(), person.toString());
+	}
+
+	@Test
+	public void testSchemaEvolution() {
+		ByteBuffer buf = ByteBuffer.allocate(1000);
+
+		V2 v2 = new V2();
+		v2.id = 10;
+		v2.name = "foo";
+		v2.age = 30;
+
+		BeanSerializers.of(V2.class).serialize(buf, v2);
+		buf.put((byte) '!');
+		buf.flip();
+
+		// an older reader skips the new fields
+		V1 v1 = BeanSerializers.of(V1.class).deserialize(buf);
+		eq(v1.id, 10);
+		eq(v1.name, "foo");
+		eq(buf.get(), (byte) '!');
+
+		buf.clear();
+		BeanSerializers.of(V1.class).serialize(buf, v1);
+		buf.flip();
+
+		// a newer reader keeps the default values of the missing fields
+		V2 v2b = BeanSerializers.of(V2.class).deserialize(buf);
+		eq(v2b.id, 10);
+		eq(v2b.name, "foo");
+		eq(v2b.age, -1);
+		isFalse(buf.hasRemaining());
+	}
+
+	@Test
+	public void testIncompatibleSchemaChanges() {
+		V1 v1 = new V1();
+		v1.id = 10;
+		v1.name = "foo";
+
+		byte[] bytes = bytes(BeanSerializers.of(V1.class), v1);
+
+		for (Class<?> type : U.<Class<?>>list(Renamed.class, Retyped.class, Reordered.class)) {
+			try {
+				BeanSerializers.of(type).deserialize(ByteBuffer.wrap(bytes));
+				fail("Expected exception for: " + type);
+			} catch (RuntimeException e) {
+				isTrue(e.getMessage().startsWith("Incompatible bean schema"));
+			}
+		}
+	}
+
+	@Test
+	public void testVarIntsAndStrings() {
+		ByteBuffer buf = ByteBuffer.allocateDirect(1000);
+
+		int[] ints = {0, 1, -1, 63, -64, 64, 12345, -12345, Integer.MAX_VALUE, Integer.MIN_VALUE};
+		long[] longs = {0, -1, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+		String[] strings = {null, "", "abc", "ćирилица", "€ 😀 x", "unpaired \uD800 x"};
+
+		for (int n : ints) Ser.writeVarInt(buf, n);
+		for (long n : longs) Ser.writeVarLong(buf, n);
+		for (String s : strings) Ser.writeString(buf, s);
+
+		buf.flip();
+
+		for (int n : ints) eq(Ser.readVarInt(buf), n);
+		for (long n : longs) eq(Ser.readVarLong(buf), n);
+
+		for (String s : strings) {
+			String expected = s != null ? new String(s.getBytes(UTF_8), UTF_8) : null;
+			eq(Ser.readString(buf), expected);
+		}
+
+		isFalse(buf.hasRemaining());
+	}
+
+	private <T> T roundtrip(BeanSerializer<T> serializer, T bean) {
+		ByteBuffer buf = ByteBuffer.allocate(1000);
+
+		serializer.serialize(buf, bean);
+		buf.flip();
+
+		T bean2 = serializer.deserialize(buf);
+		isFalse(buf.hasRemaining());
+
+		return bean2;
+	}
+
+	private static <T> byte[] bytes(BeanSerializer<T> serializer, T bean) {
+		ByteBuffer buf = ByteBuffer.allocate(1000);
+		serializer.serialize(buf, bean);
+		return Arrays.copyOf(buf.array(), buf.position());
+	}
+
+	private static Person person() {
+		Person person = new Person();
+
+		person.id = 123456;
+		person.ts = -9876543210L;
+		person.name = "Niko ĆŠ";
+		person.setCity("Skopje");
+		person.active = true;
+		person.c = 'ж';
+		person.s = -300;
+		person.b = 7;
+		person.f = 1.5f;
+		person.d = -2.25;
+		person.date = new Date(1234567890L);
+		person.tags = U.list("a", "b");
+		person.boxed = 42;
+
+		return person;
+	}
+
+	public static class Person {
+		public int id;
+		public long ts;
+		public String name;
+		private String city;
+		public boolean active;
+		public char c;
+		public short s;
+		public byte b;
+		public float f;
+		public double d;
+		public Date date;
+		public List<String> tags;
+		public Integer boxed;
+		public transient String ignored = "ignored";
+
+		public String getCity() {
+			return city;
+		}
+
+		public void setCity(String city) {
+			this.city = city;
+		}
+
+		@Override
+		public String toString() {
+			return U.frmt("Person(%s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s)",
+				id, ts, name, city, active, c, s, b, f, d, date.getTime(), tags, boxed);
+		}
+	}
+
+	static class Hidden {
+		int x;
+		String s;
+	}
+
+	public static class V1 {
+		public int id;
+		public String name;
+	}
+
+	public static class V2 {
+		public int id;
+		public String name;
+		public int age = -1;
+	}
+
+	public static class Renamed {
+		public int id;
+		public String title;
+	}
+
+	public static class Retyped {
+		public long id;
+		public String name;
+	}
+
+	public static class Reordered {
+		public String name;
+		public int id;
+	}
+
+}
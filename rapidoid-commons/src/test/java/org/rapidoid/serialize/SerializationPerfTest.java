@@ -0,0 +1,104 @@
+package org.rapidoid.serialize;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class SerializationPerfTest {
+
+	private static final int COUNT = 1000000;
+
+	public static void main(String[] args) {
+		final User user = new User();
+		user.id = 12345;
+		user.name = "John Doe";
+		user.email = "john@example.com";
+		user.age = 42;
+		user.active = true;
+		user.score = 123.45;
+		user.roles = U.list("admin", "manager");
+
+		final Map<String, Object> map = U.<String, Object>map("id", user.id, "name", user.name, "email", user.email, "age", user.age);
+		map.put("active", user.active);
+		map.put("score", user.score);
+		map.put("roles", user.roles);
+
+		final ByteBuffer buf = ByteBuffer.allocate(1000);
+		final BeanSerializer<User> serializer = BeanSerializers.of(User.class);
+
+		System.out.println("Java serialization size: " + Msc.serialize(user).length);
+		System.out.println("Serialize (map) size: " + Serialize.serialize(buf.array(), map));
+
+		buf.clear();
+		serializer.serialize(buf, user);
+		System.out.println("Bean serializer size: " + buf.position());
+
+		for (int i = 0; i < 5; i++) {
+			Msc.benchmark("java serialization", COUNT / 10, new Runnable() {
+				@Override
+				public void run() {
+					Msc.deserialize(Msc.serialize(user));
+				}
+			});
+
+			Msc.benchmark("Serialize (map)", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					buf.clear();
+					Serialize.serialize(buf, map);
+					buf.flip();
+					Serialize.deserialize(buf);
+				}
+			});
+
+			Msc.benchmark("bean serializer", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					buf.clear();
+					serializer.serialize(buf, user);
+					buf.flip();
+					serializer.deserialize(buf);
+				}
+			});
+		}
+	}
+
+	public static class User implements Serializable {
+		public long id;
+		public String name;
+		public String email;
+		public int age;
+		public boolean active;
+		public double score;
+		public List<String> roles;
+	}
+
+}
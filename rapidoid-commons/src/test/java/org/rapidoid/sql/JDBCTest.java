@@ -22,12 +22,25 @@ package org.rapidoid.sql;
 
 import com.mysql.jdbc.exceptions.jdbc4.CommunicationsException;
 import org.junit.Test;
+import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.Callbacks;
+import org.rapidoid.concurrent.Promise;
+import org.rapidoid.concurrent.impl.FutureImpl;
+import org.rapidoid.data.JSON;
+import org.rapidoid.job.JobQueue;
+import org.rapidoid.lambda.Operation;
 import org.rapidoid.test.TestCommons;
 import org.rapidoid.u.U;
 import org.rapidoid.util.Msc;
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class JDBCTest extends TestCommons {
 
@@ -67,6 +80,28 @@ public class JDBCTest extends TestCommons {
 		insertAndCheckData(JDBC.defaultApi());
 	}
 
+	@Test
+	public void testWithH2AndPool() {
+		JdbcClient client = JDBC.newApi().h2("test");
+		RapidoidConnectionPool pool = new RapidoidConnectionPool(client);
+		insertAndCheckData(client);
+
+		isTrue(pool.borrowed() > 1000);
+		isTrue(pool.created() <= pool.maxSize());
+		eq(pool.active(), 0);
+
+		pool.shutdown();
+	}
+
+	@Test
+	public void testWithHSQLDBAndPool() {
+		JdbcClient client = JDBC.newApi().hsql("test");
+		RapidoidConnectionPool pool = new RapidoidConnectionPool(client);
+		insertAndCheckData(client);
+
+		pool.shutdown();
+	}
+
 	@Test
 	public void testMultiAPI() {
 		JdbcClient client1 = JDBC.newApi().hsql("test");
@@ -76,6 +111,226 @@ public class JDBCTest extends TestCommons {
 		insertAndCheckData(client2);
 	}
 
+	@Test
+	public void testStreamingWithH2() {
+		JdbcClient client = JDBC.newApi().h2("streaming").fetchSize(10);
+
+		client.tryToExecute("DROP TABLE movie");
+		client.execute("CREATE TABLE movie (id int, title varchar(99))");
+
+		for (int i = 0; i < 100; i++) {
+			client.execute("INSERT INTO movie VALUES (?, ?)", i, "movie" + i);
+		}
+
+		client.execute("INSERT INTO movie VALUES (?, ?)", 1000, "a, \"b\"");
+
+		JdbcCursor<Movie> movies = client.cursor(Movie.class, "SELECT * FROM movie WHERE id < ? ORDER BY id", 100);
+
+		int n = 0;
+		for (Movie movie : movies) {
+			eq(movie.id, n);
+			eq(movie.getTitle(), "movie" + n);
+			n++;
+		}
+
+		eq(n, 100);
+		isTrue(movies.isClosed());
+
+		// stopping the iteration early
+		JdbcCursor<Map<String, Object>> rows = client.cursor("SELECT * FROM movie ORDER BY id");
+		eq(Msc.lowercase(rows.next()), U.map("id", 0, "title", "movie0"));
+		isFalse(rows.isClosed());
+		rows.close();
+		isFalse(rows.hasNext());
+
+		final AtomicInteger total = new AtomicInteger();
+
+		client.each(Movie.class, new Operation<Movie>() {
+			@Override
+			public void execute(Movie movie) throws Exception {
+				total.addAndGet((int) movie.id);
+			}
+		}, "SELECT * FROM movie WHERE id < ?", 100);
+
+		eq(total.get(), 4950);
+
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		client.queryToJSON(json, "SELECT id, title FROM movie WHERE id IN (?, ?) ORDER BY id", 3, 1000);
+
+		List<Map<String, Object>> parsed = JSON.parse(json.toByteArray());
+		eq(parsed.size(), 2);
+		eq(Msc.lowercase(parsed.get(0)), U.map("id", 3, "title", "movie3"));
+		eq(Msc.lowercase(parsed.get(1)), U.map("id", 1000, "title", "a, \"b\""));
+
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		client.queryToCSV(csv, "SELECT id, title FROM movie WHERE id IN (?, ?) ORDER BY id", 3, 1000);
+
+		eq(csv.toString(), "ID,TITLE\r\n3,movie3\r\n1000,\"a, \"\"b\"\"\"\r\n");
+
+		// the connection's auto-commit mode is restored after streaming
+		client.execute("INSERT INTO movie VALUES (?, ?)", 2000, "x");
+		eq(client.query("SELECT * FROM movie WHERE id = ?", 2000).size(), 1);
+	}
+
+	@Test
+	public void testBatches() {
+		for (JdbcClient client : U.list(JDBC.newApi().h2("batches"), JDBC.newApi().hsql("batches"))) {
+			for (boolean rewrite : new boolean[]{false, true}) {
+				client.batchSize(7).rewriteBatchedInserts(rewrite);
+
+				client.tryToExecute("DROP TABLE movie");
+				client.execute("CREATE TABLE movie (id int, title varchar(99))");
+
+				List<Object[]> rows = U.list();
+				for (int i = 0; i < 100; i++) {
+					rows.add(new Object[]{i, "movie" + i});
+				}
+
+				eq(client.executeBatch("INSERT INTO movie (id, title) VALUES (?, ?)", rows), 100);
+				eq(client.query("SELECT * FROM movie").size(), 100);
+
+				// the uncommitted changes are rolled back on close
+				JdbcBatch batch = client.batch("INSERT INTO movie VALUES (?, ?)");
+				for (int i = 0; i < 20; i++) {
+					batch.add(1000 + i, "x");
+				}
+				batch.close();
+
+				isTrue(batch.isClosed());
+				eq(client.query("SELECT * FROM movie").size(), 100);
+
+				eq(client.query(Movie.class, "SELECT * FROM movie WHERE id = ?", 99).get(0).getTitle(), "movie99");
+			}
+		}
+	}
+
+	@Test
+	public void testInsertRewriting() {
+		JdbcBatch.InsertRewrite rewrite = JdbcBatch.InsertRewrite.of("INSERT INTO t (a, b) VALUES (?, LOWER(?));");
+
+		notNull(rewrite);
+		eq(rewrite.paramsPerRow(), 2);
+		eq(rewrite.sql(1), "INSERT INTO t (a, b) VALUES (?, LOWER(?))");
+		eq(rewrite.sql(3), "INSERT INTO t (a, b) VALUES (?, LOWER(?)), (?, LOWER(?)), (?, LOWER(?))");
+		eq(rewrite.sql(2), "INSERT INTO t (a, b) VALUES (?, LOWER(?)), (?, LOWER(?))");
+
+		eq(JdbcBatch.InsertRewrite.of("insert into t values ('?)', ?)").paramsPerRow(), 1);
+
+		isNull(JdbcBatch.InsertRewrite.of("UPDATE t SET a = ?"));
+		isNull(JdbcBatch.InsertRewrite.of("INSERT INTO t SELECT * FROM x WHERE a = ?"));
+		isNull(JdbcBatch.InsertRewrite.of("INSERT INTO t VALUES (?) ON DUPLICATE KEY UPDATE a = (a + 1)"));
+		isNull(JdbcBatch.InsertRewrite.of("INSERT INTO t VALUES (?), (?)"));
+		isNull(JdbcBatch.InsertRewrite.of("INSERT INTO t VALUES (1)"));
+	}
+
+	@Test(timeout = 30000)
+	public void testAsyncQueries() throws Exception {
+		JdbcClient client = JDBC.newApi().h2("async");
+		RapidoidConnectionPool pool = new RapidoidConnectionPool(client);
+
+		client.executeAsync("DROP TABLE IF EXISTS movie").get();
+		client.executeAsync("CREATE TABLE movie (id int, title varchar(99))").get();
+
+		final CountDownLatch inserted = new CountDownLatch(10);
+
+		for (int i = 0; i < 10; i++) {
+			client.executeAsync(Callbacks.<Void>countDown(inserted), "INSERT INTO movie VALUES (?, ?)", i, "movie" + i);
+		}
+
+		inserted.await();
+
+		final AtomicReference<String> callbackThread = new AtomicReference<String>();
+
+		Promise<List<Movie>> movies = client.queryAsync(Movie.class, new Callback<List<Movie>>() {
+			@Override
+			public void onDone(List<Movie> result, Throwable error) throws Exception {
+				callbackThread.set(Thread.currentThread().getName());
+			}
+		}, "SELECT * FROM movie WHERE id < ? ORDER BY id", 5);
+
+		eq(movies.get().size(), 5);
+		eq(movies.get().get(4).getTitle(), "movie4");
+		isTrue(callbackThread.get().startsWith(client.asyncQueue().name()));
+
+		Promise<List<Map<String, Object>>> failed = client.queryAsync("SELECT * FROM no_such_table");
+
+		try {
+			failed.get();
+			fail("Expected error!");
+		} catch (RuntimeException e) {
+			isFalse(failed.isSuccessful());
+		}
+
+		JobQueue queue = client.asyncQueue();
+		client.close();
+
+		// the async threads and the pool are shut down
+		isFalse(JobQueue.all().contains(queue));
+		isTrue(pool.isShutdown());
+	}
+
+	@Test(timeout = 30000)
+	public void testAsyncAdmissionControl() throws Exception {
+		JdbcClient client = JDBC.newApi().h2("async").asyncThreads(1).asyncCapacity(2).asyncMaxWait(0);
+
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		// the single DB thread is kept busy by the callback
+		client.queryAsync(new Callback<List<Map<String, Object>>>() {
+			@Override
+			public void onDone(List<Map<String, Object>> result, Throwable error) throws Exception {
+				blocked.countDown();
+				release.await();
+			}
+		}, "SELECT 1");
+
+		blocked.await();
+
+		Promise<List<Map<String, Object>>> queued1 = client.queryAsync("SELECT 1");
+		Promise<List<Map<String, Object>>> queued2 = client.queryAsync("SELECT 2");
+		Promise<List<Map<String, Object>>> rejected = client.queryAsync("SELECT 3");
+
+		while (!rejected.isDone()) {
+			U.sleep(10);
+		}
+
+		isFalse(rejected.isSuccessful());
+		eq(((FutureImpl<?>) rejected).getError().getClass(), RejectedExecutionException.class);
+		eq(client.asyncQueue().shed(), 1L);
+
+		release.countDown();
+
+		eq(queued1.get().size(), 1);
+		eq(queued2.get().size(), 1);
+	}
+
+	@Test(timeout = 30000)
+	public void testAsyncMaxWait() throws Exception {
+		JdbcClient client = JDBC.newApi().h2("async").asyncThreads(1).asyncMaxWait(50);
+
+		final CountDownLatch blocked = new CountDownLatch(1);
+
+		client.queryAsync(new Callback<List<Map<String, Object>>>() {
+			@Override
+			public void onDone(List<Map<String, Object>> result, Throwable error) throws Exception {
+				blocked.countDown();
+				U.sleep(200);
+			}
+		}, "SELECT 1");
+
+		blocked.await();
+
+		Promise<List<Map<String, Object>>> expired = client.queryAsync("SELECT 1");
+
+		while (!expired.isDone()) {
+			U.sleep(10);
+		}
+
+		eq(((FutureImpl<?>) expired).getError().getClass(), TimeoutException.class);
+		eq(client.asyncQueue().expired(), 1L);
+	}
+
 	private void insertAndCheckData(JdbcClient client) {
 		client.tryToExecute("DROP TABLE movie");
 		client.execute("CREATE TABLE movie (id int, title varchar(99))");
@@ -0,0 +1,86 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JdbcBatchPerfTest {
+
+	private static final int ROWS = 100000;
+
+	private static final String INSERT = "INSERT INTO movie (id, title) VALUES (?, ?)";
+
+	public static void main(String[] args) {
+		final List<Object[]> rows = U.list();
+
+		for (int i = 0; i < ROWS; i++) {
+			rows.add(new Object[]{i, "movie" + i});
+		}
+
+		for (int round = 0; round < 3; round++) {
+			for (final JdbcClient client : U.list(JDBC.newApi().h2("perf"), JDBC.newApi().hsql("perf"))) {
+				final String db = client.url().split(":")[1];
+
+				reset(client);
+				Msc.benchmark(db + " execute() per row", ROWS, new Runnable() {
+					int n;
+
+					@Override
+					public void run() {
+						Object[] row = rows.get(n++);
+						client.execute(INSERT, row);
+					}
+				});
+
+				reset(client);
+				client.rewriteBatchedInserts(false);
+				Msc.benchmark(db + " batch", 1, new Runnable() {
+					@Override
+					public void run() {
+						client.executeBatch(INSERT, rows);
+					}
+				});
+
+				reset(client);
+				client.rewriteBatchedInserts(true);
+				Msc.benchmark(db + " batch with multi-row inserts", 1, new Runnable() {
+					@Override
+					public void run() {
+						client.executeBatch(INSERT, rows);
+					}
+				});
+			}
+		}
+	}
+
+	private static void reset(JdbcClient client) {
+		client.tryToExecute("DROP TABLE movie");
+		client.execute("CREATE TABLE movie (id int, title varchar(99))");
+	}
+
+}
@@ -0,0 +1,81 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JdbcPoolPerfTest {
+
+	private static final int THREADS = 64;
+
+	private static final int POOL_SIZE = 16;
+
+	private static final int QUERIES = 200000;
+
+	public static void main(String[] args) {
+		JdbcClient noPool = JDBC.newApi().h2("poolperf");
+		init(noPool);
+
+		JdbcClient c3p0 = JDBC.newApi().h2("poolperf");
+		C3P0ConnectionPool c3p0Pool = new C3P0ConnectionPool(c3p0);
+		c3p0Pool.pool().setMaxPoolSize(POOL_SIZE);
+
+		JdbcClient rapidoid = JDBC.newApi().h2("poolperf");
+		RapidoidConnectionPool rapidoidPool = new RapidoidConnectionPool(rapidoid);
+		rapidoidPool.maxSize(POOL_SIZE);
+
+		for (int round = 0; round < 3; round++) {
+			run("no pool", noPool);
+			run("C3P0", c3p0);
+			run("built-in pool", rapidoid);
+		}
+
+		U.print(rapidoidPool);
+
+		rapidoidPool.shutdown();
+		c3p0Pool.pool().close();
+	}
+
+	private static void init(JdbcClient client) {
+		client.tryToExecute("DROP TABLE movie");
+		client.execute("CREATE TABLE movie (id int primary key, title varchar(99))");
+
+		for (int i = 0; i < 100; i++) {
+			client.execute("INSERT INTO movie VALUES (?, ?)", i, "movie" + i);
+		}
+	}
+
+	private static void run(String name, final JdbcClient client) {
+		Msc.benchmarkMT(THREADS, name + " (" + THREADS + " threads)", QUERIES, new Runnable() {
+			@Override
+			public void run() {
+				int id = (int) (Thread.currentThread().getId() % 100);
+				U.must(client.query("SELECT * FROM movie WHERE id = ?", id).size() == 1);
+			}
+		});
+	}
+
+}
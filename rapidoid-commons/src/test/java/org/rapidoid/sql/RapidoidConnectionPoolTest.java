@@ -0,0 +1,300 @@
+package org.rapidoid.sql;
+
+/*
+ * #%L
+ * rapidoid-commons
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.insight.Metrics;
+import org.rapidoid.test.TestCommons;
+import org.rapidoid.u.U;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class RapidoidConnectionPoolTest extends TestCommons {
+
+	private static final String URL = "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1";
+
+	private RapidoidConnectionPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new RapidoidConnectionPool(URL, "org.h2.Driver", "sa", "");
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testBorrowAndRelease() throws Exception {
+		Connection conn1 = pool.getConnection();
+		Connection conn2 = pool.getConnection();
+
+		eq(pool.active(), 2);
+		isFalse(conn1.isClosed());
+
+		String physical1 = conn1.toString();
+		conn1.close();
+		isTrue(conn1.isClosed());
+		isFalse(conn1.isValid(1));
+
+		// the thread gets back the connection it released most recently
+		Connection conn3 = pool.getConnection();
+		eq(conn3.toString(), physical1);
+
+		conn2.close();
+		conn3.close();
+
+		eq(pool.active(), 0);
+		eq(pool.borrowed(), 3);
+
+		try {
+			conn1.createStatement();
+			fail("Expected exception!");
+		} catch (SQLException e) {
+			eq(e.getSQLState(), "08003");
+		}
+	}
+
+	@Test
+	public void testResetOnRelease() throws Exception {
+		pool.minIdle(0).maxSize(1);
+
+		Connection conn = pool.getConnection();
+		conn.createStatement().execute("CREATE TABLE IF NOT EXISTS num (n int)");
+		conn.createStatement().execute("DELETE FROM num");
+
+		conn.setAutoCommit(false);
+		conn.setReadOnly(false);
+		PreparedStatement stmt = conn.prepareStatement("INSERT INTO num VALUES (?)");
+		stmt.setInt(1, 123);
+		stmt.execute();
+		conn.close();
+
+		// the uncommitted insert was rolled back and the statement closed
+		isTrue(stmt.isClosed());
+
+		conn = pool.getConnection();
+		isTrue(conn.getAutoCommit());
+		eq(JDBC.rows(conn.createStatement().executeQuery("SELECT * FROM num")).size(), 0);
+		conn.close();
+	}
+
+	@Test
+	public void testStatementsAreWrapped() throws Exception {
+		Connection conn = pool.getConnection();
+
+		Statement stmt = conn.createStatement();
+		PreparedStatement pstmt = conn.prepareStatement("SELECT 1");
+
+		// the physical connection doesn't escape through the statements
+		isTrue(stmt.getConnection() == conn);
+		isTrue(pstmt.getConnection() == conn);
+		isTrue(conn.prepareCall("CALL 1").getConnection() == conn);
+		isTrue(conn.getMetaData().getConnection() == conn);
+		isTrue(conn.unwrap(Connection.class) == conn);
+		isTrue(stmt.unwrap(Statement.class) == stmt);
+		isTrue(conn.isWrapperFor(org.h2.jdbc.JdbcConnection.class));
+		isFalse(conn.unwrap(org.h2.jdbc.JdbcConnection.class) == conn);
+
+		isTrue(pstmt.executeQuery().next());
+
+		// many statements closed by the user aren't retained
+		for (int i = 0; i < 1000; i++) {
+			conn.createStatement().close();
+		}
+
+		conn.close();
+
+		isTrue(stmt.isClosed());
+		isTrue(pstmt.isClosed());
+
+		try {
+			stmt.getConnection();
+			fail("Expected exception!");
+		} catch (SQLException e) {
+			eq(e.getSQLState(), "08003");
+		}
+	}
+
+	@Test
+	public void testStatementCache() throws Exception {
+		pool.minIdle(0).maxSize(1).statementCacheSize(2);
+
+		Connection conn = pool.getConnection();
+		PreparedStatement stmt = RapidoidConnectionPool.prepareCached(conn, "SELECT ?");
+		stmt.setInt(1, 10);
+		isTrue(stmt.executeQuery().next());
+		stmt.close();
+		conn.close();
+
+		// the physical statement is kept open and reused by the next borrower
+		conn = pool.getConnection();
+		PreparedStatement stmt2 = RapidoidConnectionPool.prepareCached(conn, "SELECT ?");
+		isTrue(stmt.isClosed());
+		isFalse(stmt2.isClosed());
+		eq(stmt2.toString(), stmt.toString());
+		isTrue(stmt2.getConnection() == conn);
+		stmt2.close();
+		conn.close();
+
+		pool.statementCacheSize(0);
+		conn = pool.getConnection();
+		isNull(RapidoidConnectionPool.prepareCached(conn, "SELECT ?"));
+		conn.close();
+
+		JdbcClient client = JDBC.newApi().h2("pooltest");
+		RapidoidConnectionPool pool2 = new RapidoidConnectionPool(client);
+
+		try {
+			client.execute("CREATE TABLE IF NOT EXISTS cached (n int)");
+
+			for (int i = 0; i < 10; i++) {
+				client.execute("INSERT INTO cached VALUES (?)", i);
+			}
+
+			eq(client.query("SELECT * FROM cached WHERE n >= ?", 5).size(), 5);
+
+		} finally {
+			pool2.shutdown();
+		}
+	}
+
+	@Test
+	public void testMaxSizeAndTimeout() throws Exception {
+		pool.minIdle(0).maxSize(2).connectionTimeout(100);
+
+		Connection conn1 = pool.getConnection();
+		Connection conn2 = pool.getConnection();
+
+		long start = U.time();
+
+		try {
+			pool.getConnection();
+			fail("Expected timeout!");
+		} catch (SQLTimeoutException e) {
+			isTrue(U.time() - start >= 100);
+		}
+
+		eq(pool.timeouts(), 1);
+
+		conn1.close();
+		pool.getConnection().close();
+
+		conn2.close();
+		eq(pool.size(), 2);
+	}
+
+	@Test
+	public void testHandoffToWaitingThreads() throws Exception {
+		pool.minIdle(0).maxSize(3).connectionTimeout(10000);
+
+		final int threads = 20;
+		final CountDownLatch done = new CountDownLatch(threads);
+		final AtomicInteger errors = new AtomicInteger();
+
+		for (int i = 0; i < threads; i++) {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 200; j++) {
+							Connection conn = pool.getConnection();
+							conn.createStatement().executeQuery("SELECT 1").close();
+							conn.close();
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}.start();
+		}
+
+		done.await();
+
+		eq(errors.get(), 0);
+		eq(pool.borrowed(), threads * 200);
+		isTrue(pool.created() <= 3);
+		eq(pool.active(), 0);
+	}
+
+	@Test
+	public void testMaxLifetimeRotation() throws Exception {
+		pool.minIdle(0).maxLifetime(50);
+
+		Connection conn = pool.getConnection();
+		String physical = conn.toString();
+		conn.close();
+
+		U.sleep(100);
+
+		conn = pool.getConnection();
+		neq(conn.toString(), physical);
+		conn.close();
+
+		isTrue(pool.closed() >= 1);
+	}
+
+	@Test
+	public void testLeakDetection() throws Exception {
+		pool.leakDetectionThreshold(50);
+
+		Connection conn = pool.getConnection();
+
+		U.sleep(200);
+		pool.housekeep();
+
+		eq(pool.leaks(), 1);
+		conn.close();
+	}
+
+	@Test
+	public void testIdleConnectionsAndMetrics() throws Exception {
+		pool.minIdle(3);
+		pool.housekeep();
+
+		eq(pool.idle(), 3);
+		eq(pool.active(), 0);
+
+		pool.updateMetrics();
+		notNull(Metrics.get("jdbc/" + pool.name() + "/idle"));
+		eq(Metrics.get("jdbc/" + pool.name() + "/idle").overview().lastEntry().getValue().doubleValue(), 3.0);
+
+		pool.shutdown();
+		eq(pool.size(), 0);
+		isNull(Metrics.get("jdbc/" + pool.name() + "/idle"));
+	}
+
+}
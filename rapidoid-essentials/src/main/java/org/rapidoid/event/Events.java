@@ -28,7 +28,7 @@ public enum Events implements Event {
 
 	LOG_TRACE, LOG_DEBUG, LOG_INFO, LOG_WARN, LOG_ERROR,
 
-	SESSION_LOAD, SESSION_SAVE, SESSION_SERIALIZE, SESSION_DESERIALIZE, SESSION_CONCURRENT_ACCESS;
+	SESSION_LOAD, SESSION_SAVE, SESSION_SERIALIZE, SESSION_DESERIALIZE, SESSION_CONCURRENT_ACCESS, SESSION_EXPIRE, SESSION_EVICT;
 
 	private volatile EventListener listener;
 
@@ -3,6 +3,8 @@ package org.rapidoid.gui;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.collection.Coll;
+import org.rapidoid.data.JSON;
+import org.rapidoid.datamodel.KeysetDataItems;
 import org.rapidoid.gui.base.AbstractWidget;
 import org.rapidoid.html.Tag;
 import org.rapidoid.html.tag.TdTag;
@@ -17,6 +19,7 @@ import org.rapidoid.util.Msc;
 import org.rapidoid.var.Var;
 import org.rapidoid.wrap.BoolWrap;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -62,6 +65,9 @@ public class Grid extends AbstractWidget<Grid> {
 		Iterable<?> rows;
 
 		BoolWrap isLastPage = new BoolWrap();
+		boolean seeked = false;
+
+		Var<String> order = U.notEmpty(orderBy) ? GUI.var("_o" + seq("order"), orderBy) : null;
 
 		if (paging) {
 			String pageParam = "_p" + seq("pager");
@@ -74,16 +80,112 @@ public class Grid extends AbstractWidget<Grid> {
 				pager.max(pages);
 			}
 
-			rows = Msc.getPage(items, pager.pageNumber(), pageSize, size, isLastPage);
+			rows = null;
+
+			if (order != null && items instanceof KeysetDataItems) {
+				KeysetDataItems data = (KeysetDataItems) items;
+				String currentOrder = order.get();
+
+				if (data.isSeekable(currentOrder)) {
+					rows = seekPage(data, currentOrder, pager, isLastPage);
+					seeked = true;
+				}
+			}
+
+			if (rows == null) {
+				rows = Msc.getPage(items, pager.pageNumber(), pageSize, size, isLastPage);
+			}
 
 		} else {
 			rows = items;
 		}
 
-		return renderGridPage(pager, rows, isLastPage.value);
+		// the sought page is already ordered
+		return renderGridPage(pager, rows, isLastPage.value, order, !seeked);
+	}
+
+	/**
+	 * Fetches the page by seeking after (or before) the key of the neighbour page from the link, instead of skipping
+	 * all the previous items. Without a valid key (e.g. a bookmarked page number), the page is fetched by offset.
+	 */
+	private List<?> seekPage(KeysetDataItems data, String order, Pager pager, BoolWrap isLastPage) {
+		String keyParam = "_k" + seq("pager-key");
+		int pageN = pager.pageNumber();
+
+		boolean backwards = false;
+		List<?> key = null;
+		int skip = 0;
+
+		if (pageN > 1) {
+			List<?> seek = parseSeekKey(req().params().get(keyParam));
+
+			List<?> seekKey = seek != null && seek.size() > 2 ? seek.subList(2, seek.size()) : null;
+
+			// the key from the link might be tampered with, so it's validated
+			if (seekKey != null && order.equals(seek.get(1)) && data.isValidKey(order, seekKey)) {
+				backwards = "<".equals(seek.get(0));
+				key = seekKey;
+			} else {
+				skip = (pageN - 1) * pageSize;
+			}
+		}
+
+		String seekOrder = backwards ? reversed(order) : order;
+
+		// 1 item extra, to test if there are more results
+		List<Object> page = U.list(skip > 0
+			? data.pageAt(seekOrder, skip, pageSize + 1)
+			: data.pageAfter(seekOrder, key, pageSize + 1));
+
+		boolean more = page.size() > pageSize;
+
+		if (more) {
+			page.remove(page.size() - 1);
+		}
+
+		if (backwards) {
+			Collections.reverse(page);
+		}
+
+		isLastPage.value = !backwards && !more;
+
+		if (!page.isEmpty()) {
+			Object first = page.get(0);
+			Object last = page.get(page.size() - 1);
+
+			String prevKey = pageN > 2 ? seekKey("<", order, data.keyOf(first, order)) : null;
+			String nextKey = seekKey(">", order, data.keyOf(last, order));
+
+			pager.keys(keyParam, prevKey, nextKey);
+		}
+
+		return page;
 	}
 
-	private Object renderGridPage(Pager pager, Iterable<?> rows, boolean isLastPage) {
+	private static List<?> parseSeekKey(String seek) {
+		if (U.isEmpty(seek)) {
+			return null;
+		}
+
+		try {
+			return JSON.parse(seek, List.class);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static String seekKey(String direction, String order, List<?> key) {
+		List<Object> parts = U.<Object>list(direction, order);
+		parts.addAll(key);
+		return JSON.stringify(parts);
+	}
+
+	private static String reversed(String order) {
+		return order.startsWith("-") ? order.substring(1) : "-" + order;
+	}
+
+	private Object renderGridPage(Pager pager, Iterable<?> rows, boolean isLastPage, Var<String> order,
+	                              boolean orderRows) {
 		Iterator<?> it = rows.iterator();
 		boolean hasData = it.hasNext();
 
@@ -105,14 +207,9 @@ public class Grid extends AbstractWidget<Grid> {
 		}
 
 		final List<Property> props = itemsModel.properties(columns);
-		boolean ordered = !U.isEmpty(orderBy);
-		Var<String> order = null;
-		String currentOrder = orderBy;
-
-		if (ordered) {
-			order = GUI.var("_o" + seq("order"), orderBy);
-			currentOrder = order.get();
-			itemsModel = itemsModel.orderedBy(currentOrder);
+
+		if (order != null && orderRows) {
+			itemsModel = itemsModel.orderedBy(order.get());
 		}
 
 		Tag header = tableHeader(props, order);
@@ -134,13 +231,14 @@ public class Grid extends AbstractWidget<Grid> {
 	}
 
 	protected Tag tableBody(final List<Property> props, Items pageOrAll) {
-		Tag body = GUI.tbody();
+		List<Tag> rows = U.list();
 
 		for (Item item : pageOrAll) {
-			Tag row = itemRow(props, item);
-			body = body.append(row);
+			rows.add(itemRow(props, item));
 		}
-		return body;
+
+		// append all rows at once, as every append copies the (immutable) tag
+		return GUI.tbody(rows);
 	}
 
 	protected Tag tableHeader(final List<Property> props, Var<String> order) {
@@ -176,14 +274,16 @@ public class Grid extends AbstractWidget<Grid> {
 	}
 
 	protected Tag itemRow(List<Property> properties, Item item) {
-		Tag row = tr();
+		List<Tag> cells = U.list();
 
 		for (Property prop : properties) {
 			Object value = prop.get(item);
 			value = U.or(value, "");
-			row = row.append(cell(GUI.display(value)));
+			cells.add(cell(GUI.display(value)));
 		}
 
+		Tag row = tr(cells);
+
 		if (rowCmd != null) {
 			row = row.cmd(rowCmd, item.value());
 			row = row.class_("pointer");
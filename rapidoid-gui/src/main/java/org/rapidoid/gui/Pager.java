@@ -43,6 +43,10 @@ public class Pager extends AbstractWidget<Pager> {
 
 	private volatile boolean right;
 
+	private volatile String keyParam;
+	private volatile String prevKey;
+	private volatile String nextKey;
+
 	public Pager(String param) {
 		this.param = param;
 	}
@@ -53,11 +57,23 @@ public class Pager extends AbstractWidget<Pager> {
 	}
 
 	protected String pageUri(int pageN) {
+		return pageUri(pageN, null);
+	}
+
+	protected String pageUri(int pageN, String key) {
 		IReqInfo req = req();
 
 		Map<String, String> query = U.map(req.params());
 		query.put(param, pageN + "");
 
+		if (keyParam != null) {
+			if (key != null) {
+				query.put(keyParam, key);
+			} else {
+				query.remove(keyParam);
+			}
+		}
+
 		return GUI.uri(req.path(), query);
 	}
 
@@ -80,13 +96,13 @@ public class Pager extends AbstractWidget<Pager> {
 			lastLi = pageN < max ? li(last) : li(last.href(null)).class_("disabled");
 		}
 
-		ATag prev = prev().href(pageUri(pageN - 1));
+		ATag prev = prev().href(pageUri(pageN - 1, prevKey));
 		Tag prevLi = min == null || pageN > min ? li(prev) : li(prev.href(null)).class_("disabled");
 
 		ATag current = current();
 		Tag currentLi = li(current);
 
-		ATag next = next().href(pageUri(pageN + 1));
+		ATag next = next().href(pageUri(pageN + 1, nextKey));
 		Tag nextLi = max == null || pageN < max ? li(next) : li(next.href(null)).class_("disabled");
 
 		Tag pagination = GUI.nav(GUI.ul_li(firstLi, prevLi, currentLi, nextLi, lastLi).class_("pagination"));
@@ -174,6 +190,16 @@ public class Pager extends AbstractWidget<Pager> {
 		return this;
 	}
 
+	/**
+	 * The keys (in the specified parameter) of the previous and the next page, for keyset paging.
+	 */
+	public Pager keys(String keyParam, String prevKey, String nextKey) {
+		this.keyParam = keyParam;
+		this.prevKey = prevKey;
+		this.nextKey = nextKey;
+		return this;
+	}
+
 	public Integer initial() {
 		return initial;
 	}
@@ -0,0 +1,112 @@
+package org.rapidoid.gui;
+
+/*
+ * #%L
+ * rapidoid-gui
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.html.impl.TagRenderer;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class GridRenderingPerfTest {
+
+	private static final int COUNT = 100;
+
+	public static class Person {
+
+		private final int id;
+
+		private final String name;
+
+		private final String email;
+
+		private final long score;
+
+		public Person(int id, String name, String email, long score) {
+			this.id = id;
+			this.name = name;
+			this.email = email;
+			this.score = score;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getEmail() {
+			return email;
+		}
+
+		public long getScore() {
+			return score;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		List<Person> people = U.list();
+
+		for (int i = 0; i < 1000; i++) {
+			people.add(new Person(i, "Person " + i, "person" + i + "@example.com", i * 7));
+		}
+
+		final Grid grid = GUI.grid(people).pageSize(0);
+		final Object tags = grid.render(null);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		System.out.println("HTML size: " + grid.toString().length());
+
+		for (int i = 0; i < 5; i++) {
+			Msc.benchmark("grid.toString (1000 rows)", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					grid.toString();
+				}
+			});
+
+			Msc.benchmark("grid streaming (1000 rows)", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					out.reset();
+					TagRenderer.get().str(grid, null, out);
+				}
+			});
+
+			Msc.benchmark("pre-built grid tags streaming (1000 rows)", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					out.reset();
+					TagRenderer.get().str(tags, null, out);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package org.rapidoid.widget;
+
+/*
+ * #%L
+ * rapidoid-gui
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.datamodel.AbstractDataItems;
+import org.rapidoid.datamodel.KeysetDataItems;
+import org.rapidoid.gui.GUI;
+import org.rapidoid.gui.Grid;
+import org.rapidoid.gui.reqinfo.MockReqInfo;
+import org.rapidoid.u.U;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class GridKeysetPagingTest extends WidgetTestCommons {
+
+	@Test
+	public void testSeekingForward() {
+		PersonsByName persons = new PersonsByName();
+
+		String html = grid(persons).toString();
+		has(html, ">a<", ">b<");
+		isFalse(html.contains(">c<"));
+
+		// the link to the next page has the key of the last item
+		has(html, "_k1=");
+		eq(persons.seeks, 1);
+
+		params("_p1", "2", "_k1", "[\">\",\"name\",\"b\",2]");
+		html = grid(persons).toString();
+
+		has(html, ">c<", ">d<");
+		isFalse(html.contains(">b<"));
+		isFalse(html.contains(">e<"));
+
+		eq(persons.seeks, 2);
+		eq(persons.pages, 0);
+	}
+
+	@Test
+	public void testSeekingBackwards() {
+		PersonsByName persons = new PersonsByName();
+
+		// from page 3 (starting with "e") back to page 2
+		params("_p1", "2", "_k1", "[\"<\",\"name\",\"e\",5]");
+		String html = grid(persons).toString();
+
+		has(html, ">c<", ">d<");
+		isFalse(html.contains(">b<"));
+		isFalse(html.contains(">e<"));
+
+		eq(persons.seeks, 1);
+		eq(persons.pages, 0);
+	}
+
+	@Test
+	public void testSeekingWithoutKey() {
+		PersonsByName persons = new PersonsByName();
+
+		// no key (e.g. a bookmarked page number), so the page is fetched by offset
+		params("_p1", "3");
+		String html = grid(persons).toString();
+
+		has(html, ">e<", ">f<");
+		isFalse(html.contains(">d<"));
+
+		eq(persons.seeks, 0);
+		eq(persons.offsets, 1);
+		eq(persons.pages, 0);
+	}
+
+	@Test
+	public void testSeekingWithInvalidKey() {
+		PersonsByName persons = new PersonsByName();
+
+		// the tampered keys don't match the ordering, so the page is fetched by offset
+		for (String key : U.list("[\">\",\"name\",\"b\"]", "[\">\",\"name\",\"b\",\"x\"]", "[\">\",\"name\",1,2,3]")) {
+			params("_p1", "2", "_k1", key);
+			String html = grid(persons).toString();
+
+			has(html, ">c<", ">d<");
+			isFalse(html.contains(">b<"));
+		}
+
+		eq(persons.seeks, 0);
+		eq(persons.offsets, 3);
+	}
+
+	private static Grid grid(PersonsByName persons) {
+		return GUI.grid(persons).orderBy("name").columns("name").pageSize(2);
+	}
+
+	private static void params(String... keysAndValues) {
+		MockReqInfo req = MockReqInfo.set("GET /");
+		req.setParams(U.<String, String>map());
+
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			req.params().put(keysAndValues[i], keysAndValues[i + 1]);
+		}
+	}
+
+	private static class PersonsByName extends AbstractDataItems implements KeysetDataItems {
+
+		final List<Person> persons = U.list();
+
+		int seeks;
+
+		int pages;
+
+		int offsets;
+
+		PersonsByName() {
+			String[] names = {"a", "b", "c", "d", "e", "f"};
+
+			for (int i = 0; i < names.length; i++) {
+				Person person = new Person(names[i], 20 + i);
+				person.id = i + 1;
+				persons.add(person);
+			}
+		}
+
+		@Override
+		public <T> List<T> all() {
+			return U.cast(persons);
+		}
+
+		@Override
+		public <T> List<T> page(int start, int length) {
+			pages++;
+			return U.cast(U.list(persons.subList(start, Math.min(start + length, persons.size()))));
+		}
+
+		@Override
+		public boolean isSeekable(String orderBy) {
+			return orderBy.equals("name") || orderBy.equals("-name");
+		}
+
+		@Override
+		public List<?> pageAfter(String orderBy, List<?> key, int length) {
+			seeks++;
+
+			boolean desc = orderBy.startsWith("-");
+			List<Person> page = U.list();
+
+			for (Person person : sorted(orderBy)) {
+				if (page.size() < length && (key == null || isAfter(person, (String) key.get(0), desc))) {
+					page.add(person);
+				}
+			}
+
+			return page;
+		}
+
+		@Override
+		public boolean isValidKey(String orderBy, List<?> key) {
+			return key.size() == 2 && key.get(0) instanceof String && key.get(1) instanceof Number;
+		}
+
+		@Override
+		public List<?> pageAt(String orderBy, int start, int length) {
+			offsets++;
+
+			List<Person> sorted = sorted(orderBy);
+			int n = sorted.size();
+
+			return U.list(sorted.subList(Math.min(start, n), Math.min(start + length, n)));
+		}
+
+		private List<Person> sorted(String orderBy) {
+			List<Person> sorted = U.list(persons);
+
+			if (orderBy.startsWith("-")) {
+				Collections.reverse(sorted);
+			}
+
+			return sorted;
+		}
+
+		private boolean isAfter(Person person, String name, boolean desc) {
+			int cmp = person.name.compareTo(name);
+			return desc ? cmp < 0 : cmp > 0;
+		}
+
+		@Override
+		public List<?> keyOf(Object item, String orderBy) {
+			Person person = (Person) item;
+			return U.list(person.name, person.id);
+		}
+	}
+
+}
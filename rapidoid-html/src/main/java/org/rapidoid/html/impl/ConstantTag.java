@@ -25,17 +25,21 @@ import org.rapidoid.annotation.Since;
 import org.rapidoid.html.Tag;
 import org.rapidoid.html.TagProcessor;
 
+import java.nio.charset.Charset;
+
 @Authors("Nikolche Mihajlovski")
 @Since("2.0.0")
 public class ConstantTag extends UndefinedTag {
 
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
 	private final String code;
 
 	private final byte[] bytes;
 
 	public ConstantTag(String code) {
 		this.code = code;
-		this.bytes = code.getBytes();
+		this.bytes = code.getBytes(UTF_8);
 	}
 
 	@Override
@@ -59,6 +59,12 @@ public class TagImpl extends UndefinedTag implements TagInternals, Serializable
 
 	Cmd cmd;
 
+	transient volatile Boolean isStatic;
+
+	transient volatile Rendered rendered;
+
+	transient int renderings;
+
 	public TagImpl(Class<?> clazz, String name, Object[] contents) {
 		this.clazz = clazz;
 		this.name = name;
@@ -230,4 +236,59 @@ public class TagImpl extends UndefinedTag implements TagInternals, Serializable
 		return ((TagInternals) tag).base();
 	}
 
+	/**
+	 * The tags are immutable, so a tag with no handlers, commands and dynamic contents always renders the same HTML.
+	 */
+	boolean isStatic() {
+		Boolean stat = isStatic;
+
+		if (stat == null) {
+			stat = _h == null && cmd == null && hasStaticContents();
+			isStatic = stat;
+		}
+
+		return stat;
+	}
+
+	private boolean hasStaticContents() {
+		for (Object item : contents) {
+			if (!isStaticItem(item)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isStaticItem(Object item) {
+		if (item == null || item instanceof ConstantTag) {
+			return true;
+		}
+
+		Class<?> cls = item.getClass();
+
+		if (cls == String.class || cls == Integer.class || cls == Long.class || cls == Double.class
+			|| cls == Boolean.class || cls == Character.class) {
+			return true;
+		}
+
+		return item instanceof TagInternals && ((TagInternals) item).base().isStatic();
+	}
+
+	static class Rendered {
+
+		final int level;
+
+		final boolean inline;
+
+		final byte[] bytes;
+
+		Rendered(int level, boolean inline, byte[] bytes) {
+			this.level = level;
+			this.inline = inline;
+			this.bytes = bytes;
+		}
+
+	}
+
 }
@@ -64,6 +64,11 @@ public class TagProxy extends RapidoidThing implements InvocationHandler, Serial
 
 		Class<?> methodClass = method.getDeclaringClass();
 
+		// the renderer accesses the tag internals very often, so it is handled without reflection
+		if (methodClass == TagInternals.class) {
+			return tag;
+		}
+
 		String name = method.getName();
 		Class<?> ret = method.getReturnType();
 		Class<?>[] paramTypes = method.getParameterTypes();
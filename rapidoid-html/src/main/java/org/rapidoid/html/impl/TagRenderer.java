@@ -3,7 +3,6 @@ package org.rapidoid.html.impl;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.cls.Cls;
 import org.rapidoid.commons.Str;
 import org.rapidoid.data.JSON;
 import org.rapidoid.html.CustomTag;
@@ -12,14 +11,18 @@ import org.rapidoid.html.Tag;
 import org.rapidoid.html.TagWidget;
 import org.rapidoid.u.U;
 import org.rapidoid.util.Constants;
+import org.rapidoid.util.StreamUtils;
 import org.rapidoid.var.Var;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /*
  * #%L
@@ -56,6 +59,27 @@ public class TagRenderer extends RapidoidThing {
 	private static final byte[] DQUOTES = "\"".getBytes();
 	private static final byte[] LT_SLASH = "</".getBytes();
 	private static final byte[] GT = ">".getBytes();
+	private static final byte[] NG_CLICK = " ng-click".getBytes();
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * The caches are bounded, as their keys might come from dynamic input.
+	 */
+	private static final int MAX_CACHE_ENTRIES = 10000;
+
+	/**
+	 * The rendered bytes of a static subtree are cached only if they are small enough.
+	 */
+	private static final int MAX_CACHED_TAG_SIZE = 64 * 1024;
+
+	private static final ConcurrentMap<String, byte[]> TAG_OPENINGS = new ConcurrentHashMap<String, byte[]>();
+
+	private static final ConcurrentMap<String, byte[]> TAG_CLOSINGS = new ConcurrentHashMap<String, byte[]>();
+
+	private static final ConcurrentMap<String, byte[]> ATTR_NAMES = new ConcurrentHashMap<String, byte[]>();
+
+	private static final ConcurrentMap<Class<?>, Boolean> COMPLEX_TYPES = new ConcurrentHashMap<Class<?>, Boolean>();
 
 	protected static final TagRenderer INSTANCE = new TagRenderer();
 
@@ -66,7 +90,7 @@ public class TagRenderer extends RapidoidThing {
 	public String toHTML(Object content, Object extra) {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
 		str(content, extra, out);
-		return out.toString();
+		return new String(out.toByteArray(), UTF_8);
 	}
 
 	public void str(Object content, Object extra, OutputStream out) {
@@ -79,6 +103,11 @@ public class TagRenderer extends RapidoidThing {
 		if (content == null) {
 			return;
 
+		} else if (content instanceof String) {
+			indent(out, level, inline);
+			writeEscaped(out, (String) content);
+			return;
+
 		} else if (content instanceof ConstantTag) {
 			ConstantTag constantTag = ((ConstantTag) content);
 			write(out, constantTag.bytes());
@@ -108,7 +137,7 @@ public class TagRenderer extends RapidoidThing {
 		}
 
 		indent(out, level, inline);
-		write(out, HTML.escape(U.str(content)));
+		writeEscaped(out, U.str(content));
 	}
 
 	protected void join(Collection<?> items, int level, boolean inline, Object extra, OutputStream out) {
@@ -134,13 +163,39 @@ public class TagRenderer extends RapidoidThing {
 
 	public void str(TagImpl tag, int level, boolean inline, Object extra, OutputStream out) {
 
-		String name = HTML.escape(tag.name);
+		// most of the tags are rendered only once, so the static subtrees are detected and cached on the next rendering
+		if (tag.renderings++ > 0 && !(out instanceof TagCapture) && tag.isStatic()) {
+			TagImpl.Rendered rendered = tag.rendered;
+
+			if (rendered != null && rendered.level == level && rendered.inline == inline) {
+				write(out, rendered.bytes);
+				return;
+
+			} else {
+				TagCapture capture = new TagCapture();
+				render(tag, level, inline, extra, capture);
+
+				byte[] bytes = capture.toByteArray();
+				if (bytes.length <= MAX_CACHED_TAG_SIZE) {
+					tag.rendered = new TagImpl.Rendered(level, inline, bytes);
+				}
+
+				write(out, bytes);
+				return;
+			}
+		}
+
+		render(tag, level, inline, extra, out);
+	}
+
+	protected void render(TagImpl tag, int level, boolean inline, Object extra, OutputStream out) {
+
+		String name = tag.name;
 		List<Object> contents = tag.contents;
 
 		indent(out, level, inline);
 
-		write(out, LT);
-		write(out, name);
+		write(out, encoded(TAG_OPENINGS, name, LT, null));
 
 		if (tag._h != null) {
 			write(out, _H);
@@ -148,19 +203,23 @@ public class TagRenderer extends RapidoidThing {
 			write(out, DQUOTES);
 		}
 
-		for (Entry<String, String> e : tag.attrs.entrySet()) {
-			String attr = e.getKey();
-			String value = e.getValue();
+		if (!tag.attrs.isEmpty()) {
+			for (Entry<String, String> e : tag.attrs.entrySet()) {
+				String attr = e.getKey();
+				String value = e.getValue();
 
-			writeAttr(tag, out, attr, value);
+				writeAttr(tag, out, attr, value);
+			}
 		}
 
-		for (String attr : tag.battrs) {
-			writeBAttr(out, attr);
+		if (!tag.battrs.isEmpty()) {
+			for (String attr : tag.battrs) {
+				writeBAttr(out, attr);
+			}
 		}
 
 		if (tag.cmd != null) {
-			write(out, " ng-click");
+			write(out, NG_CLICK);
 			write(out, EQ_DQUOTES);
 			write(out, EMIT);
 			write(out, tag.cmd.name);
@@ -214,8 +273,7 @@ public class TagRenderer extends RapidoidThing {
 	}
 
 	private void writeBAttr(OutputStream out, String attr) {
-		write(out, Constants.SPACE_);
-		write(out, HTML.escape(attr));
+		write(out, encoded(ATTR_NAMES, attr, Constants.SPACE_, null));
 	}
 
 	private void writeAttr(TagImpl tag, OutputStream out, String attr, String value) {
@@ -226,9 +284,33 @@ public class TagRenderer extends RapidoidThing {
 	}
 
 	private void closeTag(OutputStream out, String name) {
-		write(out, LT_SLASH);
-		write(out, name);
-		write(out, GT);
+		write(out, encoded(TAG_CLOSINGS, name, LT_SLASH, GT));
+	}
+
+	private static byte[] encoded(ConcurrentMap<String, byte[]> cache, String name, byte[] prefix, byte[] suffix) {
+		byte[] bytes = cache.get(name);
+
+		if (bytes == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+			try {
+				out.write(prefix);
+				StreamUtils.writeUTF8(out, HTML.escape(name));
+				if (suffix != null) {
+					out.write(suffix);
+				}
+			} catch (IOException e) {
+				throw U.rte("Cannot render tag!", e);
+			}
+
+			bytes = out.toByteArray();
+
+			if (cache.size() < MAX_CACHE_ENTRIES) {
+				cache.putIfAbsent(name, bytes);
+			}
+		}
+
+		return bytes;
 	}
 
 	protected boolean isSingleTag(String name) {
@@ -252,7 +334,7 @@ public class TagRenderer extends RapidoidThing {
 			return;
 		}
 
-		write(out, HTML.escape(value.toString()));
+		writeEscaped(out, value.toString());
 	}
 
 	protected boolean shouldRenderInline(String name, Object content) {
@@ -272,16 +354,34 @@ public class TagRenderer extends RapidoidThing {
 	}
 
 	protected boolean isSimpleContent(Object content) {
+		if (content == null || content instanceof String || content instanceof ConstantTag) {
+			return true;
+		}
+
+		// the interface type checks are slow, so they are calculated once per class
+		Class<?> cls = content.getClass();
+		Boolean complex = COMPLEX_TYPES.get(cls);
+
+		if (complex == null) {
+			complex = Tag.class.isAssignableFrom(cls) || CustomTag.class.isAssignableFrom(cls)
+				|| TagWidget.class.isAssignableFrom(cls) || Object[].class.isAssignableFrom(cls)
+				|| Collection.class.isAssignableFrom(cls);
+
+			if (COMPLEX_TYPES.size() < MAX_CACHE_ENTRIES) {
+				COMPLEX_TYPES.putIfAbsent(cls, complex);
+			}
+		}
+
+		if (complex) {
+			return false;
+		}
+
 		if (content instanceof Var) {
 			Var<?> var = (Var<?>) content;
 			return isSimpleContent(var.get());
 		}
 
-		if (content instanceof ConstantTag) {
-			return true;
-		}
-
-		return !Cls.instanceOf(content, Tag.class, CustomTag.class, TagWidget.class, Object[].class, Collection.class);
+		return true;
 	}
 
 	protected boolean hasSimpleContent(Collection<?> content) {
@@ -312,7 +412,15 @@ public class TagRenderer extends RapidoidThing {
 	}
 
 	protected void write(OutputStream out, String s) {
-		write(out, s.getBytes());
+		try {
+			StreamUtils.writeUTF8(out, s);
+		} catch (IOException e) {
+			throw U.rte("Cannot render tag!", e);
+		}
+	}
+
+	protected void writeEscaped(OutputStream out, String s) {
+		write(out, HTML.escape(s));
 	}
 
 	protected void indent(OutputStream out, int level, boolean inline) {
@@ -323,4 +431,10 @@ public class TagRenderer extends RapidoidThing {
 		}
 	}
 
+	/**
+	 * Marks the output of a static subtree that is being cached, so the nested static tags are not cached separately.
+	 */
+	private static class TagCapture extends ByteArrayOutputStream {
+	}
+
 }
@@ -55,4 +55,26 @@ public class HtmlTagsTest extends TestCommons {
 		eq(esc, "&lt;aa&gt; b=&quot;123&quot; c-&gt;d; a &amp; b &amp;&amp; c &amp;nbsp;");
 	}
 
+	@Test
+	public void testUTF8AndEscaping() {
+		Tag div = HTML.div("€ш<b>", HTML.span("\uD852\uDF62 & x")).attr("title", "\"ш\"");
+		eq(div.toString(), "<div title=\"&quot;ш&quot;\">€ш&lt;b&gt;<span>\uD852\uDF62 &amp; x</span></div>");
+	}
+
+	@Test
+	public void testStaticTagCaching() {
+		Tag row = HTML.tr(HTML.td("a"), HTML.td(1), HTML.td(HTML.b("<x>")));
+		Tag table = HTML.table(row, row);
+
+		String html = table.toString();
+
+		// the static subtrees are cached after the first rendering
+		for (int i = 0; i < 3; i++) {
+			eq(table.toString(), html);
+			eq(HTML.div(HTML.div(table)).toString(), HTML.div(HTML.div(table.copy())).toString());
+		}
+
+		eq(row.toString(), "<tr>\r\n  <td>a</td>\r\n  <td>1</td>\r\n  <td>\r\n    <b>&lt;x&gt;</b>\r\n  </td>\r\n</tr>");
+	}
+
 }
@@ -5,6 +5,7 @@ import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.collection.Coll;
+import org.rapidoid.config.Conf;
 import org.rapidoid.concurrent.Callback;
 import org.rapidoid.concurrent.Future;
 import org.rapidoid.log.Log;
@@ -57,6 +58,8 @@ public class HttpClient extends RapidoidThing {
 
 	private volatile int maxRedirects = 5;
 
+	private volatile boolean nativeEngine = Conf.HTTP.sub("client").entry("native").or(false);
+
 	private final Map<String, String> cookies = Coll.synchronizedMap();
 
 	private final LazyInit<CloseableHttpAsyncClient> client = new LazyInit<CloseableHttpAsyncClient>(
@@ -71,10 +74,33 @@ public class HttpClient extends RapidoidThing {
 
 		});
 
+	private final LazyInit<HttpClientEngine> engine = new LazyInit<HttpClientEngine>(
+		new Callable<HttpClientEngine>() {
+
+			@Override
+			public HttpClientEngine call() throws Exception {
+				return HttpClientUtil.engine(HttpClient.this);
+			}
+
+		});
+
 	public Future<HttpResp> executeRequest(HttpReq req, Callback<HttpResp> callback) {
+		HttpClientEngine nativeClient = engine();
+
+		if (nativeClient != null && nativeClient.supports(req)) {
+			return nativeClient.execute(req, callback);
+		}
+
 		return HttpClientUtil.request(req, client.get(), callback, false);
 	}
 
+	/**
+	 * Returns the native engine, or <code>null</code> if it isn't enabled or available.
+	 */
+	public HttpClientEngine engine() {
+		return nativeEngine && HttpClientUtil.isEngineAvailable() ? engine.get() : null;
+	}
+
 	public HttpClient userAgent(String userAgent) {
 		this.userAgent = userAgent;
 		return this;
@@ -156,6 +182,19 @@ public class HttpClient extends RapidoidThing {
 		return this.maxRedirects;
 	}
 
+	/**
+	 * If enabled, the plain HTTP requests are executed by the Rapidoid-native client (if available), on the Rapidoid
+	 * event loop.
+	 */
+	public HttpClient nativeEngine(boolean nativeEngine) {
+		this.nativeEngine = nativeEngine;
+		return this;
+	}
+
+	public boolean nativeEngine() {
+		return this.nativeEngine;
+	}
+
 	public HttpClient cookie(String name, String value) {
 		cookies().put(name, value);
 		return this;
@@ -218,6 +257,7 @@ public class HttpClient extends RapidoidThing {
 	public synchronized void close() {
 		try {
 			client.resetAndClose();
+			engine.resetAndClose();
 		} catch (Exception e) {
 			Log.error("Error while closing the HTTP client!", e);
 		}
@@ -0,0 +1,42 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-http-client
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.Future;
+
+import java.io.Closeable;
+
+/**
+ * Executes the requests of a {@link HttpClient}, instead of the Apache async client. The Apache client is still used
+ * for the requests that aren't supported by the engine.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public interface HttpClientEngine extends Closeable {
+
+	boolean supports(HttpReq req);
+
+	Future<HttpResp> execute(HttpReq req, Callback<HttpResp> callback);
+
+}
@@ -21,6 +21,7 @@ import org.rapidoid.RapidoidThing;
 import org.rapidoid.activity.RapidoidThreadFactory;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.cls.Cls;
 import org.rapidoid.commons.Err;
 import org.rapidoid.commons.Str;
 import org.rapidoid.concurrent.*;
@@ -61,6 +62,10 @@ import java.util.concurrent.CancellationException;
 @Since("5.1.0")
 public class HttpClientUtil extends RapidoidThing {
 
+	private static final String ENGINE_CLASS = "org.rapidoid.http.client.RapidoidHttpClientEngine";
+
+	private static final boolean ENGINE_AVAILABLE = Cls.exists(ENGINE_CLASS);
+
 	private static final RedirectStrategy NO_REDIRECTS = new RedirectStrategy() {
 		@Override
 		public boolean isRedirected(HttpRequest request, HttpResponse response, HttpContext context)
@@ -116,6 +121,14 @@ public class HttpClientUtil extends RapidoidThing {
 		return builder.build();
 	}
 
+	static boolean isEngineAvailable() {
+		return ENGINE_AVAILABLE;
+	}
+
+	static HttpClientEngine engine(HttpClient client) {
+		return (HttpClientEngine) Cls.newInstance(Cls.get(ENGINE_CLASS), client);
+	}
+
 	private static String getDomain(String host) {
 		String url = host;
 
@@ -140,7 +153,7 @@ public class HttpClientUtil extends RapidoidThing {
 
 		req.addHeader("Cookie", joinCookiesAsHeader(cookies));
 
-		if (config.verb() == HttpVerb.POST || config.verb() == HttpVerb.PUT || config.verb() == HttpVerb.PATCH) {
+		if (hasBody(config.verb())) {
 			HttpEntityEnclosingRequestBase entityEnclosingReq = (HttpEntityEnclosingRequestBase) req;
 			entityEnclosingReq.setEntity(config.body() != null ? byteBody(config) : paramsBody(config.data(), config.files()));
 		}
@@ -150,7 +163,22 @@ public class HttpClientUtil extends RapidoidThing {
 		return req;
 	}
 
-	private static String joinCookiesAsHeader(Map<String, String> cookies) {
+	public static boolean hasBody(HttpVerb verb) {
+		return verb == HttpVerb.POST || verb == HttpVerb.PUT || verb == HttpVerb.PATCH;
+	}
+
+	/**
+	 * Returns the specified body, or the data and files encoded as multipart form data.
+	 */
+	public static byte[] requestBody(HttpReq config) {
+		return config.body() != null ? config.body() : multipartBody(config.data(), config.files());
+	}
+
+	public static String requestContentType(HttpReq config) {
+		return config.body() != null ? config.contentType() : ContentType.MULTIPART_FORM_DATA.toString();
+	}
+
+	public static String joinCookiesAsHeader(Map<String, String> cookies) {
 		StringBuilder allCookies = new StringBuilder();
 
 		for (Iterator<Map.Entry<String, String>> it = cookies.entrySet().iterator(); it.hasNext(); ) {
@@ -177,6 +205,10 @@ public class HttpClientUtil extends RapidoidThing {
 	}
 
 	private static NByteArrayEntity paramsBody(Map<String, Object> data, Map<String, List<Upload>> files) {
+		return new NByteArrayEntity(multipartBody(data, files), ContentType.MULTIPART_FORM_DATA);
+	}
+
+	private static byte[] multipartBody(Map<String, Object> data, Map<String, List<Upload>> files) {
 		data = U.safe(data);
 		files = U.safe(files);
 
@@ -201,8 +233,7 @@ public class HttpClientUtil extends RapidoidThing {
 			throw U.rte(e);
 		}
 
-		byte[] bytes = stream.toByteArray();
-		return new NByteArrayEntity(bytes, ContentType.MULTIPART_FORM_DATA);
+		return stream.toByteArray();
 	}
 
 	private static NByteArrayEntity byteBody(HttpReq config) {
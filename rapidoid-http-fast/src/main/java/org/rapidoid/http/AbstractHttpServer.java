@@ -27,7 +27,6 @@ import org.rapidoid.buffer.Buf;
 import org.rapidoid.bytes.BytesUtil;
 import org.rapidoid.commons.Dates;
 import org.rapidoid.data.BufRange;
-import org.rapidoid.data.JSON;
 import org.rapidoid.http.impl.HttpIO;
 import org.rapidoid.http.impl.HttpParser;
 import org.rapidoid.net.Protocol;
@@ -35,9 +34,6 @@ import org.rapidoid.net.Server;
 import org.rapidoid.net.TCP;
 import org.rapidoid.net.abstracts.Channel;
 import org.rapidoid.net.impl.RapidoidHelper;
-import org.rapidoid.util.Msc;
-
-import java.io.ByteArrayOutputStream;
 
 @Authors("Nikolche Mihajlovski")
 @Since("5.2.1")
@@ -167,9 +163,7 @@ public abstract class AbstractHttpServer extends RapidoidThing implements Protoc
 
 	protected void writeJsonBody(Channel ctx, Object value) {
 		writeContentTypeHeader(ctx, MediaType.JSON);
-		ByteArrayOutputStream os = Msc.locals().jsonRenderingStream();
-		JSON.stringify(value, os);
-		HttpIO.writeContentLengthAndBody(ctx, os);
+		HttpIO.writeJsonBody(ctx.output(), value);
 	}
 
 	protected HttpStatus serializeToJson(Channel ctx, boolean isKeepAlive, Object value) {
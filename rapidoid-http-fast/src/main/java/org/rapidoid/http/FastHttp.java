@@ -5,6 +5,9 @@ import org.rapidoid.annotation.Since;
 import org.rapidoid.buffer.Buf;
 import org.rapidoid.bytes.BytesUtil;
 import org.rapidoid.collection.Coll;
+import org.rapidoid.concurrent.ConcurrencyLimiter;
+import org.rapidoid.concurrent.ConcurrencyPermit;
+import org.rapidoid.config.Conf;
 import org.rapidoid.config.Config;
 import org.rapidoid.config.ConfigImpl;
 import org.rapidoid.data.BufRange;
@@ -26,6 +29,7 @@ import org.rapidoid.util.Msc;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * #%L
@@ -55,10 +59,16 @@ public class FastHttp extends AbstractHttpProcessor {
 
 	private static final String INTERNAL_SERVER_ERROR = "Internal Server Error!";
 
+	private static final Config CONCURRENCY_LIMIT = Conf.HTTP.sub("concurrencyLimit");
+
+	private static final ConcurrencyLimiter NO_LIMITER = new ConcurrencyLimiter("none", 1, 1, 1, 1, 1);
+
 	private final HttpRoutesImpl[] routeGroups;
 
 	private final Map<String, Object> attributes = Coll.synchronizedMap();
 
+	private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<String, ConcurrencyLimiter>();
+
 	public FastHttp(HttpRoutesImpl... routeGroups) {
 		this(routeGroups, new ConfigImpl());
 	}
@@ -124,10 +134,31 @@ public class FastHttp extends AbstractHttpProcessor {
 		HttpHandler handler = match != null ? match.getHandler() : null;
 		boolean noReq = (handler != null && !handler.needsParams());
 
+		ConcurrencyPermit permit = null;
+
+		if (handler != null && handler.options().managed()) {
+			ConcurrencyLimiter limiter = concurrencyLimiter(handler.options().zone());
+
+			if (limiter != null) {
+				permit = limiter.acquire();
+
+				if (permit == null) {
+					// rejected quickly, before parsing the request
+					channel.write(isKeepAlive ? HttpIO.HTTP_503_SERVICE_UNAVAILABLE : HttpIO.HTTP_503_SERVICE_UNAVAILABLE_CLOSE);
+					channel.closeIf(!isKeepAlive);
+					return;
+				}
+			}
+		}
+
 		ReqImpl req = null;
 
 		if (!noReq) {
 			req = createReq(channel, isGet, isKeepAlive, data, buf, matchingRoutes, matchingRoute, match, handler);
+
+			if (permit != null) {
+				req.permit(permit);
+			}
 		}
 
 		try {
@@ -141,6 +172,12 @@ public class FastHttp extends AbstractHttpProcessor {
 
 		} catch (Throwable e) {
 			if (handleError(channel, isKeepAlive, req, e)) return;
+
+		} finally {
+			// the async requests release the permit when done
+			if (permit != null && (status != HttpStatus.ASYNC || req == null)) {
+				permit.release();
+			}
 		}
 
 		if (status == HttpStatus.NOT_FOUND) {
@@ -153,6 +190,19 @@ public class FastHttp extends AbstractHttpProcessor {
 		}
 	}
 
+	public ConcurrencyLimiter concurrencyLimiter(String zone) {
+		zone = U.or(zone, "main");
+
+		ConcurrencyLimiter limiter = limiters.get(zone);
+
+		if (limiter == null) {
+			limiter = U.or(ConcurrencyLimiter.configured(zone, CONCURRENCY_LIMIT), NO_LIMITER);
+			limiters.put(zone, limiter);
+		}
+
+		return limiter != NO_LIMITER ? limiter : null;
+	}
+
 	@SuppressWarnings("unchecked")
 	public ReqImpl createReq(Channel channel, boolean isGet, boolean isKeepAlive,
 	                         RapidoidHelper helper, Buf buf, HttpRoutesImpl matchingRoutes,
@@ -314,6 +364,8 @@ public class FastHttp extends AbstractHttpProcessor {
 			route.reset();
 			route.custom().reset();
 		}
+
+		limiters.clear();
 	}
 
 	public void notFound(Channel ctx, boolean isKeepAlive, MediaType contentType, HttpHandler fromHandler, Req req) {
@@ -74,26 +74,52 @@ public class HttpUtils extends RapidoidThing implements HttpMetadata {
 		}
 	};
 
-	@SuppressWarnings("unchecked")
 	public static Map<String, Serializable> initAndDeserializeToken(Req req) {
+		String token = rawToken(req);
+
+		if (!U.isEmpty(token)) {
+			TokenCache cache = TokenCache.shared();
+			return cache != null ? cache.get(token) : deserializeToken(token);
+		} else {
+			return null;
+		}
+	}
+
+	private static String rawToken(Req req) {
 		String token = req.cookie(TOKEN, null);
 
 		if (U.isEmpty(token)) {
 			token = req.data(TOKEN, null);
 		}
 
-		if (!U.isEmpty(token)) {
-			byte[] decoded = Str.fromBase64(token.replace('$', '+').replace('_', '/'));
-			byte[] tokenDecrypted = Crypto.decrypt(decoded);
-			return (Map<String, Serializable>) Serialize.deserialize(tokenDecrypted);
-		} else {
-			return null;
-		}
+		return token;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static Map<String, Serializable> deserializeToken(String token) {
+		byte[] decoded = Str.fromBase64(token.replace('$', '+').replace('_', '/'));
+		byte[] tokenDecrypted = Crypto.decrypt(decoded);
+		return (Map<String, Serializable>) Serialize.deserialize(tokenDecrypted);
 	}
 
 	public static void saveTokenBeforeRenderingHeaders(Req req, Map<String, Serializable> tokenData) {
 		String token = token(tokenData);
 		setResponseTokenCookie(req.response(), token);
+
+		TokenCache cache = TokenCache.shared();
+
+		if (cache != null) {
+			// the re-issued token replaces the old one
+			String oldToken = rawToken(req);
+
+			if (U.notEmpty(oldToken)) {
+				cache.invalidate(oldToken);
+			}
+
+			if (U.notEmpty(token)) {
+				cache.put(token, tokenData);
+			}
+		}
 	}
 
 	public static String token(Map<String, Serializable> token) {
@@ -199,6 +225,14 @@ public class HttpUtils extends RapidoidThing implements HttpMetadata {
 			code = 404;
 			defaultMsg = "The requested resource could not be found!";
 
+		} else if (cause instanceof BadRequest) {
+			code = 400;
+			defaultMsg = "Bad Request!";
+
+		} else if (cause instanceof ServiceUnavailable) {
+			code = 503;
+			defaultMsg = "The server is overloaded, please try again later!";
+
 		} else if (Msc.isValidationError(cause)) {
 			code = 422;
 			defaultMsg = "Validation Error!";
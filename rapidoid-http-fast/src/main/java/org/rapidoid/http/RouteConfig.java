@@ -63,4 +63,8 @@ public interface RouteConfig {
 
 	RouteOptions managed(boolean managed);
 
+	boolean nonBlocking();
+
+	RouteOptions nonBlocking(boolean nonBlocking);
+
 }
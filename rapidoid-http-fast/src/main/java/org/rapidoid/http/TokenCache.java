@@ -0,0 +1,177 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.ConcurrentLRUMap;
+import org.rapidoid.config.Conf;
+import org.rapidoid.config.Config;
+import org.rapidoid.insight.Metrics;
+import org.rapidoid.timeseries.TimeSeries;
+import org.rapidoid.u.U;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded (with LRU eviction), time-expiring cache of decoded tokens, which saves the decryption and deserialization of the token
+ * on every request from the same client. The raw token is the key, so the map's hashing is backed by exact matching.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class TokenCache extends RapidoidThing {
+
+	private static final TokenCache SHARED = configured(Conf.TOKEN.sub("cache"));
+
+	private final ConcurrentLRUMap<String, Entry> cache;
+
+	private final long ttl;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong decodingNanos = new AtomicLong();
+
+	public TokenCache(int capacity, long ttl) {
+		U.must(capacity > 0, "The token cache capacity must be positive!");
+		this.cache = new ConcurrentLRUMap<String, Entry>(capacity);
+		this.ttl = ttl;
+	}
+
+	private static TokenCache configured(Config config) {
+		if (!config.entry("enabled").or(true)) {
+			return null;
+		}
+
+		int capacity = config.entry("capacity").or(10000);
+		long ttl = config.entry("ttl").or(60000L);
+
+		final TokenCache cache = new TokenCache(capacity, ttl);
+
+		final TimeSeries hitRate = new TimeSeries().title("Token cache hit rate (%)");
+		final TimeSeries cpuSaved = new TimeSeries().title("CPU time saved by the token cache (ms)");
+
+		Metrics.register("http/token-cache/hit-rate", hitRate);
+		Metrics.register("http/token-cache/cpu-saved", cpuSaved);
+
+		Metrics.updater(new Runnable() {
+			@Override
+			public void run() {
+				long now = U.time();
+				hitRate.put(now, cache.hitRate() * 100);
+				cpuSaved.put(now, cache.savedNanos() / 1000000.0);
+			}
+		});
+
+		return cache;
+	}
+
+	/**
+	 * @return the shared token cache, or <code>null</code> if it is disabled
+	 */
+	public static TokenCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the decoded (immutable) token, decoding it only if it's not cached.
+	 */
+	public Map<String, Serializable> get(String token) {
+		Entry entry = cache.get(token);
+		long now = U.time();
+
+		if (entry != null) {
+			if (entry.expiresAt > now) {
+				hits.incrementAndGet();
+				return entry.data;
+			}
+
+			cache.remove(token, entry);
+		}
+
+		long start = System.nanoTime();
+		Map<String, Serializable> data = HttpUtils.deserializeToken(token);
+		decodingNanos.addAndGet(System.nanoTime() - start);
+		misses.incrementAndGet();
+
+		return put(token, data);
+	}
+
+	public Map<String, Serializable> put(String token, Map<String, Serializable> data) {
+		Map<String, Serializable> immutable = Collections.unmodifiableMap(U.map(data));
+
+		cache.put(token, new Entry(immutable, U.time() + ttl));
+
+		return immutable;
+	}
+
+	public void invalidate(String token) {
+		cache.remove(token);
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+	public int size() {
+		return cache.size();
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	public double hitRate() {
+		long hits = this.hits.get();
+		long total = hits + misses.get();
+		return total > 0 ? (double) hits / total : 0;
+	}
+
+	/**
+	 * Estimates the CPU time saved by the cache hits, based on the average decoding time of the misses.
+	 */
+	public long savedNanos() {
+		long misses = this.misses.get();
+		return misses > 0 ? hits.get() * decodingNanos.get() / misses : 0;
+	}
+
+	private static class Entry {
+
+		final Map<String, Serializable> data;
+
+		final long expiresAt;
+
+		Entry(Map<String, Serializable> data, long expiresAt) {
+			this.data = data;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
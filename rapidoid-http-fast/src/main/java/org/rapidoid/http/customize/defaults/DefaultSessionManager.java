@@ -23,47 +23,138 @@ package org.rapidoid.http.customize.defaults;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.ChangeTrackingMap;
 import org.rapidoid.collection.Coll;
+import org.rapidoid.config.Conf;
+import org.rapidoid.config.Config;
 import org.rapidoid.event.Events;
 import org.rapidoid.event.Fire;
 import org.rapidoid.http.Req;
 import org.rapidoid.http.customize.SessionManager;
+import org.rapidoid.serialize.Ser;
 import org.rapidoid.u.U;
 import org.rapidoid.util.Msc;
 
 import java.io.Serializable;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps the sessions in memory, with idle and absolute expiration, and LRU eviction when the number of sessions or
+ * the size of their serialized form exceeds the configured limits. The serialized form can be kept off-heap.
+ * <p>
+ * The sessions are partitioned into segments, each with its own lock and access order, so the concurrent requests
+ * don't contend on a single lock. The least recently used session is found among the eldest sessions of the segments.
+ * <p>
+ * Each session attribute is serialized separately, so only the changed attributes are serialized on save, and the
+ * attributes are deserialized lazily, on the first access.
+ */
 @Authors("Nikolche Mihajlovski")
 @Since("5.2.0")
 public class DefaultSessionManager extends RapidoidThing implements SessionManager {
 
 	public static class SessionHolder {
-		volatile byte[] serialized;
-		volatile Map<String, Serializable> session;
+		final String id;
+		final long createdAt;
+		volatile long lastAccessedAt;
+		volatile long touchedAt;
+		volatile long accessOrder = System.nanoTime();
+		volatile ByteBuffer serialized;
+		volatile ChangeTrackingMap<String, Serializable> session;
 		final AtomicLong refCounter = new AtomicLong();
+
+		public SessionHolder(String id, long createdAt, long lastAccessedAt) {
+			this.id = id;
+			this.createdAt = createdAt;
+			this.lastAccessedAt = lastAccessedAt;
+			this.touchedAt = lastAccessedAt;
+		}
+
+		int size() {
+			ByteBuffer ser = serialized;
+			return ser != null ? ser.capacity() : 0;
+		}
+	}
+
+	private final long idleTimeout;
+
+	private final long maxAge;
+
+	private final int maxSessions;
+
+	private final long maxMemory;
+
+	private final boolean offHeap;
+
+	private static final int SEGMENTS = 16;
+
+	// each segment is in access order, for the LRU eviction and the idle expiration
+	@SuppressWarnings("unchecked")
+	private final Map<String, SessionHolder>[] segments = new Map[SEGMENTS];
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private final AtomicLong memory = new AtomicLong();
+
+	private final AtomicLong lastExpirationSweep = new AtomicLong();
+
+	public DefaultSessionManager() {
+		this(Conf.HTTP.sub("session"));
+	}
+
+	private DefaultSessionManager(Config config) {
+		this(config.entry("idleTimeout").or(1800000L),
+			config.entry("maxAge").or(0L),
+			config.entry("maxSessions").or(100000),
+			config.entry("maxMemory").or(256L) * 1024 * 1024,
+			config.entry("offHeap").or(false));
 	}
 
-	private final Map<String, SessionHolder> sessions = Coll.autoExpandingMap(SessionHolder.class);
+	/**
+	 * @param idleTimeout the max idle time of a session in ms, or 0 for unlimited
+	 * @param maxAge      the max total lifetime of a session in ms, or 0 for unlimited
+	 * @param maxSessions the max number of sessions kept in memory
+	 * @param maxMemory   the max total size of the serialized sessions kept in memory, in bytes
+	 * @param offHeap     whether to keep the serialized sessions off-heap
+	 */
+	public DefaultSessionManager(long idleTimeout, long maxAge, int maxSessions, long maxMemory, boolean offHeap) {
+		this.idleTimeout = idleTimeout;
+		this.maxAge = maxAge;
+		this.maxSessions = maxSessions;
+		this.maxMemory = maxMemory;
+		this.offHeap = offHeap;
+
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new LinkedHashMap<String, SessionHolder>(16, 0.75f, true);
+		}
+	}
 
 	@Override
 	public Map<String, Serializable> loadSession(Req req, String sessionId) throws Exception {
 		Fire.event(Events.SESSION_LOAD, "id", sessionId);
 
-		SessionHolder holder = sessions.get(sessionId);
+		SessionHolder holder = holder(sessionId);
 
 		if (holder.session == null) {
 			synchronized (holder) {
 				if (holder.session == null) {
 
-					if (holder.serialized != null) {
+					ByteBuffer ser = holder.serialized;
+					Map<String, ByteBuffer> attributes;
+
+					if (ser != null) {
 						Fire.event(Events.SESSION_DESERIALIZE, "id", sessionId);
-						holder.session = U.cast(Msc.deserialize(holder.serialized));
+						attributes = parse(ser);
 					} else {
-						holder.session = Coll.concurrentMap();
+						attributes = Collections.emptyMap();
 						Fire.event(Events.SESSION_CONCURRENT_ACCESS, "id", sessionId);
 					}
+
+					// the attributes are deserialized lazily, and the changed ones are tracked
+					holder.session = Coll.trackChanges(new LazySessionMap(attributes), new AtomicBoolean(), true);
 				}
 			}
 		}
@@ -76,21 +167,348 @@ public class DefaultSessionManager extends RapidoidThing implements SessionManag
 	@Override
 	public void saveSession(Req req, String sessionId, Map<String, Serializable> session) throws Exception {
 		Fire.event(Events.SESSION_SAVE, "id", sessionId);
+		update(sessionId, session);
+	}
+
+	/**
+	 * Releases the session that the request loaded, but didn't change. The deserialized attributes aren't kept in memory
+	 * after the last request that uses the session, and the attributes that might have been modified in-place are
+	 * saved.
+	 */
+	public void releaseSession(Req req, String sessionId, Map<String, Serializable> session) throws Exception {
+		update(sessionId, session);
+	}
+
+	private void update(String sessionId, Map<String, Serializable> session) {
+		SessionHolder holder = holder(sessionId);
 
-		SessionHolder holder = sessions.get(sessionId);
-		long refN = holder.refCounter.decrementAndGet();
+		synchronized (holder) {
+			long refN = holder.refCounter.decrementAndGet();
 
-		U.must(refN >= 0, "The session has negative reference counter!");
+			if (refN < 0) {
+				// the holder was evicted and re-created while the session was in use
+				holder.refCounter.set(0);
+				refN = 0;
+			}
+
+			byte[] bytes = serialize(holder, session);
+
+			// nothing to do if nothing changed
+			if (bytes != null) {
+				Fire.event(Events.SESSION_SERIALIZE, "id", sessionId);
+				store(holder, bytes);
+				persist(holder, bytes);
+				holder.touchedAt = holder.lastAccessedAt;
+			}
+
+			if (refN == 0) {
+				holder.session = null;
+			}
+		}
+
+		evict();
+	}
 
-		if (refN == 0) {
+	private Map<String, SessionHolder> segment(String sessionId) {
+		int h = sessionId.hashCode();
+		return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	private SessionHolder holder(String sessionId) {
+		long now = U.time();
+		Map<String, SessionHolder> sessions = segment(sessionId);
+		SessionHolder holder;
+
+		synchronized (sessions) {
+			holder = sessions.get(sessionId);
+
+			if (holder != null && isExpired(holder, now)) {
+				remove(sessions, holder);
+				holder = null;
+			}
+		}
+
+		if (holder == null) {
+			SessionHolder restored = restore(sessionId);
+
+			if (restored != null && isExpired(restored, now)) {
+				discard(sessionId);
+				restored = null;
+			}
+
+			synchronized (sessions) {
+				holder = sessions.get(sessionId);
+
+				if (holder == null) {
+					holder = restored != null ? restored : new SessionHolder(sessionId, now, now);
+					sessions.put(sessionId, holder);
+					count.incrementAndGet();
+					memory.addAndGet(holder.size());
+				}
+			}
+
+			evict();
+		}
+
+		holder.lastAccessedAt = now;
+		holder.accessOrder = System.nanoTime();
+
+		// the access time is refreshed in the persistent storage, but not on every access
+		if (idleTimeout > 0 && now - holder.touchedAt > idleTimeout / 10) {
 			synchronized (holder) {
-				if (holder.refCounter.get() == 0) {
-					Fire.event(Events.SESSION_SERIALIZE, "id", sessionId);
-					holder.serialized = Msc.serialize(session);
-					holder.session = null;
+				holder.touchedAt = now;
+				touch(holder);
+			}
+		}
+
+		return holder;
+	}
+
+	protected boolean isExpired(SessionHolder holder, long now) {
+		return (idleTimeout > 0 && now - holder.lastAccessedAt > idleTimeout)
+			|| (maxAge > 0 && now - holder.createdAt > maxAge);
+	}
+
+	private void store(SessionHolder holder, byte[] bytes) {
+		ByteBuffer ser = offHeap ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+		ser.put(bytes);
+		ser.flip();
+
+		Map<String, SessionHolder> sessions = segment(holder.id);
+
+		synchronized (sessions) {
+			int oldSize = holder.size();
+			holder.serialized = ser;
+
+			if (sessions.get(holder.id) == holder) {
+				memory.addAndGet(holder.size() - oldSize);
+			}
+		}
+	}
+
+	/**
+	 * Serializes the session attributes separately, re-using the serialized form of the attributes that weren't
+	 * changed. Returns <code>null</code> if nothing was changed.
+	 */
+	private byte[] serialize(SessionHolder holder, Map<String, Serializable> session) {
+		Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+		boolean changed;
+
+		if (session instanceof ChangeTrackingMap && ((ChangeTrackingMap<?, ?>) session).decorated() instanceof LazySessionMap) {
+			ChangeTrackingMap<String, Serializable> tracked = U.cast(session);
+			LazySessionMap lazy = (LazySessionMap) tracked.decorated();
+
+			Set<String> changedKeys = tracked.drainChangedKeys();
+			boolean untracked = tracked.drainUntrackedChanges();
+
+			Map<String, ByteBuffer> old = holder.serialized != null ? parse(holder.serialized) : Collections.<String, ByteBuffer>emptyMap();
+			changed = untracked || !changedKeys.isEmpty() || !old.keySet().equals(lazy.keys());
+
+			for (String key : lazy.keys()) {
+				Object value = lazy.raw(key);
+				ByteBuffer oldBytes = old.get(key);
+
+				if (value instanceof LazySessionMap.SerializedAttr) {
+					// never accessed, so it wasn't changed
+					attributes.put(key, ((LazySessionMap.SerializedAttr) value).bytes);
+
+				} else if (oldBytes != null && !untracked && !changedKeys.contains(key) && isImmutable(value)) {
+					attributes.put(key, oldBytes);
+
+				} else {
+					// changed or possibly modified in-place
+					attributes.put(key, Msc.serialize(value));
+					changed = true;
 				}
 			}
+
+		} else {
+			for (Map.Entry<String, Serializable> e : session.entrySet()) {
+				attributes.put(e.getKey(), Msc.serialize(e.getValue()));
+			}
+
+			changed = true;
 		}
+
+		return changed ? join(attributes) : null;
+	}
+
+	private static boolean isImmutable(Object value) {
+		return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+			|| value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+			|| value instanceof Double || value instanceof Float || value instanceof Enum || value instanceof UUID;
+	}
+
+	/**
+	 * Writes the attributes (byte[] or ByteBuffer) as: number of attributes, then name, length and bytes of each.
+	 */
+	private static byte[] join(Map<String, Object> attributes) {
+		int maxSize = 5;
+
+		for (Map.Entry<String, Object> e : attributes.entrySet()) {
+			maxSize += 10 + e.getKey().length() * 3 + length(e.getValue());
+		}
+
+		ByteBuffer buf = ByteBuffer.allocate(maxSize);
+		Ser.writeUnsignedVarInt(buf, attributes.size());
+
+		for (Map.Entry<String, Object> e : attributes.entrySet()) {
+			Object value = e.getValue();
+
+			Ser.writeString(buf, e.getKey());
+			Ser.writeUnsignedVarInt(buf, length(value));
+
+			if (value instanceof byte[]) {
+				buf.put((byte[]) value);
+			} else {
+				buf.put(((ByteBuffer) value).duplicate());
+			}
+		}
+
+		return Arrays.copyOf(buf.array(), buf.position());
+	}
+
+	private static int length(Object bytes) {
+		return bytes instanceof byte[] ? ((byte[]) bytes).length : ((ByteBuffer) bytes).remaining();
+	}
+
+	static Map<String, ByteBuffer> parse(ByteBuffer serialized) {
+		ByteBuffer buf = serialized.duplicate();
+		int count = Ser.readUnsignedVarInt(buf);
+
+		Map<String, ByteBuffer> attributes = new LinkedHashMap<String, ByteBuffer>();
+
+		for (int i = 0; i < count; i++) {
+			String key = Ser.readString(buf);
+			int len = Ser.readUnsignedVarInt(buf);
+
+			ByteBuffer value = buf.slice();
+			value.limit(len);
+			attributes.put(key, value);
+
+			buf.position(buf.position() + len);
+		}
+
+		return attributes;
+	}
+
+	private void remove(Map<String, SessionHolder> sessions, SessionHolder holder) {
+		sessions.remove(holder.id);
+		count.decrementAndGet();
+		memory.addAndGet(-holder.size());
+	}
+
+	/**
+	 * Removes the expired sessions (at most once per second) and the least recently used sessions above the limits.
+	 */
+	private void evict() {
+		long now = U.time();
+		long lastSweep = lastExpirationSweep.get();
+
+		if (now - lastSweep >= 1000 && lastExpirationSweep.compareAndSet(lastSweep, now)) {
+			for (Map<String, SessionHolder> sessions : segments) {
+				expire(sessions, now);
+			}
+		}
+
+		while (count.get() > maxSessions || memory.get() > maxMemory) {
+			if (!evictEldest()) break;
+		}
+	}
+
+	private void expire(Map<String, SessionHolder> sessions, long now) {
+		List<String> expired = U.list();
+
+		synchronized (sessions) {
+			for (Iterator<SessionHolder> it = sessions.values().iterator(); it.hasNext(); ) {
+				SessionHolder holder = it.next();
+
+				if (!isExpired(holder, now)) {
+					break; // the rest were accessed more recently
+				}
+
+				it.remove();
+				count.decrementAndGet();
+				memory.addAndGet(-holder.size());
+				expired.add(holder.id);
+			}
+		}
+
+		for (String id : expired) {
+			Fire.event(Events.SESSION_EXPIRE, "id", id);
+			discard(id);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used session, which is the eldest among the eldest sessions of the segments.
+	 */
+	private boolean evictEldest() {
+		Map<String, SessionHolder> lru = null;
+		SessionHolder eldest = null;
+
+		for (Map<String, SessionHolder> sessions : segments) {
+			synchronized (sessions) {
+				if (!sessions.isEmpty()) {
+					SessionHolder holder = sessions.values().iterator().next();
+
+					// the access time in ms is too coarse to order the sessions accessed in the same ms
+					if (eldest == null || holder.accessOrder - eldest.accessOrder < 0) {
+						eldest = holder;
+						lru = sessions;
+					}
+				}
+			}
+		}
+
+		if (eldest == null) return false;
+
+		synchronized (lru) {
+			// it might have been accessed or removed in the meantime (the lookup mustn't change the access order)
+			if (!lru.isEmpty() && lru.values().iterator().next() == eldest) {
+				remove(lru, eldest);
+				Fire.event(Events.SESSION_EVICT, "id", eldest.id);
+			}
+		}
+
+		return true;
+	}
+
+	public int size() {
+		return count.get();
+	}
+
+	public long memory() {
+		return memory.get();
+	}
+
+	/**
+	 * Restores a session that is not in memory, e.g. from persistent storage.
+	 */
+	protected SessionHolder restore(String sessionId) {
+		return null;
+	}
+
+	/**
+	 * Persists the serialized session, if the sessions are backed by persistent storage.
+	 */
+	protected void persist(SessionHolder holder, byte[] serialized) {
+		// nothing to do, the sessions are kept in memory only
+	}
+
+	/**
+	 * Refreshes the last access time of the session in the persistent storage, if the session is persisted there. The
+	 * unchanged sessions aren't persisted again, so their stored access time would become stale.
+	 */
+	protected void touch(SessionHolder holder) {
+		// nothing to do, the sessions are kept in memory only
+	}
+
+	/**
+	 * Discards the expired session from the persistent storage.
+	 */
+	protected void discard(String sessionId) {
+		// nothing to do, the sessions are kept in memory only
 	}
 
 }
@@ -0,0 +1,197 @@
+package org.rapidoid.http.customize.defaults;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+import org.rapidoid.u.U;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Persists every saved session into a separate file in the specified folder, so the sessions survive restarts.
+ * The sessions that were evicted from memory are restored from their files on demand.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class FileSessionManager extends DefaultSessionManager {
+
+	private static final int FORMAT_VERSION = 2;
+
+	private static final String EXT = ".session";
+
+	// the session ID comes from a cookie, so it must be validated before using it as a file name
+	private static final Pattern VALID_ID = Pattern.compile("[a-zA-Z0-9_\\-]{1,100}");
+
+	private final File dir;
+
+	public FileSessionManager(String dir) {
+		super();
+		this.dir = init(dir);
+		purgeExpired();
+	}
+
+	public FileSessionManager(String dir, long idleTimeout, long maxAge, int maxSessions, long maxMemory, boolean offHeap) {
+		super(idleTimeout, maxAge, maxSessions, maxMemory, offHeap);
+		this.dir = init(dir);
+		purgeExpired();
+	}
+
+	private static File init(String dir) {
+		File folder = new File(dir);
+
+		if (!folder.exists()) {
+			U.must(folder.mkdirs(), "Couldn't create the sessions folder: %s", folder.getAbsolutePath());
+		}
+
+		U.must(folder.isDirectory(), "Not a folder: %s", folder.getAbsolutePath());
+		return folder;
+	}
+
+	/**
+	 * Deletes the files of the expired sessions, which were not accessed since they expired.
+	 */
+	public void purgeExpired() {
+		File[] files = dir.listFiles();
+		long now = U.time();
+
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+
+				if (name.endsWith(EXT)) {
+					String sessionId = name.substring(0, name.length() - EXT.length());
+					SessionHolder holder = restore(sessionId);
+
+					if (holder != null && isExpired(holder, now)) {
+						discard(sessionId);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	protected SessionHolder restore(String sessionId) {
+		File file = file(sessionId);
+
+		if (file == null || !file.exists()) {
+			return null;
+		}
+
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+			try {
+				U.must(in.readInt() == FORMAT_VERSION, "Unsupported session file format!");
+
+				SessionHolder holder = new SessionHolder(sessionId, in.readLong(), in.readLong());
+
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				holder.serialized = ByteBuffer.wrap(bytes);
+
+				return holder;
+
+			} finally {
+				in.close();
+			}
+
+		} catch (Exception e) {
+			Log.error("Couldn't restore the session, discarding it", "id", sessionId, "file", file, "error", e);
+			discard(sessionId);
+			return null;
+		}
+	}
+
+	@Override
+	protected void persist(SessionHolder holder, byte[] serialized) {
+		File file = file(holder.id);
+
+		if (file == null) {
+			return;
+		}
+
+		File tmp = new File(dir, holder.id + EXT + ".tmp");
+
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+
+			try {
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(holder.createdAt);
+				out.writeLong(holder.lastAccessedAt);
+				out.writeInt(serialized.length);
+				out.write(serialized);
+			} finally {
+				out.close();
+			}
+
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (IOException e) {
+			throw U.rte("Couldn't persist the session: " + holder.id, e);
+		}
+	}
+
+	@Override
+	protected void touch(SessionHolder holder) {
+		File file = file(holder.id);
+
+		if (file == null || !file.exists()) {
+			return;
+		}
+
+		try {
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+
+			try {
+				// skip the format version and the creation time
+				out.seek(4 + 8);
+				out.writeLong(holder.lastAccessedAt);
+			} finally {
+				out.close();
+			}
+
+		} catch (IOException e) {
+			Log.warn("Couldn't refresh the session access time", "file", file, "error", e.getMessage());
+		}
+	}
+
+	@Override
+	protected void discard(String sessionId) {
+		File file = file(sessionId);
+
+		if (file != null && file.exists() && !file.delete()) {
+			Log.warn("Couldn't delete the session file", "file", file);
+		}
+	}
+
+	private File file(String sessionId) {
+		return VALID_ID.matcher(sessionId).matches() ? new File(dir, sessionId + EXT) : null;
+	}
+
+}
@@ -0,0 +1,176 @@
+package org.rapidoid.http.customize.defaults;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The session attributes, each of them deserialized on the first access.
+ * <p>
+ * Overwriting or removing an attribute that wasn't accessed doesn't deserialize it, so <code>put</code> and
+ * <code>remove</code> return <code>null</code> instead of the previous value in that case.
+ * <p>
+ * The session is saved only when it was changed through the map, so the changes made in-place to a mutable
+ * attribute (e.g. adding an item to a list) are persisted only if the attribute (or another one) is also put.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class LazySessionMap extends AbstractMap<String, Serializable> {
+
+	static final class SerializedAttr {
+		final ByteBuffer bytes;
+
+		SerializedAttr(ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	// the values are either deserialized attributes or SerializedAttr
+	private final ConcurrentMap<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+	private volatile Set<Entry<String, Serializable>> entrySet;
+
+	public LazySessionMap(Map<String, ByteBuffer> serialized) {
+		for (Entry<String, ByteBuffer> e : serialized.entrySet()) {
+			attributes.put(e.getKey(), new SerializedAttr(e.getValue()));
+		}
+	}
+
+	@Override
+	public Serializable get(Object key) {
+		Object value = attributes.get(key);
+
+		if (value instanceof SerializedAttr) {
+			Serializable deserialized = deserialize((SerializedAttr) value);
+			return attributes.replace((String) key, value, deserialized) ? deserialized : get(key);
+		}
+
+		return (Serializable) value;
+	}
+
+	@Override
+	public Serializable put(String key, Serializable value) {
+		return loaded(attributes.put(key, value));
+	}
+
+	@Override
+	public Serializable remove(Object key) {
+		return loaded(attributes.remove(key));
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return attributes.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return attributes.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return attributes.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		attributes.clear();
+	}
+
+	@Override
+	public Set<Entry<String, Serializable>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Entry<String, Serializable>>() {
+				@Override
+				public Iterator<Entry<String, Serializable>> iterator() {
+					final Iterator<String> keys = attributes.keySet().iterator();
+
+					return new Iterator<Entry<String, Serializable>>() {
+						@Override
+						public boolean hasNext() {
+							return keys.hasNext();
+						}
+
+						@Override
+						public Entry<String, Serializable> next() {
+							String key = keys.next();
+							return new SimpleEntry<String, Serializable>(key, get(key)) {
+								@Override
+								public Serializable setValue(Serializable value) {
+									super.setValue(value);
+									return put(getKey(), value);
+								}
+							};
+						}
+
+						@Override
+						public void remove() {
+							keys.remove();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return attributes.size();
+				}
+			};
+		}
+
+		return entrySet;
+	}
+
+	/**
+	 * Returns the raw attribute: either the deserialized value or a {@link SerializedAttr}, if it wasn't accessed.
+	 */
+	Object raw(String key) {
+		return attributes.get(key);
+	}
+
+	Set<String> keys() {
+		return attributes.keySet();
+	}
+
+	/**
+	 * Returns the value if it was deserialized, or <code>null</code> (without deserializing it).
+	 */
+	private static Serializable loaded(Object value) {
+		return value instanceof SerializedAttr ? null : (Serializable) value;
+	}
+
+	private static Serializable deserialize(SerializedAttr attr) {
+		ByteBuffer buf = attr.bytes.duplicate();
+		byte[] bytes = new byte[buf.remaining()];
+		buf.get(bytes);
+		return U.cast(Msc.deserialize(bytes));
+	}
+
+}
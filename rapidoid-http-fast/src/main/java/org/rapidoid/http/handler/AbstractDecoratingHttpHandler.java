@@ -3,13 +3,19 @@ package org.rapidoid.http.handler;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.annotation.TransactionMode;
+import org.rapidoid.config.Conf;
+import org.rapidoid.ctx.Ctxs;
+import org.rapidoid.ctx.UserInfo;
 import org.rapidoid.ctx.With;
 import org.rapidoid.http.*;
 import org.rapidoid.http.customize.Customization;
 import org.rapidoid.http.impl.HttpIO;
 import org.rapidoid.http.impl.RouteOptions;
+import org.rapidoid.job.JobQueue;
 import org.rapidoid.jpa.JPA;
+import org.rapidoid.jpa.JPAMetrics;
 import org.rapidoid.lambda.Mapper;
+import org.rapidoid.log.Log;
 import org.rapidoid.log.LogLevel;
 import org.rapidoid.net.abstracts.Channel;
 import org.rapidoid.security.Secure;
@@ -18,6 +24,7 @@ import org.rapidoid.util.Msc;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /*
  * #%L
@@ -49,6 +56,8 @@ public abstract class AbstractDecoratingHttpHandler extends AbstractHttpHandler
 
 	private static final HttpWrapper[] NO_WRAPPERS = {};
 
+	private static final long NON_BLOCKING_THRESHOLD = Conf.HTTP.entry("nonBlockingThreshold").or(50);
+
 	private final FastHttp http;
 
 	@SuppressWarnings("UnusedParameters")
@@ -92,7 +101,11 @@ public abstract class AbstractDecoratingHttpHandler extends AbstractHttpHandler
 	private HttpStatus handleDecorating(Channel ctx, boolean isKeepAlive, Req req, Object extra) {
 		ctx.async();
 
-		execHandlerJob(ctx, isKeepAlive, options.contentType(), req, extra);
+		if (options.nonBlocking()) {
+			execHandlerInline(ctx, isKeepAlive, options.contentType(), req, extra);
+		} else {
+			execHandlerJob(ctx, isKeepAlive, options.contentType(), req, extra);
+		}
 
 		return HttpStatus.ASYNC;
 	}
@@ -148,13 +161,81 @@ public abstract class AbstractDecoratingHttpHandler extends AbstractHttpHandler
 	private void execHandlerJob(final Channel channel, final boolean isKeepAlive, final MediaType contentType,
 	                            final Req req, final Object extra) {
 
-		With.tag(CTX_TAG_INIT).exchange(req).run(new Runnable() {
+		final JobQueue queue = JobQueue.of(req.zone());
+
+		// the request is admitted once, and the handler is executed in the same job, right after the initialization
+		Runnable job = new Runnable() {
 
 			volatile String username = null;
 			volatile Set<String> roles = null;
+			volatile Runnable handleRequest = null;
+
+			@Override
+			public void run() {
+				With.tag(CTX_TAG_INIT).exchange(req).runInline(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							username = getUser(req);
+
+							if (U.isEmpty(username)) {
+								HttpUtils.clearUserData(req);
+							}
+
+							roles = userRoles(req, username);
+
+							handleRequest = prepareHandler(channel, isKeepAlive, contentType, req, extra, username, roles);
+
+						} catch (Throwable e) {
+							// if there was an error in the job scheduling:
+							execErrorHandler(req, username, roles, e);
+						}
+					}
+				});
+
+				if (handleRequest != null) {
+					With.tag(CTX_TAG_HANDLER).exchange(req).username(username).roles(roles).runInline(handleRequest);
+				}
+			}
+		};
+
+		Runnable onExpired = new Runnable() {
+			@Override
+			public void run() {
+				rejectOverloaded(req);
+			}
+		};
+
+		boolean accepted = queue.execute(job, onExpired);
+
+		if (!accepted) {
+			rejectOverloaded(req);
+		}
+	}
 
+	private void rejectOverloaded(final Req req) {
+		// responds with 503, without executing the handler
+		With.tag(CTX_TAG_ERROR).exchange(req).runInline(new Runnable() {
 			@Override
 			public void run() {
+				handleError(req, new ServiceUnavailable());
+			}
+		});
+	}
+
+	private void execHandlerInline(final Channel channel, final boolean isKeepAlive, final MediaType contentType,
+	                               final Req req, final Object extra) {
+
+		long startedAt = System.nanoTime();
+
+		// the whole pipeline runs on the I/O thread, in a single context
+		With.tag(CTX_TAG_HANDLER).exchange(req).runInline(new Runnable() {
+
+			@Override
+			public void run() {
+				String username = null;
+				Set<String> roles = null;
+
 				try {
 					username = getUser(req);
 
@@ -164,22 +245,36 @@ public abstract class AbstractDecoratingHttpHandler extends AbstractHttpHandler
 
 					roles = userRoles(req, username);
 
-					TransactionMode txMode = before(req, username, roles);
-					U.notNull(txMode, "txMode");
-
-					HttpWrapper[] wrappers = httpWrappers != null ? httpWrappers : U.or(Customization.of(req).wrappers(), NO_WRAPPERS);
+					Runnable handleRequest = prepareHandler(channel, isKeepAlive, contentType, req, extra, username, roles);
 
-					Runnable handleRequest = handlerWithWrappers(channel, isKeepAlive, contentType, req, extra, wrappers);
-					Runnable handleRequestMaybeInTx = txWrap(req, txMode, handleRequest);
+					Ctxs.required().setUser(new UserInfo(username, roles));
 
-					With.tag(CTX_TAG_HANDLER).exchange(req).username(username).roles(roles).run(handleRequestMaybeInTx);
+					handleRequest.run();
 
 				} catch (Throwable e) {
-					// if there was an error in the job scheduling:
 					execErrorHandler(req, username, roles, e);
 				}
 			}
 		});
+
+		long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+		if (durationMs > NON_BLOCKING_THRESHOLD) {
+			Log.warn("The non-blocking handler blocked the I/O thread!", "request", req, "duration", durationMs + "ms",
+				"threshold", NON_BLOCKING_THRESHOLD + "ms");
+		}
+	}
+
+	private Runnable prepareHandler(Channel channel, boolean isKeepAlive, MediaType contentType, Req req,
+	                                Object extra, String username, Set<String> roles) {
+
+		TransactionMode txMode = before(req, username, roles);
+		U.notNull(txMode, "txMode");
+
+		HttpWrapper[] wrappers = httpWrappers != null ? httpWrappers : U.or(Customization.of(req).wrappers(), NO_WRAPPERS);
+
+		Runnable handleRequest = handlerWithWrappers(channel, isKeepAlive, contentType, req, extra, wrappers);
+		return txWrap(req, txMode, handleRequest);
 	}
 
 	private HttpStatus execErrorHandler(final Req req, String username, Set<String> roles, final Throwable error) {
@@ -222,10 +317,22 @@ public abstract class AbstractDecoratingHttpHandler extends AbstractHttpHandler
 	private Runnable txWrap(final Req req, final TransactionMode txMode, final Runnable handleRequest) {
 		if (txMode != null && txMode != TransactionMode.NONE) {
 
+			// the GET requests in AUTO mode take the read-only fast path, without a transaction
+			final boolean fastRead = txMode == TransactionMode.READ_ONLY
+				&& options.transactionMode() == TransactionMode.AUTO;
+
 			return new Runnable() {
 				@Override
 				public void run() {
-					JPA.transaction(handleRequest, txMode == TransactionMode.READ_ONLY);
+					if (fastRead) {
+						JPA.readOnly(handleRequest);
+					} else {
+						JPA.transaction(handleRequest, txMode == TransactionMode.READ_ONLY);
+					}
+
+					if (Log.isDebugEnabled()) {
+						Log.debug("JPA timings (ms)", "request", req, "timings", JPAMetrics.timings(Ctxs.required()));
+					}
 				}
 			};
 
@@ -55,6 +55,12 @@ public class HttpIO extends RapidoidThing implements Constants {
 	public static final byte[] HTTP_400_BAD_REQUEST = "HTTP/1.1 400 Bad Request\r\nContent-Length: 12\r\n\r\nBad Request!"
 		.getBytes();
 
+	public static final byte[] HTTP_503_SERVICE_UNAVAILABLE = "HTTP/1.1 503 Service Unavailable\r\nConnection: keep-alive\r\nContent-Length: 20\r\n\r\nService Unavailable!"
+		.getBytes();
+
+	public static final byte[] HTTP_503_SERVICE_UNAVAILABLE_CLOSE = "HTTP/1.1 503 Service Unavailable\r\nConnection: close\r\nContent-Length: 20\r\n\r\nService Unavailable!"
+		.getBytes();
+
 	private static final byte[] HEADER_SEP = ": ".getBytes();
 
 	private static final byte[] CONN_KEEP_ALIVE = "Connection: keep-alive\r\n".getBytes();
@@ -65,7 +71,8 @@ public class HttpIO extends RapidoidThing implements Constants {
 
 	private static final byte[] CONTENT_LENGTH_IS = "Content-Length: ".getBytes();
 
-	static final byte[] CONTENT_LENGTH_UNKNOWN = "Content-Length: 0000000000".getBytes();
+	// back-patched later, the value is padded with (optional) whitespace instead of leading zeros
+	static final byte[] CONTENT_LENGTH_UNKNOWN = "Content-Length:          0".getBytes();
 
 	private static final int CONTENT_LENGTHS_SIZE = 5000;
 
@@ -173,7 +180,7 @@ public class HttpIO extends RapidoidThing implements Constants {
 
 	private static void logError(Req req, Throwable error, LogLevel logLevel) {
 
-		if (error instanceof NotFound) return;
+		if (error instanceof NotFound || error instanceof ServiceUnavailable) return;
 
 		if (Msc.isValidationError(error)) {
 			if (Log.isDebugEnabled()) {
@@ -265,27 +272,24 @@ public class HttpIO extends RapidoidThing implements Constants {
 	}
 
 	public static void writeAsJson(Channel ctx, int code, boolean isKeepAlive, Object value) {
-		startResponse(ctx, code, isKeepAlive, MediaType.JSON);
+		Buf out = ctx.output();
+		int start = out.size();
 
-		ByteArrayOutputStream os = Msc.locals().jsonRenderingStream();
-
-		JSON.stringify(value, os);
-		byte[] arr = os.toByteArray();
-
-		writeContentLengthAndBody(ctx, arr);
-	}
-
-	@SuppressWarnings("unused")
-	private static void writeOnBufferAsJson(Channel ctx, int code, boolean isKeepAlive, Object value) {
 		startResponse(ctx, code, isKeepAlive, MediaType.JSON);
 
-		Buf output = ctx.output();
+		try {
+			writeJsonBody(out, value);
 
-		synchronized (output) {
-			writeJsonBody(output.unwrap(), value);
+		} catch (RuntimeException e) {
+			// discard the incomplete response
+			out.deleteAfter(start);
+			throw e;
 		}
 	}
 
+	/**
+	 * Serializes the value directly into the output buffer and back-patches the Content-Length header.
+	 */
 	public static void writeJsonBody(Buf out, Object value) {
 		out.append(CONTENT_LENGTH_UNKNOWN);
 
@@ -297,7 +301,7 @@ public class HttpIO extends RapidoidThing implements Constants {
 
 		int posBefore = out.size();
 
-		JSON.stringify(value, out.asOutputStream());
+		JSON.stringifyPooled(value, out.asOutputStream());
 
 		int posAfter = out.size();
 		int contentLength = posAfter - posBefore;
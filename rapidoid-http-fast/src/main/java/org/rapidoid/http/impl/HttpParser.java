@@ -52,6 +52,10 @@ public class HttpParser extends RapidoidThing implements Constants {
 
 	private static final byte[] CONTENT_LENGTH = "Content-Length:".getBytes();
 
+	private static final byte[] TRANSFER_ENCODING = "Transfer-Encoding:".getBytes();
+
+	private static final byte[] CHUNKED = "chunked".getBytes();
+
 	private static final byte[] COOKIE = "Cookie".getBytes();
 
 	private static final byte[] CT_MULTIPART_FORM_DATA_BOUNDARY1 = "multipart/form-data; boundary=".getBytes();
@@ -123,6 +127,230 @@ public class HttpParser extends RapidoidThing implements Constants {
 		}
 	}
 
+	/**
+	 * Parses a HTTP response. The body isn't parsed if the request was HEAD, as marked by the <code>noBody</code> flag.
+	 * If the body length isn't specified, the body ends when the connection is closed.
+	 */
+	public void parseResponse(Buf buf, HttpResponseRanges resp, boolean noBody, boolean closing, RapidoidHelper helper) {
+
+		parseResponseHead(buf, resp, noBody, helper);
+
+		if (resp.chunked) {
+			parseChunks(buf, resp, helper);
+
+		} else if (resp.untilClose) {
+			if (!closing) {
+				throw Buf.INCOMPLETE_READ;
+			}
+
+			int len = buf.limit() - buf.position();
+
+			if (len > 0) {
+				buf.scanN(len, resp.body);
+			}
+
+			resp.bodyLength = len;
+
+		} else if (resp.bodyLength > 0) {
+			buf.scanN(resp.bodyLength, resp.body);
+		}
+	}
+
+	/**
+	 * Parses the status line and the headers of a HTTP response, leaving the buffer positioned at the body. The interim
+	 * (1xx) responses that precede the final response are skipped. The body framing is described by the <code>chunked</code>, <code>untilClose</code> and <code>bodyLength</code> (the
+	 * content length) fields.
+	 */
+	public void parseResponseHead(Buf buf, HttpResponseRanges resp, boolean noBody, RapidoidHelper helper) {
+
+		Bytes bytes = buf.bytes();
+
+		BufRange protocol = resp.protocol;
+		BufRange status = resp.status;
+		BufRange reason = helper.ranges5.ranges[1];
+		BufRanges headers = resp.headers;
+
+		long code;
+
+		do {
+			buf.scanLn(resp.statusLine);
+
+			BytesUtil.split(bytes, resp.statusLine, SPACE, protocol, reason, false);
+			BytesUtil.split(bytes, reason, SPACE, status, reason, false);
+
+			U.must(!status.isEmpty(), "Invalid HTTP response status!");
+
+			buf.scanLnLn(headers.reset());
+
+			code = buf.getN(status);
+
+			// the interim responses (1xx, e.g. 100 Continue) are skipped, except 101 Switching Protocols
+		} while (code >= 100 && code < 200 && code != 101);
+
+		BufRange connHdr = headers.getByPrefix(bytes, CONNECTION, false);
+
+		if (connHdr != null) {
+			resp.keepAlive = getKeepAliveValue(bytes, connHdr, helper);
+		} else {
+			resp.keepAlive = protocol.isEmpty() || bytes.get(protocol.last()) != '0'; // e.g. HTTP/1.1
+		}
+
+		resp.body.reset();
+		resp.bodyLength = 0;
+		resp.chunked = false;
+		resp.untilClose = false;
+
+		if (noBody || code < 200 || code == 204 || code == 304) {
+			return;
+		}
+
+		BufRange encoding = headers.getByPrefix(bytes, TRANSFER_ENCODING, false);
+
+		if (encoding != null && BytesUtil.find(bytes, encoding.start, encoding.limit(), CHUNKED, false) >= 0) {
+			resp.chunked = true;
+			return;
+		}
+
+		BufRange clen = headers.getByPrefix(bytes, CONTENT_LENGTH, false);
+
+		if (clen != null) {
+			BufRange clenValue = helper.ranges5.ranges[helper.ranges5.ranges.length - 1];
+			clenValue.setInterval(clen.start + CONTENT_LENGTH.length, clen.limit());
+			BytesUtil.trim(bytes, clenValue);
+			long len = buf.getN(clenValue);
+			U.must(len >= 0 && len <= Integer.MAX_VALUE, "Invalid body size!");
+
+			resp.bodyLength = (int) len;
+
+		} else {
+			// the body ends when the connection is closed
+			resp.untilClose = true;
+			resp.keepAlive = false;
+		}
+	}
+
+	private void parseChunks(Buf buf, HttpResponseRanges resp, RapidoidHelper helper) {
+		Bytes bytes = buf.bytes();
+
+		BufRange line = helper.ranges5.ranges[1];
+		BufRange chunk = helper.ranges5.ranges[2];
+
+		int start = buf.position();
+		int limit = buf.limit();
+		int pos = start;
+		int total = 0;
+
+		do {
+			pos = nextChunk(bytes, pos, limit, line, chunk);
+
+			if (pos < 0) {
+				throw Buf.INCOMPLETE_READ;
+			}
+
+			total += chunk.length;
+			U.must(total >= 0, "Invalid body size!");
+
+		} while (chunk.length > 0);
+
+		// skip the trailer headers
+		pos = BytesUtil.parseLines(bytes, helper.ranges4.reset(), pos, limit);
+
+		if (pos < 0) {
+			throw Buf.INCOMPLETE_READ;
+		}
+
+		resp.body.setInterval(start, pos);
+		resp.bodyLength = total;
+		resp.chunked = true;
+
+		buf.position(pos);
+	}
+
+	/**
+	 * Finds the data of the next chunk, returning the position after it, or <code>-1</code> if the chunk is incomplete.
+	 */
+	private static int nextChunk(Bytes bytes, int pos, int limit, BufRange line, BufRange chunk) {
+		int dataPos = BytesUtil.parseLine(bytes, line, pos, limit);
+
+		if (dataPos < 0) {
+			return -1;
+		}
+
+		int size = chunkSize(bytes, line);
+		chunk.set(dataPos, size);
+
+		if (size == 0) {
+			return dataPos;
+		}
+
+		if (dataPos + size >= limit) {
+			return -1;
+		}
+
+		int next = BytesUtil.parseLine(bytes, line, dataPos + size, limit);
+		U.must(next < 0 || line.isEmpty(), "Invalid chunked body!");
+
+		return next;
+	}
+
+	/**
+	 * Parses the size from the header line of a chunk (in the chunked transfer encoding).
+	 */
+	public static int chunkSize(Bytes bytes, BufRange line) {
+		int size = 0;
+		int digits = 0;
+
+		for (int i = line.start; i < line.limit(); i++) {
+			int digit = Character.digit(bytes.get(i), 16);
+
+			if (digit < 0) {
+				break; // chunk extensions
+			}
+
+			size = size * 16 + digit;
+			digits++;
+
+			U.must(size >= 0 && digits <= 8, "Invalid chunk size!");
+		}
+
+		U.must(digits > 0, "Invalid chunk size!");
+		return size;
+	}
+
+	/**
+	 * Copies the body of a parsed response, decoding it if it was chunked.
+	 */
+	public byte[] getBody(Buf buf, HttpResponseRanges resp) {
+		byte[] dest = new byte[resp.bodyLength];
+
+		if (!resp.chunked) {
+			if (dest.length > 0) {
+				buf.get(resp.body, dest, 0);
+			}
+
+			return dest;
+		}
+
+		BufRange line = new BufRange();
+		BufRange chunk = new BufRange();
+
+		int pos = resp.body.start;
+		int offset = 0;
+
+		while (true) {
+			pos = nextChunk(buf.bytes(), pos, resp.body.limit(), line, chunk);
+
+			if (chunk.length == 0) {
+				break;
+			}
+
+			buf.get(chunk, dest, offset);
+			offset += chunk.length;
+		}
+
+		return dest;
+	}
+
 	private boolean isConnectionHeader(Bytes bytes, BufRanges headers, RapidoidHelper helper, int possibleConnectionHeaderPos) {
 		BufRange maybeConnHdr = headers.get(possibleConnectionHeaderPos);
 
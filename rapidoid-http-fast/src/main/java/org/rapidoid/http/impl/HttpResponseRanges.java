@@ -0,0 +1,73 @@
+package org.rapidoid.http.impl;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.data.BufRange;
+import org.rapidoid.data.BufRanges;
+
+/**
+ * The parts of a parsed HTTP response, as ranges in the input buffer.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class HttpResponseRanges extends RapidoidThing {
+
+	public final BufRange statusLine = new BufRange();
+
+	public final BufRange protocol = new BufRange();
+
+	public final BufRange status = new BufRange();
+
+	public final BufRanges headers = new BufRanges(100);
+
+	/**
+	 * If the body is chunked, the range includes the chunk headers.
+	 */
+	public final BufRange body = new BufRange();
+
+	public volatile boolean chunked;
+
+	/**
+	 * If the body length isn't specified, the body ends when the connection is closed.
+	 */
+	public volatile boolean untilClose;
+
+	public volatile int bodyLength;
+
+	public volatile boolean keepAlive;
+
+	public HttpResponseRanges reset() {
+		statusLine.reset();
+		protocol.reset();
+		status.reset();
+		headers.reset();
+		body.reset();
+		chunked = false;
+		untilClose = false;
+		bodyLength = 0;
+		keepAlive = false;
+		return this;
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.rapidoid.http.impl;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
@@ -9,11 +11,15 @@ import org.rapidoid.collection.ChangeTrackingMap;
 import org.rapidoid.collection.Coll;
 import org.rapidoid.http.MediaType;
 import org.rapidoid.commons.Str;
+import org.rapidoid.concurrent.ConcurrencyPermit;
 import org.rapidoid.http.*;
 import org.rapidoid.http.customize.BeanParameterFactory;
 import org.rapidoid.http.customize.Customization;
 import org.rapidoid.http.customize.JsonRequestBodyParser;
 import org.rapidoid.http.customize.SessionManager;
+import org.rapidoid.http.customize.defaults.DefaultBeanParameterFactory;
+import org.rapidoid.http.customize.defaults.DefaultJsonRequestBodyParser;
+import org.rapidoid.http.customize.defaults.DefaultSessionManager;
 import org.rapidoid.io.Upload;
 import org.rapidoid.log.Log;
 import org.rapidoid.log.LogLevel;
@@ -115,6 +121,8 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 
 	private volatile boolean pendingBodyParsing;
 
+	private volatile boolean invalidJsonBody;
+
 	private final MediaType defaultContentType;
 
 	private volatile HttpRoutesImpl routes;
@@ -123,6 +131,8 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 
 	private volatile Customization custom;
 
+	private volatile ConcurrencyPermit permit;
+
 	public ReqImpl(FastHttp http, Channel channel, boolean isKeepAlive, String verb, String uri, String path,
 	               String query, byte[] body, Map<String, String> params, Map<String, String> headers,
 	               Map<String, String> cookies, Map<String, Object> posted, Map<String, List<Upload>> files,
@@ -366,7 +376,66 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 
 	@Override
 	public <T> T data(Class<T> beanType) {
-		return beanFrom(beanType, data());
+		T bean = bindJsonBody(beanType);
+		return bean != null ? bean : beanFrom(beanType, data());
+	}
+
+	/**
+	 * Binds the pending JSON body straight to the bean type, without building the intermediate map of posted data.
+	 * Returns <code>null</code> if the body can't be bound this way, e.g. if it was already parsed, it isn't a JSON
+	 * object or a custom JSON body parser or bean parameter factory is configured. Throws {@link BadRequest} if the
+	 * binding fails.
+	 */
+	public <T> T bindJsonBody(Class<T> beanType) {
+		if (invalidJsonBody) {
+			throw new BadRequest("The request body is not a valid JSON!");
+		}
+
+		// the other kinds of JSON body are processed by the regular parsing
+		if (!pendingBodyParsing || !isJsonObject(body)) {
+			return null;
+		}
+
+		Customization custom = custom();
+
+		if (custom.jsonRequestBodyParser().getClass() != DefaultJsonRequestBodyParser.class
+			|| custom.beanParameterFactory().getClass() != DefaultBeanParameterFactory.class) {
+			return null;
+		}
+
+		ObjectMapper mapper = custom.jackson();
+
+		try {
+			if (params.isEmpty() && files.isEmpty()) {
+				return mapper.readerFor(beanType).readValue(body);
+			}
+
+			// the posted JSON data overrides the other data, just like in data()
+			Map<String, Object> otherData = U.map();
+			otherData.putAll(params);
+			otherData.putAll(files);
+
+			T bean = mapper.convertValue(otherData, beanType);
+			return mapper.readerForUpdating(bean).readValue(body);
+
+		} catch (JsonParseException e) {
+			invalidJsonBody = true;
+			throw new BadRequest("The request body is not a valid JSON!");
+
+		} catch (Exception e) {
+			throw new BadRequest("Couldn't bind the request data to " + beanType.getSimpleName() + ": " + e.getMessage());
+		}
+	}
+
+	private static boolean isJsonObject(byte[] body) {
+		if (body == null) return false;
+
+		for (byte b : body) {
+			if (b == '{') return true;
+			if (b != ' ' && b != '\t' && b != '\r' && b != '\n') return false;
+		}
+
+		return false;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -376,6 +445,8 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 
 		try {
 			return (T) beanParameterFactory.getParamValue(this, beanType, paramName, (Map<String, Object>) properties);
+		} catch (IllegalArgumentException e) {
+			throw new BadRequest("Couldn't bind the request data to " + beanType.getSimpleName() + ": " + e.getMessage());
 		} catch (Exception e) {
 			throw new RuntimeException("Couldn't instantiate a bean of type: " + beanType.getName());
 		}
@@ -437,8 +508,12 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 			HttpUtils.saveTokenBeforeRenderingHeaders(this, token);
 		}
 
-		if (sessionChanged.get()) {
-			saveSession(session.decorated());
+		if (session != null) {
+			if (sessionChanged.get()) {
+				saveSession(session.decorated());
+			} else {
+				releaseSession(session.decorated());
+			}
 		}
 
 		if (response != null) {
@@ -483,6 +558,17 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 		completed = true;
 	}
 
+	/**
+	 * Starts a response that is written directly into the channel (e.g. streamed), so only the request will be
+	 * finished when done. Returns whether the connection will be kept alive.
+	 */
+	public synchronized boolean startRawResponse(boolean keepAlive) {
+		rendering = true;
+		completed = true;
+		isKeepAlive &= keepAlive;
+		return isKeepAlive;
+	}
+
 	public boolean isRendering() {
 		return rendering;
 	}
@@ -490,8 +576,15 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 	@Override
 	public synchronized Req done() {
 		if (!done) {
-			onDone();
-			done = true;
+			try {
+				onDone();
+				done = true;
+
+			} finally {
+				if (permit != null) {
+					permit.release();
+				}
+			}
 		}
 		return this;
 	}
@@ -711,7 +804,9 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 						tokenStatus(TokenStatus.INVALID);
 					}
 
-					token = Coll.trackChanges(Collections.synchronizedMap(U.safe(tokenData)), tokenChanged);
+					// the decoded token might be cached and shared, so it must be copied
+					Map<String, Serializable> tokenCopy = U.map(U.safe(tokenData));
+					token = Coll.trackChanges(Collections.synchronizedMap(tokenCopy), tokenChanged);
 				}
 			}
 		}
@@ -787,9 +882,24 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 		return http;
 	}
 
+	public ConcurrencyPermit permit() {
+		return permit;
+	}
+
+	public ReqImpl permit(ConcurrencyPermit permit) {
+		this.permit = permit;
+		return this;
+	}
+
 	@Override
 	public void stop() {
 		this.stopped = true;
+
+		// the connection was closed, so the request won't be done
+		ConcurrencyPermit permit = this.permit;
+		if (permit != null) {
+			permit.abandon();
+		}
 	}
 
 	@Override
@@ -817,6 +927,7 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 			try {
 				jsonData = parser.parseJsonBody(this, body);
 			} catch (Exception e) {
+				invalidJsonBody = e instanceof JsonParseException; // malformed, not just a different structure
 				Log.error("The attempt to parse the request body as JSON failed. Please make sure the correct content type is specified in the request header!", e);
 			}
 
@@ -846,6 +957,22 @@ public class ReqImpl extends RapidoidThing implements Req, Constants, HttpMetada
 		}
 	}
 
+	/**
+	 * The custom session managers are called only for the changed sessions, but the default one must release also the
+	 * unchanged sessions.
+	 */
+	private void releaseSession(Map<String, Serializable> session) {
+		SessionManager sessionManager = custom().sessionManager();
+
+		if (sessionManager instanceof DefaultSessionManager) {
+			try {
+				((DefaultSessionManager) sessionManager).releaseSession(this, sessionId(), session);
+			} catch (Exception e) {
+				throw U.rte("Error occured while releasing the session!", e);
+			}
+		}
+	}
+
 	@Override
 	public OutputStream out() {
 		if (response != null) {
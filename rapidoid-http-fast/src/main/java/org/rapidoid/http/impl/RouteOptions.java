@@ -47,6 +47,8 @@ public class RouteOptions extends RapidoidThing implements RouteConfig {
 
 	private volatile boolean managed = true;
 
+	private volatile boolean nonBlocking;
+
 	private volatile TransactionMode transactionMode = TransactionMode.NONE;
 
 	private final Set<String> roles = Coll.synchronizedSet();
@@ -62,6 +64,7 @@ public class RouteOptions extends RapidoidThing implements RouteConfig {
 			(transactionMode != null ? ", transactionMode='" + transactionMode + '\'' : "") +
 			(U.notEmpty(roles) ? ", roles=" + roles : "") +
 			(U.notEmpty(wrappers) ? ", wrappers=" + wrappers : "") +
+			(nonBlocking ? ", nonBlocking" : "") +
 			'}';
 	}
 
@@ -153,6 +156,17 @@ public class RouteOptions extends RapidoidThing implements RouteConfig {
 		return this;
 	}
 
+	@Override
+	public boolean nonBlocking() {
+		return nonBlocking;
+	}
+
+	@Override
+	public RouteOptions nonBlocking(boolean nonBlocking) {
+		this.nonBlocking = nonBlocking;
+		return this;
+	}
+
 	public RouteOptions copy() {
 		RouteOptions copy = new RouteOptions();
 
@@ -164,6 +178,7 @@ public class RouteOptions extends RapidoidThing implements RouteConfig {
 		copy.wrappers(wrappers());
 		copy.zone(zone());
 		copy.managed(managed());
+		copy.nonBlocking(nonBlocking());
 
 		return copy;
 	}
@@ -177,6 +192,7 @@ public class RouteOptions extends RapidoidThing implements RouteConfig {
 
 		if (mvc != that.mvc) return false;
 		if (managed != that.managed) return false;
+		if (nonBlocking != that.nonBlocking) return false;
 		if (contentType != null ? !contentType.equals(that.contentType) : that.contentType != null) return false;
 		if (view != null ? !view.equals(that.view) : that.view != null) return false;
 		if (zone != null ? !zone.equals(that.zone) : that.zone != null) return false;
@@ -193,6 +209,7 @@ public class RouteOptions extends RapidoidThing implements RouteConfig {
 		result = 31 * result + (mvc ? 1 : 0);
 		result = 31 * result + (zone != null ? zone.hashCode() : 0);
 		result = 31 * result + (managed ? 1 : 0);
+		result = 31 * result + (nonBlocking ? 1 : 0);
 		result = 31 * result + (transactionMode != null ? transactionMode.hashCode() : 0);
 		result = 31 * result + (roles != null ? roles.hashCode() : 0);
 		result = 31 * result + Arrays.hashCode(wrappers);
@@ -26,9 +26,11 @@ import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.buffer.Buf;
 import org.rapidoid.buffer.BufGroup;
+import org.rapidoid.buffer.IncompleteReadException;
 import org.rapidoid.data.BufRange;
 import org.rapidoid.data.KeyValueRanges;
 import org.rapidoid.http.impl.HttpParser;
+import org.rapidoid.http.impl.HttpResponseRanges;
 import org.rapidoid.net.abstracts.Channel;
 import org.rapidoid.net.impl.RapidoidHelper;
 import org.rapidoid.test.TestCommons;
@@ -142,6 +144,150 @@ public class HttpParserTest extends TestCommons {
 		isNone(req.body);
 	}
 
+	@Test
+	public void shouldParseResponseWithContentLength() {
+		String resp = req("HTTP/1.1 200 OK|Content-Length: 5|X-Foo: bar||hello", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+		HttpResponseRanges ranges = parseResponse(buf, false, false);
+
+		eq(resp, ranges.protocol, "HTTP/1.1");
+		eq(resp, ranges.status, "200");
+		eq(buf.getN(ranges.status), 200);
+		isTrue(ranges.keepAlive);
+		isFalse(ranges.chunked);
+		eq(new String(new HttpParser().getBody(buf, ranges)), "hello");
+	}
+
+	@Test
+	public void shouldParseChunkedResponse() {
+		String resp = req("HTTP/1.1 200 OK|Transfer-Encoding: chunked||3|abc|A|0123456789|0||", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+		HttpResponseRanges ranges = parseResponse(buf, false, false);
+
+		isTrue(ranges.chunked);
+		isTrue(ranges.keepAlive);
+		eq(new String(new HttpParser().getBody(buf, ranges)), "abc0123456789");
+	}
+
+	@Test
+	public void shouldParseResponseUntilClosed() {
+		String resp = req("HTTP/1.1 200 OK|Connection: close||the body", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+
+		try {
+			parseResponse(buf, false, false);
+			fail("Expected incomplete read!");
+		} catch (IncompleteReadException e) {
+			// the body ends when the connection is closed
+		}
+
+		buf.position(0);
+		HttpResponseRanges ranges = parseResponse(buf, false, true);
+
+		isFalse(ranges.keepAlive);
+		eq(new String(new HttpParser().getBody(buf, ranges)), "the body");
+	}
+
+	@Test
+	public void shouldParseResponseWithoutBody() {
+		String resp = req("HTTP/1.0 304 Not Modified|Content-Length: 100||", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+		HttpResponseRanges ranges = parseResponse(buf, false, false);
+
+		eq(buf.getN(ranges.status), 304);
+		isFalse(ranges.keepAlive);
+		eq(new HttpParser().getBody(buf, ranges).length, 0);
+
+		// the response to a HEAD request
+		String head = req("HTTP/1.1 200 OK|Content-Length: 100||", CRLF);
+
+		buf = new BufGroup(10).from(head, "head");
+		ranges = parseResponse(buf, true, false);
+
+		isTrue(ranges.keepAlive);
+		eq(new HttpParser().getBody(buf, ranges).length, 0);
+	}
+
+	@Test
+	public void shouldParsePipelinedResponses() {
+		String resp = req("HTTP/1.1 200 OK|Content-Length: 1||aHTTP/1.1 404 Not Found|Content-Length: 2||bc", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+		HttpParser parser = new HttpParser();
+
+		HttpResponseRanges ranges = parseResponse(buf, false, false);
+		eq(buf.getN(ranges.status), 200);
+		eq(new String(parser.getBody(buf, ranges)), "a");
+
+		ranges = parseResponse(buf, false, false);
+		eq(buf.getN(ranges.status), 404);
+		eq(new String(parser.getBody(buf, ranges)), "bc");
+
+		isFalse(buf.hasRemaining());
+	}
+
+	@Test
+	public void shouldParseResponseHead() {
+		String resp = req("HTTP/1.1 200 OK|Transfer-Encoding: chunked||3|abc|0||", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+		HttpResponseRanges ranges = new HttpResponseRanges();
+		new HttpParser().parseResponseHead(buf, ranges, false, new RapidoidHelper());
+
+		isTrue(ranges.chunked);
+		isFalse(ranges.untilClose);
+		eq(buf.position(), resp.indexOf("3\r\n"));
+
+		resp = req("HTTP/1.1 200 OK|Content-Length: 5||hel", CRLF);
+
+		buf = new BufGroup(10).from(resp, "resp");
+		new HttpParser().parseResponseHead(buf, ranges, false, new RapidoidHelper());
+
+		isFalse(ranges.chunked);
+		eq(ranges.bodyLength, 5);
+		eq(buf.remaining(), 3);
+
+		resp = req("HTTP/1.1 200 OK||the", CRLF);
+
+		buf = new BufGroup(10).from(resp, "resp");
+		new HttpParser().parseResponseHead(buf, ranges, false, new RapidoidHelper());
+
+		isTrue(ranges.untilClose);
+		isFalse(ranges.keepAlive);
+		eq(buf.remaining(), 3);
+	}
+
+	@Test
+	public void shouldSkipInterimResponses() {
+		String resp = req("HTTP/1.1 100 Continue||HTTP/1.1 102 Processing|X-Foo: bar||HTTP/1.1 201 Created|Content-Length: 2||ok", CRLF);
+
+		Buf buf = new BufGroup(10).from(resp, "resp");
+		HttpResponseRanges ranges = parseResponse(buf, false, false);
+
+		eq(buf.getN(ranges.status), 201);
+		eq(new String(new HttpParser().getBody(buf, ranges)), "ok");
+		isFalse(buf.hasRemaining());
+
+		// the switch of protocols is a final response
+		resp = req("HTTP/1.1 101 Switching Protocols|Upgrade: websocket||", CRLF);
+
+		buf = new BufGroup(10).from(resp, "resp");
+		ranges = parseResponse(buf, false, false);
+
+		eq(buf.getN(ranges.status), 101);
+		eq(new HttpParser().getBody(buf, ranges).length, 0);
+	}
+
+	private HttpResponseRanges parseResponse(Buf buf, boolean noBody, boolean closing) {
+		HttpResponseRanges ranges = new HttpResponseRanges();
+		new HttpParser().parseResponse(buf, ranges, noBody, closing, new RapidoidHelper());
+		return ranges;
+	}
+
 	private RapidoidHelper parse(String reqs) {
 		RapidoidHelper req = new RapidoidHelper();
 
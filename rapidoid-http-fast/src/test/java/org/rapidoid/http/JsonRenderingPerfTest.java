@@ -0,0 +1,94 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.buffer.Buf;
+import org.rapidoid.buffer.BufGroup;
+import org.rapidoid.data.JSON;
+import org.rapidoid.http.impl.HttpIO;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JsonRenderingPerfTest {
+
+	private static final BufGroup BUFS = new BufGroup(10);
+
+	public static void main(String[] args) {
+		for (int size : new int[]{1024, 100 * 1024}) {
+			final Object data = data(size);
+			final Buf out = BUFS.newBuf();
+
+			System.out.println("JSON size: " + JSON.stringify(data).length());
+
+			for (int i = 0; i < 10; i++) {
+				measure("copy", 10000, new Runnable() {
+					@Override
+					public void run() {
+						ByteArrayOutputStream os = Msc.locals().jsonRenderingStream();
+						JSON.stringify(data, os);
+						out.append(os.toByteArray());
+						out.clear();
+					}
+				});
+
+				measure("direct", 10000, new Runnable() {
+					@Override
+					public void run() {
+						HttpIO.writeJsonBody(out, data);
+						out.clear();
+					}
+				});
+			}
+		}
+	}
+
+	private static void measure(String name, int count, Runnable task) {
+		long before = allocatedBytes();
+		Msc.benchmark(name, count, task);
+		System.out.println(" - allocated per op: " + (allocatedBytes() - before) / count + " bytes");
+	}
+
+	@SuppressWarnings("restriction")
+	private static long allocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static Object data(int size) {
+		List<Map<String, Object>> items = U.list();
+
+		for (int i = 0; items.size() * 64 < size; i++) {
+			items.add(U.<String, Object>map("id", i, "name", "item-" + i, "description", "Lorem ipsum dolor sit"));
+		}
+
+		return items;
+	}
+
+}
@@ -0,0 +1,230 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.http.customize.SessionManager;
+import org.rapidoid.http.customize.defaults.DefaultSessionManager;
+import org.rapidoid.http.customize.defaults.FileSessionManager;
+import org.rapidoid.test.TestCommons;
+import org.rapidoid.u.U;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class SessionManagerTest extends TestCommons {
+
+	@Test
+	public void testLoadAndSave() throws Exception {
+		DefaultSessionManager sessions = new DefaultSessionManager(0, 0, 100, 1000000, true);
+
+		Map<String, Serializable> session = sessions.loadSession(null, "s1");
+		isTrue(session.isEmpty());
+
+		session.put("x", 123);
+		sessions.saveSession(null, "s1", session);
+
+		eq(sessions.loadSession(null, "s1").get("x"), 123);
+		isTrue(sessions.memory() > 0);
+	}
+
+	@Test
+	public void testExpiration() throws Exception {
+		DefaultSessionManager sessions = new DefaultSessionManager(100, 0, 100, 1000000, true);
+
+		save(sessions, "s1", "x", 1);
+		eq(sessions.loadSession(null, "s1").get("x"), 1);
+
+		U.sleep(300);
+
+		isTrue(sessions.loadSession(null, "s1").isEmpty());
+
+		sessions = new DefaultSessionManager(0, 100, 100, 1000000, false);
+		save(sessions, "s2", "x", 2);
+
+		for (int i = 0; i < 3; i++) {
+			U.sleep(50);
+			sessions.loadSession(null, "s2"); // the access doesn't prolong the absolute TTL
+		}
+
+		isTrue(sessions.loadSession(null, "s2").isEmpty());
+	}
+
+	@Test
+	public void testLRUEviction() throws Exception {
+		DefaultSessionManager sessions = new DefaultSessionManager(0, 0, 3, 1000000, true);
+
+		for (int i = 1; i <= 5; i++) {
+			save(sessions, "s" + i, "n", i);
+			isTrue(sessions.size() <= 3);
+		}
+
+		isTrue(sessions.loadSession(null, "s1").isEmpty());
+		eq(sessions.loadSession(null, "s5").get("n"), 5);
+	}
+
+	@Test
+	public void testMemoryLimit() throws Exception {
+		DefaultSessionManager sessions = new DefaultSessionManager(0, 0, 100, 5000, true);
+
+		for (int i = 1; i <= 10; i++) {
+			save(sessions, "s" + i, "data", new byte[1000]);
+			isTrue(sessions.memory() <= 5000);
+		}
+
+		isTrue(sessions.size() < 10);
+	}
+
+	@Test
+	public void testPersistentSessions() throws Exception {
+		String dir = Files.createTempDirectory("sessions").toString();
+
+		FileSessionManager sessions = new FileSessionManager(dir, 0, 0, 100, 1000000, true);
+		save(sessions, "s1", "x", "abc");
+		save(sessions, "../s2", "x", "invalid");
+
+		// "restart"
+		sessions = new FileSessionManager(dir, 0, 0, 100, 1000000, true);
+
+		eq(sessions.loadSession(null, "s1").get("x"), "abc");
+		isTrue(sessions.loadSession(null, "../s2").isEmpty());
+
+		eq(new File(dir).list().length, 1);
+
+		// the expired sessions are purged on startup
+		U.sleep(300);
+		new FileSessionManager(dir, 100, 0, 100, 1000000, true);
+
+		eq(new File(dir).list().length, 0);
+	}
+
+	@Test
+	public void testAccessRefreshesPersistentSessions() throws Exception {
+		String dir = Files.createTempDirectory("sessions").toString();
+
+		FileSessionManager sessions = new FileSessionManager(dir, 1000, 0, 100, 1000000, true);
+		save(sessions, "s1", "x", "abc");
+
+		U.sleep(600);
+
+		// "restart", then read-only access
+		sessions = new FileSessionManager(dir, 1000, 0, 100, 1000000, true);
+		Map<String, Serializable> session = sessions.loadSession(null, "s1");
+		eq(session.get("x"), "abc");
+		sessions.releaseSession(null, "s1", session);
+
+		U.sleep(600);
+
+		// the session was accessed recently, so it didn't expire
+		sessions = new FileSessionManager(dir, 1000, 0, 100, 1000000, true);
+		eq(sessions.loadSession(null, "s1").get("x"), "abc");
+	}
+
+	@Test
+	public void testPartialSerialization() throws Exception {
+		DefaultSessionManager sessions = new DefaultSessionManager(0, 0, 100, 1000000, true);
+
+		Map<String, Serializable> session = sessions.loadSession(null, "s1");
+		session.put("a", new Counted());
+		session.put("b", new Counted());
+		session.put("n", 1);
+		session.put("list", new ArrayList<String>(U.list("x")));
+		sessions.saveSession(null, "s1", session);
+
+		eq(Counted.WRITES.get(), 2);
+
+		// only the changed attribute is serialized
+		session = sessions.loadSession(null, "s1");
+		session.put("n", 2);
+		sessions.saveSession(null, "s1", session);
+
+		eq(Counted.WRITES.get(), 2);
+		eq(Counted.READS.get(), 0);
+
+		// the attributes are deserialized on access
+		session = sessions.loadSession(null, "s1");
+		isTrue(session.get("a") instanceof Counted);
+		eq(Counted.READS.get(), 1);
+		eq(session.get("n"), 2);
+
+		// the unchanged immutable attributes aren't serialized again
+		sessions.saveSession(null, "s1", session);
+		eq(Counted.WRITES.get(), 3); // the accessed attribute might be modified in-place
+
+		// the mutable attributes might be modified in-place
+		session = sessions.loadSession(null, "s1");
+		U.<List<String>>cast(session.get("list")).add("y");
+		sessions.saveSession(null, "s1", session);
+
+		session = sessions.loadSession(null, "s1");
+		eq(session.get("list"), U.list("x", "y"));
+		eq(session.size(), 4);
+
+		session.remove("a");
+		sessions.saveSession(null, "s1", session);
+
+		eq(sessions.loadSession(null, "s1").keySet(), U.set("b", "n", "list"));
+
+		// overwriting or removing the attributes that weren't accessed doesn't deserialize them
+		save(sessions, "s2", "a", new Counted());
+		save(sessions, "s2", "b", new Counted());
+		int reads = Counted.READS.get();
+
+		session = sessions.loadSession(null, "s2");
+		isNull(session.put("a", new Counted()));
+		isNull(session.remove("b"));
+		sessions.saveSession(null, "s2", session);
+
+		eq(Counted.READS.get(), reads);
+		eq(sessions.loadSession(null, "s2").keySet(), U.set("a"));
+	}
+
+	static class Counted implements Serializable {
+
+		static final AtomicInteger WRITES = new AtomicInteger();
+		static final AtomicInteger READS = new AtomicInteger();
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			WRITES.incrementAndGet();
+			out.defaultWriteObject();
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			READS.incrementAndGet();
+			in.defaultReadObject();
+		}
+	}
+
+	private static void save(SessionManager sessions, String id, String key, Serializable value) throws Exception {
+		Map<String, Serializable> session = sessions.loadSession(null, id);
+		session.put(key, value);
+		sessions.saveSession(null, id, session);
+	}
+
+}
@@ -0,0 +1,124 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.http.customize.defaults.DefaultSessionManager;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class SessionPerfTest {
+
+	private static final int COUNT = 100000;
+
+	public static void main(String[] args) throws Exception {
+		final DefaultSessionManager sessions = new DefaultSessionManager(0, 0, 1000, 100000000, true);
+
+		final Map<String, Serializable> session = sessions.loadSession(null, "s");
+		fill(session);
+		sessions.saveSession(null, "s", session);
+
+		final Map<String, Serializable> plain = U.map();
+		fill(plain);
+
+		final byte[][] serialized = {Msc.serialize(plain)};
+
+		System.out.println("Session attributes: " + plain.size() + ", serialized size: " + serialized[0].length);
+
+		for (int i = 0; i < 5; i++) {
+			Msc.benchmark("whole map: update 1 attribute", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					Map<String, Serializable> map = U.cast(Msc.deserialize(serialized[0]));
+					map.put("counter", (Integer) map.get("counter") + 1);
+					serialized[0] = Msc.serialize(map);
+				}
+			});
+
+			Msc.benchmark("per attribute: update 1 attribute", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Map<String, Serializable> map = sessions.loadSession(null, "s");
+						map.put("counter", (Integer) map.get("counter") + 1);
+						sessions.saveSession(null, "s", map);
+					} catch (Exception e) {
+						throw U.rte(e);
+					}
+				}
+			});
+
+			Msc.benchmark("whole map: read 1 attribute", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					Map<String, Serializable> map = U.cast(Msc.deserialize(serialized[0]));
+					map.get("attr10");
+				}
+			});
+
+			Msc.benchmark("per attribute: read 1 attribute", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Map<String, Serializable> map = sessions.loadSession(null, "s");
+						map.get("attr10");
+						sessions.saveSession(null, "s", map);
+					} catch (Exception e) {
+						throw U.rte(e);
+					}
+				}
+			});
+		}
+	}
+
+	private static void fill(Map<String, Serializable> session) {
+		session.put("counter", 0);
+
+		for (int i = 1; i < 50; i++) {
+			Serializable value;
+
+			switch (i % 4) {
+				case 0:
+					value = "value" + i;
+					break;
+				case 1:
+					value = (long) i;
+					break;
+				case 2:
+					value = new Date(i);
+					break;
+				default:
+					value = new ArrayList<String>(U.list("a" + i, "b" + i));
+			}
+
+			session.put("attr" + i, value);
+		}
+	}
+
+}
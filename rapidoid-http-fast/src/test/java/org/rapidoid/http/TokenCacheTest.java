@@ -0,0 +1,110 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-http-fast
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.test.TestCommons;
+import org.rapidoid.u.U;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class TokenCacheTest extends TestCommons {
+
+	@Test
+	public void testCachingDecodedTokens() {
+		TokenCache cache = new TokenCache(100, 60000);
+
+		Map<String, Serializable> data = U.<String, Serializable>map("_user", "joe", "x", 123);
+		String token = HttpUtils.token(data);
+
+		eq(cache.get(token), data);
+		eq(cache.get(token), data);
+		eq(cache.get(token), data);
+
+		eq(cache.misses(), 1);
+		eq(cache.hits(), 2);
+		isTrue(cache.hitRate() > 0.6);
+
+		try {
+			cache.get(token).put("x", 456);
+			fail("The cached token must be immutable!");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		cache.invalidate(token);
+		eq(cache.get(token), data);
+		eq(cache.misses(), 2);
+	}
+
+	@Test
+	public void testExpiration() {
+		TokenCache cache = new TokenCache(100, 0);
+
+		String token = HttpUtils.token(U.<String, Serializable>map("_user", "joe"));
+
+		cache.get(token);
+		cache.get(token);
+
+		eq(cache.misses(), 2);
+		eq(cache.hits(), 0);
+	}
+
+	@Test
+	public void testBoundedSize() {
+		TokenCache cache = new TokenCache(5, 60000);
+
+		for (int i = 0; i < 20; i++) {
+			cache.get(HttpUtils.token(U.<String, Serializable>map("n", i)));
+			isTrue(cache.size() <= 5);
+		}
+
+		eq(cache.misses(), 20);
+	}
+
+	@Test
+	public void testLRUEviction() {
+		TokenCache cache = new TokenCache(2, 60000);
+
+		String a = HttpUtils.token(U.<String, Serializable>map("n", "a"));
+		String b = HttpUtils.token(U.<String, Serializable>map("n", "b"));
+		String c = HttpUtils.token(U.<String, Serializable>map("n", "c"));
+
+		cache.get(a);
+		cache.get(b);
+		cache.get(a);
+		cache.get(c); // evicts b, the least recently used
+
+		eq(cache.misses(), 3);
+
+		cache.get(a);
+		eq(cache.misses(), 3);
+
+		cache.get(b);
+		eq(cache.misses(), 4);
+	}
+
+}
@@ -0,0 +1,328 @@
+package org.rapidoid.http.client;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.buffer.Buf;
+import org.rapidoid.data.BufRange;
+import org.rapidoid.data.KeyValueRanges;
+import org.rapidoid.http.HttpResp;
+import org.rapidoid.http.impl.HttpParser;
+import org.rapidoid.http.impl.HttpResponseRanges;
+import org.rapidoid.log.Log;
+import org.rapidoid.net.ConnStatusListener;
+import org.rapidoid.net.Protocol;
+import org.rapidoid.net.abstracts.Channel;
+import org.rapidoid.net.impl.RapidoidHelper;
+import org.rapidoid.u.U;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The protocol of a single client connection, matching the (pipelined) responses to the requests in order.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class HttpClientConnection extends RapidoidThing implements Protocol, ConnStatusListener {
+
+	private static final HttpParser PARSER = new HttpParser();
+
+	private final HttpClientRoute route;
+
+	private final HttpClientExchange initial;
+
+	private final Queue<HttpClientExchange> inFlight = new ConcurrentLinkedQueue<HttpClientExchange>();
+
+	private final HttpResponseRanges resp = new HttpResponseRanges();
+
+	private final BufRange data = new BufRange();
+
+	private volatile Channel channel;
+
+	private volatile boolean closed;
+
+	private volatile boolean keepAlive = true;
+
+	// the number of assigned requests, guarded by the route
+	int load;
+
+	// the number of assigned non-idempotent requests, guarded by the route
+	int unsafeLoad;
+
+	HttpClientConnection(HttpClientRoute route, HttpClientExchange initial) {
+		this.route = route;
+		this.initial = initial;
+	}
+
+	boolean isConnected() {
+		return channel != null;
+	}
+
+	boolean isOpen() {
+		return channel != null && !closed;
+	}
+
+	boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * Returns <code>false</code> if the connection was closed, so the request wasn't sent.
+	 */
+	boolean send(HttpClientExchange x) {
+		Channel ch = channel;
+
+		synchronized (ch) {
+			// the channel is recycled after closing, so it must be checked while locked
+			if (closed) return false;
+
+			x.conn = this;
+			x.attempts++;
+			x.timeoutAfter(x.socketTimeout);
+
+			inFlight.add(x);
+			ch.write(x.head);
+
+			if (x.body != null && x.body.length > 0) {
+				ch.write(x.body);
+			}
+		}
+
+		ch.send();
+		return true;
+	}
+
+	void close() {
+		Channel ch = channel;
+
+		if (ch != null) {
+			synchronized (ch) {
+				if (!closed) {
+					ch.close();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void onConnected(Channel channel) {
+		this.channel = channel;
+		route.connected(this, initial);
+	}
+
+	@Override
+	public void onConnectFailed(Throwable error) {
+		route.connectFailed(this, initial, error);
+	}
+
+	/**
+	 * Resumes the reading of a streamed response, after it was paused for backpressure.
+	 */
+	void resume(HttpClientExchange x) {
+		Channel ch = channel;
+
+		synchronized (ch) {
+			if (!closed && inFlight.peek() == x) {
+				x.timeoutAfter(x.socketTimeout);
+				ch.resumeReading();
+			}
+		}
+	}
+
+	@Override
+	public void onClosed(Channel channel) {
+		List<HttpClientExchange> unfinished = U.list();
+
+		synchronized (channel) {
+			closed = true;
+		}
+
+		HttpClientExchange x = inFlight.peek();
+
+		if (x != null && x.streamed != null && x.streamed.untilClose) {
+			// the streamed body ends when the connection is closed
+			inFlight.poll();
+			x.streamed();
+		}
+
+		while ((x = inFlight.poll()) != null) {
+			unfinished.add(x);
+		}
+
+		route.closed(this, unfinished);
+	}
+
+	@Override
+	public void process(Channel ch) {
+		Buf buf = ch.input();
+		HttpClientExchange x = inFlight.peek();
+
+		if (x == null) {
+			Log.debug("Received unexpected data from the HTTP server, closing the connection");
+			buf.position(buf.limit());
+			ch.close();
+			return;
+		}
+
+		// the socket timeout is measured from the last received data
+		for (HttpClientExchange exchange : inFlight) {
+			exchange.timeoutAfter(exchange.socketTimeout);
+		}
+
+		if (x.listener != null) {
+			stream(ch, buf, x);
+			return;
+		}
+
+		RapidoidHelper helper = ch.helper();
+
+		PARSER.parseResponse(buf, resp, x.noBody, ch.isClosing(), helper);
+
+		inFlight.poll();
+		keepAlive = resp.keepAlive;
+
+		if (x.noBody && inFlight.isEmpty() && buf.hasRemaining()) {
+			// some servers send a body in the response to a HEAD request, so the connection can't be reused
+			keepAlive = false;
+		}
+
+		HttpResp result = response(buf, helper);
+
+		if (!keepAlive || !route.reuseConnections()) {
+			ch.close();
+		}
+
+		x.succeed(result);
+
+		route.released(this, x);
+	}
+
+	private void stream(Channel ch, Buf buf, final HttpClientExchange x) {
+		HttpStreamedBody body = x.streamed;
+		boolean consumed = false;
+
+		if (body == null) {
+			PARSER.parseResponseHead(buf, resp, x.noBody, ch.helper());
+
+			body = new HttpStreamedBody(resp);
+			x.streamed = body;
+			keepAlive = resp.keepAlive;
+			consumed = true;
+
+			if (!x.listener.onHead(buf, resp)) {
+				abort(ch, x);
+				return;
+			}
+		}
+
+		if (!body.isComplete() && buf.hasRemaining()) {
+
+			Runnable resume = new Runnable() {
+				@Override
+				public void run() {
+					resume(x);
+				}
+			};
+
+			if (!x.listener.isReady(resume)) {
+				// if the resume callback was already called, it will still be applied after pausing
+				ch.pauseReading();
+
+				if (consumed) return;
+				throw Buf.INCOMPLETE_READ;
+			}
+
+			int start = buf.position();
+			int end = body.scan(buf.bytes(), start, buf.limit());
+
+			if (end > start) {
+				data.setInterval(start, end);
+				buf.position(end);
+
+				if (!x.listener.onBody(buf, data)) {
+					abort(ch, x);
+					return;
+				}
+
+			} else if (!consumed && !body.isComplete()) {
+				// waiting for the rest of a chunk header
+				throw Buf.INCOMPLETE_READ;
+			}
+		}
+
+		if (body.isComplete() || (body.untilClose && ch.isClosing())) {
+			inFlight.poll();
+
+			if (!keepAlive || !route.reuseConnections()) {
+				ch.close();
+			}
+
+			x.streamed();
+
+			route.released(this, x);
+		}
+	}
+
+	private void abort(Channel ch, HttpClientExchange x) {
+		ch.input().position(ch.input().limit());
+		ch.close();
+		x.fail(new CancellationException("The streamed HTTP response was aborted!"));
+	}
+
+	private HttpResp response(Buf buf, RapidoidHelper helper) {
+		KeyValueRanges headersKV = helper.pairs1.reset();
+		PARSER.parseHeadersIntoKV(buf, resp.headers, headersKV, null, helper);
+
+		Map<String, String> headers = U.map();
+
+		// the same format as the raw responses of the Apache client
+		StringBuilder head = new StringBuilder();
+		head.append(resp.statusLine.str(buf)).append('\n');
+
+		for (int i = 0; i < headersKV.count; i++) {
+			String name = headersKV.keys[i].str(buf);
+			String value = headersKV.values[i].str(buf);
+
+			headers.put(name, value);
+			head.append(name).append(": ").append(value).append('\n');
+		}
+
+		head.append('\n');
+
+		byte[] body = PARSER.getBody(buf, resp);
+		byte[] headBytes = head.toString().getBytes();
+
+		byte[] raw = new byte[headBytes.length + body.length];
+		System.arraycopy(headBytes, 0, raw, 0, headBytes.length);
+		System.arraycopy(body, 0, raw, headBytes.length, body.length);
+
+		int code = (int) buf.getN(resp.status);
+
+		return new HttpResp(raw, code, headers, body);
+	}
+
+}
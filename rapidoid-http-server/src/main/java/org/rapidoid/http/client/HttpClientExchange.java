@@ -0,0 +1,167 @@
+package org.rapidoid.http.client;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.Callbacks;
+import org.rapidoid.concurrent.Promise;
+import org.rapidoid.expire.Expiring;
+import org.rapidoid.http.HttpResp;
+import org.rapidoid.log.Log;
+import org.rapidoid.u.U;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A request that is pending, sent or waiting for a connection, until its response is received or it times out.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class HttpClientExchange extends RapidoidThing implements Expiring {
+
+	final HttpClientRoute route;
+
+	final byte[] head;
+
+	final byte[] body;
+
+	final boolean noBody;
+
+	final boolean idempotent;
+
+	final int connectTimeout;
+
+	final int socketTimeout;
+
+	final int connectionRequestTimeout;
+
+	private final Callback<HttpResp> callback;
+
+	private final Promise<HttpResp> promise;
+
+	final HttpResponseListener listener;
+
+	private final AtomicBoolean done = new AtomicBoolean();
+
+	volatile HttpClientConnection conn;
+
+	volatile int attempts;
+
+	// the framing of the streamed body, after the response head was received
+	volatile HttpStreamedBody streamed;
+
+	private volatile long expiresAt;
+
+	HttpClientExchange(HttpClientRoute route, byte[] head, byte[] body, boolean noBody, boolean idempotent,
+	                   int connectTimeout, int socketTimeout, int connectionRequestTimeout,
+	                   Callback<HttpResp> callback, Promise<HttpResp> promise, HttpResponseListener listener) {
+
+		this.route = route;
+		this.head = head;
+		this.body = body;
+		this.noBody = noBody;
+		this.idempotent = idempotent;
+		this.connectTimeout = connectTimeout;
+		this.socketTimeout = socketTimeout;
+		this.connectionRequestTimeout = connectionRequestTimeout;
+		this.callback = callback;
+		this.promise = promise;
+		this.listener = listener;
+	}
+
+	boolean isDone() {
+		return done.get();
+	}
+
+	void succeed(HttpResp resp) {
+		if (done.compareAndSet(false, true)) {
+			RapidoidHttpClientEngine.finished(this);
+			Callbacks.success(callback, resp);
+			Callbacks.success(promise, resp);
+		}
+	}
+
+	void streamed() {
+		if (done.compareAndSet(false, true)) {
+			RapidoidHttpClientEngine.finished(this);
+
+			try {
+				listener.onDone();
+			} catch (Throwable e) {
+				Log.error("Error in the HTTP response listener!", e);
+			}
+		}
+	}
+
+	void fail(Throwable error) {
+		if (done.compareAndSet(false, true)) {
+			RapidoidHttpClientEngine.finished(this);
+			Callbacks.error(callback, error);
+			Callbacks.error(promise, error);
+
+			if (listener != null) {
+				try {
+					listener.onError(error);
+				} catch (Throwable e) {
+					Log.error("Error in the HTTP response listener!", e);
+				}
+			}
+		}
+	}
+
+	void timeoutAfter(int timeout) {
+		setExpiresAt(timeout > 0 ? U.time() + timeout : 0);
+	}
+
+	@Override
+	public void setExpiresAt(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	@Override
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	@Override
+	public void expire() {
+		HttpClientConnection conn = this.conn;
+
+		if (conn == null) {
+			route.cancel(this);
+			fail(new SocketTimeoutException("Timed out while waiting for a connection!"));
+
+		} else if (!conn.isConnected()) {
+			fail(new SocketTimeoutException("Connect timed out!"));
+
+		} else {
+			fail(new SocketTimeoutException("Read timed out!"));
+
+			// the pipelined responses can't be matched to their requests anymore
+			conn.close();
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+package org.rapidoid.http.client;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+import org.rapidoid.u.U;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The pool of keep-alive connections to a single host and port, with the requests waiting for a connection.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class HttpClientRoute extends RapidoidThing {
+
+	private final RapidoidHttpClientEngine engine;
+
+	private final String host;
+
+	private final int port;
+
+	private final List<HttpClientConnection> connections = U.list();
+
+	private final Queue<HttpClientExchange> pending = new LinkedList<HttpClientExchange>();
+
+	HttpClientRoute(RapidoidHttpClientEngine engine, String host, int port) {
+		this.engine = engine;
+		this.host = host;
+		this.port = port;
+	}
+
+	boolean reuseConnections() {
+		return engine.reuseConnections();
+	}
+
+	void execute(HttpClientExchange x) {
+		HttpClientConnection conn;
+
+		synchronized (this) {
+			if (engine.isClosed()) {
+				conn = null;
+
+			} else {
+				conn = pick(x);
+
+				if (conn == null) {
+					if (canConnect()) {
+						connect(x);
+					} else {
+						x.conn = null;
+						x.timeoutAfter(x.connectionRequestTimeout);
+						pending.add(x);
+					}
+
+					return;
+				}
+			}
+		}
+
+		if (conn != null) {
+			send(conn, x);
+		} else {
+			x.fail(new CancellationException("The HTTP client was closed!"));
+		}
+	}
+
+	private void send(HttpClientConnection conn, HttpClientExchange x) {
+		if (!conn.send(x)) {
+			// the connection was closed in the meantime
+			unassign(conn, x);
+			execute(x);
+		}
+	}
+
+	private HttpClientConnection pick(HttpClientExchange x) {
+		HttpClientConnection pipelined = null;
+
+		for (HttpClientConnection conn : connections) {
+			if (!conn.isOpen()) continue;
+
+			if (conn.load == 0) {
+				assign(conn, x);
+				return conn;
+			}
+
+			if (canPipeline(conn, x) && (pipelined == null || conn.load < pipelined.load)) {
+				pipelined = conn;
+			}
+		}
+
+		if (pipelined != null) {
+			assign(pipelined, x);
+		}
+
+		return pipelined;
+	}
+
+	private boolean canPipeline(HttpClientConnection conn, HttpClientExchange x) {
+		return x.idempotent && conn.unsafeLoad == 0 && conn.load < engine.maxPipeline()
+			&& conn.isKeepAlive() && engine.reuseConnections();
+	}
+
+	private boolean canConnect() {
+		int max = engine.maxConnPerRoute();
+		return max <= 0 || connections.size() < max;
+	}
+
+	private void connect(HttpClientExchange x) {
+		HttpClientConnection conn = new HttpClientConnection(this, x);
+		connections.add(conn);
+
+		assign(conn, x);
+		x.timeoutAfter(x.connectTimeout);
+
+		engine.loops().connect(host, port, conn);
+	}
+
+	private void assign(HttpClientConnection conn, HttpClientExchange x) {
+		x.conn = conn;
+		conn.load++;
+
+		if (!x.idempotent) {
+			conn.unsafeLoad++;
+		}
+	}
+
+	private synchronized void unassign(HttpClientConnection conn, HttpClientExchange x) {
+		conn.load = Math.max(conn.load - 1, 0);
+
+		if (!x.idempotent) {
+			conn.unsafeLoad = Math.max(conn.unsafeLoad - 1, 0);
+		}
+	}
+
+	void connected(HttpClientConnection conn, HttpClientExchange initial) {
+		if (!initial.isDone()) {
+			send(conn, initial);
+		} else {
+			released(conn, initial);
+		}
+	}
+
+	void connectFailed(HttpClientConnection conn, HttpClientExchange initial, Throwable error) {
+		synchronized (this) {
+			connections.remove(conn);
+		}
+
+		initial.fail(error);
+
+		dispatchPending();
+	}
+
+	/**
+	 * The response to the specified request was received, so the connection can take more requests.
+	 */
+	void released(HttpClientConnection conn, HttpClientExchange done) {
+		List<HttpClientExchange> next = U.list();
+
+		synchronized (this) {
+			unassign(conn, done);
+
+			if (conn.isOpen() && connections.contains(conn)) {
+				for (Iterator<HttpClientExchange> it = pending.iterator(); it.hasNext(); ) {
+					HttpClientExchange x = it.next();
+
+					if (conn.load == 0 || canPipeline(conn, x)) {
+						it.remove();
+						assign(conn, x);
+						next.add(x);
+					} else {
+						break;
+					}
+				}
+			}
+		}
+
+		for (HttpClientExchange x : next) {
+			send(conn, x);
+		}
+	}
+
+	void closed(HttpClientConnection conn, List<HttpClientExchange> unfinished) {
+		synchronized (this) {
+			connections.remove(conn);
+		}
+
+		for (HttpClientExchange x : unfinished) {
+			if (x.isDone()) continue;
+
+			// the idempotent requests are retried once, e.g. if a kept-alive connection was closed by the server
+			// (but not after a part of the response was already streamed)
+			if (x.idempotent && x.attempts < 2 && x.streamed == null && !engine.isClosed()) {
+				Log.debug("Retrying HTTP request after the connection was closed", "host", host, "port", port);
+				execute(x);
+			} else {
+				x.fail(new IOException("The connection was closed!"));
+			}
+		}
+
+		dispatchPending();
+	}
+
+	private void dispatchPending() {
+		synchronized (this) {
+			while (!pending.isEmpty() && canConnect()) {
+				connect(pending.poll());
+			}
+		}
+	}
+
+	synchronized void cancel(HttpClientExchange x) {
+		pending.remove(x);
+	}
+
+	void shutdown() {
+		List<HttpClientExchange> waiting;
+		List<HttpClientConnection> open;
+
+		synchronized (this) {
+			waiting = U.list(pending);
+			open = U.list(connections);
+			pending.clear();
+		}
+
+		for (HttpClientExchange x : waiting) {
+			x.fail(new CancellationException("The HTTP client was closed!"));
+		}
+
+		for (HttpClientConnection conn : open) {
+			conn.close();
+		}
+	}
+
+}
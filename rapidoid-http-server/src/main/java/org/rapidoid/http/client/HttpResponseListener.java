@@ -0,0 +1,57 @@
+package org.rapidoid.http.client;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.buffer.Buf;
+import org.rapidoid.data.BufRange;
+import org.rapidoid.http.impl.HttpResponseRanges;
+
+/**
+ * Receives a streamed HTTP response, as it arrives from the server. The body is received in its original transfer
+ * encoding (e.g. chunked), so it can be forwarded as it is. The buffer ranges are valid only during the call.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public interface HttpResponseListener {
+
+	/**
+	 * Receives the status line and the headers, returning <code>false</code> to abort the response.
+	 */
+	boolean onHead(Buf buf, HttpResponseRanges resp);
+
+	/**
+	 * Returns <code>false</code> to pause the reading of the response (backpressure), after arranging the
+	 * <code>resume</code> callback to be called when more data can be accepted.
+	 */
+	boolean isReady(Runnable resume);
+
+	/**
+	 * Receives a part of the body, returning <code>false</code> to abort the response.
+	 */
+	boolean onBody(Buf buf, BufRange data);
+
+	void onDone();
+
+	void onError(Throwable error);
+
+}
@@ -0,0 +1,133 @@
+package org.rapidoid.http.client;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.bytes.Bytes;
+import org.rapidoid.bytes.BytesUtil;
+import org.rapidoid.data.BufRange;
+import org.rapidoid.http.impl.HttpParser;
+import org.rapidoid.http.impl.HttpResponseRanges;
+
+/**
+ * Tracks the framing of a streamed response body, to find where it ends without decoding it.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class HttpStreamedBody extends RapidoidThing {
+
+	private static final int CHUNK_HEADER = 0;
+
+	private static final int DATA = 1;
+
+	private static final int TRAILERS = 2;
+
+	private static final int COMPLETE = 3;
+
+	final boolean untilClose;
+
+	private final boolean chunked;
+
+	private final BufRange line = new BufRange();
+
+	private long remaining;
+
+	private int phase;
+
+	HttpStreamedBody(HttpResponseRanges resp) {
+		this.chunked = resp.chunked;
+		this.untilClose = resp.untilClose;
+		this.remaining = resp.bodyLength;
+		this.phase = chunked ? CHUNK_HEADER : (untilClose || remaining > 0 ? DATA : COMPLETE);
+	}
+
+	boolean isComplete() {
+		return phase == COMPLETE;
+	}
+
+	/**
+	 * Returns the position after the part of the body that is available between <code>pos</code> and
+	 * <code>limit</code>. An incomplete chunk header stays unconsumed until more data arrives.
+	 */
+	int scan(Bytes bytes, int pos, int limit) {
+		if (untilClose) {
+			return limit;
+		}
+
+		if (!chunked) {
+			int n = (int) Math.min(remaining, limit - pos);
+			remaining -= n;
+
+			if (remaining == 0) {
+				phase = COMPLETE;
+			}
+
+			return pos + n;
+		}
+
+		while (pos < limit && phase != COMPLETE) {
+			int next;
+
+			switch (phase) {
+				case CHUNK_HEADER:
+					next = BytesUtil.parseLine(bytes, line, pos, limit);
+					if (next < 0) return pos;
+
+					int size = HttpParser.chunkSize(bytes, line);
+					pos = next;
+
+					if (size > 0) {
+						remaining = size + 2; // the data and CRLF
+						phase = DATA;
+					} else {
+						phase = TRAILERS;
+					}
+					break;
+
+				case DATA:
+					int n = (int) Math.min(remaining, limit - pos);
+					pos += n;
+					remaining -= n;
+
+					if (remaining == 0) {
+						phase = CHUNK_HEADER;
+					}
+					break;
+
+				case TRAILERS:
+					next = BytesUtil.parseLine(bytes, line, pos, limit);
+					if (next < 0) return pos;
+
+					pos = next;
+
+					if (line.isEmpty()) {
+						phase = COMPLETE;
+					}
+					break;
+			}
+		}
+
+		return pos;
+	}
+
+}
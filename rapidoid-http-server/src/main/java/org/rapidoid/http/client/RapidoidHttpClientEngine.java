@@ -0,0 +1,289 @@
+package org.rapidoid.http.client;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.Coll;
+import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.Future;
+import org.rapidoid.concurrent.Promise;
+import org.rapidoid.concurrent.Promises;
+import org.rapidoid.config.Conf;
+import org.rapidoid.config.Config;
+import org.rapidoid.expire.ExpirationCrawlerThread;
+import org.rapidoid.expire.Expire;
+import org.rapidoid.http.*;
+import org.rapidoid.log.Log;
+import org.rapidoid.net.TCP;
+import org.rapidoid.net.TCPClient;
+import org.rapidoid.u.U;
+import org.rapidoid.util.LazyInit;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Executes the plain HTTP requests of a {@link HttpClient} on the Rapidoid event loop (I/O workers), with keep-alive
+ * connection pooling and pipelining of the idempotent requests.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class RapidoidHttpClientEngine extends RapidoidThing implements HttpClientEngine {
+
+	private static final Config CONFIG = Conf.HTTP.sub("client");
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final LazyInit<TCPClient> LOOPS = new LazyInit<TCPClient>(new Callable<TCPClient>() {
+		@Override
+		public TCPClient call() throws Exception {
+			int workers = CONFIG.entry("workers").or(2);
+			return TCP.client().name("http-client").workers(workers).build().start();
+		}
+	});
+
+	private static final Set<HttpClientExchange> ACTIVE = Coll.concurrentSet();
+
+	private static final ExpirationCrawlerThread TIMEOUTS = Expire.crawler("httpClientTimeouts", CONFIG.entry("timeoutResolution").or(1000));
+
+	static {
+		TIMEOUTS.register(ACTIVE);
+	}
+
+	private final HttpClient client;
+
+	private final ConcurrentMap<String, HttpClientRoute> routes = Coll.concurrentMap();
+
+	private final int maxPipeline = CONFIG.entry("maxPipeline").or(1);
+
+	private volatile boolean closed;
+
+	public RapidoidHttpClientEngine(HttpClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public boolean supports(HttpReq req) {
+		String url = req.url();
+
+		return url != null && url.regionMatches(true, 0, "http://", 0, 7)
+			&& !client.followRedirects() && !client.keepCookies() && U.isEmpty(client.cookies());
+	}
+
+	@Override
+	public Future<HttpResp> execute(HttpReq req, Callback<HttpResp> callback) {
+		Promise<HttpResp> promise = Promises.create();
+
+		exchange(req, callback, promise, null);
+
+		return promise;
+	}
+
+	/**
+	 * Executes the request and streams the response to the listener, as it arrives. The listener is notified about the
+	 * invalid requests, too.
+	 */
+	public void stream(HttpReq req, HttpResponseListener listener) {
+		try {
+			exchange(req, null, null, listener);
+
+		} catch (Throwable e) {
+			try {
+				listener.onError(e);
+			} catch (Throwable e2) {
+				Log.error("Error in the HTTP response listener!", e2);
+			}
+		}
+	}
+
+	private void exchange(HttpReq req, Callback<HttpResp> callback, Promise<HttpResp> promise,
+	                      HttpResponseListener listener) {
+
+		U.must(!closed, "The HTTP client was closed!");
+
+		// the non-ASCII characters are percent-encoded as UTF-8, like in the Apache client
+		URI uri = URI.create(URI.create(req.url()).toASCIIString());
+
+		String host = uri.getHost();
+		U.notNull(host, "HTTP request host");
+
+		int port = uri.getPort() > 0 ? uri.getPort() : 80;
+		String hostHeader = uri.getPort() > 0 ? host + ":" + port : host;
+
+		String target = U.or(uri.getRawPath(), "");
+		if (target.isEmpty()) target = "/";
+		if (uri.getRawQuery() != null) target += "?" + uri.getRawQuery();
+
+		HttpVerb verb = req.verb();
+
+		// the body is sent as it is, after the head
+		byte[] body = HttpClientUtil.hasBody(verb) ? HttpClientUtil.requestBody(req) : null;
+		byte[] head = head(req, verb, target, hostHeader, body);
+
+		boolean idempotent = verb != HttpVerb.POST && verb != HttpVerb.PATCH;
+
+		HttpClientExchange x = new HttpClientExchange(route(host, port), head, body, verb == HttpVerb.HEAD, idempotent,
+			req.connectTimeout(), req.socketTimeout(), req.connectionRequestTimeout(), callback, promise, listener);
+
+		ACTIVE.add(x);
+
+		try {
+			x.route.execute(x);
+		} catch (Throwable e) {
+			x.fail(e);
+		}
+	}
+
+	private HttpClientRoute route(String host, int port) {
+		String key = host + ":" + port;
+		HttpClientRoute route = routes.get(key);
+
+		if (route == null) {
+			route = new HttpClientRoute(this, host, port);
+			HttpClientRoute existing = routes.putIfAbsent(key, route);
+			if (existing != null) route = existing;
+		}
+
+		return route;
+	}
+
+	private byte[] head(HttpReq req, HttpVerb verb, String target, String hostHeader, byte[] body) {
+		Map<String, String> headers = U.safe(req.headers());
+		Map<String, String> cookies = U.safe(req.cookies());
+
+		StringBuilder head = new StringBuilder();
+
+		validate("request target", target);
+
+		head.append(verb.name()).append(' ').append(target).append(" HTTP/1.1\r\n");
+
+		if (!hasHeader(headers, "Host")) {
+			header(head, "Host", hostHeader);
+		}
+
+		if (!hasHeader(headers, "Connection")) {
+			header(head, "Connection", "keep-alive");
+		}
+
+		if (client.userAgent() != null && !hasHeader(headers, "User-Agent")) {
+			header(head, "User-Agent", client.userAgent());
+		}
+
+		for (Map.Entry<String, String> e : headers.entrySet()) {
+			String name = e.getKey();
+
+			// the body is sent as specified below
+			if (!name.equalsIgnoreCase("Content-Length") && !name.equalsIgnoreCase("Transfer-Encoding")) {
+				header(head, name, e.getValue());
+			}
+		}
+
+		if (!cookies.isEmpty()) {
+			header(head, "Cookie", HttpClientUtil.joinCookiesAsHeader(cookies));
+		}
+
+		if (body != null) {
+			String contentType = HttpClientUtil.requestContentType(req);
+
+			if (contentType != null && !hasHeader(headers, "Content-Type")) {
+				header(head, "Content-Type", contentType);
+			}
+
+			header(head, "Content-Length", String.valueOf(body.length));
+		}
+
+		head.append("\r\n");
+
+		return head.toString().getBytes(UTF_8);
+	}
+
+	private static boolean hasHeader(Map<String, String> headers, String name) {
+		for (String hdr : headers.keySet()) {
+			if (hdr.equalsIgnoreCase(name)) return true;
+		}
+
+		return false;
+	}
+
+	private static void header(StringBuilder head, String name, String value) {
+		validate("header name", name);
+		validate("header value", value);
+
+		head.append(name).append(": ").append(value).append("\r\n");
+	}
+
+	/**
+	 * Rejects the CR, LF and NUL characters, which would allow injection of headers or requests.
+	 */
+	private static void validate(String what, String s) {
+		if (s == null) return;
+
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+
+			if (c == '\r' || c == '\n' || c == '\0') {
+				throw U.illegal("Invalid character (code %s) in the HTTP %s: %s", (int) c, what, s);
+			}
+		}
+	}
+
+	static void finished(HttpClientExchange x) {
+		ACTIVE.remove(x);
+	}
+
+	TCPClient loops() {
+		return LOOPS.get();
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	boolean reuseConnections() {
+		return client.reuseConnections();
+	}
+
+	int maxConnPerRoute() {
+		return client.maxConnPerRoute();
+	}
+
+	int maxPipeline() {
+		return maxPipeline;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+
+		for (HttpClientRoute route : routes.values()) {
+			route.shutdown();
+		}
+
+		routes.clear();
+	}
+
+}
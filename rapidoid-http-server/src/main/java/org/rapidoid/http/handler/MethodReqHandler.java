@@ -2,7 +2,8 @@ package org.rapidoid.http.handler;
 
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.cls.Cls;
+import org.rapidoid.cls.Invokers;
+import org.rapidoid.cls.MethodInvoker;
 import org.rapidoid.http.FastHttp;
 import org.rapidoid.http.HttpRoutes;
 import org.rapidoid.http.Req;
@@ -11,7 +12,9 @@ import org.rapidoid.http.impl.RouteOptions;
 import org.rapidoid.net.abstracts.Channel;
 import org.rapidoid.u.U;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
 /*
  * #%L
@@ -39,14 +42,26 @@ public class MethodReqHandler extends NParamMethodHandler {
 
 	private final Object instance;
 
+	private final MethodInvoker invoker;
+
 	public MethodReqHandler(FastHttp http, HttpRoutes routes, RouteOptions options, Method method, Object instance) {
 		super(http, routes, options, method, null);
 		this.instance = instance;
+		this.invoker = Invokers.of(method);
 	}
 
 	@Override
 	protected Object handleReq(Channel channel, boolean isKeepAlive, Req req, Object extra) throws Exception {
-		Object result = Cls.invoke(method, instance, args(req));
+		Object[] args = args(req);
+		Object result;
+
+		try {
+			result = invoker.invoke(instance, args);
+
+		} catch (Throwable e) {
+			// the same wrapping as with the reflective invocation (through Cls.invoke)
+			throw U.rte("Cannot invoke method '%s' with args: %s", new InvocationTargetException(e), method.getName(), Arrays.toString(args));
+		}
 
 		if (method.getReturnType() == void.class) {
 			U.must(result == null);
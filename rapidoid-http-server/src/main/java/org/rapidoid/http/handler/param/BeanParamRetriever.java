@@ -3,8 +3,10 @@ package org.rapidoid.http.handler.param;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.http.BadRequest;
 import org.rapidoid.http.Req;
 import org.rapidoid.http.customize.Customization;
+import org.rapidoid.http.impl.ReqImpl;
 import org.rapidoid.u.U;
 
 /*
@@ -45,12 +47,17 @@ public class BeanParamRetriever extends RapidoidThing implements ParamRetriever
 
 	@Override
 	public Object getParamValue(Req req) {
-		Object bean;
+		// bind the JSON body directly if possible, to avoid the intermediate map of posted data
+		Object bean = req instanceof ReqImpl ? ((ReqImpl) req).bindJsonBody(type) : null;
 
-		try {
-			bean = customization.beanParameterFactory().getParamValue(req, type, name, req.data());
-		} catch (Exception e) {
-			throw U.rte(e);
+		if (bean == null) {
+			try {
+				bean = customization.beanParameterFactory().getParamValue(req, type, name, req.data());
+			} catch (IllegalArgumentException e) {
+				throw new BadRequest("Couldn't bind the request data to " + type.getSimpleName() + ": " + e.getMessage());
+			} catch (Exception e) {
+				throw U.rte(e);
+			}
 		}
 
 		if (validate) {
@@ -38,6 +38,8 @@ public abstract class AbstractReverseProxyBean<T> extends RapidoidThing {
 
 	private volatile int maxConnPerRoute = 100;
 
+	private volatile boolean streaming = false;
+
 	private final LazyInit<HttpClient> client = new LazyInit<HttpClient>(new Callable<HttpClient>() {
 		@Override
 		public HttpClient call() throws Exception {
@@ -79,6 +81,18 @@ public abstract class AbstractReverseProxyBean<T> extends RapidoidThing {
 		return me();
 	}
 
+	public boolean streaming() {
+		return streaming;
+	}
+
+	/**
+	 * Streams the upstream responses to the clients as they arrive, instead of buffering them.
+	 */
+	public T streaming(boolean streaming) {
+		this.streaming = streaming;
+		return me();
+	}
+
 	public HttpClient client() {
 		return client.getValue();
 	}
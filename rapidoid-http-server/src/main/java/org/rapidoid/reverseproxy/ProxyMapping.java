@@ -61,8 +61,14 @@ public class ProxyMapping extends RapidoidThing {
 	}
 
 	public String getTargetUrl(Req req) {
-		ProxyUpstream upstream = loadBalancer.pickUpstream(req, upstreams);
+		return getTargetUrl(req, pickUpstream(req));
+	}
+
+	public ProxyUpstream pickUpstream(Req req) {
+		return loadBalancer.pickUpstream(req, upstreams);
+	}
 
+	public String getTargetUrl(Req req, ProxyUpstream upstream) {
 		String trimmed = prefix.equals("/") ? req.uri() : Str.triml(req.uri(), prefix);
 
 		return upstream.url() + trimmed;
@@ -23,6 +23,8 @@ package org.rapidoid.reverseproxy;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.concurrent.ConcurrencyLimiter;
+import org.rapidoid.config.Conf;
 
 @Authors("Nikolche Mihajlovski")
 @Since("5.2.0")
@@ -30,11 +32,21 @@ public class ProxyUpstream extends RapidoidThing {
 
 	private final String url;
 
+	private final ConcurrencyLimiter limiter;
+
 	public ProxyUpstream(String url) {
 		this.url = url;
+		this.limiter = ConcurrencyLimiter.configured(url, Conf.HTTP.sub("proxyConcurrencyLimit"));
 	}
 
 	public String url() {
 		return url;
 	}
+
+	/**
+	 * Returns <code>null</code> if the concurrency limiting is not enabled.
+	 */
+	public ConcurrencyLimiter limiter() {
+		return limiter;
+	}
 }
@@ -3,8 +3,12 @@ package org.rapidoid.reverseproxy;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.concurrent.Callback;
+import org.rapidoid.concurrent.ConcurrencyLimiter;
+import org.rapidoid.concurrent.ConcurrencyPermit;
 import org.rapidoid.http.*;
+import org.rapidoid.http.client.RapidoidHttpClientEngine;
 import org.rapidoid.http.impl.HttpIO;
+import org.rapidoid.http.impl.ReqImpl;
 import org.rapidoid.log.LogLevel;
 import org.rapidoid.u.U;
 
@@ -46,48 +50,99 @@ public class ReverseProxy extends AbstractReverseProxyBean<ReverseProxy> impleme
 
 		req.async();
 
-		final String targetUrl = mapping.getTargetUrl(req);
+		ConcurrencyPermit permit = null;
 
-		Map<String, String> headers = req.headers();
-		headers.remove("transfer-encoding");
-		headers.remove("content-length");
+		try {
+			ProxyUpstream upstream = mapping.pickUpstream(req);
 
-		HttpClient client = getOrCreateClient();
+			final String targetUrl = mapping.getTargetUrl(req, upstream);
 
-		client.req()
-			.verb(req.verb())
-			.url(targetUrl)
-			.headers(headers)
-			.cookies(req.cookies())
-			.body(req.body())
-			.raw(true)
-			.execute(new Callback<HttpResp>() {
+			Map<String, String> headers = req.headers();
+			headers.remove("transfer-encoding");
+			headers.remove("content-length");
 
-				@Override
-				public void onDone(HttpResp result, Throwable error) {
-					if (error == null) {
+			HttpClient client = getOrCreateClient();
 
-						processResponseHeaders(result.headers(), resp);
+			HttpReq upstreamReq = client.req()
+				.verb(req.verb())
+				.url(targetUrl)
+				.headers(headers)
+				.cookies(req.cookies())
+				.body(req.body())
+				.raw(true);
 
-						resp.code(result.code());
-						resp.body(result.bodyBytes());
-						resp.done();
+			// the permit is acquired as late as possible, right before the request is sent to the upstream
+			ConcurrencyLimiter limiter = upstream.limiter();
 
-					} else {
+			if (limiter != null) {
+				permit = limiter.acquire();
 
-						if (error instanceof ConnectException) {
-							HttpIO.errorAndDone(req, U.rte("Couldn't connect to the upstream!", error), LogLevel.DEBUG);
-						} else {
-							HttpIO.errorAndDone(req, error, LogLevel.ERROR);
-						}
-					}
+				if (permit == null) {
+					HttpIO.errorAndDone(req, new ServiceUnavailable(), LogLevel.DEBUG);
+					return req;
 				}
+			}
 
-			});
+			send(req, resp, client, upstreamReq, permit);
+
+		} catch (Throwable e) {
+			// the permit is released only once, so it's safe to drop it even if the upstream call finished
+			if (permit != null) {
+				permit.drop();
+			}
+
+			HttpIO.errorAndDone(req, e, LogLevel.ERROR);
+		}
 
 		return req;
 	}
 
+	private void send(final Req req, final Resp resp, HttpClient client, HttpReq upstreamReq,
+	                  final ConcurrencyPermit permit) {
+
+		if (streaming() && req instanceof ReqImpl) {
+			HttpClientEngine engine = client.engine();
+
+			// only the native client can stream the responses (e.g. not over HTTPS)
+			if (engine instanceof RapidoidHttpClientEngine && engine.supports(upstreamReq)) {
+				((RapidoidHttpClientEngine) engine).stream(upstreamReq, new StreamedProxyResponse((ReqImpl) req, permit));
+				return;
+			}
+		}
+
+		upstreamReq.execute(new Callback<HttpResp>() {
+
+			@Override
+			public void onDone(HttpResp result, Throwable error) {
+				if (permit != null) {
+					if (error == null) {
+						permit.release();
+					} else {
+						permit.drop();
+					}
+				}
+
+				if (error == null) {
+
+					processResponseHeaders(result.headers(), resp);
+
+					resp.code(result.code());
+					resp.body(result.bodyBytes());
+					resp.done();
+
+				} else {
+
+					if (error instanceof ConnectException) {
+						HttpIO.errorAndDone(req, U.rte("Couldn't connect to the upstream!", error), LogLevel.DEBUG);
+					} else {
+						HttpIO.errorAndDone(req, error, LogLevel.ERROR);
+					}
+				}
+			}
+
+		});
+	}
+
 	protected ProxyMapping findMapping(Req req) {
 		for (ProxyMapping mapping : mappings) {
 			if (mapping.matches(req)) {
@@ -123,11 +178,14 @@ public class ReverseProxy extends AbstractReverseProxyBean<ReverseProxy> impleme
 
 	@Override
 	protected HttpClient createClient() {
-		return HTTP.client()
+		HttpClient client = HTTP.client()
 			.reuseConnections(reuseConnections())
 			.keepCookies(false)
 			.maxConnTotal(maxConnTotal())
 			.maxConnPerRoute(maxConnPerRoute());
+
+		// only the native client can stream the responses
+		return streaming() ? client.nativeEngine(true) : client;
 	}
 
 	public ReverseProxyMapDSL map(String uriPrefix) {
@@ -0,0 +1,173 @@
+package org.rapidoid.reverseproxy;
+
+/*
+ * #%L
+ * rapidoid-http-server
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.buffer.Buf;
+import org.rapidoid.bytes.Bytes;
+import org.rapidoid.bytes.BytesUtil;
+import org.rapidoid.concurrent.ConcurrencyPermit;
+import org.rapidoid.data.BufRange;
+import org.rapidoid.http.client.HttpResponseListener;
+import org.rapidoid.http.impl.HttpIO;
+import org.rapidoid.http.impl.HttpResponseRanges;
+import org.rapidoid.http.impl.ReqImpl;
+import org.rapidoid.log.LogLevel;
+import org.rapidoid.net.abstracts.Channel;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Constants;
+
+import java.net.ConnectException;
+
+/**
+ * Forwards the upstream response to the client as it arrives, in its original transfer encoding. Reading from the
+ * upstream is paused while too much output is waiting to be written to the client.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class StreamedProxyResponse extends RapidoidThing implements HttpResponseListener, Constants {
+
+	private static final int MAX_BUFFERED = 512 * 1024;
+
+	private static final byte[] CONNECTION = "Connection:".getBytes();
+
+	private static final byte[] KEEP_ALIVE = "Keep-Alive:".getBytes();
+
+	private static final byte[] CONN_KEEP_ALIVE = "Connection: keep-alive\r\n".getBytes();
+
+	private static final byte[] CONN_CLOSE = "Connection: close\r\n".getBytes();
+
+	private final ReqImpl req;
+
+	private final Channel channel;
+
+	private final ConcurrencyPermit permit;
+
+	private volatile boolean started;
+
+	StreamedProxyResponse(ReqImpl req, ConcurrencyPermit permit) {
+		this.req = req;
+		this.channel = req.channel();
+		this.permit = permit;
+	}
+
+	@Override
+	public boolean onHead(Buf buf, HttpResponseRanges resp) {
+		// if the body ends when the upstream connection is closed, it also ends by closing the client connection
+		boolean keepAlive = req.startRawResponse(!resp.untilClose);
+
+		Bytes bytes = buf.bytes();
+
+		// the channel is recycled after closing, when the request is stopped
+		synchronized (channel) {
+			if (req.isStopped()) return false;
+
+			started = true;
+			Buf out = channel.output();
+
+			buf.get(resp.statusLine, out);
+			out.append(CR_LF);
+
+			channel.write(keepAlive ? CONN_KEEP_ALIVE : CONN_CLOSE);
+
+			for (int i = 0; i < resp.headers.count; i++) {
+				BufRange hdr = resp.headers.ranges[i];
+
+				if (!BytesUtil.startsWith(bytes, hdr, CONNECTION, false)
+					&& !BytesUtil.startsWith(bytes, hdr, KEEP_ALIVE, false)) {
+
+					buf.get(hdr, out);
+					out.append(CR_LF);
+				}
+			}
+
+			out.append(CR_LF);
+		}
+
+		channel.send();
+		return true;
+	}
+
+	@Override
+	public boolean isReady(Runnable resume) {
+		synchronized (channel) {
+			if (req.isStopped() || channel.output().size() < MAX_BUFFERED) {
+				return true;
+			}
+		}
+
+		channel.onOutputDrained(resume);
+		return false;
+	}
+
+	@Override
+	public boolean onBody(Buf buf, BufRange data) {
+		synchronized (channel) {
+			if (req.isStopped()) return false;
+
+			buf.get(data, channel.output());
+		}
+
+		channel.send();
+		return true;
+	}
+
+	@Override
+	public void onDone() {
+		if (permit != null) {
+			permit.release();
+		}
+
+		req.done();
+	}
+
+	@Override
+	public void onError(Throwable error) {
+		if (permit != null) {
+			permit.drop();
+		}
+
+		if (req.isStopped()) {
+			// the client connection was closed
+			req.done();
+
+		} else if (!started) {
+			if (error instanceof ConnectException) {
+				HttpIO.errorAndDone(req, U.rte("Couldn't connect to the upstream!", error), LogLevel.DEBUG);
+			} else {
+				HttpIO.errorAndDone(req, error, LogLevel.ERROR);
+			}
+
+		} else {
+			// a part of the response was already sent, so the client can only see it was incomplete
+			synchronized (channel) {
+				if (!req.isStopped()) {
+					channel.close();
+				}
+			}
+
+			req.done();
+		}
+	}
+
+}
@@ -9,6 +9,7 @@ import org.rapidoid.http.Req;
 import org.rapidoid.http.customize.Customization;
 import org.rapidoid.http.customize.EntityManagerFactoryProvider;
 import org.rapidoid.http.customize.EntityManagerProvider;
+import org.rapidoid.jpa.JPAMetrics;
 import org.rapidoid.u.U;
 
 import javax.persistence.EntityManager;
@@ -45,10 +46,13 @@ public class CustomizableSetupAwarePersisterProvider extends RapidoidThing imple
 		Customization custom = Customization.of(req);
 
 		EntityManagerProvider entityManagerProvider = custom.entityManagerProvider();
+		long startedAt = System.nanoTime();
 
 		if (entityManagerProvider != null) {
 			try {
-				return (P) entityManagerProvider.getEntityManager(req);
+				EntityManager em = entityManagerProvider.getEntityManager(req);
+				JPAMetrics.record(JPAMetrics.Op.EM_CREATE, startedAt);
+				return (P) em;
 			} catch (Exception e) {
 				throw U.rte("Error occurred in the EntityManager provider!", e);
 			}
@@ -69,7 +73,9 @@ public class CustomizableSetupAwarePersisterProvider extends RapidoidThing imple
 		}
 
 		try {
-			return (P) emf.createEntityManager();
+			EntityManager em = emf.createEntityManager();
+			JPAMetrics.record(JPAMetrics.Op.EM_CREATE, startedAt);
+			return (P) em;
 		} catch (Exception e) {
 			throw U.rte("Error occurred while creating an EntityManager!", e);
 		}
@@ -402,4 +402,13 @@ public class OnRoute extends RapidoidThing {
 		return this;
 	}
 
+	public OnRoute nonBlocking(boolean nonBlocking) {
+		options.nonBlocking(nonBlocking);
+		return this;
+	}
+
+	public OnRoute nonBlocking() {
+		return nonBlocking(true);
+	}
+
 }
@@ -152,6 +152,8 @@ public class PojoHandlersSetup extends RapidoidThing {
 		Transaction transaction = method.getAnnotation(Transaction.class);
 		TransactionMode tx = transaction != null ? transaction.value() : null;
 
+		boolean nonBlocking = method.isAnnotationPresent(NonBlocking.class);
+
 		Set<String> rolesAllowed = Secure.getRolesAllowed(method);
 		String[] roles = U.arrayOf(String.class, rolesAllowed);
 
@@ -162,7 +164,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					OnRoute route = route(setup.page(path), tx).roles(roles);
+					OnRoute route = route(setup.page(path), tx, nonBlocking).roles(roles);
 
 					if (U.notEmpty(page.view())) {
 						route.view(page.view());
@@ -182,7 +184,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.get(path), tx).roles(roles).json(method, bean);
+					route(setup.get(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.GET, path);
 				}
@@ -191,7 +193,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.post(path), tx).roles(roles).json(method, bean);
+					route(setup.post(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.POST, path);
 				}
@@ -200,7 +202,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.put(path), tx).roles(roles).json(method, bean);
+					route(setup.put(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.PUT, path);
 				}
@@ -209,7 +211,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.delete(path), tx).roles(roles).json(method, bean);
+					route(setup.delete(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.DELETE, path);
 				}
@@ -218,7 +220,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.patch(path), tx).roles(roles).json(method, bean);
+					route(setup.patch(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.PATCH, path);
 				}
@@ -227,7 +229,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.options(path), tx).roles(roles).json(method, bean);
+					route(setup.options(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.OPTIONS, path);
 				}
@@ -236,7 +238,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.head(path), tx).roles(roles).json(method, bean);
+					route(setup.head(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.HEAD, path);
 				}
@@ -245,7 +247,7 @@ public class PojoHandlersSetup extends RapidoidThing {
 				String path = pathOf(method, ctxPath, uriOf(ann));
 
 				if (register) {
-					route(setup.trace(path), tx).roles(roles).json(method, bean);
+					route(setup.trace(path), tx, nonBlocking).roles(roles).json(method, bean);
 				} else {
 					setup.deregister(Constants.TRACE, path);
 				}
@@ -253,11 +255,15 @@ public class PojoHandlersSetup extends RapidoidThing {
 		}
 	}
 
-	private OnRoute route(OnRoute route, TransactionMode tx) {
+	private OnRoute route(OnRoute route, TransactionMode tx, boolean nonBlocking) {
 		if (tx != null) {
 			route.tx(tx);
 		}
 
+		if (nonBlocking) {
+			route.nonBlocking();
+		}
+
 		return route;
 	}
 
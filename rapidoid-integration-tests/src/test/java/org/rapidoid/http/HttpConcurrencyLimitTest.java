@@ -0,0 +1,157 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.concurrent.ConcurrencyLimiter;
+import org.rapidoid.config.Conf;
+import org.rapidoid.config.Config;
+import org.rapidoid.io.IO;
+import org.rapidoid.setup.On;
+import org.rapidoid.u.U;
+
+import java.io.OutputStream;
+import java.net.Socket;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class HttpConcurrencyLimitTest extends IsolatedIntegrationTest {
+
+	@Test(timeout = 20000)
+	public void testRejectingExcessRequests() throws Exception {
+		On.get("/slow").plain(() -> {
+			U.sleep(1000);
+			return "slow";
+		});
+
+		On.get("/fast").plain("fast");
+
+		Config limit = Conf.HTTP.sub("concurrencyLimit");
+		limit.set("enabled", true);
+		limit.set("initial", 1);
+		limit.set("min", 1);
+		limit.set("max", 1);
+
+		Thread slow = new Thread(() -> eq(get("/slow"), "slow"));
+		slow.start();
+
+		U.sleep(300);
+
+		isTrue(fetch("GET", "/fast").startsWith("HTTP/1.1 503 Service Unavailable"));
+
+		slow.join();
+
+		eq(get("/fast"), "fast");
+	}
+
+	@Test(timeout = 20000)
+	public void testReleasingOnClosedConnection() throws Exception {
+		On.get("/never").plain((Req req) -> {
+			req.async(); // never done
+			return req;
+		});
+
+		Conf.HTTP.sub("concurrencyLimit").set("enabled", true);
+
+		try (Socket socket = new Socket("localhost", 8888)) {
+			OutputStream out = socket.getOutputStream();
+			out.write("GET /never HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+			out.flush();
+
+			U.sleep(300);
+		}
+
+		ConcurrencyLimiter limiter = On.setup().http().concurrencyLimiter("main");
+
+		while (limiter.inFlight() > 0) {
+			U.sleep(10);
+		}
+
+		eq(limiter.inFlight(), 0);
+	}
+
+	@Test
+	public void testRejectionClosesNonKeepAliveConnections() throws Exception {
+		On.get("/slow").plain(() -> {
+			U.sleep(1000);
+			return "slow";
+		});
+
+		Config limit = Conf.HTTP.sub("concurrencyLimit");
+		limit.set("enabled", true);
+		limit.set("initial", 1);
+		limit.set("min", 1);
+		limit.set("max", 1);
+
+		Thread slow = new Thread(() -> eq(get("/slow"), "slow"));
+		slow.start();
+
+		U.sleep(300);
+
+		try (Socket socket = new Socket("localhost", 8888)) {
+			socket.getOutputStream().write("GET /slow HTTP/1.0\r\n\r\n".getBytes());
+
+			String resp = new String(IO.loadBytes(socket.getInputStream()));
+			isTrue(resp.startsWith("HTTP/1.1 503 Service Unavailable"));
+			isTrue(resp.contains("Connection: close"));
+		}
+
+		slow.join();
+	}
+
+	@Test
+	public void testReleasingTheProxyPermitOnInvalidRequests() throws Exception {
+		On.get("/upstream/x").plain("x");
+
+		Config limit = Conf.HTTP.sub("proxyConcurrencyLimit");
+		limit.set("enabled", true);
+		limit.set("initial", 1);
+		limit.set("min", 1);
+		limit.set("max", 1);
+
+		proxy("/proxy", "http://localhost:8888/upstream");
+
+		// the target URL can't be parsed by the HTTP client
+		for (int i = 0; i < 3; i++) {
+			isTrue(rawGet("/proxy/x?a=%zz").startsWith("HTTP/1.1 500 "));
+		}
+
+		eq(get("/proxy/x"), "x");
+	}
+
+	@Test
+	public void testNoLimitByDefault() {
+		On.get("/x").plain("x");
+
+		eq(get("/x"), "x");
+		isTrue(On.setup().http().concurrencyLimiter("main") == null);
+	}
+
+	private static String rawGet(String uri) throws Exception {
+		try (Socket socket = new Socket("localhost", 8888)) {
+			socket.getOutputStream().write(("GET " + uri + " HTTP/1.0\r\n\r\n").getBytes());
+			return new String(IO.loadBytes(socket.getInputStream()));
+		}
+	}
+
+}
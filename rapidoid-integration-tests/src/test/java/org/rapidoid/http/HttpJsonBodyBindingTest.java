@@ -0,0 +1,91 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.data.JSON;
+import org.rapidoid.setup.My;
+import org.rapidoid.setup.On;
+import org.rapidoid.u.U;
+
+import java.util.List;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class HttpJsonBodyBindingTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testBindingJsonBodyToBeanParam() {
+		On.post("/order").json((Order order) -> U.list(order.id, order.name, order.items));
+		On.post("/order2").json((Req req) -> {
+			Order order = req.data(Order.class);
+			return U.list(order.id, order.name, order.items, req.posted().get("name"));
+		});
+
+		Map<String, ?> order = U.map("name", "abc", "items", U.list("x", "y"));
+
+		eq(post("/order", order), "[0,\"abc\",[\"x\",\"y\"]]");
+		eq(post("/order2", order), "[0,\"abc\",[\"x\",\"y\"],\"abc\"]");
+
+		// the JSON data overrides the query parameters
+		eq(post("/order?id=123&name=x", order), "[123,\"abc\",[\"x\",\"y\"]]");
+	}
+
+	@Test
+	public void testFallbackToParsedData() {
+		On.post("/order").json((Order order) -> U.list(order.id, order.name));
+
+		// not a JSON object, so the query parameters are used
+		eq(post("/order?id=5&name=x", "[1, 2, 3]"), "[5,\"x\"]");
+
+		My.jsonRequestBodyParser((req, body) -> U.map("name", "custom"));
+		eq(post("/order?id=7", U.map("name", "abc")), "[7,\"custom\"]");
+	}
+
+	@Test
+	public void testBindingErrors() {
+		On.post("/order").json((Order order) -> U.list(order.id, order.name));
+
+		HttpResp resp = HTTP.post(localhost("/order")).body("{\"name\": ".getBytes()).execute();
+		eq(resp.code(), 400);
+
+		resp = HTTP.post(localhost("/order")).body("{\"id\": \"abc\"}".getBytes()).execute();
+		eq(resp.code(), 400);
+	}
+
+	private String post(String uri, Map<String, ?> data) {
+		return post(uri, JSON.stringify(data));
+	}
+
+	private String post(String uri, String json) {
+		return HTTP.post(localhost(uri)).body(json.getBytes()).fetch();
+	}
+
+	public static class Order {
+		public long id;
+		public String name;
+		public List<String> items;
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.GET;
+import org.rapidoid.annotation.NonBlocking;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.setup.App;
+import org.rapidoid.setup.On;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class HttpNonBlockingTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testNonBlockingHandlers() {
+		On.get("/inline").nonBlocking().plain(() -> threadName());
+		On.get("/dispatched").plain(() -> threadName());
+
+		On.get("/wrapped").nonBlocking()
+			.wrappers((req, next) -> next.invokeAndTransformResult(result -> "(" + result + ")"))
+			.plain(() -> threadName());
+
+		On.get("/secure").nonBlocking().roles("admin").plain(() -> "secret");
+
+		isTrue(get("/inline").startsWith("server"));
+		isTrue(get("/dispatched").startsWith("executor"));
+
+		String wrapped = get("/wrapped");
+		isTrue(wrapped.startsWith("(server") && wrapped.endsWith(")"));
+
+		isTrue(fetch("GET", "/secure").startsWith("HTTP/1.1 403"));
+	}
+
+	@Test
+	public void testNonBlockingControllerMethods() {
+		App.beans(new Object() {
+
+			@GET
+			@NonBlocking
+			public Object fast() {
+				return Current.request() != null ? threadName() : "no-request";
+			}
+
+			@GET
+			public Object slow() {
+				return threadName();
+			}
+		});
+
+		isTrue(get("/fast").startsWith("\"server"));
+		isTrue(get("/slow").startsWith("\"executor"));
+	}
+
+	private static String threadName() {
+		return Thread.currentThread().getName();
+	}
+
+}
@@ -0,0 +1,188 @@
+package org.rapidoid.http;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.buffer.Buf;
+import org.rapidoid.concurrent.Future;
+import org.rapidoid.config.Conf;
+import org.rapidoid.data.BufRange;
+import org.rapidoid.http.client.HttpResponseListener;
+import org.rapidoid.http.client.RapidoidHttpClientEngine;
+import org.rapidoid.http.impl.HttpResponseRanges;
+import org.rapidoid.setup.On;
+import org.rapidoid.u.U;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class NativeHttpClientTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testKeepAliveConnections() {
+		On.get("/conn").plain((Req req) -> req.connectionId());
+
+		HttpClient client = HTTP.client().nativeEngine(true).reuseConnections(true).maxConnPerRoute(1);
+
+		String conn = client.get(localhost("/conn")).fetch();
+
+		for (int i = 0; i < 10; i++) {
+			eq(client.get(localhost("/conn")).fetch(), conn);
+		}
+
+		client.close();
+	}
+
+	@Test
+	public void testPipelining() {
+		Conf.HTTP.sub("client").set("maxPipeline", 4);
+
+		// the server processes the pipelined requests in order only for the non-blocking handlers
+		On.get("/echo").nonBlocking().plain((Req req) -> req.param("x") + ":" + req.connectionId());
+
+		HttpClient client = HTTP.client().nativeEngine(true).reuseConnections(true).maxConnPerRoute(2);
+
+		List<Future<HttpResp>> responses = U.list();
+
+		for (int i = 0; i < 100; i++) {
+			responses.add(client.get(localhost("/echo?x=" + i)).execute(null));
+		}
+
+		Set<String> connections = U.set();
+
+		for (int i = 0; i < responses.size(); i++) {
+			String[] parts = responses.get(i).get().body().split(":");
+			eq(parts[0], "" + i);
+			connections.add(parts[1]);
+		}
+
+		isTrue(connections.size() <= 2);
+
+		client.close();
+	}
+
+	@Test
+	public void testRequestBodies() {
+		On.post("/body").plain((Req req) -> req.verb() + ":" + new String(req.body()));
+		On.put("/data").plain((Req req) -> req.verb() + ":" + req.data("a") + req.data("b"));
+		On.req((Req req) -> req.verb() + ":" + req.path());
+
+		HttpClient client = HTTP.client().nativeEngine(true).reuseConnections(true);
+
+		eq(client.post(localhost("/body")).body("hello".getBytes()).fetch(), "POST:hello");
+		eq(client.put(localhost("/data")).data("a", "x").data("b", 123).fetch(), "PUT:x123");
+		eq(client.delete(localhost("/foo")).fetch(), "DELETE:/foo");
+
+		HttpResp head = client.head(localhost("/bar")).execute();
+		eq(head.code(), 200);
+		eq(head.body(), "");
+
+		eq(client.get(localhost("/after-head")).fetch(), "GET:/after-head");
+
+		client.close();
+	}
+
+	@Test
+	public void testHeaderInjection() {
+		On.get("/hdr").plain((Req req) -> req.header("X-Foo", ""));
+
+		HttpClient client = HTTP.client().nativeEngine(true);
+
+		eq(client.get(localhost("/hdr")).header("X-Foo", "bar").fetch(), "bar");
+
+		for (String value : U.list("a\r\nX-Bar: b", "a\nb", "a\0b")) {
+			try {
+				client.get(localhost("/hdr")).header("X-Foo", value).execute();
+				fail("Expected invalid header value!");
+			} catch (IllegalArgumentException e) {
+				// rejected
+			}
+		}
+
+		try {
+			client.get(localhost("/hdr")).header("X-Foo\r\nX-Bar", "b").execute();
+			fail("Expected invalid header name!");
+		} catch (IllegalArgumentException e) {
+			// rejected
+		}
+
+		client.close();
+	}
+
+	@Test
+	public void testConnectionFailure() {
+		HttpClient client = HTTP.client().nativeEngine(true);
+
+		try {
+			client.get("http://localhost:9999/").execute();
+			fail("Expected connection failure!");
+		} catch (Exception e) {
+			// nothing is listening on the port
+		}
+
+		client.close();
+	}
+
+	@Test
+	public void testStreamingInvalidRequests() {
+		HttpClient client = HTTP.client().nativeEngine(true);
+		RapidoidHttpClientEngine engine = (RapidoidHttpClientEngine) client.engine();
+
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+
+		// the listener is notified instead of throwing the error
+		engine.stream(client.get(localhost("/x?a=%zz")), new HttpResponseListener() {
+			@Override
+			public boolean onHead(Buf buf, HttpResponseRanges resp) {
+				return true;
+			}
+
+			@Override
+			public boolean isReady(Runnable resume) {
+				return true;
+			}
+
+			@Override
+			public boolean onBody(Buf buf, BufRange data) {
+				return true;
+			}
+
+			@Override
+			public void onDone() {
+			}
+
+			@Override
+			public void onError(Throwable e) {
+				error.set(e);
+			}
+		});
+
+		isTrue(error.get() instanceof IllegalArgumentException);
+
+		client.close();
+	}
+
+}
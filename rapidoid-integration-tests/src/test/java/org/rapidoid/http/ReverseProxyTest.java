@@ -23,6 +23,8 @@ package org.rapidoid.http;
 import org.junit.Test;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.commons.Str;
+import org.rapidoid.reverseproxy.Reverse;
 import org.rapidoid.setup.On;
 
 @Authors("Nikolche Mihajlovski")
@@ -50,4 +52,29 @@ public class ReverseProxyTest extends IsolatedIntegrationTest {
 		getReq("/hi");
 	}
 
+	@Test
+	public void testStreaming() {
+		String big = Str.mul("0123456789", 300000);
+		byte[] chunked = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n5\r\ndefgh\r\n0\r\n\r\n".getBytes();
+
+		On.get("/upstream/big").plain(big);
+		On.get("/upstream/chunked").plain((Req req) -> req.response().raw(chunked));
+		On.post("/upstream/echo").plain((Req req) -> new String(req.body()));
+
+		Reverse.proxy().streaming(true);
+		proxy("/stream", "http://localhost:8888/upstream");
+
+		HttpClient client = HTTP.client().reuseConnections(true);
+
+		for (int i = 0; i < 3; i++) {
+			eq(client.get(localhost("/stream/big")).fetch(), big);
+			eq(client.get(localhost("/stream/chunked")).fetch(), "abcdefgh");
+			eq(client.post(localhost("/stream/echo")).body(("hello" + i).getBytes()).fetch(), "hello" + i);
+		}
+
+		eq(client.get(localhost("/stream/missing")).execute().code(), 404);
+
+		client.close();
+	}
+
 }
@@ -0,0 +1,64 @@
+package org.rapidoid.jdbc;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.http.HTTP;
+import org.rapidoid.http.IsolatedIntegrationTest;
+import org.rapidoid.setup.On;
+import org.rapidoid.sql.JDBC;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JDBCAsyncTest extends IsolatedIntegrationTest {
+
+	@Test(timeout = 30000)
+	public void testAsyncHandlerWithJDBC() {
+		JDBC.h2("asyncweb").pooled();
+
+		JDBC.execute("create table nums (id int, name varchar)");
+		JDBC.execute("insert into nums values (?, ?)", 1, "one");
+		JDBC.execute("insert into nums values (?, ?)", 2, "two");
+
+		On.get("/nums").json(req -> {
+			req.async();
+
+			JDBC.queryAsync((rows, err) -> {
+				if (err == null) {
+					req.response().result(rows);
+				} else {
+					req.response().result(err);
+				}
+
+				req.done();
+
+			}, "select id, name from nums where id >= ? order by id", req.param("from"));
+
+			return req;
+		});
+
+		eq(HTTP.get("http://localhost:8888/nums?from=1").fetch(), "[{\"ID\":1,\"NAME\":\"one\"},{\"ID\":2,\"NAME\":\"two\"}]");
+		eq(HTTP.get("http://localhost:8888/nums?from=2").fetch(), "[{\"ID\":2,\"NAME\":\"two\"}]");
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.rapidoid.jdbc;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Conf;
+import org.rapidoid.http.IsolatedIntegrationTest;
+import org.rapidoid.sql.JDBC;
+import org.rapidoid.sql.RapidoidConnectionPool;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JDBCPoolTest extends IsolatedIntegrationTest {
+
+	@Test(timeout = 30000)
+	public void testJDBCPool() {
+
+		RapidoidConnectionPool pool = new RapidoidConnectionPool(JDBC.h2("pooltest"));
+
+		// validate default config
+		eq(pool.maxSize(), 32);
+		eq(pool.minIdle(), 2);
+		eq(pool.connectionTimeout(), 30000L);
+		eq(pool.leakDetectionThreshold(), 0L);
+
+		JDBC.execute("create table abc (id int, name varchar)");
+		JDBC.execute("insert into abc values (?, ?)", 123, "xyz");
+
+		final Map<String, ?> expected = U.map("id", 123, "name", "xyz");
+
+		Msc.benchmarkMT(100, "select", 100000, () -> {
+			Map<String, Object> record = U.single(JDBC.query("select id, name from abc"));
+			record = Msc.lowercase(record);
+			eq(record, expected);
+		});
+
+		isTrue(pool.size() <= 32);
+		eq(pool.active(), 0);
+		eq(pool.timeouts(), 0L);
+
+		pool.shutdown();
+	}
+
+	@Test(timeout = 30000)
+	public void testJDBCPoolWithTextConfig() {
+		JDBC.reset();
+
+		Conf.JDBC.set("url", "jdbc:h2:mem:pooldb");
+		Conf.JDBC.set("username", "sa");
+		Conf.JDBC.sub("pool").set("type", "rapidoid");
+		Conf.JDBC.sub("pool").set("maxSize", "5");
+
+		JDBC.defaultApi().pooled();
+
+		RapidoidConnectionPool pool = (RapidoidConnectionPool) JDBC.defaultApi().pool();
+
+		eq(pool.minIdle(), 2);
+		eq(pool.maxSize(), 5);
+
+		JDBC.execute("create table abc (id int, name varchar)");
+		JDBC.execute("insert into abc values (?, ?)", 123, "xyz");
+
+		final Map<String, ?> expected = U.map("id", 123, "name", "xyz");
+
+		Msc.benchmarkMT(100, "select", 100000, () -> {
+			Map<String, Object> record = U.single(JDBC.query("select id, name from abc"));
+			record = Msc.lowercase(record);
+			eq(record, expected);
+		});
+
+		isTrue(pool.created() <= 5);
+
+		pool.shutdown();
+	}
+
+}
@@ -0,0 +1,71 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+@Entity
+@Table(indexes = {@Index(columnList = "name"), @Index(columnList = "nickname")})
+public class Author extends AbstractEntity {
+
+	@Column(nullable = false)
+	private String name;
+
+	private String nickname;
+
+	private int books;
+
+	public Author() {
+	}
+
+	public Author(String name, int books) {
+		this.name = name;
+		this.books = books;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getNickname() {
+		return nickname;
+	}
+
+	public void setNickname(String nickname) {
+		this.nickname = nickname;
+	}
+
+	public int getBooks() {
+		return books;
+	}
+
+	public void setBooks(int books) {
+		this.books = books;
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Conf;
+import org.rapidoid.http.IsolatedIntegrationTest;
+import org.rapidoid.job.Jobs;
+import org.rapidoid.u.U;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPABulkTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testBulkOperations() {
+		JPA.bootstrap(path());
+
+		eq(JPA.provideEmf().getProperties().get(AvailableSettings.STATEMENT_BATCH_SIZE), "50");
+
+		List<Book> books = U.list();
+		for (int i = 0; i < 120; i++) {
+			books.add(new Book("b" + i));
+		}
+
+		List<Book> inserted = JPA.insertAll(books);
+		eq(inserted.size(), 120);
+		eq(JPA.count(Book.class), 120);
+
+		for (Book book : inserted) {
+			notNull(book.getId());
+			book.setTitle(book.getTitle().toUpperCase());
+		}
+
+		eq(JPA.updateAll(inserted).size(), 120);
+		eq(JPA.jpql("select count(b) from Book b where b.title like 'B%'").<Long>getSingleResult().longValue(), 120);
+
+		JPA.deleteAll(inserted.subList(0, 70));
+		eq(JPA.count(Book.class), 50);
+
+		CriteriaBuilder cb = JPA.provideEmf().getCriteriaBuilder();
+
+		CriteriaDelete<Book> delete = cb.createCriteriaDelete(Book.class);
+		Root<Book> deleteRoot = delete.from(Book.class);
+		delete.where(cb.like(deleteRoot.<String>get("title"), "B11%"));
+		eq(JPA.delete(delete), 10);
+		eq(JPA.count(Book.class), 40);
+
+		CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+		Root<Book> updateRoot = update.from(Book.class);
+		update.set(updateRoot.<String>get("title"), "x");
+		eq(JPA.update(update), 40);
+		eq(JPA.jpql("select distinct b.title from Book b").all(), U.list("x"));
+
+		DAO<Book> dao = new DAO<Book>(Book.class) {
+		};
+
+		eq(dao.deleteAll(), 40);
+		eq(dao.insertAll(U.list(new Book("a"), new Book("b"))).size(), 2);
+		eq(dao.all().size(), 2);
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	@Test
+	public void testBulkOperationsInvalidateCache() {
+		Conf.JPA.sub("cache").set("enabled", true);
+		JPA.bootstrap(path());
+		JPACache.shared().clear();
+
+		JPA.insertAll(U.list(new Country("a"), new Country("b")));
+		eq(JPA.of(Country.class).all().size(), 2);
+
+		JPA.insertAll(U.list(new Country("c")));
+		List<Country> all = JPA.of(Country.class).all();
+		eq(all.size(), 3);
+
+		Country a = JPA.get(Country.class, all.get(0).getId());
+		JPA.deleteAll(Country.class);
+
+		isNull(JPA.getIfExists(Country.class, a.getId()));
+		eq(JPA.of(Country.class).all().size(), 0);
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	@Test
+	public void testBulkInsertKeepsCallerEntitiesManaged() {
+		JPA.bootstrap(path());
+
+		final Book first = JPA.insert(new Book("first"));
+
+		JPA.transaction(new Runnable() {
+			@Override
+			public void run() {
+				Book managed = JPA.em().find(Book.class, first.getId());
+
+				List<Book> books = U.list();
+				for (int i = 0; i < 60; i++) {
+					books.add(new Book("b" + i));
+				}
+
+				JPA.insertAll(books);
+
+				isTrue(JPA.em().contains(managed));
+				isFalse(JPA.em().contains(books.get(0)));
+
+				// changed after the batch was flushed
+				managed.setTitle("changed");
+			}
+		});
+
+		eq(JPA.get(Book.class, first.getId()).getTitle(), "changed");
+		eq(JPA.count(Book.class), 61);
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+}
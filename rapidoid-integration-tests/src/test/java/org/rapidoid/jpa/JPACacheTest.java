@@ -0,0 +1,235 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Conf;
+import org.rapidoid.fluent.Do;
+import org.rapidoid.http.IsolatedIntegrationTest;
+import org.rapidoid.job.Jobs;
+import org.rapidoid.u.U;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPACacheTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testEntityCache() {
+		Conf.JPA.sub("cache").set("enabled", true);
+		JPA.bootstrap(path());
+
+		JPACache cache = JPACache.shared();
+		cache.clear();
+
+		Country mk = JPA.insert(new Country("Macedonia"));
+		Book book = JPA.insert(new Book("book 1"));
+
+		long hits = cache.entityHits();
+
+		eq(JPA.get(Country.class, mk.getId()).getName(), "Macedonia");
+		eq(cache.entityHits(), hits);
+
+		eq(JPA.get(Country.class, mk.getId()).getName(), "Macedonia");
+		eq(cache.entityHits(), hits + 1);
+		isTrue(JPA.get(Country.class, mk.getId()) == JPA.get(Country.class, mk.getId()));
+
+		// the non-cacheable entities aren't cached
+		int count = cache.entityCount();
+		eq(JPA.get(Book.class, book.getId()).getTitle(), "book 1");
+		eq(cache.entityCount(), count);
+
+		// write-through invalidation
+		Country country = JPA.get(Country.class, mk.getId());
+		country.setName("North Macedonia");
+		JPA.update(country);
+
+		eq(JPA.get(Country.class, mk.getId()).getName(), "North Macedonia");
+
+		JPA.delete(Country.class, mk.getId());
+		isNull(JPA.getIfExists(Country.class, mk.getId()));
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	@Test
+	public void testCachedQueries() {
+		Conf.JPA.sub("cache").set("enabled", true);
+		JPA.bootstrap(path());
+
+		JPACache cache = JPACache.shared();
+		cache.clear();
+
+		JPA.insert(new Country("a"));
+		JPA.insert(new Country("b"));
+
+		eq(names(JPA.of(Country.class).all()), U.list("a", "b"));
+
+		long hits = cache.queryHits();
+		eq(names(JPA.of(Country.class).all()), U.list("a", "b"));
+		eq(cache.queryHits(), hits + 1);
+
+		eq(names(JPA.of(Country.class).page(1, 1)), U.list("b"));
+
+		// the cached query results are invalidated on insert
+		JPA.insert(new Country("c"));
+		eq(names(JPA.of(Country.class).all()), U.list("a", "b", "c"));
+
+		JPQL byName = JPA.jpql("select name from Country where name > ?1 order by name").cached();
+
+		eq(byName.bind("a").all(), U.list("b", "c"));
+
+		hits = cache.queryHits();
+		eq(byName.bind("a").all(), U.list("b", "c"));
+		eq(cache.queryHits(), hits + 1);
+
+		// different arguments
+		eq(byName.bind("b").all(), U.list("c"));
+
+		// bulk updates invalidate the cached results
+		JPA.transaction(() -> JPA.jpql("update Country set name = 'x' where name = 'c'").execute());
+		eq(byName.bind("a").all(), U.list("b", "x"));
+
+		// the cache is bypassed inside a transaction
+		JPA.transaction(() -> {
+			long queryHits = cache.queryHits();
+			eq(names(JPA.of(Country.class).all()), U.list("a", "b", "x"));
+			eq(cache.queryHits(), queryHits);
+		});
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	@Test
+	public void testNavigatedEntitiesInCachedQueries() {
+		Conf.JPA.sub("cache").set("enabled", true);
+		JPA.bootstrap(path());
+
+		JPACache.shared().clear();
+
+		Country mk = JPA.insert(new Country("Macedonia"));
+		JPA.insert(new City("Skopje", mk));
+
+		// the country is reached only through the association
+		JPQL cities = JPA.jpql("select c.name from City c where c.country.name = ?1").cached();
+		eq(cities.bind("Macedonia").all(), U.list("Skopje"));
+
+		Country country = JPA.get(Country.class, mk.getId());
+		country.setName("North Macedonia");
+		JPA.update(country);
+
+		eq(cities.bind("Macedonia").all(), U.list());
+		eq(cities.bind("North Macedonia").all(), U.list("Skopje"));
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	@Test
+	public void testInvalidationAfterCommit() throws Exception {
+		Conf.JPA.sub("cache").set("enabled", true);
+		JPA.bootstrap(path());
+
+		JPACache.shared().clear();
+
+		Country mk = JPA.insert(new Country("Macedonia"));
+		long id = mk.getId();
+
+		AtomicReference<String> cachedName = new AtomicReference<>();
+
+		JPA.transaction(() -> {
+			Country country = JPA.get(Country.class, id);
+			country.setName("North Macedonia");
+			JPA.update(country);
+
+			// another thread caches the committed state, before the commit
+			Thread reader = new Thread(() -> cachedName.set(JPA.get(Country.class, id).getName()));
+			reader.start();
+
+			try {
+				reader.join();
+			} catch (InterruptedException e) {
+				throw U.rte(e);
+			}
+		});
+
+		eq(cachedName.get(), "Macedonia");
+
+		eq(JPA.get(Country.class, id).getName(), "North Macedonia");
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		JPA.bootstrap(path());
+
+		isNull(JPACache.shared());
+
+		Country mk = JPA.insert(new Country("Macedonia"));
+		isTrue(JPA.get(Country.class, mk.getId()) != JPA.get(Country.class, mk.getId()));
+	}
+
+	@Test
+	public void testCacheRegion() {
+		CacheRegion region = new CacheRegion(2, 100);
+
+		region.put("a", 1, U.set("X"), region.generation());
+		region.put("b", 2, U.set("Y"), region.generation());
+		region.put("c", 3, null, region.generation());
+
+		eq(region.size(), 2);
+
+		region.put("b", 2, U.set("Y"), region.generation());
+		region.invalidateTagged("Y");
+		isNull(region.get("b"));
+
+		U.sleep(150);
+		isNull(region.get("a"));
+		isNull(region.get("c"));
+
+		// LRU eviction
+		region = new CacheRegion(2, 10000);
+
+		region.put("a", 1, null, region.generation());
+		region.put("b", 2, null, region.generation());
+		eq(region.get("a"), 1);
+		region.put("c", 3, null, region.generation());
+
+		eq(region.get("a"), 1);
+		isNull(region.get("b"));
+		eq(region.get("c"), 3);
+
+		// the values loaded before an invalidation aren't cached after it
+		long generation = region.generation();
+		region.invalidate("x");
+		region.put("d", 4, null, generation);
+		isNull(region.get("d"));
+	}
+
+	private static List<String> names(List<Country> countries) {
+		return Do.map(countries).to(Country::getName);
+	}
+
+}
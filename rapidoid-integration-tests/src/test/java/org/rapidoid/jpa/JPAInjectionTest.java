@@ -109,7 +109,8 @@ class MyCtrl {
 	public Object del2(long id, Req req) {
 		checkInjected();
 
-		U.must(em.getTransaction().getRollbackOnly() == HttpUtils.isGetReq(req));
+		// the GET requests take the read-only fast path, without a transaction
+		U.must(em.getTransaction().isActive() != HttpUtils.isGetReq(req));
 
 		JPA.delete(Book.class, id);
 
@@ -0,0 +1,158 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Conf;
+import org.rapidoid.config.Config;
+import org.rapidoid.ctx.Ctx;
+import org.rapidoid.ctx.Ctxs;
+import org.rapidoid.ctx.PersisterProvider;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Compares offset paging with keyset paging, deep into a large H2 table.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPAKeysetPagingPerfTest {
+
+	private static final int ROWS = 200000;
+
+	private static final int PAGE_SIZE = 20;
+
+	private static final int OFFSET = ROWS - 1000;
+
+	private static final int COUNT = 200;
+
+	public static void main(String[] args) {
+		Conf.HIBERNATE.set("dialect", "org.hibernate.dialect.H2Dialect");
+		Conf.HIBERNATE.sub("hbm2ddl").set("auto", "create-drop");
+
+		Config conn = Conf.HIBERNATE.sub("connection");
+		conn.set("driver_class", "org.h2.Driver");
+		// without H2's query result cache, which would serve the same page again
+		conn.set("url", "jdbc:h2:mem:keysetperf;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0");
+		conn.set("username", "sa");
+		conn.set("password", "");
+
+		JPA.bootstrap(new String[]{Author.class.getPackage().getName()});
+
+		Ctxs.setPersisterProvider(new PersisterProvider() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public EntityManager openPersister(Ctx ctx) {
+				return JPA.provideEmf().createEntityManager();
+			}
+
+			@Override
+			public void closePersister(Ctx ctx, Object persister) {
+				((EntityManager) persister).close();
+			}
+		});
+
+		for (int i = 0; i < ROWS; i += 10000) {
+			final int from = i;
+
+			JPA.transaction(new Runnable() {
+				@Override
+				public void run() {
+					EntityManager em = JPA.em();
+
+					for (int j = from; j < from + 10000; j++) {
+						em.persist(new Author("author" + (j * 7919 % ROWS), j));
+					}
+				}
+			});
+		}
+
+		Ctxs.open("benchmark");
+
+		try {
+			final Entities<Author> authors = JPA.of(Author.class);
+
+			final JPQL byName = JPA.jpql("select a from Author a order by a.name, a.id");
+			final JPQL byId = JPA.jpql("select a from Author a order by a.id");
+
+			List<Author> prev = byName.page(OFFSET - 1, 1);
+			final List<?> nameKey = authors.keyOf(prev.get(0), "name");
+
+			prev = byId.page(OFFSET - 1, 1);
+			final List<?> idKey = authors.keyOf(prev.get(0), "id");
+
+			U.must(ids(byName.<Author>page(OFFSET, PAGE_SIZE)).equals(ids(authors.pageAfter("name", nameKey, PAGE_SIZE))));
+			U.must(ids(byId.<Author>page(OFFSET, PAGE_SIZE)).equals(ids(authors.pageAfter("id", idKey, PAGE_SIZE))));
+
+			for (int round = 0; round < 3; round++) {
+				Msc.benchmark("offset paging by ID", COUNT, new Runnable() {
+					@Override
+					public void run() {
+						U.must(byId.page(OFFSET, PAGE_SIZE).size() == PAGE_SIZE);
+						JPA.em().clear();
+					}
+				});
+
+				Msc.benchmark("keyset paging by ID", COUNT, new Runnable() {
+					@Override
+					public void run() {
+						U.must(authors.pageAfter("id", idKey, PAGE_SIZE).size() == PAGE_SIZE);
+						JPA.em().clear();
+					}
+				});
+
+				Msc.benchmark("offset paging by name", COUNT, new Runnable() {
+					@Override
+					public void run() {
+						U.must(byName.page(OFFSET, PAGE_SIZE).size() == PAGE_SIZE);
+						JPA.em().clear();
+					}
+				});
+
+				Msc.benchmark("keyset paging by name", COUNT, new Runnable() {
+					@Override
+					public void run() {
+						U.must(authors.pageAfter("name", nameKey, PAGE_SIZE).size() == PAGE_SIZE);
+						JPA.em().clear();
+					}
+				});
+			}
+
+		} finally {
+			Ctxs.close();
+		}
+	}
+
+	private static List<Long> ids(List<Author> authors) {
+		List<Long> ids = U.list();
+
+		for (Author author : authors) {
+			ids.add(author.getId());
+		}
+
+		return ids;
+	}
+
+}
@@ -0,0 +1,159 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.http.IsolatedIntegrationTest;
+import org.rapidoid.job.Jobs;
+import org.rapidoid.u.U;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collections;
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPAKeysetPagingTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testKeysetPaging() {
+		JPA.bootstrap(path());
+
+		int total = 25;
+
+		JPA.transaction(() -> {
+			for (int i = 0; i < total; i++) {
+				// many authors with the same name, to test the ties
+				JPA.insert(new Author("a" + (i * 7 % 10), i));
+			}
+		});
+
+		JPA.transaction(() -> {
+			Entities<Author> authors = JPA.of(Author.class);
+
+			isTrue(authors.isSeekable("id"));
+			isTrue(authors.isSeekable("-id"));
+			isTrue(authors.isSeekable("name"));
+			isTrue(authors.isSeekable("-name"));
+
+			// not indexed
+			isFalse(authors.isSeekable("books"));
+			isFalse(authors.isSeekable("nonexisting"));
+
+			// indexed, but nullable
+			isFalse(authors.isSeekable("nickname"));
+
+			CriteriaQuery<Author> criteria = JPA.em().getCriteriaBuilder().createQuery(Author.class);
+			criteria.from(Author.class);
+			isFalse(JPA.find(criteria).isSeekable("id"));
+
+			List<Author> byName = U.list(authors.all());
+			Collections.sort(byName, (a, b) -> {
+				int cmp = a.getName().compareTo(b.getName());
+				return cmp != 0 ? cmp : a.getId().compareTo(b.getId());
+			});
+
+			List<Long> byId = ids(authors.all());
+			Collections.sort(byId);
+
+			eq(seekAll(authors, "id"), byId);
+
+			Collections.reverse(byId);
+			eq(seekAll(authors, "-id"), byId);
+			eq(seekAll(authors, "name"), ids(byName));
+
+			Collections.reverse(byName);
+			eq(seekAll(authors, "-name"), ids(byName));
+
+			// backwards from the last item, in the reversed ordering
+			List<Author> page = authors.pageAfter("name", null, 6);
+			List<?> lastKey = authors.keyOf(page.get(5), "name");
+			eq(ids(authors.pageAfter("-name", lastKey, 3)), U.list(page.get(4).getId(), page.get(3).getId(), page.get(2).getId()));
+
+			// the page by offset, e.g. without a key
+			eq(ids(authors.pageAt("name", 2, 3)), ids(page.subList(2, 5)));
+
+			// the restrictions of the query are kept
+			CriteriaBuilder cb = JPA.em().getCriteriaBuilder();
+			CriteriaQuery<Author> manyBooks = cb.createQuery(Author.class);
+			Root<Author> root = manyBooks.from(Author.class);
+			manyBooks.where(cb.greaterThanOrEqualTo(root.<Integer>get("books"), 10));
+
+			Entities<Author> prolific = new JPACriteriaQueryEntities<>(Author.class, manyBooks);
+
+			List<Long> prolificIds = U.list();
+			for (Author author : authors.all()) {
+				if (author.getBooks() >= 10) prolificIds.add(author.getId());
+			}
+
+			Predicate restriction = manyBooks.getRestriction();
+
+			Collections.sort(prolificIds);
+			eq(seekAll(prolific, "id"), prolificIds);
+			eq(prolific.all().size(), prolificIds.size());
+
+			// the shared query isn't modified by the seeking
+			isTrue(manyBooks.getRestriction() == restriction);
+			isTrue(manyBooks.getOrderList().isEmpty());
+
+			// the keys that don't match the ordering are rejected
+			isTrue(authors.isValidKey("name", U.list("abc", 1)));
+			isFalse(authors.isValidKey("name", U.list("abc")));
+			isFalse(authors.isValidKey("name", U.list("abc", "not-a-number")));
+			isTrue(authors.isValidKey("id", U.list(1)));
+			isFalse(authors.isValidKey("id", U.list(1, 2)));
+		});
+
+		eq(Jobs.errorCounter().get(), 0);
+	}
+
+	private static List<Long> seekAll(Entities<Author> authors, String orderBy) {
+		List<Long> ids = U.list();
+		List<?> key = null;
+
+		while (true) {
+			List<Author> page = authors.pageAfter(orderBy, key, 4);
+
+			if (page.isEmpty()) {
+				return ids;
+			}
+
+			ids.addAll(ids(page));
+			key = authors.keyOf(page.get(page.size() - 1), orderBy);
+		}
+	}
+
+	private static List<Long> ids(List<Author> authors) {
+		List<Long> ids = U.list();
+
+		for (Author author : authors) {
+			ids.add(author.getId());
+		}
+
+		return ids;
+	}
+
+}
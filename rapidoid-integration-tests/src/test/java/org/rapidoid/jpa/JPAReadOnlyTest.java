@@ -0,0 +1,92 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-integration-tests
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.http.HTTP;
+import org.rapidoid.http.IsolatedIntegrationTest;
+import org.rapidoid.setup.On;
+import org.rapidoid.u.U;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPAReadOnlyTest extends IsolatedIntegrationTest {
+
+	@Test
+	public void testReadOnlyFastPath() {
+		JPA.bootstrap(path());
+
+		Book book = JPA.insert(new Book("b1"));
+
+		JPA.readOnly(() -> {
+			isFalse(JPA.em().getTransaction().isActive());
+
+			Book b = JPA.get(Book.class, book.getId());
+			b.setTitle("changed");
+
+			try {
+				JPA.insert(new Book("b2"));
+				fail("Expected an error!");
+			} catch (IllegalArgumentException e) {
+				eq(e.getMessage(), "Cannot perform writes inside read-only transaction!");
+			}
+		});
+
+		eq(JPA.get(Book.class, book.getId()).getTitle(), "b1");
+		eq(JPA.count(Book.class), 1);
+	}
+
+	@Test
+	public void testReadOnlyGetRequests() {
+		JPA.bootstrap(path());
+
+		JPA.insert(new Book("b1"));
+
+		long transactions = JPAMetrics.count(JPAMetrics.Op.TX_BEGIN);
+		long entityManagers = JPAMetrics.count(JPAMetrics.Op.EM_CREATE);
+
+		On.get("/books").tx().json(() -> {
+			U.must(!JPA.em().getTransaction().isActive());
+			return U.list(JPA.of(Book.class).all().size());
+		});
+
+		On.post("/books").tx().json(() -> {
+			U.must(JPA.em().getTransaction().isActive());
+			return U.list(JPA.insert(new Book("b2")).getTitle());
+		});
+
+		eq(HTTP.get("http://localhost:8888/books").fetch(), "[1]");
+
+		eq(JPAMetrics.count(JPAMetrics.Op.TX_BEGIN), transactions);
+		eq(JPAMetrics.count(JPAMetrics.Op.EM_CREATE), entityManagers + 1);
+
+		eq(HTTP.post("http://localhost:8888/books").fetch(), "[\"b2\"]");
+
+		eq(JPAMetrics.count(JPAMetrics.Op.TX_BEGIN), transactions + 1);
+		isTrue(JPAMetrics.count(JPAMetrics.Op.TX_COMMIT) > 0);
+		isTrue(JPAMetrics.totalTime(JPAMetrics.Op.TX_COMMIT) > 0);
+
+		eq(JPA.count(Book.class), 2);
+	}
+
+}
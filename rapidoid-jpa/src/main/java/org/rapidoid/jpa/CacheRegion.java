@@ -0,0 +1,165 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-jpa
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.ConcurrentLRUMap;
+import org.rapidoid.u.U;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache with TTL and LRU eviction, where each entry can be tagged with the names of the entities it depends
+ * on, so it can be invalidated when any of them changes.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class CacheRegion extends RapidoidThing {
+
+	private final ConcurrentLRUMap<Object, Entry> cache;
+
+	private final long ttl;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	// incremented by each invalidation, so the values loaded before it aren't cached after it
+	private final AtomicLong generation = new AtomicLong();
+
+	CacheRegion(int capacity, long ttl) {
+		U.must(capacity > 0, "The cache capacity must be positive!");
+		this.cache = new ConcurrentLRUMap<Object, Entry>(capacity);
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Returns <code>null</code> if the value isn't cached.
+	 */
+	Object get(Object key) {
+		Entry entry = cache.get(key);
+
+		if (entry != null) {
+			if (entry.expiresAt > U.time()) {
+				hits.incrementAndGet();
+				return entry.value;
+			}
+
+			cache.remove(key, entry);
+		}
+
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * The current generation, which must be read before loading a value that will be cached.
+	 */
+	long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Caches the value loaded in the specified generation, unless there was an invalidation since then, so the
+	 * value might be stale.
+	 */
+	void put(Object key, Object value, Set<String> tags, long loadedIn) {
+		if (generation.get() != loadedIn) return;
+
+		Entry entry = new Entry(value, tags, U.time() + ttl);
+		cache.put(key, entry);
+
+		// a concurrent invalidation might have missed the new entry
+		if (generation.get() != loadedIn) {
+			cache.remove(key, entry);
+		}
+	}
+
+	void invalidate(Object key) {
+		generation.incrementAndGet();
+		cache.remove(key);
+	}
+
+	void invalidateTagged(String tag) {
+		generation.incrementAndGet();
+
+		for (Map.Entry<Object, Entry> e : cache.entries()) {
+			if (e.getValue().tags.contains(tag)) {
+				cache.remove(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	List<Object> keys() {
+		List<Object> keys = U.list();
+
+		for (Map.Entry<Object, Entry> e : cache.entries()) {
+			keys.add(e.getKey());
+		}
+
+		return keys;
+	}
+
+	void clear() {
+		generation.incrementAndGet();
+		cache.clear();
+	}
+
+	int size() {
+		return cache.size();
+	}
+
+	long hits() {
+		return hits.get();
+	}
+
+	long misses() {
+		return misses.get();
+	}
+
+	double hitRate() {
+		long hits = this.hits.get();
+		long total = hits + misses.get();
+		return total > 0 ? (double) hits / total : 0;
+	}
+
+	private static class Entry {
+
+		final Object value;
+
+		final Set<String> tags;
+
+		final long expiresAt;
+
+		Entry(Object value, Set<String> tags, long expiresAt) {
+			this.value = value;
+			this.tags = tags != null ? tags : Collections.<String>emptySet();
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -83,6 +83,22 @@ public abstract class DAO<E> extends RapidoidThing {
 		JPA.delete(record);
 	}
 
+	public List<E> insertAll(Iterable<E> records) {
+		return JPA.insertAll(records);
+	}
+
+	public List<E> updateAll(Iterable<E> records) {
+		return JPA.updateAll(records);
+	}
+
+	public void deleteAll(Iterable<E> records) {
+		JPA.deleteAll(records);
+	}
+
+	public int deleteAll() {
+		return JPA.deleteAll(clazz);
+	}
+
 	public E get(Object id) {
 		return JPA.get(clazz, id);
 	}
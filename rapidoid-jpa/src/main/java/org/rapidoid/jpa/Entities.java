@@ -22,13 +22,13 @@ package org.rapidoid.jpa;
 
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.datamodel.DataItems;
+import org.rapidoid.datamodel.KeysetDataItems;
 
 import java.util.List;
 
 @Authors("Nikolche Mihajlovski")
 @Since("5.1.0")
-public interface Entities<E> extends DataItems {
+public interface Entities<E> extends KeysetDataItems {
 
 	@SuppressWarnings("unchecked")
 	List<E> all();
@@ -36,4 +36,8 @@ public interface Entities<E> extends DataItems {
 	@SuppressWarnings("unchecked")
 	List<E> page(int start, int length);
 
+	List<E> pageAfter(String orderBy, List<?> key, int length);
+
+	List<E> pageAt(String orderBy, int start, int length);
+
 }
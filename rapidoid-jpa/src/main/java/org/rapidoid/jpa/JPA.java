@@ -12,7 +12,9 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Parameter;
 import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.metamodel.EntityType;
 import java.util.List;
 import java.util.Map;
@@ -63,7 +65,11 @@ public class JPA extends RapidoidThing {
 		} else {
 			EntityManagerFactory emf = JPAUtil.emf();
 			U.notNull(emf, "JPA.emf");
+
+			long startedAt = System.nanoTime();
 			EntityManager em = emf.createEntityManager();
+			JPAMetrics.record(JPAMetrics.Op.EM_CREATE, startedAt);
+
 			return new JPATool(em, false);
 		}
 	}
@@ -149,6 +155,60 @@ public class JPA extends RapidoidThing {
 		}
 	}
 
+	public static <E> List<E> insertAll(Iterable<E> entities) {
+		JPATool jpa = tool();
+		try {
+			return jpa.insertAll(entities);
+		} finally {
+			jpa.done();
+		}
+	}
+
+	public static <E> List<E> updateAll(Iterable<E> entities) {
+		JPATool jpa = tool();
+		try {
+			return jpa.updateAll(entities);
+		} finally {
+			jpa.done();
+		}
+	}
+
+	public static void deleteAll(Iterable<?> entities) {
+		JPATool jpa = tool();
+		try {
+			jpa.deleteAll(entities);
+		} finally {
+			jpa.done();
+		}
+	}
+
+	public static <E> int deleteAll(Class<E> clazz) {
+		JPATool jpa = tool();
+		try {
+			return jpa.deleteAll(clazz);
+		} finally {
+			jpa.done();
+		}
+	}
+
+	public static <E> int update(CriteriaUpdate<E> criteria) {
+		JPATool jpa = tool();
+		try {
+			return jpa.update(criteria);
+		} finally {
+			jpa.done();
+		}
+	}
+
+	public static <E> int delete(CriteriaDelete<E> criteria) {
+		JPATool jpa = tool();
+		try {
+			return jpa.delete(criteria);
+		} finally {
+			jpa.done();
+		}
+	}
+
 	public static void refresh(Object entity) {
 		JPATool jpa = tool();
 		try {
@@ -212,6 +272,29 @@ public class JPA extends RapidoidThing {
 		}
 	}
 
+	/**
+	 * Executes the action without a transaction, with the entities loaded in read-only mode (see
+	 * {@link JPATool#readOnly(Runnable)}). The writes are rejected.
+	 */
+	public static void readOnly(Runnable action) {
+		Ctx ctx = Ctxs.get();
+		boolean newContext = ctx == null;
+
+		if (newContext) {
+			ctx = Ctxs.open("read-only");
+		}
+
+		try {
+			EntityManager em = ctx.persister();
+			JPA.with(em).readOnly(action);
+
+		} finally {
+			if (newContext) {
+				Ctxs.close();
+			}
+		}
+	}
+
 	public static boolean isLoaded(Object entity) {
 		JPATool jpa = tool();
 		try {
@@ -0,0 +1,415 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-jpa
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.hibernate.Session;
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.collection.ConcurrentLRUMap;
+import org.rapidoid.config.Conf;
+import org.rapidoid.config.Config;
+import org.rapidoid.ctx.Ctx;
+import org.rapidoid.ctx.Ctxs;
+import org.rapidoid.insight.Metrics;
+import org.rapidoid.timeseries.TimeSeries;
+import org.rapidoid.u.U;
+import org.rapidoid.util.LazyInit;
+import org.rapidoid.value.Value;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.*;
+import javax.transaction.Synchronization;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the entities (by class and ID) and the query results (by JPQL and arguments), for read-heavy reference
+ * data.<br>
+ * The cache is disabled by default, and it is enabled with <code>jpa.cache.enabled: true</code>. Only the entity
+ * classes annotated with <code>@Cacheable</code> are cached, and only the queries explicitly marked with
+ * {@link JPQL#cached()}. The cached entities are detached and shared, so they must be treated as read-only, and their
+ * lazy associations can't be loaded (they must be fetched eagerly).<br>
+ * The entries are invalidated on the writes through {@link JPATool} (after the commit, if inside a transaction), and
+ * they expire after the configured TTL. The cache is bypassed inside a transaction, so the changes are made on
+ * managed entities.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPACache extends RapidoidThing {
+
+	private static final Config CONFIG = Conf.JPA.sub("cache");
+
+	private static final Value<Boolean> ENABLED = CONFIG.entry("enabled").bool();
+
+	private static final LazyInit<JPACache> SHARED = new LazyInit<JPACache>(new Callable<JPACache>() {
+		@Override
+		public JPACache call() throws Exception {
+			return configured(CONFIG);
+		}
+	});
+
+	// by metamodel and JPQL
+	private static final ConcurrentLRUMap<List<?>, Set<String>> DEPENDENCIES = new ConcurrentLRUMap<List<?>, Set<String>>(1000);
+
+	private final CacheRegion entities;
+
+	private final CacheRegion queries;
+
+	private final Map<Class<?>, Boolean> cacheable = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	public JPACache(int entityCapacity, long entityTtl, int queryCapacity, long queryTtl) {
+		this.entities = new CacheRegion(entityCapacity, entityTtl);
+		this.queries = new CacheRegion(queryCapacity, queryTtl);
+	}
+
+	private static JPACache configured(Config config) {
+		Config entityCfg = config.sub("entities");
+		Config queryCfg = config.sub("queries");
+
+		final JPACache cache = new JPACache(entityCfg.entry("capacity").or(10000), entityCfg.entry("ttl").or(300000L),
+			queryCfg.entry("capacity").or(1000), queryCfg.entry("ttl").or(60000L));
+
+		final TimeSeries entityHitRate = new TimeSeries().title("JPA entity cache hit rate (%)");
+		final TimeSeries queryHitRate = new TimeSeries().title("JPA query cache hit rate (%)");
+
+		Metrics.register("jpa/cache/entities/hit-rate", entityHitRate);
+		Metrics.register("jpa/cache/queries/hit-rate", queryHitRate);
+
+		Metrics.updater(new Runnable() {
+			@Override
+			public void run() {
+				long now = U.time();
+				entityHitRate.put(now, cache.entities.hitRate() * 100);
+				queryHitRate.put(now, cache.queries.hitRate() * 100);
+			}
+		});
+
+		return cache;
+	}
+
+	/**
+	 * @return the shared JPA cache, or <code>null</code> if it is disabled
+	 */
+	public static JPACache shared() {
+		return ENABLED.or(false) ? SHARED.get() : null;
+	}
+
+	public boolean isCacheable(Class<?> clazz) {
+		Boolean isCacheable = cacheable.get(clazz);
+
+		if (isCacheable == null) {
+			isCacheable = false;
+
+			for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+				Cacheable ann = c.getAnnotation(Cacheable.class);
+
+				if (ann != null) {
+					isCacheable = ann.value();
+					break;
+				}
+			}
+
+			cacheable.put(clazz, isCacheable);
+		}
+
+		return isCacheable;
+	}
+
+	/**
+	 * Returns the cached entity, or loads it (and caches it if it exists).
+	 */
+	public <T> T entity(Class<T> clazz, Object id, Callable<T> loader) {
+		EntityKey key = new EntityKey(clazz, id);
+
+		T entity = U.cast(entities.get(key));
+
+		if (entity == null) {
+			long generation = entities.generation();
+			entity = load(loader);
+
+			if (entity != null) {
+				entities.put(key, entity, null, generation);
+			}
+		}
+
+		return entity;
+	}
+
+	/**
+	 * Returns the cached query results, or executes the query and caches the results.
+	 *
+	 * @param tags the names of the entities the results depend on
+	 */
+	public <T> T results(Object key, Set<String> tags, Callable<T> loader) {
+		T results = U.cast(queries.get(key));
+
+		if (results == null) {
+			long generation = queries.generation();
+			results = load(loader);
+
+			if (results instanceof List) {
+				results = U.cast(Collections.unmodifiableList((List<?>) results));
+			}
+
+			if (results != null) {
+				queries.put(key, results, tags, generation);
+			}
+		}
+
+		return results;
+	}
+
+	private static <T> T load(Callable<T> loader) {
+		try {
+			return loader.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw U.rte(e);
+		}
+	}
+
+	/**
+	 * Invalidates the cached entity and the cached query results that depend on its type.
+	 */
+	public void invalidate(Class<?> clazz, Object id) {
+		for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+			if (id != null) {
+				entities.invalidate(new EntityKey(c, id));
+			}
+
+			queries.invalidateTagged(entityName(c));
+		}
+	}
+
+	/**
+	 * Invalidates all the cached entities with the specified entity names, and the query results that depend on them
+	 * (e.g. after a bulk update).
+	 */
+	public void invalidateAll(Set<String> entityNames) {
+		for (Object key : entities.keys()) {
+			if (entityNames.contains(entityName(((EntityKey) key).clazz))) {
+				entities.invalidate(key);
+			}
+		}
+
+		for (String name : entityNames) {
+			queries.invalidateTagged(name);
+		}
+	}
+
+	/**
+	 * Invalidates all the cached entities of the specified type (or its subtypes), and the query results that depend
+	 * on it (e.g. after a bulk update).
+	 */
+	public void invalidateAll(Class<?> clazz) {
+		for (Object key : entities.keys()) {
+			if (clazz.isAssignableFrom(((EntityKey) key).clazz)) {
+				entities.invalidate(key);
+			}
+		}
+
+		invalidate(clazz, null);
+	}
+
+	public void clear() {
+		entities.clear();
+		queries.clear();
+	}
+
+	public int entityCount() {
+		return entities.size();
+	}
+
+	public long entityHits() {
+		return entities.hits();
+	}
+
+	public long entityMisses() {
+		return entities.misses();
+	}
+
+	public double entityHitRate() {
+		return entities.hitRate();
+	}
+
+	public int queryCount() {
+		return queries.size();
+	}
+
+	public long queryHits() {
+		return queries.hits();
+	}
+
+	public long queryMisses() {
+		return queries.misses();
+	}
+
+	public double queryHitRate() {
+		return queries.hitRate();
+	}
+
+	/**
+	 * The cache is bypassed inside a transaction, so the entities can be modified.
+	 */
+	static boolean isUsable(EntityManager em) {
+		return shared() != null && (em == null || !em.getTransaction().isActive());
+	}
+
+	/**
+	 * Runs the invalidation after the active transaction is completed, so the old state can't be cached again by
+	 * another thread before the changes are committed. If there is no active transaction, runs it immediately.
+	 */
+	static void afterCommit(EntityManager em, final Runnable invalidation) {
+		if (em != null && em.getTransaction().isActive()) {
+			em.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {
+					// nothing to do
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					invalidation.run();
+				}
+			});
+
+		} else {
+			invalidation.run();
+		}
+	}
+
+	static boolean isUsable() {
+		Ctx ctx = Ctxs.get();
+		return isUsable(ctx != null ? (EntityManager) ctx.persister() : null);
+	}
+
+	static String entityName(Class<?> clazz) {
+		Entity entity = clazz.getAnnotation(Entity.class);
+		return entity != null && U.notEmpty(entity.name()) ? entity.name() : clazz.getSimpleName();
+	}
+
+	/**
+	 * The names of the entities that the results of the JPQL query depend on: the entities named in the query, and the
+	 * entities reached from them through the navigated associations (e.g. <code>c.plan.name</code>), resolved from the
+	 * metamodel.
+	 */
+	static Set<String> dependencies(String jpql) {
+		Metamodel metamodel = JPA.provideEmf().getMetamodel();
+		List<?> key = U.list(metamodel, jpql);
+
+		Set<String> deps = DEPENDENCIES.get(key);
+
+		if (deps == null) {
+			Set<String> identifiers = identifiers(jpql);
+			deps = new HashSet<String>(identifiers);
+
+			Deque<ManagedType<?>> pending = new ArrayDeque<ManagedType<?>>();
+
+			for (EntityType<?> entity : metamodel.getEntities()) {
+				if (identifiers.contains(entity.getName())) {
+					pending.add(entity);
+				}
+			}
+
+			Set<ManagedType<?>> visited = new HashSet<ManagedType<?>>(pending);
+
+			while (!pending.isEmpty()) {
+				for (Attribute<?, ?> attr : pending.poll().getAttributes()) {
+
+					// only the attributes which are used in the query can be navigated
+					if (identifiers.contains(attr.getName())) {
+						Type<?> type = attr instanceof PluralAttribute
+							? ((PluralAttribute<?, ?, ?>) attr).getElementType()
+							: ((SingularAttribute<?, ?>) attr).getType();
+
+						if (type instanceof ManagedType && visited.add((ManagedType<?>) type)) {
+							pending.add((ManagedType<?>) type);
+
+							if (type instanceof EntityType) {
+								deps.add(((EntityType<?>) type).getName());
+							}
+						}
+					}
+				}
+			}
+
+			DEPENDENCIES.put(key, deps);
+		}
+
+		return deps;
+	}
+
+	/**
+	 * All the identifiers in the JPQL, which include the names of the entities that the query depends on.
+	 */
+	static Set<String> identifiers(String jpql) {
+		Set<String> identifiers = new HashSet<String>();
+		int start = -1;
+
+		for (int i = 0; i <= jpql.length(); i++) {
+			boolean part = i < jpql.length() && Character.isJavaIdentifierPart(jpql.charAt(i));
+
+			if (part && start < 0) {
+				start = i;
+			} else if (!part && start >= 0) {
+				identifiers.add(jpql.substring(start, i));
+				start = -1;
+			}
+		}
+
+		return identifiers;
+	}
+
+	private static class EntityKey {
+
+		final Class<?> clazz;
+
+		final Object id;
+
+		EntityKey(Class<?> clazz, Object id) {
+			this.clazz = clazz;
+
+			// e.g. the ID 1 is the same, whether specified as int or long
+			boolean smallInt = id instanceof Integer || id instanceof Short || id instanceof Byte;
+			this.id = smallInt ? (Object) ((Number) id).longValue() : id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			EntityKey other = (EntityKey) o;
+			return clazz.equals(other.clazz) && id.equals(other.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * clazz.hashCode() + id.hashCode();
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-jpa
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.datamodel.AbstractDataItems;
+import org.rapidoid.u.U;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaQuery;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * All the entities of a <code>@Cacheable</code> type, served from the {@link JPACache} outside of a transaction.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPACachedEntities<T> extends AbstractDataItems implements Entities<T> {
+
+	private final Class<T> clazz;
+
+	private final CriteriaQuery<T> criteria;
+
+	private final JPACriteriaQueryEntities<T> uncached;
+
+	public JPACachedEntities(Class<T> clazz, CriteriaQuery<T> criteria) {
+		this.clazz = clazz;
+		this.criteria = criteria;
+		this.uncached = new JPACriteriaQueryEntities<T>(clazz, criteria);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<T> all() {
+		if (!JPACache.isUsable()) {
+			return uncached.all();
+		}
+
+		return cached(U.list("all", clazz), false, 0, 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<T> page(int start, int length) {
+		if (!JPACache.isUsable()) {
+			return uncached.page(start, length);
+		}
+
+		return cached(U.list("page", clazz, start, length), true, start, length);
+	}
+
+	@Override
+	public boolean isSeekable(String orderBy) {
+		return uncached.isSeekable(orderBy);
+	}
+
+	/**
+	 * The keyset pages aren't cached.
+	 */
+	@Override
+	public List<T> pageAfter(String orderBy, List<?> key, int length) {
+		return uncached.pageAfter(orderBy, key, length);
+	}
+
+	@Override
+	public boolean isValidKey(String orderBy, List<?> key) {
+		return uncached.isValidKey(orderBy, key);
+	}
+
+	@Override
+	public List<T> pageAt(String orderBy, int start, int length) {
+		return uncached.pageAt(orderBy, start, length);
+	}
+
+	@Override
+	public List<?> keyOf(Object item, String orderBy) {
+		return uncached.keyOf(item, orderBy);
+	}
+
+	private List<T> cached(List<?> key, final boolean paged, final int start, final int length) {
+		return JPACache.shared().results(key, U.set(JPACache.entityName(clazz)), new Callable<List<T>>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public List<T> call() throws Exception {
+				// the cached entities are loaded detached
+				EntityManager em = JPA.provideEmf().createEntityManager();
+
+				try {
+					Query query = em.createQuery(criteria);
+					return paged ? JPAUtil.getPage(query, start, length) : query.getResultList();
+				} finally {
+					em.close();
+				}
+			}
+		});
+	}
+
+}
@@ -22,20 +22,50 @@ package org.rapidoid.jpa;
 
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.beany.Beany;
+import org.rapidoid.cls.Cls;
 import org.rapidoid.datamodel.AbstractDataItems;
+import org.rapidoid.u.U;
 
+import javax.persistence.Column;
+import javax.persistence.EntityManager;
+import javax.persistence.Index;
 import javax.persistence.Query;
-import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.Table;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.AnnotatedElement;
 import java.util.List;
 
 @Authors("Nikolche Mihajlovski")
 @Since("5.1.0")
 public class JPACriteriaQueryEntities<T> extends AbstractDataItems implements Entities<T> {
 
+	private static final String SEEK_ALIAS = "_entity";
+
+	private final Class<T> entityClass;
+
 	private final CriteriaQuery<T> criteria;
 
 	public JPACriteriaQueryEntities(CriteriaQuery<T> criteria) {
+		this(null, criteria);
+	}
+
+	/**
+	 * The entities of the specified class can also be paged by keyset (see {@link #pageAfter(String, List, int)}).
+	 */
+	public JPACriteriaQueryEntities(Class<T> entityClass, CriteriaQuery<T> criteria) {
+		this.entityClass = entityClass;
 		this.criteria = criteria;
+
+		Root<T> root = entityClass != null ? root() : null;
+
+		// the keyset queries reuse the restriction, which refers to the root by its alias
+		if (root != null && root.getAlias() == null) {
+			root.alias(SEEK_ALIAS);
+		}
 	}
 
 	private Query query() {
@@ -54,4 +84,230 @@ public class JPACriteriaQueryEntities<T> extends AbstractDataItems implements En
 		return JPAUtil.getPage(query(), start, length);
 	}
 
+	/**
+	 * Only the entities of a known class (which is the only root of the query, without joins) can be paged by keyset,
+	 * when ordered by the ID, or by a non-null property that is unique or leads an index declared in
+	 * <code>@Table(indexes = ...)</code>.
+	 */
+	@Override
+	public boolean isSeekable(String orderBy) {
+		if (entityClass == null || U.isEmpty(orderBy) || criteria.getRoots().size() != 1) {
+			return false;
+		}
+
+		Root<T> root = root();
+
+		if (root == null || !root.getJoins().isEmpty() || !root.getFetches().isEmpty()) {
+			return false;
+		}
+
+		EntityType<T> type = JPA.provideEmf().getMetamodel().entity(entityClass);
+
+		if (!type.hasSingleIdAttribute()) {
+			return false;
+		}
+
+		Attribute<? super T, ?> attr;
+		try {
+			attr = type.getAttribute(propertyOf(orderBy));
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+
+		if (!(attr instanceof SingularAttribute)) {
+			return false;
+		}
+
+		SingularAttribute<? super T, ?> singular = (SingularAttribute<? super T, ?>) attr;
+
+		return singular.isId() || isIndexed(singular);
+	}
+
+	private boolean isIndexed(SingularAttribute<? super T, ?> attr) {
+		String column = attr.getName();
+		Column col = null;
+
+		if (attr.getJavaMember() instanceof AnnotatedElement) {
+			col = ((AnnotatedElement) attr.getJavaMember()).getAnnotation(Column.class);
+		}
+
+		// the nulls would be skipped by the seek predicates, and their order differs between databases
+		boolean nonNull = attr.getJavaType().isPrimitive() || !attr.isOptional() || (col != null && !col.nullable());
+
+		if (!nonNull) {
+			return false;
+		}
+
+		if (col != null) {
+			if (col.unique()) {
+				return true;
+			}
+
+			if (U.notEmpty(col.name())) {
+				column = col.name();
+			}
+		}
+
+		for (Class<?> c = entityClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			Table table = c.getAnnotation(Table.class);
+
+			if (table != null) {
+				for (Index index : table.indexes()) {
+					// only the leading column of the index can be used for seeking
+					String leading = index.columnList().split(",")[0].trim().split("\\s+")[0];
+
+					if (leading.equalsIgnoreCase(column)) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Root<T> root() {
+		for (Root<?> root : criteria.getRoots()) {
+			if (root.getJavaType() == entityClass) {
+				return (Root<T>) root;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public List<T> pageAfter(String orderBy, List<?> key, int length) {
+		return seek(orderBy, key, 0, length);
+	}
+
+	/**
+	 * The page at the specified offset, ordered by the specified property like the keyset pages. The previous entities
+	 * are skipped by the database.
+	 */
+	@Override
+	public List<T> pageAt(String orderBy, int start, int length) {
+		return seek(orderBy, null, start, length);
+	}
+
+	/**
+	 * The key must have the value of the ordering property and the ID (or only the ID, when ordered by the ID), in
+	 * types that can be converted to the types of the properties.
+	 */
+	@Override
+	public boolean isValidKey(String orderBy, List<?> key) {
+		if (key == null || !isSeekable(orderBy)) {
+			return false;
+		}
+
+		EntityType<T> type = JPA.provideEmf().getMetamodel().entity(entityClass);
+
+		SingularAttribute<? super T, ?> attr = type.getSingularAttribute(propertyOf(orderBy));
+		SingularAttribute<? super T, ?> id = type.getId(type.getIdType().getJavaType());
+
+		if (attr.isId()) {
+			return key.size() == 1 && isConvertible(key.get(0), id.getJavaType());
+		}
+
+		return key.size() == 2 && isConvertible(key.get(0), attr.getJavaType())
+			&& isConvertible(key.get(1), id.getJavaType());
+	}
+
+	private static boolean isConvertible(Object value, Class<?> type) {
+		if (value == null) {
+			return false;
+		}
+
+		try {
+			return Cls.convert(value, type) instanceof Comparable;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Executes a new query, with the restriction of the original query, the seek predicates and the ordering. The
+	 * original query is shared, so it isn't modified.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private List<T> seek(String orderBy, List<?> key, int start, int length) {
+		U.must(isSeekable(orderBy), "Cannot page the entities by keyset, ordered by: %s", orderBy);
+		U.must(key == null || isValidKey(orderBy, key), "Invalid key for the ordering '%s': %s", orderBy, key);
+
+		boolean desc = orderBy.startsWith("-");
+
+		EntityManager em = JPA.em();
+		CriteriaBuilder cb = em.getCriteriaBuilder();
+		EntityType<T> type = em.getMetamodel().entity(entityClass);
+
+		SingularAttribute<? super T, ?> attr = type.getSingularAttribute(propertyOf(orderBy));
+		SingularAttribute<? super T, ?> id = type.getId(type.getIdType().getJavaType());
+
+		CriteriaQuery<T> q = cb.createQuery(entityClass);
+		Root<T> root = q.from(entityClass);
+
+		// the restriction refers to the original root by its alias, so the new root gets the same alias
+		root.alias(root().getAlias());
+
+		q.select(root).distinct(criteria.isDistinct());
+
+		Path<Comparable> by = root.get(attr.getName());
+		Path<Comparable> byId = root.get(id.getName());
+
+		Predicate restriction = criteria.getRestriction();
+		Predicate seek = null;
+
+		if (key != null) {
+			Comparable value = (Comparable) Cls.convert(key.get(0), attr.getJavaType());
+			seek = desc ? cb.lessThan(by, value) : cb.greaterThan(by, value);
+
+			if (!attr.isId()) {
+				// the ID breaks the ties between the equal values
+				Comparable idValue = (Comparable) Cls.convert(key.get(1), id.getJavaType());
+				Predicate sameValue = cb.equal(by, value);
+				Predicate nextId = desc ? cb.lessThan(byId, idValue) : cb.greaterThan(byId, idValue);
+
+				// the redundant bound lets the database scan the index range, instead of the whole index
+				Predicate bound = desc ? cb.lessThanOrEqualTo(by, value) : cb.greaterThanOrEqualTo(by, value);
+
+				seek = cb.and(bound, cb.or(seek, cb.and(sameValue, nextId)));
+			}
+		}
+
+		if (restriction != null && seek != null) {
+			q.where(restriction, seek);
+		} else if (restriction != null) {
+			q.where(restriction);
+		} else if (seek != null) {
+			q.where(seek);
+		}
+
+		if (attr.isId()) {
+			q.orderBy(desc ? cb.desc(by) : cb.asc(by));
+		} else {
+			q.orderBy(desc ? cb.desc(by) : cb.asc(by), desc ? cb.desc(byId) : cb.asc(byId));
+		}
+
+		return JPAUtil.getPage(em.createQuery(q), start, length);
+	}
+
+	@Override
+	public List<?> keyOf(Object item, String orderBy) {
+		Object id = JPA.getIdentifier(item);
+		String prop = propertyOf(orderBy);
+
+		EntityType<T> type = JPA.provideEmf().getMetamodel().entity(entityClass);
+
+		if (type.getSingularAttribute(prop).isId()) {
+			return U.list(id);
+		}
+
+		return U.list(Beany.getPropValue(item, prop), id);
+	}
+
+	private static String propertyOf(String orderBy) {
+		return orderBy.startsWith("-") ? orderBy.substring(1) : orderBy;
+	}
+
 }
@@ -0,0 +1,161 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-jpa
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.ctx.Ctx;
+import org.rapidoid.ctx.Ctxs;
+import org.rapidoid.insight.Metrics;
+import org.rapidoid.timeseries.TimeSeries;
+import org.rapidoid.u.U;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The time spent in the JPA lifecycle operations, in total (as metrics with the average time per operation), and per
+ * context (e.g. per HTTP request).
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class JPAMetrics extends RapidoidThing {
+
+	public enum Op {
+
+		EM_CREATE("em/create"), TX_BEGIN("tx/begin"), TX_COMMIT("tx/commit"), FLUSH("flush");
+
+		private final String id;
+
+		Op(String id) {
+			this.id = id;
+		}
+
+		public String id() {
+			return id;
+		}
+	}
+
+	private static final Op[] OPS = Op.values();
+
+	private static final AtomicLong[] COUNTS = new AtomicLong[OPS.length];
+
+	private static final AtomicLong[] NANOS = new AtomicLong[OPS.length];
+
+	private static final String CTX_TIMINGS = "jpa.timings";
+
+	static {
+		final TimeSeries[] avgTimes = new TimeSeries[OPS.length];
+		final long[] lastCounts = new long[OPS.length];
+		final long[] lastNanos = new long[OPS.length];
+
+		for (Op op : OPS) {
+			COUNTS[op.ordinal()] = new AtomicLong();
+			NANOS[op.ordinal()] = new AtomicLong();
+
+			avgTimes[op.ordinal()] = new TimeSeries().title("JPA " + op.id() + " average time (ms)");
+			Metrics.register("jpa/" + op.id() + "/avg-time", avgTimes[op.ordinal()]);
+		}
+
+		Metrics.updater(new Runnable() {
+			@Override
+			public void run() {
+				long now = U.time();
+
+				for (Op op : OPS) {
+					int i = op.ordinal();
+
+					long count = COUNTS[i].get();
+					long nanos = NANOS[i].get();
+
+					long calls = count - lastCounts[i];
+					avgTimes[i].put(now, calls > 0 ? (nanos - lastNanos[i]) / 1e6 / calls : 0);
+
+					lastCounts[i] = count;
+					lastNanos[i] = nanos;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Records the duration of the operation, which started at the specified {@link System#nanoTime()}.
+	 */
+	public static void record(Op op, long startedAt) {
+		long nanos = System.nanoTime() - startedAt;
+
+		COUNTS[op.ordinal()].incrementAndGet();
+		NANOS[op.ordinal()].addAndGet(nanos);
+
+		Ctx ctx = Ctxs.get();
+
+		if (ctx != null && !ctx.isClosed()) {
+			Map<Object, Object> extras = ctx.extras();
+
+			synchronized (extras) {
+				long[] timings = (long[]) extras.get(CTX_TIMINGS);
+
+				if (timings == null) {
+					timings = new long[OPS.length];
+					extras.put(CTX_TIMINGS, timings);
+				}
+
+				timings[op.ordinal()] += nanos;
+			}
+		}
+	}
+
+	/**
+	 * The time (in ms) spent in each operation in the specified context, or <code>null</code> if there was none.
+	 */
+	public static Map<String, Double> timings(Ctx ctx) {
+		Map<Object, Object> extras = ctx.extras();
+
+		synchronized (extras) {
+			long[] timings = (long[]) extras.get(CTX_TIMINGS);
+
+			if (timings == null) {
+				return null;
+			}
+
+			Map<String, Double> result = U.map();
+
+			for (Op op : OPS) {
+				result.put(op.id(), timings[op.ordinal()] / 1e6);
+			}
+
+			return result;
+		}
+	}
+
+	public static long count(Op op) {
+		return COUNTS[op.ordinal()].get();
+	}
+
+	/**
+	 * The total time (in ms) spent in the operation.
+	 */
+	public static double totalTime(Op op) {
+		return NANOS[op.ordinal()].get() / 1e6;
+	}
+
+}
@@ -3,17 +3,22 @@ package org.rapidoid.jpa;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.config.Conf;
 import org.rapidoid.lambda.Lmbd;
 import org.rapidoid.u.U;
 
 import javax.inject.Named;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.metamodel.EntityType;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 /*
@@ -70,7 +75,7 @@ public class JPATool extends RapidoidThing {
 	}
 
 	public <E> E insert(final E entity) {
-		return transactional(new Callable<E>() {
+		E inserted = transactional(new Callable<E>() {
 
 			@Override
 			public E call() throws Exception {
@@ -79,12 +84,15 @@ public class JPATool extends RapidoidThing {
 			}
 
 		});
+
+		invalidateCached(inserted);
+		return inserted;
 	}
 
 	public <E> E update(final E entity) {
 		U.notNull(getIdentifier(entity), "entity identifier");
 
-		return transactional(new Callable<E>() {
+		E updated = transactional(new Callable<E>() {
 
 			@Override
 			public E call() throws Exception {
@@ -97,10 +105,13 @@ public class JPATool extends RapidoidThing {
 			}
 
 		});
+
+		invalidateCached(updated);
+		return updated;
 	}
 
 	public <E> E merge(final E entity) {
-		return transactional(new Callable<E>() {
+		E merged = transactional(new Callable<E>() {
 
 			@Override
 			public E call() throws Exception {
@@ -108,6 +119,9 @@ public class JPATool extends RapidoidThing {
 			}
 
 		});
+
+		invalidateCached(merged);
+		return merged;
 	}
 
 	public <E> void delete(final Class<E> clazz, final Object id) {
@@ -120,9 +134,13 @@ public class JPATool extends RapidoidThing {
 			}
 
 		});
+
+		invalidateCached(clazz, id);
 	}
 
 	public void delete(final Object entity) {
+		Object id = JPACache.shared() != null ? getIdentifier(entity) : null;
+
 		transactional(new Callable<Object>() {
 
 			@Override
@@ -132,6 +150,219 @@ public class JPATool extends RapidoidThing {
 			}
 
 		});
+
+		invalidateCached(entityClass(entity), id);
+	}
+
+	/**
+	 * Inserts the entities in a single transaction, flushing (in JDBC batches) after every <code>jpa.batch.size</code>
+	 * entities. The flushed entities are detached, so the persistence context doesn't grow. If the transaction was
+	 * started here, the whole persistence context is cleared, otherwise only the flushed entities are detached, so the
+	 * entities managed by the caller's transaction are not affected.
+	 */
+	public <E> List<E> insertAll(final Iterable<E> entities) {
+		final int batchSize = batchSize();
+		final Set<Class<?>> types = U.set();
+		final boolean ownTx = !em.getTransaction().isActive();
+
+		List<E> inserted = transactional(new Callable<List<E>>() {
+
+			@Override
+			public List<E> call() throws Exception {
+				List<E> inserted = U.list();
+
+				for (E entity : entities) {
+					em.persist(entity);
+					inserted.add(entity);
+					types.add(entityClass(entity));
+
+					if (inserted.size() % batchSize == 0) {
+						flushBatch(ownTx, inserted.subList(inserted.size() - batchSize, inserted.size()));
+					}
+				}
+
+				return inserted;
+			}
+
+		});
+
+		invalidateCachedTypes(types);
+		return inserted;
+	}
+
+	/**
+	 * Updates the entities in a single transaction, flushing and detaching them in batches (see
+	 * {@link #insertAll(Iterable)}). Returns the updated entities, which are detached.
+	 */
+	public <E> List<E> updateAll(final Iterable<E> entities) {
+		final int batchSize = batchSize();
+		final Set<Class<?>> types = U.set();
+		final boolean ownTx = !em.getTransaction().isActive();
+
+		List<E> updated = transactional(new Callable<List<E>>() {
+
+			@Override
+			public List<E> call() throws Exception {
+				List<E> updated = U.list();
+
+				for (E entity : entities) {
+					U.notNull(getIdentifier(entity), "entity identifier");
+
+					updated.add(em.contains(entity) ? entity : em.merge(entity));
+					types.add(entityClass(entity));
+
+					if (updated.size() % batchSize == 0) {
+						flushBatch(ownTx, updated.subList(updated.size() - batchSize, updated.size()));
+					}
+				}
+
+				return updated;
+			}
+
+		});
+
+		invalidateCachedTypes(types);
+		return updated;
+	}
+
+	/**
+	 * Deletes the entities in a single transaction, flushing and detaching them in batches (see
+	 * {@link #insertAll(Iterable)}). The detached entities are deleted by reference, without loading them again.
+	 */
+	public void deleteAll(final Iterable<?> entities) {
+		final int batchSize = batchSize();
+		final Set<Class<?>> types = U.set();
+		final boolean ownTx = !em.getTransaction().isActive();
+
+		transactional(new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				List<Object> batch = U.list();
+
+				for (Object entity : entities) {
+					Class<?> type = entityClass(entity);
+					types.add(type);
+
+					Object removed = em.contains(entity) ? entity : em.getReference(type, getIdentifier(entity));
+					em.remove(removed);
+					batch.add(removed);
+
+					if (batch.size() == batchSize) {
+						flushBatch(ownTx, batch);
+						batch.clear();
+					}
+				}
+
+				return null;
+			}
+
+		});
+
+		invalidateCachedTypes(types);
+	}
+
+	/**
+	 * Executes the bulk update directly in the database, so it doesn't affect the entities that are already loaded.
+	 */
+	public <E> int update(final CriteriaUpdate<E> criteria) {
+		int updated = transactional(new Callable<Integer>() {
+
+			@Override
+			public Integer call() throws Exception {
+				return em.createQuery(criteria).executeUpdate();
+			}
+
+		});
+
+		invalidateCachedTypes(U.<Class<?>>set(criteria.getRoot().getJavaType()));
+		return updated;
+	}
+
+	/**
+	 * Executes the bulk delete directly in the database, so it doesn't affect the entities that are already loaded.
+	 */
+	public <E> int delete(final CriteriaDelete<E> criteria) {
+		int deleted = transactional(new Callable<Integer>() {
+
+			@Override
+			public Integer call() throws Exception {
+				return em.createQuery(criteria).executeUpdate();
+			}
+
+		});
+
+		invalidateCachedTypes(U.<Class<?>>set(criteria.getRoot().getJavaType()));
+		return deleted;
+	}
+
+	/**
+	 * Deletes all the entities of the specified type, with a bulk delete.
+	 */
+	public <E> int deleteAll(Class<E> clazz) {
+		CriteriaDelete<E> criteria = em.getCriteriaBuilder().createCriteriaDelete(clazz);
+		criteria.from(clazz);
+		return delete(criteria);
+	}
+
+	private void flushBatch(boolean ownTx, List<?> batch) {
+		flushNow();
+
+		if (ownTx) {
+			em.clear();
+		} else {
+			for (Object entity : batch) {
+				if (em.contains(entity)) {
+					em.detach(entity);
+				}
+			}
+		}
+	}
+
+	static int batchSize() {
+		return Math.max(Conf.JPA.sub("batch").entry("size").or(50), 1);
+	}
+
+	static boolean isBatchOrdered() {
+		return Conf.JPA.sub("batch").entry("ordered").or(false);
+	}
+
+	private void invalidateCachedTypes(final Set<Class<?>> types) {
+		final JPACache cache = JPACache.shared();
+
+		if (cache != null) {
+			JPACache.afterCommit(em, new Runnable() {
+				@Override
+				public void run() {
+					for (Class<?> type : types) {
+						cache.invalidateAll(type);
+					}
+				}
+			});
+		}
+	}
+
+	private void invalidateCached(Object entity) {
+		if (JPACache.shared() != null && entity != null) {
+			invalidateCached(entityClass(entity), getIdentifier(entity));
+		}
+	}
+
+	private void invalidateCached(final Class<?> clazz, final Object id) {
+		final JPACache cache = JPACache.shared();
+
+		if (cache != null) {
+			JPACache.afterCommit(em, new Runnable() {
+				@Override
+				public void run() {
+					cache.invalidate(clazz, id);
+				}
+			});
+		}
+	}
+
+	private static Class<?> entityClass(Object entity) {
+		return JPAUtil.entityClass(entity);
 	}
 
 	public void transactional(Runnable action) {
@@ -155,7 +386,9 @@ public class JPATool extends RapidoidThing {
 		boolean newTx = !tx.isActive();
 
 		if (newTx) {
+			long startedAt = System.nanoTime();
 			tx.begin();
+			JPAMetrics.record(JPAMetrics.Op.TX_BEGIN, startedAt);
 		}
 
 		if (readOnly) {
@@ -169,7 +402,9 @@ public class JPATool extends RapidoidThing {
 				if (tx.getRollbackOnly()) {
 					tx.rollback();
 				} else {
+					long startedAt = System.nanoTime();
 					tx.commit();
+					JPAMetrics.record(JPAMetrics.Op.TX_COMMIT, startedAt);
 				}
 			}
 
@@ -187,9 +422,34 @@ public class JPATool extends RapidoidThing {
 		}
 	}
 
+	/**
+	 * Executes the read-only action without a transaction (if not already in one), with the entities loaded in
+	 * read-only mode, so they aren't tracked for changes, and the persistence context is never flushed.
+	 */
+	public void readOnly(Runnable action) {
+		if (em.getTransaction().isActive()) {
+			action.run();
+			return;
+		}
+
+		FlushModeType flushMode = em.getFlushMode();
+		boolean wasReadOnly = JPAUtil.isReadOnlyMode(em);
+
+		em.setFlushMode(FlushModeType.COMMIT);
+		JPAUtil.readOnlyMode(em, true);
+
+		try {
+			action.run();
+		} finally {
+			JPAUtil.readOnlyMode(em, wasReadOnly);
+			em.setFlushMode(flushMode);
+		}
+	}
+
 	private void ensureNotInRollbackOnlyTransation() {
 		EntityTransaction tx = em.getTransaction();
-		U.must(!tx.isActive() || !tx.getRollbackOnly(), "Cannot perform writes inside read-only transaction!");
+		boolean readOnly = tx.isActive() ? tx.getRollbackOnly() : JPAUtil.isReadOnlyMode(em);
+		U.must(!readOnly, "Cannot perform writes inside read-only transaction!");
 	}
 
 	public <E> E get(Class<E> clazz, Object id) {
@@ -202,10 +462,31 @@ public class JPATool extends RapidoidThing {
 		return em.getReference(clazz, id);
 	}
 
-	public <T> T getIfExists(Class<T> clazz, Object id) {
+	public <T> T getIfExists(final Class<T> clazz, final Object id) {
+		JPACache cache = JPACache.shared();
+
+		if (cache != null && cache.isCacheable(clazz) && JPACache.isUsable(em)) {
+			return cache.entity(clazz, id, new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					return findDetached(clazz, id);
+				}
+			});
+		}
+
 		return em.find(clazz, id);
 	}
 
+	private <T> T findDetached(Class<T> clazz, Object id) {
+		EntityManager detachedEm = em.getEntityManagerFactory().createEntityManager();
+
+		try {
+			return detachedEm.find(clazz, id);
+		} finally {
+			detachedEm.close();
+		}
+	}
+
 	public List<EntityType<?>> getEntityTypes() {
 		return U.list(em.getMetamodel().getEntities());
 	}
@@ -235,13 +516,19 @@ public class JPATool extends RapidoidThing {
 
 			@Override
 			public Object call() throws Exception {
-				em.flush();
+				flushNow();
 				return null;
 			}
 
 		});
 	}
 
+	private void flushNow() {
+		long startedAt = System.nanoTime();
+		em.flush();
+		JPAMetrics.record(JPAMetrics.Op.FLUSH, startedAt);
+	}
+
 	public void refresh(final Object entity) {
 		em.refresh(entity);
 	}
@@ -269,7 +556,13 @@ public class JPATool extends RapidoidThing {
 	public <T> Entities<T> of(Class<T> clazz) {
 		CriteriaQuery<T> query = cb().createQuery(clazz);
 		query.from(clazz);
-		return find(query);
+
+		JPACache cache = JPACache.shared();
+		if (cache != null && cache.isCacheable(clazz)) {
+			return new JPACachedEntities<T>(clazz, query);
+		}
+
+		return new JPACriteriaQueryEntities<T>(clazz, query);
 	}
 
 	private CriteriaBuilder cb() {
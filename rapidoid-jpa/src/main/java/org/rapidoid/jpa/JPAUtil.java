@@ -1,5 +1,8 @@
 package org.rapidoid.jpa;
 
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.proxy.HibernateProxy;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
@@ -8,6 +11,7 @@ import org.rapidoid.cls.Cls;
 import org.rapidoid.ctx.Ctx;
 import org.rapidoid.ctx.Ctxs;
 import org.rapidoid.log.Log;
+import org.rapidoid.sql.JDBCConfig;
 import org.rapidoid.u.U;
 import org.rapidoid.util.Msc;
 
@@ -42,6 +46,8 @@ import java.util.Properties;
 @Since("5.1.0")
 public class JPAUtil extends RapidoidThing {
 
+	private static final String C3P0_PROVIDER = "org.hibernate.c3p0.internal.C3P0ConnectionProvider";
+
 	static volatile EntityManagerFactory emf;
 
 	static final List<String> entities = U.list();
@@ -84,6 +90,11 @@ public class JPAUtil extends RapidoidThing {
 			Properties props = EMFUtil.hibernateProperties();
 //			Msc.logProperties(props);
 
+			if (!props.containsKey(AvailableSettings.CONNECTION_PROVIDER) && !Cls.exists(C3P0_PROVIDER)
+				&& JDBCConfig.builtInPool()) {
+				props.put(AvailableSettings.CONNECTION_PROVIDER, RapidoidConnectionProvider.class.getName());
+			}
+
 			Msc.logSection("Starting Hibernate:");
 
 			CustomHibernatePersistenceProvider provider = new CustomHibernatePersistenceProvider();
@@ -126,6 +137,44 @@ public class JPAUtil extends RapidoidThing {
 		return entity;
 	}
 
+	static Class<?> entityClass(Object entity) {
+		return Cls.exists("org.hibernate.proxy.HibernateProxy") ? _entityClass(entity) : entity.getClass();
+	}
+
+	private static Class<?> _entityClass(Object entity) {
+		if (entity instanceof HibernateProxy) {
+			return ((HibernateProxy) entity).getHibernateLazyInitializer().getPersistentClass();
+		}
+
+		return entity.getClass();
+	}
+
+	/**
+	 * In read-only mode, the loaded entities aren't tracked for changes and the session is never flushed.
+	 */
+	static void readOnlyMode(EntityManager em, boolean readOnly) {
+		if (Cls.exists("org.hibernate.Session")) {
+			_readOnlyMode(em, readOnly);
+		}
+	}
+
+	private static void _readOnlyMode(EntityManager em, boolean readOnly) {
+		Session session = em.unwrap(Session.class);
+		session.setDefaultReadOnly(readOnly);
+
+		if (readOnly) {
+			session.setFlushMode(FlushMode.MANUAL);
+		}
+	}
+
+	static boolean isReadOnlyMode(EntityManager em) {
+		return Cls.exists("org.hibernate.Session") && _isReadOnlyMode(em);
+	}
+
+	private static boolean _isReadOnlyMode(EntityManager em) {
+		return em.unwrap(Session.class).isDefaultReadOnly();
+	}
+
 	public static void emf(EntityManagerFactory emf) {
 		U.notNull(emf, "emf");
 
@@ -25,9 +25,12 @@ import org.rapidoid.annotation.Since;
 import org.rapidoid.datamodel.AbstractDataItems;
 import org.rapidoid.u.U;
 
+import javax.persistence.EntityManager;
 import javax.persistence.Query;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @Authors("Nikolche Mihajlovski")
 @Since("5.1.0")
@@ -39,10 +42,17 @@ public class JPQL extends AbstractDataItems implements Results {
 
 	private final Object[] args;
 
+	private final boolean cached;
+
 	public JPQL(String jpql, Map<String, ?> namedArgs, Object[] args) {
+		this(jpql, namedArgs, args, false);
+	}
+
+	private JPQL(String jpql, Map<String, ?> namedArgs, Object[] args, boolean cached) {
 		this.jpql = jpql;
 		this.namedArgs = namedArgs;
 		this.args = args;
+		this.cached = cached;
 	}
 
 	public JPQL(String jpql) {
@@ -50,21 +60,46 @@ public class JPQL extends AbstractDataItems implements Results {
 	}
 
 	public JPQL bind(Object... args) {
-		return new JPQL(jpql, null, args);
+		return new JPQL(jpql, null, args, cached);
 	}
 
 	public JPQL bind(Map<String, ?> args) {
-		return new JPQL(jpql, args, null);
+		return new JPQL(jpql, args, null, cached);
+	}
+
+	/**
+	 * Caches the results of the query (see {@link JPACache}). The cached results are invalidated when any of the
+	 * entities used in the query is changed through {@link JPATool}.
+	 */
+	public JPQL cached() {
+		return new JPQL(jpql, namedArgs, args, true);
 	}
 
 	public int execute() {
-		Query q = JPA.em().createQuery(jpql);
+		EntityManager em = JPA.em();
+		Query q = em.createQuery(jpql);
 		JPA.bind(q, namedArgs, args);
-		return q.executeUpdate();
+		int updated = q.executeUpdate();
+
+		final JPACache cache = JPACache.shared();
+		if (cache != null) {
+			JPACache.afterCommit(em, new Runnable() {
+				@Override
+				public void run() {
+					cache.invalidateAll(JPACache.identifiers(jpql));
+				}
+			});
+		}
+
+		return updated;
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T> T getSingleResult() {
+		if (isCacheUsable()) {
+			return cachedResults("single", 0, 0);
+		}
+
 		Query q = JPA.em().createQuery(jpql);
 		JPA.bind(q, namedArgs, args);
 		return (T) q.getSingleResult();
@@ -79,14 +114,57 @@ public class JPQL extends AbstractDataItems implements Results {
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> List<T> all() {
+		if (isCacheUsable()) {
+			return cachedResults("all", 0, 0);
+		}
+
 		return query().getResultList();
 	}
 
 	@Override
 	public <T> List<T> page(int start, int length) {
+		if (isCacheUsable()) {
+			return cachedResults("page", start, length);
+		}
+
 		return JPAUtil.getPage(query(), start, length);
 	}
 
+	private boolean isCacheUsable() {
+		return cached && JPACache.isUsable();
+	}
+
+	private <T> T cachedResults(final String kind, final int start, final int length) {
+		Object key = U.list(jpql, kind, start, length, args != null ? Arrays.asList(args) : null, namedArgs);
+
+		return JPACache.shared().results(key, JPACache.dependencies(jpql), new Callable<T>() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public T call() throws Exception {
+				// the cached entities are loaded detached
+				EntityManager em = JPA.provideEmf().createEntityManager();
+
+				try {
+					Query q = em.createQuery(jpql);
+					JPA.bind(q, namedArgs, args);
+
+					if (kind.equals("single")) {
+						return (T) q.getSingleResult();
+
+					} else if (kind.equals("page")) {
+						return (T) JPAUtil.getPage(q, start, length);
+
+					} else {
+						return (T) q.getResultList();
+					}
+
+				} finally {
+					em.close();
+				}
+			}
+		});
+	}
+
 	public String jpql() {
 		return jpql;
 	}
@@ -98,4 +176,8 @@ public class JPQL extends AbstractDataItems implements Results {
 	public Object[] args() {
 		return args;
 	}
+
+	public boolean isCached() {
+		return cached;
+	}
 }
@@ -0,0 +1,105 @@
+package org.rapidoid.jpa;
+
+/*
+ * #%L
+ * rapidoid-jpa
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.sql.RapidoidConnectionPool;
+import org.rapidoid.u.U;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Provides the JDBC connections to Hibernate from the built-in connection pool ({@link RapidoidConnectionPool}),
+ * configured in the <code>jdbc.pool</code> config section.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class RapidoidConnectionProvider extends RapidoidThing implements ConnectionProvider, Configurable, Stoppable {
+
+	private volatile RapidoidConnectionPool pool;
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void configure(Map configValues) {
+		String url = (String) configValues.get(AvailableSettings.URL);
+		String driver = (String) configValues.get(AvailableSettings.DRIVER);
+		String username = (String) configValues.get(AvailableSettings.USER);
+		String password = (String) configValues.get(AvailableSettings.PASS);
+
+		U.must(U.notEmpty(url), "The JPA connection URL must be configured with: %s", AvailableSettings.URL);
+
+		pool = new RapidoidConnectionPool("jpa", url, driver, username, password);
+
+		// Hibernate's default is no auto-commit
+		pool.autoCommit(ConfigurationHelper.getBoolean(AvailableSettings.AUTOCOMMIT, configValues, false));
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return pool.getConnection();
+	}
+
+	@Override
+	public void closeConnection(Connection conn) throws SQLException {
+		conn.close();
+	}
+
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	@Override
+	public void stop() {
+		pool.shutdown();
+	}
+
+	public RapidoidConnectionPool pool() {
+		return pool;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public boolean isUnwrappableAs(Class unwrapType) {
+		return ConnectionProvider.class.equals(unwrapType) || unwrapType.isAssignableFrom(getClass());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> unwrapType) {
+		if (isUnwrappableAs(unwrapType)) {
+			return (T) this;
+		} else {
+			throw new UnknownUnwrapTypeException(unwrapType);
+		}
+	}
+
+}
@@ -20,6 +20,7 @@ package org.rapidoid.jpa;
  * #L%
  */
 
+import org.hibernate.cfg.AvailableSettings;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
@@ -98,9 +99,28 @@ public class RapidoidPersistenceUnitInfo extends RapidoidThing implements Persis
 		return null;
 	}
 
+	/**
+	 * The JDBC batching is configured by <code>jpa.batch.size</code>, and can be overridden in the
+	 * <code>hibernate</code> config. The ordering of the inserts and updates (which makes the batches of mixed entity
+	 * types longer, but sorts the actions on every flush) is enabled only by <code>jpa.batch.ordered</code>.
+	 */
 	@Override
 	public Properties getProperties() {
-		return null;
+		Properties props = new Properties();
+
+		int batchSize = JPATool.batchSize();
+
+		if (batchSize > 1) {
+			props.put(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize));
+
+			if (JPATool.isBatchOrdered()) {
+				props.put(AvailableSettings.ORDER_INSERTS, "true");
+				props.put(AvailableSettings.ORDER_UPDATES, "true");
+				props.put(AvailableSettings.BATCH_VERSIONED_DATA, "true");
+			}
+		}
+
+		return props;
 	}
 
 	@Override
@@ -88,7 +88,9 @@ public class SharedContextAwareEntityManagerProxy extends RapidoidThing implemen
 
 	@Override
 	public void flush() {
+		long startedAt = System.nanoTime();
 		em().flush();
+		JPAMetrics.record(JPAMetrics.Op.FLUSH, startedAt);
 	}
 
 	@Override
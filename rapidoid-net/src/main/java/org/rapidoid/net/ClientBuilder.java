@@ -0,0 +1,80 @@
+package org.rapidoid.net;
+
+/*
+ * #%L
+ * rapidoid-net
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.net.impl.RapidoidClientLoop;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ClientBuilder extends RapidoidThing {
+
+	private volatile String name = "client";
+
+	private volatile int workers = Runtime.getRuntime().availableProcessors();
+
+	private volatile int bufSizeKB = 16;
+
+	private volatile boolean noDelay = true;
+
+	public ClientBuilder name(String name) {
+		this.name = name;
+		return this;
+	}
+
+	public String name() {
+		return this.name;
+	}
+
+	public ClientBuilder workers(int workers) {
+		this.workers = workers;
+		return this;
+	}
+
+	public int workers() {
+		return this.workers;
+	}
+
+	public ClientBuilder bufSizeKB(int bufSizeKB) {
+		this.bufSizeKB = bufSizeKB;
+		return this;
+	}
+
+	public int bufSizeKB() {
+		return this.bufSizeKB;
+	}
+
+	public ClientBuilder noDelay(boolean noDelay) {
+		this.noDelay = noDelay;
+		return this;
+	}
+
+	public boolean noDelay() {
+		return this.noDelay;
+	}
+
+	public TCPClient build() {
+		return new RapidoidClientLoop(name, workers, bufSizeKB, noDelay);
+	}
+
+}
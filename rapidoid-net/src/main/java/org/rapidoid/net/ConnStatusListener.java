@@ -0,0 +1,40 @@
+package org.rapidoid.net;
+
+/*
+ * #%L
+ * rapidoid-net
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.net.abstracts.Channel;
+
+/**
+ * If implemented by the protocol of a client connection, it is notified about the connection status changes.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public interface ConnStatusListener {
+
+	void onConnected(Channel channel);
+
+	void onConnectFailed(Throwable error);
+
+	void onClosed(Channel channel);
+
+}
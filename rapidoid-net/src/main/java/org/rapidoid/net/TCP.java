@@ -32,4 +32,8 @@ public class TCP extends RapidoidThing {
 		return new ServerBuilder();
 	}
 
+	public static ClientBuilder client() {
+		return new ClientBuilder();
+	}
+
 }
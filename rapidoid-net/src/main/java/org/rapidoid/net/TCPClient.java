@@ -0,0 +1,37 @@
+package org.rapidoid.net;
+
+/*
+ * #%L
+ * rapidoid-net
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.activity.Activity;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public interface TCPClient extends Activity<TCPClient> {
+
+	/**
+	 * Opens a new connection asynchronously, on one of the I/O workers. If the protocol is a
+	 * {@link ConnStatusListener}, it is notified when the connection is established, failed or closed.
+	 */
+	void connect(String host, int port, Protocol protocol);
+
+}
@@ -27,4 +27,21 @@ import org.rapidoid.annotation.Since;
 @Since("2.0.0")
 public interface Channel extends ProtocolContext<Channel> {
 
+	/* FLOW CONTROL */
+
+	/**
+	 * Stops reading from the connection, e.g. for backpressure. Must be called while processing the input.
+	 */
+	Channel pauseReading();
+
+	/**
+	 * Resumes reading from the connection (from any thread), and processes the input that was already received.
+	 */
+	Channel resumeReading();
+
+	/**
+	 * Calls the callback once, when all the output was written (or the connection was closed).
+	 */
+	Channel onOutputDrained(Runnable callback);
+
 }
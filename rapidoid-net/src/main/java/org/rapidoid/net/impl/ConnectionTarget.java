@@ -0,0 +1,43 @@
+package org.rapidoid.net.impl;
+
+/*
+ * #%L
+ * rapidoid-net
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.net.Protocol;
+
+import java.net.InetSocketAddress;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+class ConnectionTarget extends RapidoidThing {
+
+	final InetSocketAddress address;
+
+	final Protocol protocol;
+
+	ConnectionTarget(InetSocketAddress address, Protocol protocol) {
+		this.address = address;
+		this.protocol = protocol;
+	}
+
+}
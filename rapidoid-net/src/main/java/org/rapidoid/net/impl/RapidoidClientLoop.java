@@ -0,0 +1,114 @@
+package org.rapidoid.net.impl;
+
+/*
+ * #%L
+ * rapidoid-net
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.activity.LifecycleActivity;
+import org.rapidoid.activity.RapidoidThread;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.log.Log;
+import org.rapidoid.net.Protocol;
+import org.rapidoid.net.TCPClient;
+import org.rapidoid.u.U;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the client connections on a set of I/O workers (event loops), which are the same as the server workers.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class RapidoidClientLoop extends LifecycleActivity<TCPClient> implements TCPClient {
+
+	private final int workers;
+
+	private final int bufSizeKB;
+
+	private final boolean noDelay;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private volatile RapidoidWorker[] ioWorkers;
+
+	public RapidoidClientLoop(String name, int workers, int bufSizeKB, boolean noDelay) {
+		super(name);
+
+		U.must(workers > 0 && workers <= RapidoidWorker.MAX_IO_WORKERS, "Invalid number of client workers: %s", workers);
+
+		this.workers = workers;
+		this.bufSizeKB = bufSizeKB;
+		this.noDelay = noDelay;
+	}
+
+	@Override
+	public synchronized TCPClient start() {
+		super.start();
+
+		Log.debug("Starting client", "name", name(), "I/O workers", workers);
+
+		RapidoidWorker[] loops = new RapidoidWorker[workers];
+
+		for (int i = 0; i < loops.length; i++) {
+			String workerName = name() + (i + 1);
+			loops[i] = new RapidoidWorker(workerName, null, new RapidoidHelper(), bufSizeKB, noDelay, true);
+
+			RapidoidThread thread = new RapidoidThread(loops[i], workerName);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		for (RapidoidWorker worker : loops) {
+			worker.waitToStart();
+		}
+
+		ioWorkers = loops;
+		return this;
+	}
+
+	@Override
+	public void connect(String host, int port, Protocol protocol) {
+		U.notNull(protocol, "client protocol");
+
+		RapidoidWorker[] loops = ioWorkers;
+		U.must(loops != null, "The client is not started!");
+
+		RapidoidWorker worker = loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+		worker.connect(new InetSocketAddress(host, port), protocol);
+	}
+
+	@Override
+	public synchronized TCPClient shutdown() {
+		super.shutdown();
+
+		RapidoidWorker[] loops = ioWorkers;
+		ioWorkers = null;
+
+		if (loops != null) {
+			for (RapidoidWorker worker : loops) {
+				worker.shutdown();
+			}
+		}
+
+		return this;
+	}
+
+}
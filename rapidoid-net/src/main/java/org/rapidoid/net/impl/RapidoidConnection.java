@@ -7,6 +7,7 @@ import org.rapidoid.buffer.Buf;
 import org.rapidoid.buffer.BufGroup;
 import org.rapidoid.data.JSON;
 import org.rapidoid.expire.Expiring;
+import org.rapidoid.log.Log;
 import org.rapidoid.net.Protocol;
 import org.rapidoid.net.abstracts.Channel;
 import org.rapidoid.net.abstracts.IRequest;
@@ -93,6 +94,10 @@ public class RapidoidConnection extends RapidoidThing implements Resetable, Chan
 
 	private volatile long expiresAt;
 
+	volatile boolean readPaused;
+
+	private volatile Runnable drainCallback;
+
 	public RapidoidConnection(RapidoidWorker worker, BufGroup bufs) {
 		this.worker = worker;
 		this.input = bufs.newBuf("input#" + connId());
@@ -124,6 +129,8 @@ public class RapidoidConnection extends RapidoidThing implements Resetable, Chan
 		protocol = null;
 		requestId = 0;
 		expiresAt = 0;
+		readPaused = false;
+		drainCallback = null;
 		state.reset();
 	}
 
@@ -190,7 +197,7 @@ public class RapidoidConnection extends RapidoidThing implements Resetable, Chan
 
 	@Override
 	public Channel writeJSON(Object value) {
-		JSON.stringify(value, output.asOutputStream());
+		JSON.stringifyPooled(value, output.asOutputStream());
 		return this;
 	}
 
@@ -254,6 +261,58 @@ public class RapidoidConnection extends RapidoidThing implements Resetable, Chan
 		completedInputPos = 0;
 	}
 
+	@Override
+	public Channel pauseReading() {
+		worker.pauseReading(this);
+		return this;
+	}
+
+	@Override
+	public Channel resumeReading() {
+		worker.resumeReading(this);
+		return this;
+	}
+
+	@Override
+	public Channel onOutputDrained(Runnable callback) {
+		boolean drained;
+
+		synchronized (this) {
+			drained = closed || output.size() == 0;
+
+			if (!drained) {
+				drainCallback = callback;
+			}
+		}
+
+		if (drained) {
+			callback.run();
+		}
+
+		return this;
+	}
+
+	void outputDrained() {
+		Runnable callback;
+
+		synchronized (this) {
+			callback = drainCallback;
+			drainCallback = null;
+		}
+
+		if (callback != null) {
+			try {
+				callback.run();
+			} catch (Throwable e) {
+				Log.error("Error in the output drain callback!", e);
+			}
+		}
+	}
+
+	int readOps() {
+		return readPaused ? 0 : SelectionKey.OP_READ;
+	}
+
 	@Override
 	public Buf input() {
 		return input;
@@ -11,6 +11,7 @@ import org.rapidoid.ctx.Ctxs;
 import org.rapidoid.expire.ExpirationCrawlerThread;
 import org.rapidoid.expire.Expire;
 import org.rapidoid.log.Log;
+import org.rapidoid.net.ConnStatusListener;
 import org.rapidoid.net.Protocol;
 import org.rapidoid.pool.Pool;
 import org.rapidoid.pool.Pools;
@@ -18,6 +19,7 @@ import org.rapidoid.u.U;
 import org.rapidoid.util.SimpleList;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
@@ -27,6 +29,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /*
  * #%L
@@ -62,6 +65,10 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 
 	private final Queue<SocketChannel> connected;
 
+	private final Queue<ConnectionTarget> connecting;
+
+	private final Queue<RapidoidConnection> resuming;
+
 	private final SimpleList<RapidoidConnection> done;
 
 	private final Pool<RapidoidConnection> connections;
@@ -111,6 +118,8 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 		final int growFactor = ConfigUtil.micro() ? 2 : 10;
 
 		this.connected = new ArrayBlockingQueue<SocketChannel>(queueSize);
+		this.connecting = new ConcurrentLinkedQueue<ConnectionTarget>();
+		this.resuming = new ConcurrentLinkedQueue<RapidoidConnection>();
 		this.done = new SimpleList<RapidoidConnection>(queueSize / 10, growFactor);
 
 		connections = Pools.create("connections", new Callable<RapidoidConnection>() {
@@ -133,6 +142,11 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 		selector.wakeup();
 	}
 
+	public void connect(InetSocketAddress address, Protocol protocol) {
+		connecting.add(new ConnectionTarget(address, protocol));
+		selector.wakeup();
+	}
+
 	private void configureSocket(SocketChannel socketChannel) throws IOException {
 		socketChannel.configureBlocking(false);
 
@@ -249,7 +263,10 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 			conn.input().limit(limit);
 			conn.input().setReadOnly(false);
 
-			conn.output().deleteAfter(osize);
+			// the output of the client connections is written by the requesting threads
+			if (!conn.isClient()) {
+				conn.output().deleteAfter(osize);
+			}
 
 			state.n = stateN;
 			state.obj = stateObj;
@@ -306,9 +323,19 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 					if (!conn.closed) {
 						Log.trace("Closing connection", "connection", conn);
 						assert conn.key == key;
+
+						if (conn.isClient()) {
+							notifyClosed(conn);
+						}
+
+						conn.outputDrained();
+
 						conn.reset();
 						connections.release(conn);
 					}
+
+				} else if (attachment instanceof ConnectionTarget) {
+					notifyConnectFailed((ConnectionTarget) attachment, new IOException("The connection was closed!"));
 				}
 			}
 		} catch (IOException e) {
@@ -338,17 +365,28 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 			int wrote = conn.output.writeTo(socketChannel);
 			conn.output.deleteBefore(wrote);
 
-			boolean complete = conn.output.size() == 0;
+			boolean complete;
+			boolean closeNow;
 
-			if (conn.closeAfterWrite() && complete) {
-				close(conn);
-			} else {
-				if (complete) {
-					key.interestOps(SelectionKey.OP_READ);
-				} else {
-					key.interestOps(SelectionKey.OP_READ + SelectionKey.OP_WRITE);
+			// more output might be appended concurrently, and it shouldn't be missed
+			synchronized (conn) {
+				complete = conn.output.size() == 0;
+				closeNow = conn.closeAfterWrite() && complete;
+
+				if (!closeNow) {
+					if (complete) {
+						key.interestOps(conn.readOps());
+					} else {
+						key.interestOps(conn.readOps() + SelectionKey.OP_WRITE);
+					}
+					conn.wrote(complete);
 				}
-				conn.wrote(complete);
+			}
+
+			if (closeNow) {
+				close(conn);
+			} else if (complete) {
+				conn.outputDrained();
 			}
 		} catch (IOException e) {
 			close(conn);
@@ -375,9 +413,142 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 		selector.wakeup();
 	}
 
+	public void pauseReading(RapidoidConnection conn) {
+		checkOnSameThread();
+
+		conn.readPaused = true;
+
+		SelectionKey key = conn.key;
+		if (key != null && key.isValid()) {
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+		}
+	}
+
+	public void resumeReading(RapidoidConnection conn) {
+		// always resumed in the loop, as the connection might be processed at the moment
+		resuming.add(conn);
+		selector.wakeup();
+	}
+
+	private void resumed(RapidoidConnection conn) {
+		SelectionKey key = conn.key;
+
+		conn.readPaused = false;
+
+		if (conn.closed || key == null || !key.isValid()) {
+			return;
+		}
+
+		key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+
+		// the input received before pausing is still waiting to be processed
+		if (conn.input.hasRemaining()) {
+			process(conn);
+		}
+	}
+
+	@Override
+	protected void connectOP(SelectionKey key) throws IOException {
+		SocketChannel socketChannel = (SocketChannel) key.channel();
+		ConnectionTarget target = (ConnectionTarget) key.attachment();
+
+		try {
+			socketChannel.finishConnect();
+		} catch (IOException e) {
+			key.attach(null);
+			clearKey(key);
+			notifyConnectFailed(target, e);
+			return;
+		}
+
+		key.attach(null);
+		key.interestOps(SelectionKey.OP_READ);
+
+		connected(key, target);
+	}
+
+	private void openConnection(ConnectionTarget target) {
+		SocketChannel socketChannel = null;
+
+		try {
+			socketChannel = SocketChannel.open();
+			configureSocket(socketChannel);
+
+			if (socketChannel.connect(target.address)) {
+				SelectionKey key = socketChannel.register(selector, SelectionKey.OP_READ);
+				connected(key, target);
+			} else {
+				socketChannel.register(selector, SelectionKey.OP_CONNECT, target);
+			}
+
+		} catch (IOException e) {
+			if (socketChannel != null) {
+				try {
+					socketChannel.close();
+				} catch (IOException e1) {
+					Log.warn("Error while closing socket channel!", e1);
+				}
+			}
+
+			notifyConnectFailed(target, e);
+		}
+	}
+
+	private void connected(SelectionKey key, ConnectionTarget target) {
+		Log.debug("Connected", "address", target.address);
+
+		RapidoidConnection conn = attachConn(key, target.protocol);
+		conn.setClient(true);
+		conn.setInitial(false);
+
+		if (target.protocol instanceof ConnStatusListener) {
+			try {
+				((ConnStatusListener) target.protocol).onConnected(conn);
+			} catch (Throwable e) {
+				Log.error("Error in the connection listener!", e);
+			}
+		}
+	}
+
+	private void notifyConnectFailed(ConnectionTarget target, Throwable error) {
+		Log.debug("Couldn't connect", "address", target.address, "error", error);
+
+		if (target.protocol instanceof ConnStatusListener) {
+			try {
+				((ConnStatusListener) target.protocol).onConnectFailed(error);
+			} catch (Throwable e) {
+				Log.error("Error in the connection listener!", e);
+			}
+		}
+	}
+
+	private void notifyClosed(RapidoidConnection conn) {
+		Protocol protocol = conn.getProtocol();
+
+		if (protocol instanceof ConnStatusListener) {
+			try {
+				((ConnStatusListener) protocol).onClosed(conn);
+			} catch (Throwable e) {
+				Log.error("Error in the connection listener!", e);
+			}
+		}
+	}
+
 	@Override
 	protected void doProcessing() {
 
+		ConnectionTarget target;
+
+		while ((target = connecting.poll()) != null) {
+			openConnection(target);
+		}
+
+		RapidoidConnection toResume;
+
+		while ((toResume = resuming.poll()) != null) {
+			resumed(toResume);
+		}
+
 		SocketChannel schannel;
 
 		while ((schannel = connected.poll()) != null) {
@@ -479,6 +650,7 @@ public class RapidoidWorker extends AbstractEventLoop<RapidoidWorker> {
 
 		done.clear();
 		connected.clear();
+		connecting.clear();
 		connections.clear();
 		bufs.clear();
 	}
@@ -37,8 +37,11 @@ public class FileSystemTemplateStore extends RapidoidThing implements TemplateSt
 
 	@Override
 	public String loadTemplate(String name) {
-		Res res = Res.from(name, templatesPath);
-		return res.mustExist().getContent();
+		return resource(name).mustExist().getContent();
+	}
+
+	public Res resource(String name) {
+		return Res.from(name, templatesPath);
 	}
 
 }
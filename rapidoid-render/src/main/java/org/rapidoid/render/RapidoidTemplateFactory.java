@@ -3,11 +3,17 @@ package org.rapidoid.render;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.collection.Coll;
-import org.rapidoid.lambda.Mapper;
+import org.rapidoid.collection.ConcurrentLRUMap;
+import org.rapidoid.commons.Env;
+import org.rapidoid.config.Conf;
+import org.rapidoid.io.Res;
 import org.rapidoid.u.U;
 
+import java.lang.ref.WeakReference;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * #%L
@@ -29,35 +35,91 @@ import java.util.Map;
  * #L%
  */
 
+/**
+ * Keeps the compiled templates in a cache with LRU eviction, bounded by the configured <code>templates.cacheSize</code>.
+ * The partials included by each template are tracked, so invalidating a template also invalidates the templates that
+ * include it (directly or indirectly).
+ */
 @Authors("Nikolche Mihajlovski")
 @Since("5.2.0")
 public class RapidoidTemplateFactory extends RapidoidThing implements TemplateFactory {
 
-	private final Map<String, RapidoidTemplate> compiledTemplates = Coll.autoExpandingMap(new Mapper<String, RapidoidTemplate>() {
-		@Override
-		public RapidoidTemplate map(String filename) throws Exception {
-			return loadAndCompile(filename);
-		}
-	});
+	private static final AtomicInteger ID_GEN = new AtomicInteger();
 
-	public RapidoidTemplate loadAndCompile(String filename) {
-		return new RapidoidTemplate(filename, loadTemplate(filename), this);
-	}
+	private final ConcurrentLRUMap<String, CachedTemplate> compiledTemplates;
+
+	// included template -> the templates that include it (guarded by itself)
+	private final Map<String, Set<String>> includedBy = U.map();
 
 	private final TemplateStore templateStore;
 
+	private final String changeListenerId = "template-factory-" + ID_GEN.incrementAndGet();
+
+	// incremented on each invalidation, so the templates compiled before it aren't cached
+	private final AtomicLong generation = new AtomicLong();
+
 	public RapidoidTemplateFactory(TemplateStore templateStore) {
+		this(templateStore, Conf.TEMPLATES.entry("cacheSize").or(1000));
+	}
+
+	public RapidoidTemplateFactory(TemplateStore templateStore, int cacheSize) {
+		U.must(cacheSize > 0, "The template cache size must be positive!");
+
 		this.templateStore = templateStore;
+
+		this.compiledTemplates = new ConcurrentLRUMap<String, CachedTemplate>(cacheSize) {
+			@Override
+			protected void evicted(String filename, CachedTemplate cached) {
+				// the evicted template's class (and class loader) can be unloaded when it's not used anymore
+				removeDependencies(filename, cached);
+				unwatchChanges(filename);
+			}
+		};
 	}
 
 	@Override
 	public void reset() {
+		generation.incrementAndGet();
+
+		for (Map.Entry<String, CachedTemplate> e : compiledTemplates.entries()) {
+			unwatchChanges(e.getKey());
+		}
+
 		compiledTemplates.clear();
+
+		synchronized (includedBy) {
+			includedBy.clear();
+		}
 	}
 
 	@Override
 	public Template load(String filename) {
-		return compiledTemplates.get(filename);
+		CachedTemplate cached = compiledTemplates.get(filename);
+
+		if (cached == null) {
+			long gen = generation.get();
+			cached = compileTemplate(filename);
+
+			if (generation.get() != gen) {
+				return cached.template; // invalidated while compiling, so it might be stale
+			}
+
+			// watching before caching, so each cached template has a change listener
+			watchChanges(filename);
+			addDependencies(filename, cached);
+
+			CachedTemplate existing = compiledTemplates.putIfAbsent(filename, cached);
+
+			if (existing != null) {
+				return existing.template; // compiled concurrently, with the same includes
+			}
+
+			if (generation.get() != gen && compiledTemplates.remove(filename, cached)) {
+				removeDependencies(filename, cached); // invalidated while caching
+			}
+		}
+
+		return cached.template;
 	}
 
 	@Override
@@ -65,16 +127,163 @@ public class RapidoidTemplateFactory extends RapidoidThing implements TemplateFa
 		return new RapidoidTemplate(null, TemplateParser.parse(source).compile(), this);
 	}
 
-	protected TemplateRenderer loadTemplate(String filename) {
-		String content;
+	public RapidoidTemplate loadAndCompile(String filename) {
+		return compileTemplate(filename).template;
+	}
+
+	private CachedTemplate compileTemplate(String filename) {
+		XNode node = TemplateParser.parse(loadTemplate(filename));
+
+		String ext = RenderCtxImpl.calcFileExt(filename);
+		Set<String> includes = U.set();
+
+		for (String include : node.includes()) {
+			includes.add(include + ext);
+		}
+
+		return new CachedTemplate(new RapidoidTemplate(filename, node.compile(), this), includes);
+	}
+
+	/**
+	 * Drops the compiled template, and all the templates that include it.
+	 */
+	public void invalidate(String filename) {
+		generation.incrementAndGet();
+		invalidate(filename, U.<String>set());
+	}
+
+	private void invalidate(String filename, Set<String> invalidated) {
+		if (!invalidated.add(filename)) return; // already processed (the includes might be cyclic)
+
+		// unwatching before removing, so a template re-cached concurrently keeps its change listener
+		unwatchChanges(filename);
+
+		CachedTemplate cached = compiledTemplates.remove(filename);
+
+		if (cached != null) {
+			removeDependencies(filename, cached);
+		}
+
+		for (String dependent : dependentsOf(filename)) {
+			invalidate(dependent, invalidated);
+		}
+	}
 
+	public int size() {
+		return compiledTemplates.size();
+	}
+
+	/**
+	 * The (currently compiled) templates that include the specified template.
+	 */
+	Set<String> dependentsOf(String filename) {
+		synchronized (includedBy) {
+			Set<String> dependents = includedBy.get(filename);
+			return dependents != null ? U.set(dependents) : U.<String>set();
+		}
+	}
+
+	private void addDependencies(String filename, CachedTemplate cached) {
+		synchronized (includedBy) {
+			for (String include : cached.includes) {
+				Set<String> dependents = includedBy.get(include);
+
+				if (dependents == null) {
+					dependents = U.set();
+					includedBy.put(include, dependents);
+				}
+
+				dependents.add(filename);
+			}
+		}
+	}
+
+	private void removeDependencies(String filename, CachedTemplate cached) {
+		synchronized (includedBy) {
+			for (String include : cached.includes) {
+				Set<String> dependents = includedBy.get(include);
+
+				if (dependents != null) {
+					dependents.remove(filename);
+
+					if (dependents.isEmpty()) {
+						includedBy.remove(include);
+					}
+				}
+			}
+		}
+	}
+
+	private void watchChanges(String filename) {
+		if (templateStore instanceof FileSystemTemplateStore) {
+			Res res = ((FileSystemTemplateStore) templateStore).resource(filename);
+
+			res.onChange(changeListenerId, new ChangeListener(this, res, changeListenerId, filename));
+
+			if (Env.dev()) {
+				res.trackChanges();
+			}
+		}
+	}
+
+	private void unwatchChanges(String filename) {
+		if (templateStore instanceof FileSystemTemplateStore) {
+			((FileSystemTemplateStore) templateStore).resource(filename).removeChangeListener(changeListenerId);
+		}
+	}
+
+	protected String loadTemplate(String filename) {
 		try {
-			content = templateStore.loadTemplate(filename);
+			return templateStore.loadTemplate(filename);
 		} catch (Exception e) {
 			throw U.rte("Couldn't load template: " + filename, e);
 		}
+	}
+
+	/**
+	 * The resources are cached globally, so their listeners mustn't keep the factory reachable.
+	 */
+	private static class ChangeListener implements Runnable {
+
+		final WeakReference<RapidoidTemplateFactory> factory;
+
+		final Res res;
+
+		final String id;
+
+		final String filename;
+
+		ChangeListener(RapidoidTemplateFactory factory, Res res, String id, String filename) {
+			this.factory = new WeakReference<RapidoidTemplateFactory>(factory);
+			this.res = res;
+			this.id = id;
+			this.filename = filename;
+		}
+
+		@Override
+		public void run() {
+			RapidoidTemplateFactory factory = this.factory.get();
+
+			if (factory != null) {
+				factory.invalidate(filename);
+			} else {
+				res.removeChangeListener(id); // the factory was collected
+			}
+		}
+
+	}
+
+	private static class CachedTemplate {
+
+		final RapidoidTemplate template;
+
+		final Set<String> includes;
+
+		CachedTemplate(RapidoidTemplate template, Set<String> includes) {
+			this.template = template;
+			this.includes = includes;
+		}
 
-		return TemplateParser.parse(content).compile();
 	}
 
 }
@@ -31,12 +31,20 @@ import java.util.List;
 @Since("5.1.0")
 public interface RenderCtx {
 
+	void print(byte[] bytes) throws IOException;
+
 	void printAscii(String s) throws IOException;
 
 	void printUTF8(String s) throws IOException;
 
 	void printValue(Object value, boolean escape) throws IOException;
 
+	Object items(ValueRetriever retriever);
+
+	/**
+	 * Use <code>items(retriever)</code> instead, the compiled templates iterate the items in place.
+	 */
+	@Deprecated
 	List iter(ValueRetriever retriever);
 
 	void val(ValueRetriever retriever, boolean escape) throws IOException;
@@ -47,6 +47,11 @@ public class RenderCtxImpl extends RapidoidThing implements RenderCtx {
 	private volatile String ext;
 	private volatile TemplateFactory factory;
 
+	@Override
+	public void print(byte[] bytes) throws IOException {
+		out.write(bytes);
+	}
+
 	@Override
 	public void printAscii(String s) throws IOException {
 		StreamUtils.writeAscii(out, s);
@@ -91,6 +96,13 @@ public class RenderCtxImpl extends RapidoidThing implements RenderCtx {
 	}
 
 	@Override
+	public Object items(ValueRetriever retriever) {
+		Object val = retriever.retrieve(model);
+		return !Boolean.FALSE.equals(val) ? val : null;
+	}
+
+	@Override
+	@Deprecated
 	public List iter(ValueRetriever retriever) {
 		Object val = retriever.retrieve(model);
 
@@ -174,7 +186,7 @@ public class RenderCtxImpl extends RapidoidThing implements RenderCtx {
 		return this;
 	}
 
-	private String calcFileExt(String filename) {
+	static String calcFileExt(String filename) {
 		if (U.notEmpty(filename)) {
 			String fileExt = Str.cutFromFirst(filename, ".");
 			return fileExt != null ? "." + fileExt : "";
@@ -190,6 +202,10 @@ public class RenderCtxImpl extends RapidoidThing implements RenderCtx {
 
 	public void reset() {
 		this.model.clear();
+
+		// the context is reused by the thread, so it shouldn't retain the output and the factory
+		this.out = null;
+		this.factory = null;
 	}
 
 }
@@ -5,6 +5,7 @@ import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 /*
  * #%L
@@ -52,4 +53,12 @@ public class RenderDSL extends RapidoidThing {
 		return new String(out.toByteArray());
 	}
 
+	/**
+	 * Renders the template straight into the specified output (e.g. <code>resp.out()</code> of a HTTP response),
+	 * without buffering the result.
+	 */
+	public void renderTo(OutputStream out, Object model) {
+		template.renderTo(out, model);
+	}
+
 }
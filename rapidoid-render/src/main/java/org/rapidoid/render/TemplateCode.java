@@ -0,0 +1,47 @@
+package org.rapidoid.render;
+
+/*
+ * #%L
+ * rapidoid-render
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+
+import java.util.Map;
+
+/**
+ * The parts of a compiled template class, collected while generating the code of the render method:
+ * the value retrievers, the pre-encoded static text fragments and the helper methods for the loops.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class TemplateCode extends RapidoidThing {
+
+	// expression -> expression literal
+	final Map<String, String> expressions = U.map();
+
+	// static text -> fragment field ID
+	final Map<String, String> fragments = U.map();
+
+	// method name -> method body (nested loops first)
+	final Map<String, String> methods = U.map();
+
+}
@@ -6,6 +6,7 @@ import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
 import org.rapidoid.u.U;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -37,9 +38,9 @@ public class TemplateCompiler extends RapidoidThing {
 
 	public static TemplateRenderer compile(XNode node) {
 		try {
-			Map<String, String> expressions = U.map();
-			String source = TemplateToCode.generate(node, expressions);
-			return tryToCompile(source, expressions);
+			TemplateCode code = new TemplateCode();
+			String source = TemplateToCode.generate(node, code);
+			return tryToCompile(source, code);
 
 		} catch (NotFoundException e) {
 			throw U.rte(e);
@@ -50,17 +51,20 @@ public class TemplateCompiler extends RapidoidThing {
 		}
 	}
 
-	private static TemplateRenderer tryToCompile(String source, Map<String, String> expressions) throws NotFoundException, CannotCompileException,
-		InstantiationException, IllegalAccessException {
+	private static TemplateRenderer tryToCompile(String source, TemplateCode code) throws NotFoundException, CannotCompileException,
+		InstantiationException, IllegalAccessException, IOException {
+
+		// a new pool per template, so the compiled classes aren't kept in the default pool forever
+		ClassPool cp = new ClassPool(true);
+		cp.appendClassPath(new LoaderClassPath(TemplateCompiler.class.getClassLoader()));
 
-		ClassPool cp = ClassPool.getDefault();
 		CtClass sup = cp.get(Object.class.getCanonicalName());
 		CtClass cls = cp.makeClass("RapidoidTemplate" + ID_GEN.incrementAndGet(), sup);
 
 		cls.addInterface(cp.get(TemplateRenderer.class.getCanonicalName()));
 		cls.addConstructor(CtNewConstructor.defaultConstructor(cls));
 
-		for (Map.Entry<String, String> expr : expressions.entrySet()) {
+		for (Map.Entry<String, String> expr : code.expressions.entrySet()) {
 			String fld = "private static final org.rapidoid.render.retriever.ValueRetriever %s = org.rapidoid.render.retriever.Retriever.of(%s);";
 
 			String retrieverId = retrieverId(expr.getKey());
@@ -71,11 +75,46 @@ public class TemplateCompiler extends RapidoidThing {
 			cls.addField(CtField.make(field, cls));
 		}
 
-		CtClass[] params = {cp.get(RenderCtx.class.getCanonicalName())};
+		for (Map.Entry<String, String> fragment : code.fragments.entrySet()) {
+			String fld = "private static final byte[] %s = org.rapidoid.render.TemplateToCode.utf8(%s);";
+
+			String field = U.frmt(fld, fragment.getValue(), TemplateToCode.literal(fragment.getKey()));
+
+			cls.addField(CtField.make(field, cls));
+		}
+
+		CtClass ctx = cp.get(RenderCtx.class.getCanonicalName());
 		CtClass clsVoid = cp.get(void.class.getCanonicalName());
+
+		CtClass[] eachParams = {ctx, CtClass.intType, cp.get(Object.class.getCanonicalName())};
+
+		for (Map.Entry<String, String> each : code.methods.entrySet()) {
+			cls.addMethod(CtNewMethod.make(Modifier.PRIVATE, clsVoid, each.getKey(), eachParams, new CtClass[0], each.getValue(), cls));
+		}
+
+		CtClass[] params = {ctx};
 		cls.addMethod(CtNewMethod.make(Modifier.PUBLIC, clsVoid, "render", params, new CtClass[0], source, cls));
 
-		return (TemplateRenderer) cls.toClass().newInstance();
+		String className = cls.getName();
+		byte[] bytecode = cls.toBytecode();
+		cls.detach();
+
+		// each template gets its own class loader, so its class can be unloaded after the template is dropped
+		TemplateClassLoader loader = new TemplateClassLoader(TemplateCompiler.class.getClassLoader());
+
+		return (TemplateRenderer) loader.define(className, bytecode).newInstance();
+	}
+
+	static class TemplateClassLoader extends ClassLoader {
+
+		TemplateClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] bytecode) {
+			return defineClass(name, bytecode, 0, bytecode.length);
+		}
+
 	}
 
 	public static String retrieverId(String expr) {
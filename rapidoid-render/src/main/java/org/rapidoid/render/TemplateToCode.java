@@ -6,10 +6,9 @@ import org.rapidoid.annotation.Since;
 import org.rapidoid.commons.Err;
 import org.rapidoid.commons.Str;
 import org.rapidoid.u.U;
-import org.rapidoid.util.Msc;
 
+import java.nio.charset.Charset;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /*
@@ -40,84 +39,81 @@ public class TemplateToCode extends RapidoidThing {
 
 	public static final String Q = "\"";
 
-	public static String generate(XNode x, Map<String, String> expressions) {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public static String generate(XNode x, TemplateCode code) {
 		String body;
 
 		switch (x.op) {
 			case OP_ROOT:
-				return "{" + join("", x.children, expressions) + "}";
+				return "{" + join("", x.children, code) + "}";
 
 			case OP_TEXT:
-				return U.notEmpty(x.text) ? print(literal(x.text)) : "";
+				return U.notEmpty(x.text) ? print(x.text, code) : "";
 
 			case OP_PRINT:
-				return val(x.text, true, expressions);
+				return val(x.text, true, code);
 
 			case OP_PRINT_RAW:
-				return val(x.text, false, expressions);
+				return val(x.text, false, code);
 
 			case OP_IF_NOT:
-				body = join("", x.children, expressions);
+				body = join("", x.children, code);
 				return U.frmt("if (!$1.cond(%s)) { %s }", literal(x.text), body);
 
 			case OP_IF:
-				body = join("", x.children, expressions);
+				body = join("", x.children, code);
 				return U.frmt("if ($1.cond(%s)) { %s }", literal(x.text), body);
 
 			case OP_INCLUDE:
 				return U.frmt("$1.call(%s);", literal(x.text));
 
 			case OP_FOREACH:
-				body = join("", x.children, expressions);
-				String retrId = expr(expressions, x.text);
+				body = join("", x.children, code);
+				String retrId = expr(code, x.text);
 
-				return iterList(body, retrId);
+				return iterate(body, retrId, code);
 
 			default:
 				throw Err.notExpected();
 		}
 	}
 
-	private static String iterList(String body, String retrId) {
-		String list = "v" + ID_GEN.incrementAndGet();
-		String ind = "v" + ID_GEN.incrementAndGet();
-
-		String code = "java.util.List %s = $1.iter(%s);" +
-			" for (int %s = 0; %s < %s.size(); %s++) {\n" +
-			" %s\n }";
-
-		return U.frmt(code, list, retrId, ind, ind, list, ind, scopedList(ind, list, body));
-	}
+	/**
+	 * The loop body goes into a separate method, so it can be invoked from each of the loops below, which iterate
+	 * the lists, arrays and other iterables in place, without copying them.
+	 */
+	private static String iterate(String body, String retrId, TemplateCode code) {
+		String each = "each" + ID_GEN.incrementAndGet();
+		code.methods.put(each, scoped(body));
 
-	private static String iterArr(String body, String retrId) {
+		String items = "v" + ID_GEN.incrementAndGet();
+		String list = "v" + ID_GEN.incrementAndGet();
 		String arr = "v" + ID_GEN.incrementAndGet();
-		String ind = "v" + ID_GEN.incrementAndGet();
-
-		String code = "Object[] %s = $1.iter(%s);" +
-			" for (int %s = 0; %s < %s.length; %s++) {\n" +
-			" %s\n }";
-
-		return U.frmt(code, arr, retrId, ind, ind, arr, ind, scopedArr(ind, arr, body));
-	}
-
-	private static String eachIter(String body, String retrId) {
 		String it = "v" + ID_GEN.incrementAndGet();
-		String var = "v" + ID_GEN.incrementAndGet();
-		String ind = "v" + ID_GEN.incrementAndGet();
-
-		String insideBody = scopedIter(ind, var, body);
-
-		String code = "java.util.Iterator %s = $1.iter(%s);\n" // it, retrId
-			+ "int %s = 0;\n " // ind
-			+ "while (%s.hasNext()) {\n" // it
-			+ "Object %s = %s.next();\n" // var, it
-			+ " %s++;\n" // ind
-			+ "%s\n }";
-
-		return U.frmt(code, it, retrId, ind, it, var, it, ind, insideBody);
+		String i = "v" + ID_GEN.incrementAndGet();
+		String j = "v" + ID_GEN.incrementAndGet();
+		String k = "v" + ID_GEN.incrementAndGet();
+
+		return "Object " + items + " = $1.items(" + retrId + ");\n" +
+			"if (" + items + " instanceof java.util.List && " + items + " instanceof java.util.RandomAccess) {\n" +
+			" java.util.List " + list + " = (java.util.List) " + items + ";\n" +
+			" for (int " + i + " = 0; " + i + " < " + list + ".size(); " + i + "++) { " +
+			each + "($1, " + i + ", " + list + ".get(" + i + ")); }\n" +
+			"} else if (" + items + " instanceof Object[]) {\n" +
+			" Object[] " + arr + " = (Object[]) " + items + ";\n" +
+			" for (int " + j + " = 0; " + j + " < " + arr + ".length; " + j + "++) { " +
+			each + "($1, " + j + ", " + arr + "[" + j + "]); }\n" +
+			"} else if (" + items + " instanceof java.lang.Iterable) {\n" +
+			" java.util.Iterator " + it + " = ((java.lang.Iterable) " + items + ").iterator();\n" +
+			" for (int " + k + " = 0; " + it + ".hasNext(); " + k + "++) { " +
+			each + "($1, " + k + ", " + it + ".next()); }\n" +
+			"} else if (" + items + " != null) {\n" +
+			" " + each + "($1, 0, " + items + ");\n" +
+			"}\n";
 	}
 
-	private static String join(String separator, List<XNode> nodes, Map<String, String> expressions) {
+	private static String join(String separator, List<XNode> nodes, TemplateCode code) {
 		StringBuilder sb = new StringBuilder();
 
 		for (int i = 0; i < nodes.size(); i++) {
@@ -125,52 +121,40 @@ public class TemplateToCode extends RapidoidThing {
 				sb.append(separator);
 			}
 
-			String code = TemplateToCode.generate(nodes.get(i), expressions);
-			sb.append(code);
+			sb.append(TemplateToCode.generate(nodes.get(i), code));
 		}
 
 		return sb.toString();
 	}
 
-	static String scopedList(String ind, String list, String code) {
-		String var = list + ".get(" + ind + ")";
-		return U.frmt("$1.push(%s, %s); try { %s } finally { $1.pop(%s, %s); }", ind, var, code, ind, var);
-	}
-
-	static String scopedArr(String i, String arr, String code) {
-		String var = arr + "[" + i + "]";
-		return U.frmt("$1.push(%s, %s); try { %s } finally { $1.pop(%s, %s); }", i, var, code, i, var);
+	static String scoped(String code) {
+		return U.frmt("{ $1.push($2, $3); try { %s } finally { $1.pop($2, $3); } }", code);
 	}
 
-	static String scopedIter(String ind, String var, String code) {
-		return U.frmt("$1.push(%s, %s); try { %s } finally { $1.pop(%s, %s); }", ind, var, code, ind, var);
-	}
+	static String print(String text, TemplateCode code) {
+		String id = code.fragments.get(text);
 
-	static String print(String s) {
-		if (s.isEmpty()) {
-			return "";
+		if (id == null) {
+			id = "_F" + code.fragments.size() + "_";
+			code.fragments.put(text, id);
 		}
 
-		if (Msc.isAscii(s)) {
-			return U.frmt("$1.printAscii(%s);\n", s);
-		} else {
-			return U.frmt("$1.printUTF8(%s);\n", s);
-		}
+		return U.frmt("$1.print(%s);\n", id);
 	}
 
-	static String val(String s, boolean escape, Map<String, String> expressions) {
+	static String val(String s, boolean escape, TemplateCode code) {
 
 		String[] parts = s.split("\\|\\|", 2);
 
 		if (parts.length == 2) {
 			String prop = parts[0];
 			String orElse = literal(parts[1]);
-			String retrId = expr(expressions, prop);
+			String retrId = expr(code, prop);
 
 			return U.frmt("$1.valOr(%s, %s, %s);\n", retrId, orElse, escape);
 
 		} else {
-			String retrId = expr(expressions, s);
+			String retrId = expr(code, s);
 
 			return U.frmt("$1.val(%s, %s);\n", retrId, escape);
 		}
@@ -180,8 +164,15 @@ public class TemplateToCode extends RapidoidThing {
 		return Q + Str.javaEscape(s) + Q;
 	}
 
-	private static String expr(Map<String, String> expressions, String expr) {
-		expressions.put(expr, literal(expr));
+	/**
+	 * Used by the compiled templates to pre-encode their static text fragments, once.
+	 */
+	public static byte[] utf8(String s) {
+		return s.getBytes(UTF_8);
+	}
+
+	private static String expr(TemplateCode code, String expr) {
+		code.expressions.put(expr, literal(expr));
 
 		return TemplateCompiler.retrieverId(expr);
 	}
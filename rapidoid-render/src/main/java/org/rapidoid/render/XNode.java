@@ -6,6 +6,7 @@ import org.rapidoid.annotation.Since;
 import org.rapidoid.u.U;
 
 import java.util.List;
+import java.util.Set;
 
 /*
  * #%L
@@ -61,4 +62,23 @@ public class XNode extends RapidoidThing {
 		return TemplateCompiler.compile(this);
 	}
 
+	/**
+	 * The names of the partials included by this node and its descendants.
+	 */
+	Set<String> includes() {
+		Set<String> includes = U.set();
+		collectIncludes(includes);
+		return includes;
+	}
+
+	private void collectIncludes(Set<String> includes) {
+		if (op == OP.OP_INCLUDE) {
+			includes.add(text);
+		}
+
+		for (XNode child : children) {
+			child.collectIncludes(includes);
+		}
+	}
+
 }
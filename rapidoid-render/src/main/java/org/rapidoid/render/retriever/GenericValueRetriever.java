@@ -23,7 +23,6 @@ package org.rapidoid.render.retriever;
 import org.rapidoid.RapidoidThing;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
-import org.rapidoid.beany.BeanProp;
 import org.rapidoid.beany.Beany;
 import org.rapidoid.beany.Prop;
 import org.rapidoid.render.Getter;
@@ -39,38 +38,78 @@ public class GenericValueRetriever extends RapidoidThing implements ValueRetriev
 
 	private final String property;
 
-	private volatile Class<?> cachedModelType;
-	private volatile Prop cachedProp;
+	private final String[] path;
+
+	// one per path segment, the accessors are specialized by the model class (maps and getters included)
+	private final InlineCache[] caches;
 
 	public GenericValueRetriever(String property) {
 		this.property = property;
+
+		String[] path = property.split("\\.", -1);
+		this.path = isValidPath(path) ? path : null;
+
+		this.caches = new InlineCache[path.length];
+		for (int i = 0; i < path.length; i++) {
+			caches[i] = new InlineCache(path[i]);
+		}
+	}
+
+	private static boolean isValidPath(String[] path) {
+		for (String segment : path) {
+			if (segment.isEmpty()) return false;
+		}
+
+		return true;
 	}
 
 	@Override
 	public Object retrieve(List<Object> model) {
 		if (U.isEmpty(model)) return null;
-		return getProp(model);
+
+		if (path == null) {
+			return propOf(property, model);
+		}
+
+		Object value = path.length == 1 ? getProp(model) : scopedProp(model);
+
+		for (int i = 1; i < path.length && value != null; i++) {
+			value = valueOf(i, value);
+		}
+
+		return value;
 	}
 
 	private Object getProp(List<Object> model) {
 		Object target = U.last(model);
 
-		Class<?> cls = target.getClass();
-		if (cls.equals(cachedModelType) && cachedProp != null) {
-			return cachedProp.getFast(target);
+		if (target != null) {
+			PropertyAccessor accessor = caches[0].get(target.getClass());
+
+			if (accessor instanceof BeanPropertyAccessor) {
+				return accessor.get(target);
+			}
 		}
 
-		if (!(target instanceof Map)) {
-			Prop prop = Beany.property(target, property, false);
+		return scopedProp(model);
+	}
+
+	private Object scopedProp(List<Object> scope) {
+		for (int i = scope.size() - 1; i >= 0; i--) {
+			Object x = scope.get(i);
 
-			if (prop != null && prop instanceof BeanProp) {
-				cachedProp = prop;
-				cachedModelType = cls;
-				return cachedProp.getFast(target);
+			if (x != null) {
+				Object value = valueOf(0, x);
+				if (value != null) return value;
 			}
 		}
 
-		return propOf(property, model);
+		return null;
+	}
+
+	private Object valueOf(int segment, Object model) {
+		PropertyAccessor accessor = caches[segment].get(model.getClass());
+		return accessor.get(model);
 	}
 
 	public static Object self(List<Object> model) {
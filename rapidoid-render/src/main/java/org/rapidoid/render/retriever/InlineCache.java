@@ -0,0 +1,109 @@
+package org.rapidoid.render.retriever;
+
+/*
+ * #%L
+ * rapidoid-render
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+
+/**
+ * A polymorphic inline cache of the property accessors for one template expression, keyed by the model class.
+ * Once more than {@link #MAX_ENTRIES} model classes are seen, the expression is considered megamorphic and
+ * further lookups go straight to the (global) accessor registry.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class InlineCache extends RapidoidThing {
+
+	public static final int MAX_ENTRIES = 4;
+
+	private static final Class<?>[] NO_CLASSES = {};
+
+	private static final PropertyAccessor[] NO_ACCESSORS = {};
+
+	private final String property;
+
+	// copy-on-write, updated together
+	private volatile Entries entries = new Entries(NO_CLASSES, NO_ACCESSORS);
+
+	public InlineCache(String property) {
+		this.property = property;
+	}
+
+	public PropertyAccessor get(Class<?> cls) {
+		Entries entries = this.entries;
+		Class<?>[] classes = entries.classes;
+
+		for (int i = 0; i < classes.length; i++) {
+			if (classes[i] == cls) {
+				return entries.accessors[i];
+			}
+		}
+
+		PropertyAccessor accessor = PropertyAccessors.of(cls, property);
+
+		if (classes.length < MAX_ENTRIES) {
+			add(cls, accessor);
+		}
+
+		return accessor;
+	}
+
+	private synchronized void add(Class<?> cls, PropertyAccessor accessor) {
+		Entries entries = this.entries;
+		int size = entries.classes.length;
+
+		if (size >= MAX_ENTRIES) return;
+
+		for (Class<?> c : entries.classes) {
+			if (c == cls) return;
+		}
+
+		Class<?>[] classes = new Class<?>[size + 1];
+		PropertyAccessor[] accessors = new PropertyAccessor[size + 1];
+
+		System.arraycopy(entries.classes, 0, classes, 0, size);
+		System.arraycopy(entries.accessors, 0, accessors, 0, size);
+
+		classes[size] = cls;
+		accessors[size] = accessor;
+
+		this.entries = new Entries(classes, accessors);
+	}
+
+	public int size() {
+		return entries.classes.length;
+	}
+
+	private static class Entries {
+
+		final Class<?>[] classes;
+
+		final PropertyAccessor[] accessors;
+
+		Entries(Class<?>[] classes, PropertyAccessor[] accessors) {
+			this.classes = classes;
+			this.accessors = accessors;
+		}
+
+	}
+
+}
@@ -0,0 +1,249 @@
+package org.rapidoid.render.retriever;
+
+/*
+ * #%L
+ * rapidoid-render
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import org.rapidoid.RapidoidThing;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.beany.BeanProp;
+import org.rapidoid.beany.Beany;
+import org.rapidoid.beany.Prop;
+import org.rapidoid.cls.Invokers;
+import org.rapidoid.render.Getter;
+import org.rapidoid.var.Var;
+import org.rapidoid.var.Vars;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Property accessors specialized by the model class. For the bean properties a class is generated, which calls the
+ * getter (or reads the field) directly, falling back to the (reflective) bean property if the accessor can't be
+ * generated. The lookup in maps and {@link Getter}s is also resolved once per class, to avoid checking the model's
+ * type on each access.
+ */
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class PropertyAccessors extends RapidoidThing {
+
+	/**
+	 * Used for the classes that don't have the property.
+	 */
+	public static final PropertyAccessor NONE = new PropertyAccessor() {
+		@Override
+		public Object get(Object target) {
+			return null;
+		}
+	};
+
+	private static final AtomicInteger ID_GEN = new AtomicInteger();
+
+	/**
+	 * The accessors are attached to the model class, so the lookup is lock-free and they don't keep the (web app)
+	 * class loaders alive.
+	 */
+	private static final ClassValue<ConcurrentMap<String, PropertyAccessor>> ACCESSORS = new ClassValue<ConcurrentMap<String, PropertyAccessor>>() {
+		@Override
+		protected ConcurrentMap<String, PropertyAccessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	public static PropertyAccessor of(Class<?> cls, String property) {
+		ConcurrentMap<String, PropertyAccessor> accessors = ACCESSORS.get(cls);
+		PropertyAccessor accessor = accessors.get(property);
+
+		if (accessor == null) {
+			accessor = create(cls, property);
+			PropertyAccessor existing = accessors.putIfAbsent(property, accessor);
+
+			if (existing != null) {
+				accessor = existing;
+			}
+		}
+
+		return accessor;
+	}
+
+	private static PropertyAccessor create(Class<?> cls, String property) {
+
+		if (Map.class.isAssignableFrom(cls)) {
+			return new MapAccessor(property);
+		}
+
+		if (Getter.class.isAssignableFrom(cls)) {
+			return new GetterAccessor(property);
+		}
+
+		Prop prop = Beany.property(cls, property, false);
+
+		if (prop == null) {
+			return NONE;
+		}
+
+		if (prop instanceof BeanProp) {
+			BeanProp beanProp = (BeanProp) prop;
+			Member member = beanProp.getGetter() != null ? beanProp.getGetter() : beanProp.getField();
+
+			if (member != null && canGenerate(member)) {
+				try {
+					return generate(member);
+				} catch (Throwable e) {
+					Invokers.generationFailed("property accessor", member, e);
+				}
+			}
+		}
+
+		return reflective(prop);
+	}
+
+	public static PropertyAccessor reflective(final Prop prop) {
+		return new BeanPropertyAccessor() {
+			@Override
+			public Object get(Object target) {
+				return prop.get(target);
+			}
+		};
+	}
+
+	private static boolean canGenerate(Member member) {
+		if (!Modifier.isPublic(member.getModifiers()) || Modifier.isStatic(member.getModifiers()) || member.isSynthetic()) {
+			return false;
+		}
+
+		if (member instanceof Method && ((Method) member).getParameterTypes().length > 0) {
+			return false;
+		}
+
+		Class<?> declaringClass = member.getDeclaringClass();
+		ClassLoader loader = declaringClass.getClassLoader();
+
+		// the generated class must be able to see both the target class and the accessor class
+		return isPublicType(declaringClass) && loader != null && isVisible(BeanPropertyAccessor.class, loader);
+	}
+
+	private static boolean isPublicType(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		for (Class<?> cls = type; cls != null; cls = cls.getEnclosingClass()) {
+			if (!Modifier.isPublic(cls.getModifiers())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> cls, ClassLoader loader) {
+		try {
+			return Class.forName(cls.getName(), false, loader) == cls;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static String typeName(Class<?> type) {
+		return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+	}
+
+	private static PropertyAccessor generate(Member member) throws Exception {
+		Class<?> target = member.getDeclaringClass();
+		ClassLoader loader = target.getClassLoader();
+
+		ClassPool cp = new ClassPool(true);
+		cp.appendClassPath(new LoaderClassPath(loader));
+
+		String name = target.getName() + "$$Accessor" + ID_GEN.incrementAndGet() + "$" + member.getName();
+		CtClass cls = cp.makeClass(name, cp.get(BeanPropertyAccessor.class.getName()));
+
+		cls.addConstructor(CtNewConstructor.defaultConstructor(cls));
+		cls.addMethod(CtNewMethod.make(accessorSource(member), cls));
+
+		return (PropertyAccessor) Invokers.defineClass(cls, target).newInstance();
+	}
+
+	static String accessorSource(Member member) {
+		String access = member instanceof Field ? member.getName() : member.getName() + "()";
+		String value = "((" + typeName(member.getDeclaringClass()) + ") $1)." + access;
+
+		Class<?> type = member instanceof Field ? ((Field) member).getType() : ((Method) member).getReturnType();
+
+		if (type.isPrimitive()) {
+			value = "($w) " + value;
+
+		} else if (mightBeVar(type)) {
+			value = Vars.class.getName() + ".unwrap(" + value + ")";
+		}
+
+		return "public Object get(Object target) { return " + value + "; }";
+	}
+
+	/**
+	 * The (relatively expensive) check whether the value is a {@link Var} is skipped when its type can't be one.
+	 */
+	private static boolean mightBeVar(Class<?> type) {
+		return !Modifier.isFinal(type.getModifiers()) || Var.class.isAssignableFrom(type);
+	}
+
+	private static class MapAccessor extends RapidoidThing implements PropertyAccessor {
+
+		private final String property;
+
+		MapAccessor(String property) {
+			this.property = property;
+		}
+
+		@Override
+		public Object get(Object target) {
+			return ((Map<?, ?>) target).get(property);
+		}
+
+	}
+
+	private static class GetterAccessor extends RapidoidThing implements PropertyAccessor {
+
+		private final String property;
+
+		GetterAccessor(String property) {
+			this.property = property;
+		}
+
+		@Override
+		public Object get(Object target) {
+			return ((Getter) target).get(property);
+		}
+
+	}
+
+}
@@ -23,8 +23,11 @@ package org.rapidoid.render;
 import org.junit.Test;
 import org.rapidoid.annotation.Authors;
 import org.rapidoid.annotation.Since;
+import org.rapidoid.render.retriever.GenericValueRetriever;
 import org.rapidoid.u.U;
 
+import java.util.LinkedList;
+
 @Authors("Nikolche Mihajlovski")
 @Since("5.1.0")
 public class RenderTest extends AbstractRenderTest {
@@ -93,6 +96,26 @@ public class RenderTest extends AbstractRenderTest {
 		eq(Render.template("{{#.}}(${length}){{/.}}").model(U.list("aaa", "bb")), "(3)(2)");
 	}
 
+	@Test
+	public void testIterationKinds() {
+		String each = "{{#x}}[${.}]{{/x}}";
+
+		eq(Render.template(each).model(U.map("x", U.list(1, 2, 3))), "[1][2][3]");
+		eq(Render.template(each).model(U.map("x", new LinkedList<Object>(U.list(1, 2, 3)))), "[1][2][3]");
+		eq(Render.template(each).model(U.map("x", new Object[]{"a", "b"})), "[a][b]");
+		eq(Render.template(each).model(U.map("x", U.set("a"))), "[a]");
+		eq(Render.template(each).model(U.map("x", "abc")), "[abc]");
+		eq(Render.template(each).model(U.map("x", false)), "");
+		eq(Render.template(each).model(U.map("y", 1)), "");
+	}
+
+	@Test
+	public void testNestedIteration() {
+		Object model = U.map("rows", U.list(U.map("cells", U.list(1, 2)), U.map("cells", new Integer[]{3})));
+
+		eq(Render.template("<{{#rows}}({{#cells}}${.}.{{/cells}}){{/rows}}>").model(model), "<(1.2.)(3.)>");
+	}
+
 	@Test
 	public void testScopes() {
 		eq(Render.template("${x}").multiModel(U.map("x", 1), U.map("x", 2)), "2");
@@ -151,6 +174,19 @@ public class RenderTest extends AbstractRenderTest {
 		eq(Render.template("${x}:" + wrongOrder + ":${x}").model(U.map("x", wrongOrder)), "??:??:??");
 	}
 
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testDeprecatedIteration() {
+		RenderCtxImpl ctx = new RenderCtxImpl();
+		GenericValueRetriever x = new GenericValueRetriever("x");
+
+		eq(ctx.model(U.map("x", U.list(1, 2))).iter(x), U.list(1, 2));
+		eq(ctx.model(U.map("x", new Object[]{"a", "b"})).iter(x), U.list("a", "b"));
+		eq(ctx.model(U.map("x", U.set(3))).iter(x), U.list(3));
+		eq(ctx.model(U.map("x", "abc")).iter(x), U.list("abc"));
+		isTrue(ctx.model(U.map("x", false)).iter(x).isEmpty());
+	}
+
 	private String view(Object x) {
 		return U.or(x, "N/A").toString();
 	}
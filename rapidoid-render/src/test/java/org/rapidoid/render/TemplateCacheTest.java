@@ -0,0 +1,192 @@
+package org.rapidoid.render;
+
+/*
+ * #%L
+ * rapidoid-render
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javassist.ClassPool;
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.io.IO;
+import org.rapidoid.u.U;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class TemplateCacheTest extends AbstractRenderTest {
+
+	private final Map<String, String> sources = U.map();
+
+	private final TemplateStore store = new TemplateStore() {
+		@Override
+		public String loadTemplate(String name) throws Exception {
+			return U.notNull(sources.get(name), "template " + name);
+		}
+	};
+
+	@Test
+	public void testLRUEviction() {
+		RapidoidTemplateFactory factory = new RapidoidTemplateFactory(store, 3);
+
+		for (String name : U.list("a", "b", "c", "d")) {
+			sources.put(name + ".html", name.toUpperCase());
+		}
+
+		Template a = factory.load("a.html");
+		Template b = factory.load("b.html");
+		factory.load("c.html");
+
+		isTrue(factory.load("a.html") == a); // a is now more recently used than b
+
+		eq(factory.load("d.html").render(null), "D");
+		eq(factory.size(), 3);
+
+		isTrue(factory.load("a.html") == a);
+		isTrue(factory.load("b.html") != b); // b was evicted
+		eq(factory.size(), 3);
+	}
+
+	@Test
+	public void testInvalidationThroughIncludes() {
+		RapidoidTemplateFactory factory = new RapidoidTemplateFactory(store, 100);
+
+		sources.put("page.html", "[{{>header}}]");
+		sources.put("header.html", "H{{>logo}}");
+		sources.put("logo.html", "L1");
+		sources.put("other.html", "O");
+
+		Template page = factory.load("page.html");
+		Template header = factory.load("header.html");
+		Template other = factory.load("other.html");
+
+		eq(page.render(U.map()), "[HL1]");
+
+		sources.put("logo.html", "L2");
+		eq(factory.load("page.html").render(U.map()), "[HL1]"); // still cached
+
+		factory.invalidate("logo.html");
+
+		isTrue(factory.load("page.html") != page);
+		isTrue(factory.load("header.html") != header);
+		isTrue(factory.load("other.html") == other);
+
+		eq(factory.load("page.html").render(U.map()), "[HL2]");
+	}
+
+	@Test
+	public void testCyclicIncludesInvalidation() {
+		RapidoidTemplateFactory factory = new RapidoidTemplateFactory(store, 100);
+
+		sources.put("x.html", "{{?x}}{{>y}}{{/x}}");
+		sources.put("y.html", "{{?y}}{{>x}}{{/y}}");
+
+		Template x = factory.load("x.html");
+		Template y = factory.load("y.html");
+
+		factory.invalidate("x.html");
+
+		isTrue(factory.load("x.html") != x);
+		isTrue(factory.load("y.html") != y);
+	}
+
+	@Test
+	public void testIncludesArePrunedOnEvictionAndInvalidation() {
+		RapidoidTemplateFactory factory = new RapidoidTemplateFactory(store, 2);
+
+		sources.put("a.html", "{{>common}}");
+		sources.put("b.html", "{{>common}}");
+		sources.put("c.html", "C");
+		sources.put("common.html", "X");
+
+		factory.load("a.html");
+		factory.load("b.html");
+		eq(factory.dependentsOf("common.html"), U.set("a.html", "b.html"));
+
+		factory.load("c.html"); // evicts a
+		eq(factory.dependentsOf("common.html"), U.set("b.html"));
+
+		factory.invalidate("b.html");
+		isTrue(factory.dependentsOf("common.html").isEmpty());
+	}
+
+	@Test
+	public void testTemplatesInvalidatedWhileCompilingAreNotCached() {
+		sources.put("a.html", "A");
+
+		RapidoidTemplateFactory factory = new RapidoidTemplateFactory(store, 100) {
+			@Override
+			protected String loadTemplate(String filename) {
+				String source = super.loadTemplate(filename);
+				invalidate(filename); // e.g. the file was changed concurrently
+				return source;
+			}
+		};
+
+		Template a = factory.load("a.html");
+		eq(a.render(null), "A");
+
+		eq(factory.size(), 0);
+		isTrue(factory.load("a.html") != a);
+	}
+
+	@Test
+	public void testChangeListenersDontRetainTheFactory() throws Exception {
+		String dir = Files.createTempDirectory("templates").toString();
+		IO.save(dir + "/page.html", "P");
+
+		RapidoidTemplateFactory factory = new RapidoidTemplateFactory(new FileSystemTemplateStore(new String[]{dir}), 100);
+		eq(factory.load("page.html").render(null), "P");
+
+		WeakReference<RapidoidTemplateFactory> ref = new WeakReference<RapidoidTemplateFactory>(factory);
+		factory = null;
+
+		for (int i = 0; i < 20 && ref.get() != null; i++) {
+			System.gc();
+			U.sleep(50);
+		}
+
+		isNull(ref.get());
+	}
+
+	@Test
+	public void testCompiledTemplateClassesCanBeUnloaded() {
+		TemplateRenderer renderer = TemplateParser.parse("abc${x}").compile();
+
+		ClassLoader loader = renderer.getClass().getClassLoader();
+		isTrue(loader instanceof TemplateCompiler.TemplateClassLoader);
+		isNull(ClassPool.getDefault().getOrNull(renderer.getClass().getName()));
+
+		WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>(loader);
+
+		renderer = null;
+		loader = null;
+
+		for (int i = 0; i < 20 && ref.get() != null; i++) {
+			System.gc();
+			U.sleep(50);
+		}
+
+		isNull(ref.get());
+	}
+
+}
@@ -0,0 +1,136 @@
+package org.rapidoid.render;
+
+/*
+ * #%L
+ * rapidoid-render
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.u.U;
+import org.rapidoid.util.Msc;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class TemplateRenderingPerfTest {
+
+	private static final int COUNT = 100000;
+
+	private static final String TEMPLATE = "<table class=\"table table-striped\">\n" +
+		"<thead><tr><th>ID</th><th>Name</th><th>Email</th><th>Score</th></tr></thead>\n<tbody>\n" +
+		"{{#rows}}<tr class=\"row\"><td>${id}</td><td>${name}</td><td>${email}</td><td>${score}</td></tr>\n{{/rows}}" +
+		"</tbody>\n</table>\n";
+
+	private static final String BEAN_TEMPLATE = "<table class=\"table table-striped\">\n" +
+		"<thead><tr><th>ID</th><th>Name</th><th>Email</th><th>Score</th></tr></thead>\n<tbody>\n" +
+		"{{#rows}}<tr class=\"row\"><td>${id}</td><td>${user.name}</td><td>${user.email}</td><td>${score}</td></tr>\n{{/rows}}" +
+		"</tbody>\n</table>\n";
+
+	public static class User {
+
+		private final String name;
+
+		private final String email;
+
+		public User(String name, String email) {
+			this.name = name;
+			this.email = email;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getEmail() {
+			return email;
+		}
+
+	}
+
+	public static class Row {
+
+		private final int id;
+
+		private final User user;
+
+		private final long score;
+
+		public Row(int id, User user, long score) {
+			this.id = id;
+			this.user = user;
+			this.score = score;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public User getUser() {
+			return user;
+		}
+
+		public long getScore() {
+			return score;
+		}
+
+	}
+
+	public static void main(String[] args) {
+		List<Map<String, Object>> rows = U.list();
+		List<Row> beanRows = U.list();
+
+		for (int i = 0; i < 200; i++) {
+			rows.add(U.<String, Object>map("id", i, "name", "User " + i, "email", "user" + i + "@example.com", "score", i * 7));
+			beanRows.add(new Row(i, new User("User " + i, "user" + i + "@example.com"), i * 7));
+		}
+
+		final Map<String, Object> model = U.<String, Object>map("rows", rows);
+		final Map<String, Object> beanModel = U.<String, Object>map("rows", beanRows);
+
+		final RenderDSL table = Render.template(TEMPLATE);
+		final RenderDSL beanTable = Render.template(BEAN_TEMPLATE);
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		table.renderTo(out, model);
+		System.out.println("Rendered size: " + out.size());
+
+		for (int i = 0; i < 10; i++) {
+			Msc.benchmark("render 200-row table (maps)", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					out.reset();
+					table.renderTo(out, model);
+				}
+			});
+
+			Msc.benchmark("render 200-row table (beans)", COUNT, new Runnable() {
+				@Override
+				public void run() {
+					out.reset();
+					beanTable.renderTo(out, beanModel);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+package org.rapidoid.render;
+
+/*
+ * #%L
+ * rapidoid-render
+ * %%
+ * Copyright (C) 2014 - 2016 Nikolche Mihajlovski and contributors
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.rapidoid.annotation.Authors;
+import org.rapidoid.annotation.Since;
+import org.rapidoid.cls.Invokers;
+import org.rapidoid.render.retriever.InlineCache;
+import org.rapidoid.render.retriever.PropertyAccessors;
+import org.rapidoid.u.U;
+import org.rapidoid.var.Var;
+import org.rapidoid.var.Vars;
+
+import java.util.List;
+
+@Authors("Nikolche Mihajlovski")
+@Since("5.2.5")
+public class ValueRetrieverTest extends AbstractRenderTest {
+
+	public static class Person {
+
+		public final String name;
+
+		private final Person friend;
+
+		public Person(String name, Person friend) {
+			this.name = name;
+			this.friend = friend;
+		}
+
+		public Person getFriend() {
+			return friend;
+		}
+
+		public int getAge() {
+			return name.length() * 10;
+		}
+
+	}
+
+	public static class Box {
+
+		public Object getContent() {
+			return Vars.var("content", "boxed");
+		}
+
+		public Var<Integer> getNum() {
+			return Vars.var("num", 7);
+		}
+
+		public String getBroken() {
+			throw new UnsupportedOperationException("broken");
+		}
+
+	}
+
+	static class Hidden {
+
+		public String getName() {
+			return "hidden";
+		}
+
+	}
+
+	@Test
+	public void testGeneratedAccessors() {
+		// the accessors are generated, unless the JVM doesn't allow it
+		if (Invokers.isGenerationSupported()) {
+			isTrue(PropertyAccessors.of(Person.class, "age").getClass().getName().contains("$$Accessor"));
+			isTrue(PropertyAccessors.of(Person.class, "name").getClass().getName().contains("$$Accessor"));
+		}
+
+		// non-public classes fall back to the reflective accessors
+		isFalse(PropertyAccessors.of(Hidden.class, "name").getClass().getName().contains("$$Accessor"));
+
+		eq(PropertyAccessors.of(Person.class, "xyz"), PropertyAccessors.NONE);
+
+		// the accessors are created once per class and property
+		isTrue(PropertyAccessors.of(Person.class, "age") == PropertyAccessors.of(Person.class, "age"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testAccessorErrorsPropagate() {
+		PropertyAccessors.of(Box.class, "broken").get(new Box());
+	}
+
+	@Test
+	public void testBeanProperties() {
+		Person bob = new Person("bob", new Person("alice", null));
+
+		eq(Render.template("${name}:${age}").model(bob), "bob:30");
+		eq(Render.template("${friend.name}:${friend.age}").model(bob), "alice:50");
+		eq(Render.template("${friend.friend.name}").model(bob), "N/A");
+		eq(Render.template("${name}").model(new Hidden()), "hidden");
+	}
+
+	@Test
+	public void testUnwrappingVars() {
+		eq(Render.template("${content}:${num}").model(new Box()), "boxed:7");
+		eq(Render.template("${box.content}:${box.num}").model(U.map("box", new Box())), "boxed:7");
+	}
+
+	@Test
+	public void testNestedMapsAndBeans() {
+		Object model = U.map("user", new Person("bob", null), "meta", U.map("x", U.map("y", 123)));
+
+		eq(Render.template("${user.name}-${meta.x.y}-${user.xyz}-${meta.z.y}").model(model), "bob-123-N/A-N/A");
+	}
+
+	@Test
+	public void testScopes() {
+		Object model = U.map("title", "T", "people", U.list(new Person("ab", null), new Person("cde", null)));
+
+		eq(Render.template("{{#people}}${title}:${name}:${age};{{/people}}").model(model), "T:ab:20;T:cde:30;");
+	}
+
+	@Test
+	public void testPolymorphicModels() {
+		List<Object> items = U.list();
+
+		items.add(new Person("bob", null));
+		items.add(new Hidden());
+		items.add(U.map("name", "map"));
+		items.add("str");
+
+		for (int i = 0; i < 10; i++) {
+			items.add(i % 2 == 0 ? new Person("p" + i, null) : new Object() {
+				public String getName() {
+					return "anon";
+				}
+			});
+		}
+
+		String result = Render.template("{{#.}}${name},{{/.}}").model(items);
+
+		eq(result, "bob,hidden,map,N/A,p0,anon,p2,anon,p4,anon,p6,anon,p8,anon,");
+	}
+
+	@Test
+	public void testInlineCacheIsBounded() {
+		InlineCache cache = new InlineCache("name");
+
+		Class<?>[] classes = {Person.class, Hidden.class, String.class, Integer.class, Long.class, Object.class};
+
+		for (Class<?> cls : classes) {
+			cache.get(cls);
+		}
+
+		eq(cache.size(), InlineCache.MAX_ENTRIES);
+		eq(cache.get(Object.class), PropertyAccessors.NONE);
+	}
+
+}
@@ -94,4 +94,53 @@ public class HttpSessionTest extends HttpTestCommons {
 		eq(saveCounter.get(), 6);
 	}
 
+	@Test
+	public void testUnchangedSessionIsNotSaved() {
+		On.get("/read").plain(new ReqHandler() {
+			@Override
+			public Object execute(Req req) throws Exception {
+				return req.session("n", 0);
+			}
+		});
+
+		On.get("/write").plain(new ReqHandler() {
+			@Override
+			public Object execute(Req req) throws Exception {
+				req.session().put("n", 5);
+				return "ok";
+			}
+		});
+
+		final AtomicInteger loadCounter = new AtomicInteger();
+		final AtomicInteger saveCounter = new AtomicInteger();
+
+		My.sessionManager(new SessionManager() {
+
+			@Override
+			public Map<String, Serializable> loadSession(Req req, String sessionId) throws Exception {
+				loadCounter.incrementAndGet();
+				return Defaults.sessionManager().loadSession(req, sessionId);
+			}
+
+			@Override
+			public void saveSession(Req req, String sessionId, Map<String, Serializable> session) throws Exception {
+				saveCounter.incrementAndGet();
+				Defaults.sessionManager().saveSession(req, sessionId, session);
+			}
+
+		});
+
+		HttpClient client = HTTP.client().keepCookies(true);
+
+		eq(client.get(localhost("/write")).fetch(), "ok");
+		eq(client.get(localhost("/read")).fetch(), "5");
+		eq(client.get(localhost("/read")).fetch(), "5");
+
+		client.close();
+
+		// the custom session manager is called to save only the changed sessions
+		eq(loadCounter.get(), 3);
+		eq(saveCounter.get(), 1);
+	}
+
 }